@@ -0,0 +1,80 @@
+package com.skyhigh.casa.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over string keys
+ * Estimates never undercount; with width w and depth d the overcount is at most
+ * e/w of the total weight with probability 1 - e^-d. Memory is fixed at w * d counters.
+ * Not thread-safe.
+ */
+public class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[][] counts;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new long[depth][width];
+    }
+
+    /**
+     * Add weight to a key
+     *
+     * @return the estimate for the key after the update
+     */
+    public long add(String key, long weight) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = cell(hash, row, width);
+            counts[row][cell] += weight;
+            estimate = Math.min(estimate, counts[row][cell]);
+        }
+        total += weight;
+        return estimate;
+    }
+
+    /**
+     * Estimated weight of a key
+     */
+    public long estimate(String key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts[row][cell(hash, row, width)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Total weight added since the last clear
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    public void clear() {
+        for (long[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    /**
+     * Cell of a key in one row; rows use independent mixes of the key hash
+     */
+    static int cell(int hash, int row, int width) {
+        long h = hash * 0x9E3779B97F4A7C15L + row * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) Math.floorMod(h, (long) width);
+    }
+}
@@ -0,0 +1,74 @@
+package com.skyhigh.casa.analytics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded set of the keys with the highest sketch estimates
+ * Each update offers the key with its current estimate; once the set is full a key only
+ * gets in by beating the smallest entry, which is evicted. Not thread-safe.
+ */
+public class HeavyHitters {
+
+    private final int capacity;
+    private final Map<String, Long> candidates;
+    private String smallestKey;
+    private long smallestEstimate;
+
+    public HeavyHitters(int capacity) {
+        this.capacity = capacity;
+        this.candidates = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Offer a key with its current estimate
+     */
+    public void offer(String key, long estimate) {
+        if (candidates.containsKey(key)) {
+            candidates.put(key, estimate);
+            if (key.equals(smallestKey)) {
+                findSmallest();
+            }
+            return;
+        }
+        if (candidates.size() < capacity) {
+            candidates.put(key, estimate);
+            if (smallestKey == null || estimate < smallestEstimate) {
+                smallestKey = key;
+                smallestEstimate = estimate;
+            }
+            return;
+        }
+        if (estimate > smallestEstimate) {
+            candidates.remove(smallestKey);
+            candidates.put(key, estimate);
+            findSmallest();
+        }
+    }
+
+    /**
+     * Keys currently tracked
+     */
+    public List<String> keys() {
+        return new ArrayList<>(candidates.keySet());
+    }
+
+    public void clear() {
+        candidates.clear();
+        smallestKey = null;
+        smallestEstimate = 0;
+    }
+
+    private void findSmallest() {
+        smallestKey = null;
+        smallestEstimate = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (entry.getValue() < smallestEstimate) {
+                smallestKey = entry.getKey();
+                smallestEstimate = entry.getValue();
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.skyhigh.casa.analytics;
+
+/**
+ * Per-key event rate and its EWMA baseline, kept in a fixed grid of hashed cells
+ * Like a count-min sketch, every key maps to one cell per row and the row with the
+ * smallest current count is the least disturbed by collisions, so its count and baseline
+ * are reported. Counts are per interval; closing an interval folds it into the baselines.
+ * Not thread-safe.
+ */
+public class RateBaselineSketch {
+
+    private final int width;
+    private final int depth;
+    private final double alpha;
+    private final long[][] current;
+    private final double[][] baseline;
+
+    public RateBaselineSketch(int width, int depth, double alpha) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Sketch width and depth must be positive");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.alpha = alpha;
+        this.current = new long[depth][width];
+        this.baseline = new double[depth][width];
+    }
+
+    /**
+     * Count one event for a key in the current interval
+     */
+    public Rate add(String key) {
+        int hash = key.hashCode();
+        int bestRow = 0;
+        int bestCell = 0;
+        long best = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int cell = CountMinSketch.cell(hash, row, width);
+            long count = ++current[row][cell];
+            if (count < best) {
+                best = count;
+                bestRow = row;
+                bestCell = cell;
+            }
+        }
+        return new Rate(best, baseline[bestRow][bestCell]);
+    }
+
+    /**
+     * Close the given number of intervals, folding their counts into the baselines
+     * Intervals after the first had no events.
+     */
+    public void advance(long intervals) {
+        if (intervals <= 0) {
+            return;
+        }
+        double idleDecay = Math.pow(1 - alpha, intervals - 1);
+        for (int row = 0; row < depth; row++) {
+            for (int cell = 0; cell < width; cell++) {
+                double folded = alpha * current[row][cell] + (1 - alpha) * baseline[row][cell];
+                baseline[row][cell] = folded * idleDecay;
+                current[row][cell] = 0;
+            }
+        }
+    }
+
+    /**
+     * Events of a key in the current interval and its baseline per interval
+     */
+    public record Rate(long count, double baseline) {
+    }
+}
@@ -0,0 +1,336 @@
+package com.skyhigh.casa.archive;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.PolicyAction;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed columnar segment file for archived audit logs
+ *
+ * Layout: a fixed header (row count, min/max timestamp, per-status counts) that can be
+ * read without decoding any data, followed by one deflated block per column.
+ * Ids and timestamps are delta-encoded varints, strings are dictionary-encoded.
+ */
+public final class AuditSegment {
+
+    private static final int MAGIC = 0x43534547; // "CSEG"
+    private static final short VERSION = 1;
+
+    private AuditSegment() {
+    }
+
+    /**
+     * Segment header, enough to decide whether a segment overlaps a query range
+     */
+    public record Header(Path path, int rowCount, LocalDateTime minTimestamp, LocalDateTime maxTimestamp,
+            long[] statusCounts) {
+
+        public boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            return !maxTimestamp.isBefore(start) && !minTimestamp.isAfter(end);
+        }
+    }
+
+    /**
+     * Write logs (sorted by id) to a segment file
+     */
+    public static void write(Path path, List<AuditLog> logs) throws IOException {
+        LocalDateTime min = logs.get(0).getTimestamp();
+        LocalDateTime max = min;
+        long[] statusCounts = new long[AuditLog.UploadStatus.values().length];
+        for (AuditLog auditLog : logs) {
+            if (auditLog.getTimestamp().isBefore(min)) {
+                min = auditLog.getTimestamp();
+            }
+            if (auditLog.getTimestamp().isAfter(max)) {
+                max = auditLog.getTimestamp();
+            }
+            statusCounts[auditLog.getStatus().ordinal()]++;
+        }
+
+        List<byte[]> columns = List.of(
+                encodeDeltas(logs, AuditLog::getId),
+                encodeDeltas(logs, auditLog -> toMicros(auditLog.getTimestamp())),
+                encodeStrings(logs, AuditLog::getFileId),
+                encodeStrings(logs, AuditLog::getFileName),
+                encodeDeltas(logs, AuditLog::getFileSize),
+                encodeStrings(logs, AuditLog::getUserId),
+                encodeStrings(logs, AuditLog::getIpAddress),
+                encodeStrings(logs, auditLog -> auditLog.getStatus().name()),
+                encodeDeltas(logs, auditLog -> auditLog.getRiskScore().longValue()),
+                encodeStrings(logs, auditLog -> auditLog.getSensitiveDataFound() == null
+                        ? null : auditLog.getSensitiveDataFound().toString()),
+                encodeStrings(logs, auditLog -> auditLog.getSensitiveTypes() == null || auditLog.getSensitiveTypes().isEmpty()
+                        ? null : String.join(",", auditLog.getSensitiveTypes())),
+                encodeStrings(logs, auditLog -> auditLog.getPolicyAction().name()),
+                encodeStrings(logs, AuditLog::getStorageLocation),
+                encodeStrings(logs, AuditLog::getBlockReason),
+                encodeStrings(logs, AuditLog::getMetadata));
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(logs.size());
+            out.writeLong(toMicros(min));
+            out.writeLong(toMicros(max));
+            out.writeByte(statusCounts.length);
+            for (long count : statusCounts) {
+                out.writeLong(count);
+            }
+            out.writeByte(columns.size());
+            for (byte[] column : columns) {
+                byte[] compressed = deflate(column);
+                out.writeInt(column.length);
+                out.writeInt(compressed.length);
+                out.write(compressed);
+            }
+        }
+    }
+
+    /**
+     * Read only the header of a segment file
+     */
+    public static Header readHeader(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return readHeader(path, in);
+        }
+    }
+
+    /**
+     * Decode all rows of a segment file
+     */
+    public static List<AuditLog> read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            Header header = readHeader(path, in);
+            int rows = header.rowCount();
+            int columnCount = in.readUnsignedByte();
+
+            List<DataInputStream> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                int rawLength = in.readInt();
+                byte[] compressed = new byte[in.readInt()];
+                in.readFully(compressed);
+                columns.add(new DataInputStream(new ByteArrayInputStream(inflate(compressed, rawLength))));
+            }
+
+            long[] ids = decodeDeltas(columns.get(0), rows);
+            long[] timestamps = decodeDeltas(columns.get(1), rows);
+            String[] fileIds = decodeStrings(columns.get(2), rows);
+            String[] fileNames = decodeStrings(columns.get(3), rows);
+            long[] fileSizes = decodeDeltas(columns.get(4), rows);
+            String[] userIds = decodeStrings(columns.get(5), rows);
+            String[] ipAddresses = decodeStrings(columns.get(6), rows);
+            String[] statuses = decodeStrings(columns.get(7), rows);
+            long[] riskScores = decodeDeltas(columns.get(8), rows);
+            String[] sensitiveFound = decodeStrings(columns.get(9), rows);
+            String[] sensitiveTypes = decodeStrings(columns.get(10), rows);
+            String[] policyActions = decodeStrings(columns.get(11), rows);
+            String[] storageLocations = decodeStrings(columns.get(12), rows);
+            String[] blockReasons = decodeStrings(columns.get(13), rows);
+            String[] metadata = decodeStrings(columns.get(14), rows);
+
+            List<AuditLog> logs = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                logs.add(AuditLog.builder()
+                        .id(ids[i])
+                        .timestamp(fromMicros(timestamps[i]))
+                        .fileId(fileIds[i])
+                        .fileName(fileNames[i])
+                        .fileSize(fileSizes[i])
+                        .userId(userIds[i])
+                        .ipAddress(ipAddresses[i])
+                        .status(AuditLog.UploadStatus.valueOf(statuses[i]))
+                        .riskScore((int) riskScores[i])
+                        .sensitiveDataFound(sensitiveFound[i] == null ? null : Boolean.valueOf(sensitiveFound[i]))
+                        .sensitiveTypes(sensitiveTypes[i] == null
+                                ? new ArrayList<>() : new ArrayList<>(List.of(sensitiveTypes[i].split(","))))
+                        .policyAction(PolicyAction.valueOf(policyActions[i]))
+                        .storageLocation(storageLocations[i])
+                        .blockReason(blockReasons[i])
+                        .metadata(metadata[i])
+                        .build());
+            }
+            return logs;
+        }
+    }
+
+    private static Header readHeader(Path path, DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not an audit segment: " + path);
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported audit segment version " + version + ": " + path);
+        }
+        int rowCount = in.readInt();
+        LocalDateTime min = fromMicros(in.readLong());
+        LocalDateTime max = fromMicros(in.readLong());
+        long[] statusCounts = new long[in.readUnsignedByte()];
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = in.readLong();
+        }
+        return new Header(path, rowCount, min, max, statusCounts);
+    }
+
+    private static byte[] encodeDeltas(List<AuditLog> logs, Function<AuditLog, Long> column) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long previous = 0;
+        for (AuditLog auditLog : logs) {
+            Long value = column.apply(auditLog);
+            long current = value != null ? value : 0;
+            writeVarLong(buffer, zigZag(current - previous));
+            previous = current;
+        }
+        return buffer.toByteArray();
+    }
+
+    private static long[] decodeDeltas(DataInputStream in, int rows) throws IOException {
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += unZigZag(readVarLong(in));
+            values[i] = previous;
+        }
+        return values;
+    }
+
+    /**
+     * Dictionary-encode a string column: distinct values first, then one index per row (0 = null)
+     */
+    private static byte[] encodeStrings(List<AuditLog> logs, Function<AuditLog, String> column) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] indexes = new int[logs.size()];
+        for (int i = 0; i < logs.size(); i++) {
+            String value = column.apply(logs.get(i));
+            if (value == null) {
+                indexes[i] = 0;
+                continue;
+            }
+            indexes[i] = dictionary.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size();
+            });
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        writeVarLong(buffer, values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(buffer, bytes.length);
+            buffer.write(bytes);
+        }
+        for (int index : indexes) {
+            writeVarLong(buffer, index);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String[] decodeStrings(DataInputStream in, int rows) throws IOException {
+        String[] dictionary = new String[(int) readVarLong(in) + 1];
+        for (int i = 1; i < dictionary.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.readFully(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = dictionary[(int) readVarLong(in)];
+        }
+        return values;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                offset += inflater.inflate(raw, offset, rawLength - offset);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt audit segment column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Truncated audit segment column");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in audit segment");
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,143 @@
+package com.skyhigh.casa.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Concurrency limiter whose limit adapts to observed latency
+ *
+ * Gradient algorithm: the long-term average latency is compared with each new sample.
+ * While samples stay near the average the limit grows by roughly sqrt(limit); when latency
+ * rises above it the limit shrinks proportionally. Samples are latency per unit of cost, so a
+ * large file taking longer than a small one is not mistaken for queueing. Dropped work
+ * (timeouts, overload) cuts the limit multiplicatively; ignored work leaves it alone.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_WINDOW_WEIGHT = 0.05;
+    private static final double FAILURE_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final IntConsumer limitListener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private double longLatency = -1;
+    private int inFlight;
+    private int waiting;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, IntConsumer limitListener) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limitListener = limitListener;
+    }
+
+    /**
+     * Wait up to timeout for a permit
+     */
+    public boolean acquire(long timeout, TimeUnit unit) throws InterruptedException {
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * How a unit of work ended, as far as the limit is concerned
+     */
+    public enum Outcome {
+        /** Completed; its latency is a sample */
+        SUCCESS,
+        /** Timed out or was refused for lack of capacity, a sign of overload */
+        DROPPED,
+        /** Failed for reasons unrelated to load, such as malformed input */
+        IGNORED
+    }
+
+    /**
+     * Return a permit and feed the observed latency, per unit of cost, into the limit
+     */
+    public void release(long latencyNanos, double cost, Outcome outcome) {
+        int previous;
+        int current;
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= (int) limit / 2;
+            inFlight--;
+            previous = (int) limit;
+
+            if (outcome == Outcome.DROPPED) {
+                limit = Math.max(minLimit, limit * FAILURE_BACKOFF);
+            } else if (outcome == Outcome.SUCCESS && latencyNanos > 0) {
+                double sample = latencyNanos / Math.max(1.0, cost);
+                longLatency = longLatency < 0
+                        ? sample
+                        : longLatency * (1 - LONG_WINDOW_WEIGHT) + sample * LONG_WINDOW_WEIGHT;
+
+                double gradient = Math.max(0.5, Math.min(1.0, longLatency / sample));
+                double target = limit * gradient + Math.sqrt(limit);
+                // Don't grow the limit while demand doesn't reach it
+                if (target < limit || saturated) {
+                    limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+                }
+            }
+            current = (int) limit;
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        if (current != previous && limitListener != null) {
+            limitListener.accept(current);
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.skyhigh.casa.concurrency;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Weighted semaphore over a fixed number of bytes
+ *
+ * Waiters are admitted in arrival order, so a large reservation is not starved by a
+ * stream of small ones. A reservation larger than the whole budget is clamped to it and
+ * therefore runs alone.
+ */
+public class ByteBudget {
+
+    private final long limit;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final Deque<Object> queue = new ArrayDeque<>();
+
+    private long used;
+
+    public ByteBudget(long limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Budget must be positive: " + limit);
+        }
+        this.limit = limit;
+    }
+
+    /**
+     * Wait up to timeout to reserve bytes
+     *
+     * @return the number of bytes reserved, to be passed to release, or -1 on timeout
+     */
+    public long acquire(long bytes, long timeout, TimeUnit unit) throws InterruptedException {
+        long weight = Math.max(0, Math.min(bytes, limit));
+        long remaining = unit.toNanos(timeout);
+        Object ticket = new Object();
+        lock.lock();
+        try {
+            queue.addLast(ticket);
+            try {
+                while (queue.peekFirst() != ticket || used + weight > limit) {
+                    if (remaining <= 0) {
+                        return -1;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                used += weight;
+                return weight;
+            } finally {
+                queue.remove(ticket);
+                // The next waiter may fit now that the head has moved
+                released.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Return bytes reserved by acquire
+     */
+    public void release(long bytes) {
+        lock.lock();
+        try {
+            used = Math.max(0, used - bytes);
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getUsed() {
+        lock.lock();
+        try {
+            return used;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getWaiting() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.skyhigh.casa.config;
+
+import com.skyhigh.casa.datasource.H2ReplicaMirror;
+import com.skyhigh.casa.datasource.ReadWriteRoutingDataSource;
+import com.skyhigh.casa.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Read/Write Split Configuration
+ * Only enabled when replica.enabled=true. The primary pool is configured by spring.datasource.*
+ * and spring.datasource.hikari.*, the replica pool by replica.* and replica.hikari.*.
+ */
+@Configuration
+@Slf4j
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class DataSourceConfiguration {
+
+    @Value("${replica.url}")
+    private String replicaUrl;
+
+    @Value("${replica.username:}")
+    private String replicaUsername;
+
+    @Value("${replica.password:}")
+    private String replicaPassword;
+
+    @Value("${replica.driver-class-name:}")
+    private String replicaDriverClassName;
+
+    @Value("${replica.max-lag:5000}")
+    private long maxLagMs;
+
+    @Value("${replica.mirror-primary:false}")
+    private boolean mirrorPrimary;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("casa-primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(replicaUrl);
+        dataSource.setUsername(replicaUsername);
+        dataSource.setPassword(replicaPassword);
+        if (!replicaDriverClassName.isEmpty()) {
+            dataSource.setDriverClassName(replicaDriverClassName);
+        }
+        dataSource.setPoolName("casa-replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") HikariDataSource primary,
+            @Qualifier("replicaDataSource") HikariDataSource replica, DataSourceProperties properties,
+            MeterRegistry meterRegistry) {
+        H2ReplicaMirror mirror = mirrorPrimary
+                ? new H2ReplicaMirror(properties.determineUrl(), properties.determineUsername(),
+                        properties.determinePassword())
+                : null;
+        return new ReplicaLagMonitor(primary, replica, maxLagMs, mirror, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+            @Qualifier("replicaDataSource") HikariDataSource replica, ReplicaLagMonitor monitor,
+            MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(monitor::isAvailable, meterRegistry);
+        routing.setTargetDataSources(Map.of(
+                ReadWriteRoutingDataSource.Route.PRIMARY, primary,
+                ReadWriteRoutingDataSource.Route.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        log.info("Routing read-only transactions to replica {} (max lag {} ms)", replicaUrl, maxLagMs);
+        // The route is picked on first use, once the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,114 @@
+package com.skyhigh.casa.config;
+
+import com.skyhigh.casa.policy.PolicyConfig;
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.ScannerConfig;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import com.skyhigh.casa.scanner.ValidationStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+
+/**
+ * Scanner and Policy Engine Configuration
+ * Binds scanner.* and policy.* properties onto the casa-core engines. Tenants use the same
+ * keys under tenants.&lt;id&gt;., falling back to the global value for anything they do not set.
+ */
+@Configuration
+public class ScannerConfiguration {
+
+    @Bean
+    public SensitiveDataScanner sensitiveDataScanner(Environment properties, MeterRegistry meterRegistry) {
+        SensitiveDataScanner scanner = new SensitiveDataScanner(scannerConfig(properties, ""));
+
+        for (ValidationStats stats : scanner.getValidationStats()) {
+            Tags tags = Tags.of("type", stats.getType(), "validator", stats.getValidator());
+            FunctionCounter.builder("casa.scan.validator.checked", stats, ValidationStats::getChecked)
+                    .description("Pattern matches checked by a validator")
+                    .tags(tags)
+                    .register(meterRegistry);
+            FunctionCounter.builder("casa.scan.validator.rejected", stats, ValidationStats::getRejected)
+                    .description("Pattern matches a validator rejected as false positives")
+                    .tags(tags)
+                    .register(meterRegistry);
+            Gauge.builder("casa.scan.validator.rejection.rate", stats, ValidationStats::getRejectionRate)
+                    .description("Share of checked matches rejected since startup")
+                    .tags(tags)
+                    .register(meterRegistry);
+        }
+        return scanner;
+    }
+
+    @Bean
+    public PolicyEngine policyEngine(Environment properties) {
+        return new PolicyEngine(policyConfig(properties, ""));
+    }
+
+    /**
+     * Scanner settings under the given prefix ("" for the global ones)
+     */
+    public static ScannerConfig scannerConfig(PropertyResolver properties, String prefix) {
+        ScannerConfig defaults = ScannerConfig.builder().build();
+        return ScannerConfig.builder()
+                .emailPattern(setting(properties, prefix, "scanner.patterns.email", defaults.getEmailPattern()))
+                .creditCardPattern(setting(properties, prefix, "scanner.patterns.credit-card",
+                        defaults.getCreditCardPattern()))
+                .aadhaarPattern(setting(properties, prefix, "scanner.patterns.aadhaar", defaults.getAadhaarPattern()))
+                .awsKeyPattern(setting(properties, prefix, "scanner.patterns.aws-key", defaults.getAwsKeyPattern()))
+                .passwordPattern(setting(properties, prefix, "scanner.patterns.password",
+                        defaults.getPasswordPattern()))
+                .digitPrefilter(setting(properties, prefix, "scanner.prefilter.digit-runs",
+                        defaults.isDigitPrefilter()))
+                .digitPrefilterSimd(setting(properties, prefix, "scanner.prefilter.simd",
+                        defaults.isDigitPrefilterSimd()))
+                .matchValidation(setting(properties, prefix, "scanner.validation.enabled",
+                        defaults.isMatchValidation()))
+                .entropyEnabled(setting(properties, prefix, "scanner.entropy.enabled", defaults.isEntropyEnabled()))
+                .entropyMinLength(setting(properties, prefix, "scanner.entropy.min-length",
+                        defaults.getEntropyMinLength()))
+                .entropyContextMinLength(setting(properties, prefix, "scanner.entropy.context-min-length",
+                        defaults.getEntropyContextMinLength()))
+                .entropyMaxLength(setting(properties, prefix, "scanner.entropy.max-length",
+                        defaults.getEntropyMaxLength()))
+                .entropyThreshold(setting(properties, prefix, "scanner.entropy.threshold",
+                        defaults.getEntropyThreshold()))
+                .pdfThreads(setting(properties, prefix, "scanner.pdf.threads", defaults.getPdfThreads()))
+                .pdfParallelMinPages(setting(properties, prefix, "scanner.pdf.parallel-min-pages",
+                        defaults.getPdfParallelMinPages()))
+                .pdfPagesPerTask(setting(properties, prefix, "scanner.pdf.pages-per-task",
+                        defaults.getPdfPagesPerTask()))
+                .pdfMainMemoryBytes(setting(properties, prefix, "scanner.pdf.main-memory-bytes",
+                        defaults.getPdfMainMemoryBytes()))
+                .pdfCopyBudgetBytes(setting(properties, prefix, "scanner.pdf.copy-budget-bytes",
+                        defaults.getPdfCopyBudgetBytes()))
+                .build();
+    }
+
+    /**
+     * Policy settings under the given prefix ("" for the global ones)
+     */
+    public static PolicyConfig policyConfig(PropertyResolver properties, String prefix) {
+        PolicyConfig defaults = PolicyConfig.builder().build();
+        return PolicyConfig.builder()
+                .maxFileSize(setting(properties, prefix, "policy.max-file-size", defaults.getMaxFileSize()))
+                .blockSensitiveData(setting(properties, prefix, "policy.block-sensitive-data",
+                        defaults.isBlockSensitiveData()))
+                .requireAuthentication(setting(properties, prefix, "policy.require-authentication",
+                        defaults.isRequireAuthentication()))
+                .allowedFileTypes(setting(properties, prefix, "policy.allowed-file-types",
+                        defaults.getAllowedFileTypes()))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T setting(PropertyResolver properties, String prefix, String key, T defaultValue) {
+        Class<T> type = (Class<T>) defaultValue.getClass();
+        T global = properties.getProperty(key, type, defaultValue);
+        return prefix.isEmpty() ? global : properties.getProperty(prefix + key, type, global);
+    }
+}
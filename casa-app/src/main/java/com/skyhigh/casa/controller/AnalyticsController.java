@@ -0,0 +1,127 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.model.AuditRollup;
+import com.skyhigh.casa.model.LiveAnalyticsResponse;
+import com.skyhigh.casa.service.AuditRollupService;
+import com.skyhigh.casa.service.LiveAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REST Controller for audit analytics
+ * Series are answered from the pre-aggregated rollup tables, the live view from in-memory sketches
+ */
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class AnalyticsController {
+
+    private static final long MAX_BUCKETS = 10_000;
+
+    private final AuditRollupService auditRollupService;
+    private final LiveAnalyticsService liveAnalyticsService;
+
+    /**
+     * Get users, IP addresses and sensitive types with the most sensitive uploads right now, and upload bursts
+     */
+    @GetMapping("/live")
+    public ResponseEntity<LiveAnalyticsResponse> getLive(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(liveAnalyticsService.getLive(limit));
+    }
+
+    /**
+     * Get uploads per bucket by status
+     */
+    @GetMapping("/uploads")
+    public ResponseEntity<List<AuditRollupService.TimeBucket>> getUploads(
+            @RequestParam(defaultValue = "HOUR") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        AuditRollup.Granularity level = parseGranularity(granularity);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (level == null || !isValidRange(level, start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(auditRollupService.getUploadsByStatus(level, start, end));
+    }
+
+    /**
+     * Get top sensitive types per bucket
+     */
+    @GetMapping("/sensitive-types")
+    public ResponseEntity<List<AuditRollupService.TimeBucket>> getSensitiveTypes(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "5") int limit) {
+
+        AuditRollup.Granularity level = parseGranularity(granularity);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        if (level == null || limit < 1 || !isValidRange(level, start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(auditRollupService.getTopSensitiveTypes(level, start, end, limit));
+    }
+
+    /**
+     * Get risk score distribution per bucket, optionally for a single user
+     */
+    @GetMapping("/risk-distribution")
+    public ResponseEntity<List<AuditRollupService.TimeBucket>> getRiskDistribution(
+            @RequestParam(required = false) String userId,
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        AuditRollup.Granularity level = parseGranularity(granularity);
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        if (level == null || !isValidRange(level, start, end)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(auditRollupService.getRiskDistribution(userId, level, start, end));
+    }
+
+    /**
+     * Parse granularity name, null if invalid
+     */
+    private AuditRollup.Granularity parseGranularity(String granularity) {
+        try {
+            return AuditRollup.Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reject inverted ranges, ranges that would produce too many buckets, and ranges
+     * reaching back past the retention of the granularity's buckets
+     */
+    private boolean isValidRange(AuditRollup.Granularity granularity, LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            return false;
+        }
+        Duration range = Duration.between(start, end);
+        long buckets = switch (granularity) {
+            case MINUTE -> range.toMinutes();
+            case HOUR -> range.toHours();
+            case DAY -> range.toDays();
+        };
+        return buckets <= MAX_BUCKETS && auditRollupService.isRetained(granularity, start);
+    }
+}
@@ -1,7 +1,11 @@
 package com.skyhigh.casa.controller;
 
 import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditSearchResponse;
+import com.skyhigh.casa.model.MatchDetailsResponse;
 import com.skyhigh.casa.service.AuditLogService;
+import com.skyhigh.casa.service.AuditSearchService;
+import com.skyhigh.casa.service.LiveFeedService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -9,9 +13,12 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -26,6 +33,8 @@ import java.util.List;
 public class AuditLogController {
 
     private final AuditLogService auditLogService;
+    private final LiveFeedService liveFeedService;
+    private final AuditSearchService auditSearchService;
 
     /**
      * Get all logs with pagination
@@ -47,6 +56,34 @@ public class AuditLogController {
         return ResponseEntity.ok(logs);
     }
 
+    /**
+     * Full-text search over file names, block reasons, users and sensitive types, newest first
+     * Every whitespace-separated term must match; pass nextBefore from the response as before to page.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<AuditSearchResponse> searchLogs(
+            @RequestParam String q,
+            @RequestParam(required = false) String field,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size) {
+
+        try {
+            return ResponseEntity.ok(auditSearchService.search(q, field, before, Math.max(1, Math.min(size, 100))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get per-match details of one log
+     */
+    @GetMapping("/{id}/matches")
+    public ResponseEntity<MatchDetailsResponse> getMatchDetails(@PathVariable Long id) throws IOException {
+        return auditLogService.getMatchDetails(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Get logs by status
      */
@@ -131,4 +168,12 @@ public class AuditLogController {
         List<AuditLog> logs = auditLogService.getRecentLogs();
         return ResponseEntity.ok(logs);
     }
+
+    /**
+     * Live stream of audit decisions and statistics (Server-Sent Events)
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLogs() {
+        return liveFeedService.subscribe();
+    }
 }
@@ -0,0 +1,157 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.exception.CapacityExceededException;
+import com.skyhigh.casa.exception.TenantMismatchException;
+import com.skyhigh.casa.exception.UnknownTenantException;
+import com.skyhigh.casa.exception.UploadSessionException;
+import com.skyhigh.casa.model.FileUploadResponse;
+import com.skyhigh.casa.model.UploadSessionResponse;
+import com.skyhigh.casa.ratelimit.RateLimitFilter;
+import com.skyhigh.casa.service.ChunkedUploadService;
+import com.skyhigh.casa.tenant.TenantRegistry;
+import com.skyhigh.casa.util.ClientIpResolver;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+
+/**
+ * REST Controller for resumable chunked uploads
+ * POST creates a session, PATCH appends bytes at Upload-Offset, GET/HEAD report the
+ * offset to resume from, and POST .../complete returns the same result as a form upload.
+ */
+@RestController
+@RequestMapping("/api/v1/uploads")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class ChunkedUploadController {
+
+    public static final String UPLOAD_OFFSET = "Upload-Offset";
+    public static final String UPLOAD_LENGTH = "Upload-Length";
+
+    private final ChunkedUploadService chunkedUploadService;
+    private final ClientIpResolver clientIpResolver;
+
+    /**
+     * Create upload session endpoint
+     */
+    @PostMapping
+    public ResponseEntity<UploadSessionResponse> createSession(
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "contentType", required = false) String contentType,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(UPLOAD_LENGTH) long length,
+            @RequestHeader(value = RateLimitFilter.USER_ID_HEADER, required = false) String userIdHeader,
+            @RequestHeader(value = TenantRegistry.TENANT_HEADER, required = false) String tenantId,
+            HttpServletRequest request) throws IOException {
+
+        if (userId == null || userId.isEmpty()) {
+            userId = userIdHeader;
+        }
+        UploadSessionResponse session = chunkedUploadService.create(fileName, contentType, length, userId,
+                clientIpResolver.getClientIpAddress(request), tenantId);
+        return ResponseEntity.created(URI.create("/api/v1/uploads/" + session.getUploadId()))
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .body(session);
+    }
+
+    /**
+     * Get upload session offset endpoint (also answers HEAD)
+     */
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<UploadSessionResponse> getSession(@PathVariable String uploadId) {
+        UploadSessionResponse session = chunkedUploadService.getStatus(uploadId);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .header(UPLOAD_LENGTH, String.valueOf(session.getLength()))
+                .body(session);
+    }
+
+    /**
+     * Append chunk endpoint; the raw request body is the chunk
+     */
+    @PatchMapping(value = "/{uploadId}", consumes = {"application/offset+octet-stream", "application/octet-stream"})
+    public ResponseEntity<Void> appendChunk(
+            @PathVariable String uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request) throws IOException {
+
+        UploadSessionResponse session = chunkedUploadService.append(uploadId, offset, request.getInputStream());
+        return ResponseEntity.noContent()
+                .header(UPLOAD_OFFSET, String.valueOf(session.getOffset()))
+                .build();
+    }
+
+    /**
+     * Complete upload endpoint
+     */
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<FileUploadResponse> complete(@PathVariable String uploadId) {
+        FileUploadResponse response = chunkedUploadService.complete(uploadId);
+
+        if ("ALLOWED".equals(response.getStatus())) {
+            return ResponseEntity.ok(response);
+        } else if ("BLOCKED".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    /**
+     * Abort upload endpoint
+     */
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Void> abort(@PathVariable String uploadId) {
+        chunkedUploadService.abort(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Request does not fit the session - report the offset to resume from when known
+     */
+    @ExceptionHandler(UploadSessionException.class)
+    public ResponseEntity<FileUploadResponse> handleSessionError(UploadSessionException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(e.getStatus());
+        if (e.getOffset() != null) {
+            response.header(UPLOAD_OFFSET, String.valueOf(e.getOffset()));
+        }
+        return response.body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Server at capacity - ask the client to retry later
+     */
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<FileUploadResponse> handleCapacityExceeded(CapacityExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Tenant header names a tenant that is not configured
+     */
+    @ExceptionHandler(UnknownTenantException.class)
+    public ResponseEntity<FileUploadResponse> handleUnknownTenant(UnknownTenantException e) {
+        return ResponseEntity.badRequest().body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Tenant header names a tenant the user is not listed under
+     */
+    @ExceptionHandler(TenantMismatchException.class)
+    public ResponseEntity<FileUploadResponse> handleTenantMismatch(TenantMismatchException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FileUploadResponse.error(null, e.getMessage()));
+    }
+}
@@ -0,0 +1,59 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.service.DashboardService;
+import com.skyhigh.casa.util.HttpRequestUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for the dashboard aggregate
+ * Statistics and a page of logs in one response. Clients revalidate with If-None-Match
+ * and get 304 while their view is unchanged.
+ */
+@RestController
+@RequestMapping("/api/v1/dashboard")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class DashboardController {
+
+    private final DashboardService dashboardService;
+
+    /**
+     * Get dashboard endpoint
+     */
+    @GetMapping
+    public ResponseEntity<byte[]> getDashboard(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        DashboardService.CachedDashboard dashboard;
+        try {
+            dashboard = dashboardService.getDashboard(Math.max(0, page), Math.max(1, Math.min(size, 100)),
+                    status, userId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        if (HttpRequestUtils.matchesEtag(ifNoneMatch, dashboard.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(dashboard.etag())
+                    .cacheControl(CacheControl.noCache())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(dashboard.etag())
+                .cacheControl(CacheControl.noCache())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(dashboard.body());
+    }
+}
@@ -0,0 +1,221 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.exception.CapacityExceededException;
+import com.skyhigh.casa.exception.IdempotencyException;
+import com.skyhigh.casa.exception.TenantMismatchException;
+import com.skyhigh.casa.exception.UnknownTenantException;
+import com.skyhigh.casa.model.FileUploadResponse;
+import com.skyhigh.casa.ratelimit.RateLimitFilter;
+import com.skyhigh.casa.service.ContentStoreService;
+import com.skyhigh.casa.service.FileProcessingService;
+import com.skyhigh.casa.service.IdempotencyService;
+import com.skyhigh.casa.service.StreamingUploadService;
+import com.skyhigh.casa.tenant.TenantLease;
+import com.skyhigh.casa.tenant.TenantRegistry;
+import com.skyhigh.casa.util.ClientIpResolver;
+import com.skyhigh.casa.util.HttpRequestUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * REST Controller for file upload operations
+ */
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class FileUploadController {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    public static final String CONTENT_SHA256 = "X-Content-SHA256";
+    private static final Pattern SHA256_HEX = Pattern.compile("[0-9a-fA-F]{64}");
+
+    private final FileProcessingService fileProcessingService;
+    private final StreamingUploadService streamingUploadService;
+    private final IdempotencyService idempotencyService;
+    private final TenantRegistry tenantRegistry;
+    private final ClientIpResolver clientIpResolver;
+
+    /**
+     * Upload file endpoint
+     */
+    @PostMapping("/upload")
+    public ResponseEntity<FileUploadResponse> uploadFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "userId", required = false) String userId,
+            @RequestHeader(value = RateLimitFilter.USER_ID_HEADER, required = false) String userIdHeader,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = TenantRegistry.TENANT_HEADER, required = false) String tenantId,
+            HttpServletRequest request) throws IOException {
+
+        log.info("Received file upload request: {}", file.getOriginalFilename());
+
+        // Validate file
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest()
+                    .body(FileUploadResponse.error(file.getOriginalFilename(), "File is empty"));
+        }
+
+        // Get client IP address
+        String ipAddress = clientIpResolver.getClientIpAddress(request);
+        if (userId == null || userId.isEmpty()) {
+            userId = userIdHeader;
+        }
+
+        // Process file with the tenant's engines, once per idempotency key when the client sent one
+        try (TenantLease tenant = tenantRegistry.acquire(tenantId, userId)) {
+            if (idempotencyKey == null) {
+                return toResponseEntity(fileProcessingService.processFile(file, userId, ipAddress,
+                        tenant.getEngines()));
+            }
+            // Identified by its content, so a key reused for other bytes of the same name and size is caught
+            String effectiveUserId = userId;
+            IdempotencyService.Outcome outcome = idempotencyService.execute(scope(userId), idempotencyKey,
+                    "upload:" + tenant.getEngines().getTenantId() + ":" + ContentStoreService.hash(file),
+                    () -> fileProcessingService.processFile(file, effectiveUserId, ipAddress, tenant.getEngines()));
+            return toResponseEntity(outcome);
+        }
+    }
+
+    /**
+     * Streaming upload endpoint
+     * Same contract as /upload, but the body is scanned and staged as it arrives instead of being spooled first.
+     * The body is only read by the request that does the work, so an Idempotency-Key must come with the
+     * SHA-256 of the file in X-Content-SHA256; it identifies the request and is checked against the file.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<FileUploadResponse> uploadFileStreaming(
+            @RequestHeader(value = RateLimitFilter.USER_ID_HEADER, required = false) String userIdHeader,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            @RequestHeader(value = CONTENT_SHA256, required = false) String contentSha256,
+            @RequestHeader(value = TenantRegistry.TENANT_HEADER, required = false) String tenantId,
+            HttpServletRequest request) throws IOException {
+
+        // Request parameters are not bound here: resolving them would make the container parse the body
+        String userId = HttpRequestUtils.getQueryParameter(request, "userId");
+        if (userId == null || userId.isEmpty()) {
+            userId = userIdHeader;
+        }
+        String ipAddress = clientIpResolver.getClientIpAddress(request);
+        try (TenantLease tenant = tenantRegistry.acquire(tenantId, userId)) {
+            if (idempotencyKey == null) {
+                return toResponseEntity(streamingUploadService.processStream(request, userId, ipAddress,
+                        tenant.getEngines(), null));
+            }
+            if (contentSha256 == null || !SHA256_HEX.matcher(contentSha256).matches()) {
+                throw new IdempotencyException(HttpStatus.BAD_REQUEST,
+                        IDEMPOTENCY_KEY + " on a streamed upload requires the file's SHA-256 in " + CONTENT_SHA256);
+            }
+            String expectedHash = contentSha256.toLowerCase(Locale.ROOT);
+            String effectiveUserId = userId;
+            IdempotencyService.Outcome outcome = idempotencyService.execute(scope(userId), idempotencyKey,
+                    "stream:" + tenant.getEngines().getTenantId() + ":" + expectedHash,
+                    () -> streamingUploadService.processStream(request, effectiveUserId, ipAddress,
+                            tenant.getEngines(), expectedHash));
+            return toResponseEntity(outcome);
+        }
+    }
+
+    /**
+     * Health check endpoint
+     */
+    @GetMapping("/health")
+    public ResponseEntity<String> health() {
+        return ResponseEntity.ok("CASA is running");
+    }
+
+    /**
+     * Upload larger than the configured limit
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<FileUploadResponse> handleTooLarge(MaxUploadSizeExceededException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                .body(FileUploadResponse.error(null, "File exceeds maximum upload size"));
+    }
+
+    /**
+     * Missing or malformed multipart body
+     */
+    @ExceptionHandler(MultipartException.class)
+    public ResponseEntity<FileUploadResponse> handleMultipartError(MultipartException e) {
+        return ResponseEntity.badRequest().body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Server at capacity - ask the client to retry later
+     */
+    @ExceptionHandler(CapacityExceededException.class)
+    public ResponseEntity<FileUploadResponse> handleCapacityExceeded(CapacityExceededException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Idempotency key can't be used for this request
+     */
+    @ExceptionHandler(IdempotencyException.class)
+    public ResponseEntity<FileUploadResponse> handleIdempotencyError(IdempotencyException e) {
+        return ResponseEntity.status(e.getStatus()).body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Tenant header names a tenant that is not configured
+     */
+    @ExceptionHandler(UnknownTenantException.class)
+    public ResponseEntity<FileUploadResponse> handleUnknownTenant(UnknownTenantException e) {
+        return ResponseEntity.badRequest().body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Tenant header names a tenant the user is not listed under
+     */
+    @ExceptionHandler(TenantMismatchException.class)
+    public ResponseEntity<FileUploadResponse> handleTenantMismatch(TenantMismatchException e) {
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(FileUploadResponse.error(null, e.getMessage()));
+    }
+
+    /**
+     * Map an idempotent outcome to HTTP status, marking responses shared from an earlier request
+     */
+    private ResponseEntity<FileUploadResponse> toResponseEntity(IdempotencyService.Outcome outcome) {
+        ResponseEntity<FileUploadResponse> entity = toResponseEntity(outcome.response());
+        if (!outcome.replayed()) {
+            return entity;
+        }
+        return ResponseEntity.status(entity.getStatusCode())
+                .header(IDEMPOTENT_REPLAYED, "true")
+                .body(entity.getBody());
+    }
+
+    private static String scope(String userId) {
+        return userId != null && !userId.isEmpty() ? userId : "anonymous";
+    }
+
+    /**
+     * Map processing outcome to HTTP status
+     */
+    private ResponseEntity<FileUploadResponse> toResponseEntity(FileUploadResponse response) {
+        if ("ALLOWED".equals(response.getStatus())) {
+            return ResponseEntity.ok(response);
+        } else if ("BLOCKED".equals(response.getStatus())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        } else {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+}
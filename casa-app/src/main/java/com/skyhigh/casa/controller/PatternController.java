@@ -0,0 +1,83 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.model.ManagedPattern;
+import com.skyhigh.casa.model.PatternChangeResponse;
+import com.skyhigh.casa.model.PatternRequest;
+import com.skyhigh.casa.scanner.PatternDefinition;
+import com.skyhigh.casa.service.PatternManagementService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST Controller for detection pattern management
+ */
+@RestController
+@RequestMapping("/api/v1/patterns")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class PatternController {
+
+    private final PatternManagementService patternManagementService;
+
+    /**
+     * Get the patterns in use by detection type
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, PatternDefinition>> getActivePatterns() {
+        return ResponseEntity.ok(patternManagementService.getActivePatterns());
+    }
+
+    /**
+     * Get the patterns changed through this API, including disabled ones
+     */
+    @GetMapping("/managed")
+    public ResponseEntity<List<ManagedPattern>> getManagedPatterns() {
+        return ResponseEntity.ok(patternManagementService.getManagedPatterns());
+    }
+
+    /**
+     * Add or update a pattern; 422 with the profile when it is too expensive
+     */
+    @PutMapping("/{type}")
+    public ResponseEntity<PatternChangeResponse> savePattern(@PathVariable String type,
+            @RequestBody PatternRequest request) {
+        PatternChangeResponse response = patternManagementService.save(type, request);
+        return response.isAccepted()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(response);
+    }
+
+    /**
+     * Profile a pattern over the sample corpus without activating it
+     */
+    @PostMapping("/{type}/profile")
+    public ResponseEntity<PatternChangeResponse> profilePattern(@PathVariable String type,
+            @RequestBody PatternRequest request) {
+        return ResponseEntity.ok(patternManagementService.profile(type, request));
+    }
+
+    /**
+     * Disable a pattern
+     */
+    @DeleteMapping("/{type}")
+    public ResponseEntity<PatternChangeResponse> disablePattern(@PathVariable String type) {
+        return patternManagementService.disable(type)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Invalid type, severity or regex
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<PatternChangeResponse> handleInvalidPattern(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(PatternChangeResponse.builder().reason(e.getMessage()).build());
+    }
+}
@@ -0,0 +1,42 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.ratelimit.RateLimits;
+import com.skyhigh.casa.ratelimit.UploadRateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for runtime rate limit configuration
+ */
+@RestController
+@RequestMapping("/api/v1/ratelimits")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class RateLimitController {
+
+    private final UploadRateLimiter rateLimiter;
+
+    /**
+     * Get current upload rate limits
+     */
+    @GetMapping
+    public ResponseEntity<RateLimits> getLimits() {
+        return ResponseEntity.ok(rateLimiter.getLimits());
+    }
+
+    /**
+     * Replace upload rate limits
+     */
+    @PutMapping
+    public ResponseEntity<RateLimits> updateLimits(@RequestBody RateLimits limits) {
+        if (limits.getUserRequestBurst() < 1 || limits.getIpRequestBurst() < 1
+                || limits.getUserByteBurst() < 1 || limits.getIpByteBurst() < 1
+                || limits.getMaxTrackedKeys() < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rateLimiter.updateLimits(limits));
+    }
+}
@@ -0,0 +1,29 @@
+package com.skyhigh.casa.controller;
+
+import com.skyhigh.casa.model.RescanCheckpoint;
+import com.skyhigh.casa.service.RescanService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for background rescan progress
+ */
+@RestController
+@RequestMapping("/api/v1/rescan")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class RescanController {
+
+    private final RescanService rescanService;
+
+    /**
+     * Get rescan progress towards the running pattern set version
+     */
+    @GetMapping
+    public ResponseEntity<RescanCheckpoint> getStatus() {
+        return ResponseEntity.ok(rescanService.getStatus());
+    }
+}
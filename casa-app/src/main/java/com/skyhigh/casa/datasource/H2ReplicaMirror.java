@@ -0,0 +1,53 @@
+package com.skyhigh.casa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Stands a second embedded H2 database in for a replica, for local testing
+ *
+ * H2 does not replicate, so every primary table is linked into the replica database as a
+ * read-only linked table: reads through the replica pool see the primary's rows, and writes
+ * routed there by mistake fail.
+ */
+@Slf4j
+public class H2ReplicaMirror {
+
+    private final String primaryUrl;
+    private final String username;
+    private final String password;
+
+    public H2ReplicaMirror(String primaryUrl, String username, String password) {
+        this.primaryUrl = primaryUrl;
+        this.username = username;
+        this.password = password;
+    }
+
+    /**
+     * Link every primary table not yet present in the replica
+     */
+    void link(JdbcTemplate primary, JdbcTemplate replica) {
+        String tablesQuery = "SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+                + "WHERE TABLE_SCHEMA = 'PUBLIC' AND TABLE_TYPE IN ('BASE TABLE', 'TABLE LINK')";
+        List<String> tables = primary.queryForList(tablesQuery, String.class);
+        Set<String> present = new HashSet<>(replica.queryForList(tablesQuery, String.class));
+        int linked = 0;
+        for (String table : tables) {
+            if (present.contains(table)) {
+                continue;
+            }
+            replica.execute("CREATE LINKED TABLE \"" + table + "\"('org.h2.Driver', " + literal(primaryUrl) + ", "
+                    + literal(username) + ", " + literal(password) + ", 'PUBLIC', " + literal(table) + ") READONLY");
+            linked++;
+        }
+        log.info("Linked {} primary tables into the H2 replica", linked);
+    }
+
+    private static String literal(String value) {
+        return "'" + (value != null ? value.replace("'", "''") : "") + "'";
+    }
+}
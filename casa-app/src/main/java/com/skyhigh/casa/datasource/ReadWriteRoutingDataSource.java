@@ -0,0 +1,66 @@
+package com.skyhigh.casa.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Sends read-only transactions declared by the application to the replica
+ *
+ * A read-only transaction started by a service method or a read-only TransactionTemplate
+ * reads from the replica while it is available; everything else uses the primary. The
+ * read-only transactions Spring Data opens around single repository calls stay on the
+ * primary, since code that writes and then reads back (checkpoints, deduplication, version
+ * registration) relies on seeing its own writes. Must sit behind a
+ * LazyConnectionDataSourceProxy, so the route is chosen once the transaction is set up.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route { PRIMARY, REPLICA }
+
+    private static final String REPOSITORY_PACKAGE = "org.springframework.data.";
+
+    private final BooleanSupplier replicaAvailable;
+    private final Counter primaryCounter;
+    private final Counter replicaCounter;
+    private final Counter fallbackCounter;
+
+    public ReadWriteRoutingDataSource(BooleanSupplier replicaAvailable, MeterRegistry meterRegistry) {
+        this.replicaAvailable = replicaAvailable;
+        this.primaryCounter = route(meterRegistry, "primary");
+        this.replicaCounter = route(meterRegistry, "replica");
+        this.fallbackCounter = route(meterRegistry, "fallback");
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!isApplicationReadOnly()) {
+            primaryCounter.increment();
+            return Route.PRIMARY;
+        }
+        if (!replicaAvailable.getAsBoolean()) {
+            fallbackCounter.increment();
+            return Route.PRIMARY;
+        }
+        replicaCounter.increment();
+        return Route.REPLICA;
+    }
+
+    private static boolean isApplicationReadOnly() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        String name = TransactionSynchronizationManager.getCurrentTransactionName();
+        return name == null || !name.startsWith(REPOSITORY_PACKAGE);
+    }
+
+    private static Counter route(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("casa.datasource.connections")
+                .description("Connections handed out by route; fallback is a read sent to the primary")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+}
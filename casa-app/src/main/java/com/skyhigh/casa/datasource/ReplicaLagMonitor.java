@@ -0,0 +1,102 @@
+package com.skyhigh.casa.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Tracks how far the replica is behind the primary
+ *
+ * The primary's replica_heartbeat row is stamped with the current time on every check and
+ * read back from the replica; the difference is the replication lag, to within one check
+ * interval. This needs no replication privileges and works with any database the row is
+ * replicated by. The replica is used while the lag is within the limit and the read succeeds.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private static final String CREATE = "CREATE TABLE IF NOT EXISTS replica_heartbeat "
+            + "(id INT PRIMARY KEY, beat_at BIGINT NOT NULL)";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private final H2ReplicaMirror mirror;
+
+    private volatile boolean available;
+    private volatile long lagMs = -1;
+    private boolean initialized;
+
+    /**
+     * @param mirror links the replica's tables to the primary for local testing, or null
+     */
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs, H2ReplicaMirror mirror,
+            MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout((int) Math.max(1, maxLagMs / 1000));
+        this.maxLagMs = maxLagMs;
+        this.mirror = mirror;
+
+        Gauge.builder("casa.datasource.replica.lag", this, monitor -> monitor.lagMs)
+                .description("Replica lag in ms at the last check, -1 when unreachable")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("casa.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .description("1 while reads are served by the replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether read-only transactions may use the replica
+     */
+    public boolean isAvailable() {
+        return available;
+    }
+
+    @Scheduled(fixedDelayString = "${replica.heartbeat-interval:1000}")
+    public synchronized void check() {
+        long now = System.currentTimeMillis();
+        try {
+            if (!initialized) {
+                primary.execute(CREATE);
+                if (mirror != null) {
+                    mirror.link(primary, replica);
+                }
+                initialized = true;
+            }
+            if (primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+                primary.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to write replica heartbeat: {}", e.getMessage());
+        }
+
+        long lag;
+        try {
+            List<Long> beats = replica.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+            lag = beats.isEmpty() ? -1 : Math.max(0, now - beats.get(0));
+        } catch (DataAccessException e) {
+            log.debug("Replica heartbeat not readable: {}", e.getMessage());
+            lag = -1;
+        }
+        lagMs = lag;
+
+        boolean usable = lag >= 0 && lag <= maxLagMs;
+        if (usable != available) {
+            if (usable) {
+                log.info("Replica is {} ms behind, serving reads from it", lag);
+            } else {
+                log.warn("Replica {}, sending reads to the primary",
+                        lag < 0 ? "is unreachable" : "is " + lag + " ms behind");
+            }
+            available = usable;
+        }
+    }
+}
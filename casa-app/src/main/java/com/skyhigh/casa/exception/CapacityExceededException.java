@@ -0,0 +1,19 @@
+package com.skyhigh.casa.exception;
+
+/**
+ * Thrown when an upload cannot be admitted because the server is at capacity
+ * Mapped to 503 Service Unavailable with a Retry-After hint
+ */
+public class CapacityExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public CapacityExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
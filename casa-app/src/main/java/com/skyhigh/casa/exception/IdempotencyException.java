@@ -0,0 +1,22 @@
+package com.skyhigh.casa.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when an Idempotency-Key cannot be honoured for a request
+ * Invalid keys are 400, a key reused for a different request is 422, and a key whose
+ * first request is still running past the wait limit is 409.
+ */
+public class IdempotencyException extends RuntimeException {
+
+    private final HttpStatus status;
+
+    public IdempotencyException(HttpStatus status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,11 @@
+package com.skyhigh.casa.exception;
+
+/**
+ * Thrown when a request names a tenant other than the one its user is listed under
+ */
+public class TenantMismatchException extends RuntimeException {
+
+    public TenantMismatchException(String tenantId, String userId) {
+        super("User " + userId + " does not belong to tenant " + tenantId);
+    }
+}
@@ -0,0 +1,11 @@
+package com.skyhigh.casa.exception;
+
+/**
+ * Thrown when a request names a tenant that is not configured
+ */
+public class UnknownTenantException extends RuntimeException {
+
+    public UnknownTenantException(String tenantId) {
+        super("Unknown tenant: " + tenantId);
+    }
+}
@@ -0,0 +1,27 @@
+package com.skyhigh.casa.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a chunked upload request does not fit the session state
+ * Carries the HTTP status to answer with and, where known, the offset the client should resume from
+ */
+public class UploadSessionException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final Long offset;
+
+    public UploadSessionException(HttpStatus status, String message, Long offset) {
+        super(message);
+        this.status = status;
+        this.offset = offset;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public Long getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,291 @@
+package com.skyhigh.casa.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Append-only journal of sequence-numbered records in memory-mapped segment files
+ *
+ * Appending copies a record into the mapped tail segment under a lock; a full segment is
+ * synced and sealed and a new one started. Durability is group-committed: a caller waiting
+ * for its record syncs the tail segment on behalf of every record appended so far, while
+ * callers arriving during that sync wait for it and then share the next one. Segments whose
+ * records have all been applied downstream are deleted.
+ */
+@Slf4j
+public class AuditJournal implements AutoCloseable {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final NavigableMap<Long, JournalSegment> segments = new TreeMap<>();
+    private JournalSegment current;
+    private long lastSeq;
+
+    private final Object syncLock = new Object();
+    private long durableSeq;
+    private boolean syncing;
+
+    private AuditJournal(Path directory, int segmentSize, int maxSegments) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+    }
+
+    /**
+     * Open the journal in a directory, recovering the segments found there
+     * Sequence numbers continue after the last intact record, and never restart below firstSeq.
+     */
+    public static AuditJournal open(Path directory, int segmentSize, int maxSegments, long firstSeq)
+            throws IOException {
+        Files.createDirectories(directory);
+        AuditJournal journal = new AuditJournal(directory, segmentSize, maxSegments);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                JournalSegment segment = JournalSegment.recover(file);
+                journal.segments.put(segment.getFirstSeq(), segment);
+            }
+        }
+
+        long nextSeq = firstSeq;
+        JournalSegment previous = null;
+        for (JournalSegment segment : journal.segments.values()) {
+            if (previous != null && segment.getFirstSeq() > previous.getNextSeq()) {
+                log.warn("Audit journal is missing records {} to {}", previous.getNextSeq(), segment.getFirstSeq() - 1);
+            }
+            nextSeq = Math.max(nextSeq, segment.getNextSeq());
+            previous = segment;
+        }
+        // Recovered segments are never appended to again
+        journal.segments.values().forEach(JournalSegment::seal);
+        journal.lastSeq = nextSeq - 1;
+        journal.durableSeq = journal.lastSeq;
+        journal.current = journal.startSegment(nextSeq);
+        return journal;
+    }
+
+    /**
+     * Append a record and return its sequence number
+     * The record is visible to cursors at once and durable after {@link #sync(long)}.
+     *
+     * @throws JournalFullException when the journal holds its maximum number of segments
+     */
+    public synchronized long append(byte[] payload) throws IOException {
+        if (payload.length > segmentSize - JournalSegment.HEADER - JournalSegment.RECORD_HEADER) {
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        }
+        long seq = lastSeq + 1;
+        if (!current.append(seq, payload)) {
+            if (segments.size() >= maxSegments) {
+                throw new JournalFullException(segments.size());
+            }
+            current.force();
+            JournalSegment next = startSegment(seq);
+            current.seal();
+            current = next;
+            current.append(seq, payload);
+        }
+        lastSeq = seq;
+        return seq;
+    }
+
+    /**
+     * Wait until the record with the given sequence number is on disk
+     * One caller syncs for all records appended before it started; the others wait their turn.
+     *
+     * @return true if this call performed a sync
+     */
+    public boolean sync(long seq) throws IOException {
+        synchronized (syncLock) {
+            while (durableSeq < seq && syncing) {
+                try {
+                    syncLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for the audit journal sync");
+                }
+            }
+            if (durableSeq >= seq) {
+                return false;
+            }
+            syncing = true;
+        }
+
+        long target = -1;
+        try {
+            JournalSegment segment;
+            synchronized (this) {
+                target = lastSeq;
+                segment = current;
+            }
+            // Sealed segments were synced when they filled up
+            segment.force();
+        } catch (RuntimeException e) {
+            target = -1;
+            throw new IOException("Audit journal sync failed", e);
+        } finally {
+            synchronized (syncLock) {
+                syncing = false;
+                durableSeq = Math.max(durableSeq, target);
+                syncLock.notifyAll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sync everything appended so far
+     */
+    public void syncAll() throws IOException {
+        long seq;
+        synchronized (this) {
+            seq = lastSeq;
+        }
+        sync(seq);
+    }
+
+    /**
+     * Cursor positioned at the first record with a sequence number of at least fromSeq
+     */
+    public synchronized Cursor cursor(long fromSeq) {
+        Map.Entry<Long, JournalSegment> entry = segments.floorEntry(fromSeq);
+        JournalSegment segment = entry != null ? entry.getValue() : segments.firstEntry().getValue();
+        Cursor cursor = new Cursor(segment);
+        while (cursor.position < segment.getPublished()) {
+            JournalSegment.Entry record = segment.read(cursor.position);
+            if (record.seq() >= fromSeq) {
+                break;
+            }
+            cursor.position = record.next();
+        }
+        return cursor;
+    }
+
+    /**
+     * Delete sealed segments whose records all have sequence numbers up to appliedSeq
+     */
+    public synchronized int release(long appliedSeq) {
+        int deleted = 0;
+        List<JournalSegment> sealed = new ArrayList<>(segments.headMap(current.getFirstSeq(), false).values());
+        for (JournalSegment segment : sealed) {
+            if (segment.getNextSeq() - 1 > appliedSeq) {
+                break;
+            }
+            try {
+                segment.delete();
+                segments.remove(segment.getFirstSeq());
+                deleted++;
+            } catch (IOException e) {
+                log.warn("Failed to delete journal segment {}: {}", segment.getPath(), e.getMessage());
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getSizeBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        syncAll();
+    }
+
+    private synchronized JournalSegment segmentAfter(JournalSegment segment) {
+        Map.Entry<Long, JournalSegment> entry = segments.higherEntry(segment.getFirstSeq());
+        return entry != null ? entry.getValue() : null;
+    }
+
+    private JournalSegment startSegment(long firstSeq) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+        JournalSegment existing = segments.get(firstSeq);
+        if (existing != null) {
+            // An empty segment left behind by the previous run
+            if (!existing.isEmpty()) {
+                throw new IOException("Journal segment already holds records: " + path);
+            }
+            existing.delete();
+            segments.remove(firstSeq);
+        }
+        JournalSegment segment = JournalSegment.create(path, firstSeq, segmentSize);
+        segments.put(firstSeq, segment);
+        return segment;
+    }
+
+    /**
+     * Reads records in sequence order, following the journal into new segments
+     * A cursor is used by one thread at a time.
+     */
+    public class Cursor {
+        private JournalSegment segment;
+        private int position;
+
+        private Cursor(JournalSegment segment) {
+            this.segment = segment;
+            this.position = JournalSegment.HEADER;
+        }
+
+        /**
+         * Read up to max records appended since the last call
+         */
+        public List<JournalRecord> next(int max) {
+            List<JournalRecord> records = new ArrayList<>();
+            while (records.size() < max) {
+                if (position < segment.getPublished()) {
+                    JournalSegment.Entry entry = segment.read(position);
+                    records.add(new JournalRecord(entry.seq(), entry.payload()));
+                    position = entry.next();
+                    continue;
+                }
+                // Sealed before the check, so everything it holds has been published
+                if (!segment.isSealed() || position < segment.getPublished()) {
+                    break;
+                }
+                JournalSegment following = segmentAfter(segment);
+                if (following == null) {
+                    break;
+                }
+                segment = following;
+                position = JournalSegment.HEADER;
+            }
+            return records;
+        }
+    }
+
+    /**
+     * A journal record
+     */
+    public record JournalRecord(long seq, byte[] payload) {
+    }
+
+    /**
+     * Thrown when an append needs a new segment and the journal is at its segment limit
+     */
+    public static class JournalFullException extends IOException {
+        public JournalFullException(int segments) {
+            super("Audit journal is full (" + segments + " segments not yet applied)");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.skyhigh.casa.journal;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.PolicyAction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary encoding of an audit log for the journal
+ *
+ * A format byte followed by every column of the entry except the id, which the table assigns
+ * when the record is applied. Nullable values carry a presence flag or a -1 length.
+ */
+public final class AuditRecordCodec {
+
+    private static final byte FORMAT = 1;
+
+    private AuditRecordCodec() {
+    }
+
+    public static byte[] encode(AuditLog auditLog) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            writeString(out, auditLog.getFileId());
+            writeString(out, auditLog.getFileName());
+            writeLong(out, auditLog.getFileSize());
+            writeString(out, auditLog.getUserId());
+            writeString(out, auditLog.getTenantId());
+            writeString(out, auditLog.getIpAddress());
+            writeString(out, auditLog.getStatus() != null ? auditLog.getStatus().name() : null);
+            writeLong(out, auditLog.getRiskScore() != null ? auditLog.getRiskScore().longValue() : null);
+            out.writeByte(auditLog.getSensitiveDataFound() == null ? -1 : auditLog.getSensitiveDataFound() ? 1 : 0);
+            List<String> types = auditLog.getSensitiveTypes();
+            out.writeInt(types != null ? types.size() : -1);
+            if (types != null) {
+                for (String type : types) {
+                    writeString(out, type);
+                }
+            }
+            writeString(out, auditLog.getPolicyAction() != null ? auditLog.getPolicyAction().name() : null);
+            writeString(out, auditLog.getStorageLocation());
+            writeString(out, auditLog.getContentHash());
+            writeString(out, auditLog.getBlockReason());
+            writeString(out, auditLog.getPatternSetVersion());
+            writeBytes(out, auditLog.getMatchDetails());
+            writeLong(out, auditLog.getTimestamp() != null ? toMicros(auditLog.getTimestamp()) : null);
+            writeString(out, auditLog.getMetadata());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static AuditLog decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte format = in.readByte();
+        if (format != FORMAT) {
+            throw new IOException("Unsupported audit record format " + format);
+        }
+        AuditLog.AuditLogBuilder builder = AuditLog.builder()
+                .fileId(readString(in))
+                .fileName(readString(in))
+                .fileSize(readLong(in))
+                .userId(readString(in))
+                .tenantId(readString(in))
+                .ipAddress(readString(in));
+        String status = readString(in);
+        builder.status(status != null ? AuditLog.UploadStatus.valueOf(status) : null);
+        Long riskScore = readLong(in);
+        builder.riskScore(riskScore != null ? riskScore.intValue() : null);
+        byte sensitive = in.readByte();
+        builder.sensitiveDataFound(sensitive < 0 ? null : sensitive == 1);
+        int typeCount = in.readInt();
+        if (typeCount >= 0) {
+            List<String> types = new ArrayList<>(typeCount);
+            for (int i = 0; i < typeCount; i++) {
+                types.add(readString(in));
+            }
+            builder.sensitiveTypes(types);
+        }
+        String policyAction = readString(in);
+        builder.policyAction(policyAction != null ? PolicyAction.valueOf(policyAction) : null)
+                .storageLocation(readString(in))
+                .contentHash(readString(in))
+                .blockReason(readString(in))
+                .patternSetVersion(readString(in))
+                .matchDetails(readBytes(in));
+        Long timestamp = readLong(in);
+        return builder.timestamp(timestamp != null ? fromMicros(timestamp) : null)
+                .metadata(readString(in))
+                .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        writeBytes(out, value != null ? value.getBytes(StandardCharsets.UTF_8) : null);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        out.writeInt(value != null ? value.length : -1);
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,218 @@
+package com.skyhigh.casa.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * Preallocated, memory-mapped journal segment file
+ *
+ * Layout: magic, version and the sequence number of the first record, then records back to
+ * back, each a payload length, a CRC32C over sequence number and payload, the sequence number
+ * and the payload. The unused tail is zero, so the first record with length zero ends the
+ * segment. Opening a segment walks its records and stops at the first one that is torn (bad
+ * length or checksum, or out of sequence), which is where a crash interrupted the last append.
+ *
+ * Appends are serialized by the journal; readers see records up to the published position.
+ */
+public class JournalSegment {
+
+    static final int HEADER = 16;
+    static final int RECORD_HEADER = 16;
+
+    private static final int MAGIC = 0x434A4E4C; // "CJNL"
+    private static final short VERSION = 1;
+
+    private final Path path;
+    private final long firstSeq;
+    private final MappedByteBuffer data;
+    private int position;
+    private long records;
+    private volatile int published;
+    private int synced;
+    private volatile boolean sealed;
+
+    private JournalSegment(Path path, long firstSeq, MappedByteBuffer data) {
+        this.path = path;
+        this.firstSeq = firstSeq;
+        this.data = data;
+    }
+
+    /**
+     * Create and map a new segment of the given size
+     */
+    public static JournalSegment create(Path path, long firstSeq, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            data.putInt(0, MAGIC);
+            data.putShort(4, VERSION);
+            data.putLong(8, firstSeq);
+            data.force(0, HEADER);
+            JournalSegment segment = new JournalSegment(path, firstSeq, data);
+            segment.position = HEADER;
+            segment.published = HEADER;
+            segment.synced = HEADER;
+            return segment;
+        }
+    }
+
+    /**
+     * Map an existing segment and find the end of its intact records
+     * A torn tail is zeroed so that later appends cannot run into its leftovers.
+     */
+    public static JournalSegment recover(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER) {
+                throw new IOException("Truncated journal segment: " + path);
+            }
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            if (data.getInt(0) != MAGIC) {
+                throw new IOException("Not a journal segment: " + path);
+            }
+            if (data.getShort(4) != VERSION) {
+                throw new IOException("Unsupported journal segment version " + data.getShort(4) + ": " + path);
+            }
+            JournalSegment segment = new JournalSegment(path, data.getLong(8), data);
+
+            int position = HEADER;
+            long records = 0;
+            while (true) {
+                int length = segment.validLength(position, segment.firstSeq + records);
+                if (length < 0) {
+                    break;
+                }
+                position += RECORD_HEADER + length;
+                records++;
+            }
+            if (position + 4 <= data.capacity() && data.getInt(position) != 0) {
+                for (int i = position; i < data.capacity(); i++) {
+                    data.put(i, (byte) 0);
+                }
+                data.force();
+            }
+            segment.position = position;
+            segment.records = records;
+            segment.published = position;
+            segment.synced = position;
+            return segment;
+        }
+    }
+
+    /**
+     * Append a record, or return false when it does not fit in the remaining space
+     */
+    boolean append(long seq, byte[] payload) {
+        int end = position + RECORD_HEADER + payload.length;
+        if (end > data.capacity() || end < 0) {
+            return false;
+        }
+        data.put(position + RECORD_HEADER, payload);
+        data.putLong(position + 8, seq);
+        data.putInt(position + 4, checksum(seq, payload));
+        data.putInt(position, payload.length);
+        position = end;
+        records++;
+        published = end;
+        return true;
+    }
+
+    /**
+     * Read the record at a position below the published one
+     */
+    Entry read(int position) {
+        int length = data.getInt(position);
+        byte[] payload = new byte[length];
+        data.get(position + RECORD_HEADER, payload);
+        return new Entry(data.getLong(position + 8), payload, position + RECORD_HEADER + length);
+    }
+
+    /**
+     * Write the records appended since the last force to disk
+     */
+    synchronized void force() {
+        int end = published;
+        if (end > synced) {
+            data.force(synced, end - synced);
+            synced = end;
+        }
+    }
+
+    void seal() {
+        sealed = true;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    int getPublished() {
+        return published;
+    }
+
+    boolean isEmpty() {
+        return records == 0;
+    }
+
+    /**
+     * Sequence number the next appended record must have
+     */
+    long getNextSeq() {
+        return firstSeq + records;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getFirstSeq() {
+        return firstSeq;
+    }
+
+    public int getCapacity() {
+        return data.capacity();
+    }
+
+    void delete() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Payload length of an intact record with the expected sequence number at position, else -1
+     */
+    private int validLength(int position, long expectedSeq) {
+        if (position + RECORD_HEADER > data.capacity()) {
+            return -1;
+        }
+        int length = data.getInt(position);
+        if (length <= 0 || length > data.capacity() - position - RECORD_HEADER) {
+            return -1;
+        }
+        long seq = data.getLong(position + 8);
+        if (seq != expectedSeq) {
+            return -1;
+        }
+        byte[] payload = new byte[length];
+        data.get(position + RECORD_HEADER, payload);
+        return checksum(seq, payload) == data.getInt(position + 4) ? length : -1;
+    }
+
+    private static int checksum(long seq, byte[] payload) {
+        CRC32C crc = new CRC32C();
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            crc.update((int) (seq >>> shift));
+        }
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A record and the position of the one after it
+     */
+    record Entry(long seq, byte[] payload, int next) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.skyhigh.casa.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -14,7 +15,9 @@ import java.util.List;
  * Stores all file upload attempts and their results
  */
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+        @Index(name = "idx_audit_timestamp", columnList = "timestamp"),
+        @Index(name = "idx_audit_file_id", columnList = "fileId")})
 @Data
 @Builder
 @NoArgsConstructor
@@ -37,6 +40,12 @@ public class AuditLog {
     @Column(nullable = false)
     private String userId;
 
+    /**
+     * Tenant whose patterns and policy decided the upload; null for the default ones
+     */
+    @Column(length = 64)
+    private String tenantId;
+
     @Column(nullable = false)
     private String ipAddress;
 
@@ -60,8 +69,25 @@ public class AuditLog {
 
     private String storageLocation;
 
+    /**
+     * SHA-256 of the stored content, shared by every upload of the same bytes
+     */
+    @Column(length = 64)
+    private String contentHash;
+
     private String blockReason;
 
+    @Column(length = 16)
+    private String patternSetVersion;
+
+    /**
+     * Per-match detail encoded by MatchDetailCodec; decoded only by the detail endpoint
+     */
+    @JsonIgnore
+    @Basic(fetch = FetchType.LAZY)
+    @Column(length = 65536)
+    private byte[] matchDetails;
+
     @Column(nullable = false)
     private LocalDateTime timestamp;
 
@@ -70,7 +96,10 @@ public class AuditLog {
 
     @PrePersist
     protected void onCreate() {
-        timestamp = LocalDateTime.now();
+        // Journaled entries keep the time of the decision
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
     }
 
     public enum UploadStatus {
@@ -79,11 +108,4 @@ public class AuditLog {
         QUARANTINED,
         ERROR
     }
-
-    public enum PolicyAction {
-        UPLOAD,
-        BLOCK,
-        QUARANTINE,
-        ALERT
-    }
 }
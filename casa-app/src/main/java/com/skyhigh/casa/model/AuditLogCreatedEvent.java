@@ -0,0 +1,7 @@
+package com.skyhigh.casa.model;
+
+/**
+ * Application event published after an audit log entry has been written
+ */
+public record AuditLogCreatedEvent(AuditLog auditLog) {
+}
@@ -0,0 +1,7 @@
+package com.skyhigh.casa.model;
+
+/**
+ * Application event published after audit log entries were updated, archived or applied from the journal
+ */
+public record AuditLogsChangedEvent(int count) {
+}
@@ -0,0 +1,67 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated audit counters for one time bucket
+ * One row per granularity, bucket, dimension and key
+ */
+@Entity
+@Table(name = "audit_rollups",
+        uniqueConstraints = @UniqueConstraint(columnNames = {
+                "granularity", "bucketStart", "dimension", "dimensionKey", "subKey"}),
+        indexes = @Index(name = "idx_rollup_lookup", columnList = "granularity, dimension, bucketStart"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private Dimension dimension;
+
+    @Column(nullable = false)
+    private String dimensionKey;
+
+    @Column(nullable = false, length = 20)
+    private String subKey;
+
+    @Column(nullable = false)
+    private long eventCount;
+
+    @Column(nullable = false)
+    private long riskScoreSum;
+
+    @Column(nullable = false)
+    private long bytesSum;
+
+    public enum Granularity {
+        MINUTE,
+        HOUR,
+        DAY
+    }
+
+    public enum Dimension {
+        STATUS,
+        SENSITIVE_TYPE,
+        USER_RISK
+    }
+}
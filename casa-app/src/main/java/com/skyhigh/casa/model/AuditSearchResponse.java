@@ -0,0 +1,27 @@
+package com.skyhigh.casa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for free-text audit log search, newest first
+ * Pass nextBefore as "before" to fetch the next page; it is null when there are no more matches.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditSearchResponse {
+
+    private String query;
+    private String field;
+    private List<AuditLog> results;
+    private Long nextBefore;
+    private long candidates;
+    private long tookMillis;
+    private boolean indexComplete;
+}
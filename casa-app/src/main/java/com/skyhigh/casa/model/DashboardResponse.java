@@ -0,0 +1,22 @@
+package com.skyhigh.casa.model;
+
+import com.skyhigh.casa.service.AuditLogService;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+/**
+ * Everything the dashboard shows, in one response
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardResponse {
+
+    private AuditLogService.AuditStatistics statistics;
+
+    private Page<AuditLog> logs;
+}
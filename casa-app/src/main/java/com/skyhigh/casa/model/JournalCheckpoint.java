@@ -0,0 +1,31 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the audit journal projection
+ * Journal records up to appliedSeq have been written to the audit log table; the checkpoint
+ * is updated in the same transaction as the rows, so a record is never applied twice.
+ */
+@Entity
+@Table(name = "journal_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalCheckpoint {
+
+    @Id
+    @Column(length = 32)
+    private String journalName;
+
+    @Column(nullable = false)
+    private Long appliedSeq;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
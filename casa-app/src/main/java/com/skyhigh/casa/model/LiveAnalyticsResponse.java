@@ -0,0 +1,40 @@
+package com.skyhigh.casa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for real-time heavy hitters and upload bursts over the sliding window
+ * Counts come from sketches, so they may overstate but never understate.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveAnalyticsResponse {
+
+    private long windowSeconds;
+    private String generatedAt;
+    private long uploads;
+    private long sensitiveUploads;
+    private List<HeavyHitter> topUsers;
+    private List<HeavyHitter> topIpAddresses;
+    private List<HeavyHitter> topSensitiveTypes;
+    private List<Burst> bursts;
+
+    /**
+     * Key with its estimated sensitive uploads in the window
+     */
+    public record HeavyHitter(String key, long sensitiveUploads) {
+    }
+
+    /**
+     * User whose uploads in one interval exceeded their usual rate
+     */
+    public record Burst(String userId, long uploads, double baseline, String detectedAt) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.skyhigh.casa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Audit decision pushed to live dashboard subscribers
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveAuditEvent {
+
+    private Long id;
+    private String fileId;
+    private String fileName;
+    private Long fileSize;
+    private String userId;
+    private String status;
+    private Integer riskScore;
+    private Boolean sensitiveDataFound;
+    private List<String> sensitiveTypes;
+    private String policyAction;
+    private String timestamp;
+
+    /**
+     * Create event from a persisted audit log
+     */
+    public static LiveAuditEvent from(AuditLog auditLog) {
+        return LiveAuditEvent.builder()
+                .id(auditLog.getId())
+                .fileId(auditLog.getFileId())
+                .fileName(auditLog.getFileName())
+                .fileSize(auditLog.getFileSize())
+                .userId(auditLog.getUserId())
+                .status(auditLog.getStatus().name())
+                .riskScore(auditLog.getRiskScore())
+                .sensitiveDataFound(auditLog.getSensitiveDataFound())
+                .sensitiveTypes(auditLog.getSensitiveTypes() != null
+                        ? new ArrayList<>(auditLog.getSensitiveTypes())
+                        : new ArrayList<>())
+                .policyAction(auditLog.getPolicyAction().name())
+                .timestamp(auditLog.getTimestamp().toString())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Detection pattern added or changed through the pattern API
+ * Rows are applied on top of the built-in and configured patterns; a disabled row removes its type.
+ */
+@Entity
+@Table(name = "managed_patterns")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManagedPattern {
+
+    @Id
+    @Column(length = 64)
+    private String type;
+
+    @Column(nullable = false, length = 2000)
+    private String regex;
+
+    @Column(nullable = false)
+    private Integer severity;
+
+    private String description;
+
+    @Column(nullable = false)
+    private Boolean enabled;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
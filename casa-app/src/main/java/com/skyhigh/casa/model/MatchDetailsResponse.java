@@ -0,0 +1,27 @@
+package com.skyhigh.casa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response DTO for the per-match detail of one audit log
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchDetailsResponse {
+
+    private Long auditLogId;
+    private String fileId;
+    private String fileName;
+    private int totalMatches;
+    private boolean truncated;
+    private Map<String, Integer> typeTotals; // null for older details that were truncated
+    private List<ScanResult.SensitiveDataMatch> matches;
+}
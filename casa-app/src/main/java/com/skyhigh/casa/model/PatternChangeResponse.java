@@ -0,0 +1,29 @@
+package com.skyhigh.casa.model;
+
+import com.skyhigh.casa.scanner.PatternProfile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a pattern change, with the candidate's cost over the sample corpus
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatternChangeResponse {
+
+    private String type;
+
+    /** The change passed the cost limits; for a dry run, whether it would */
+    private boolean accepted;
+
+    private String reason;
+
+    private PatternProfile profile;
+
+    /** Pattern set version in use after the change */
+    private String patternSetVersion;
+}
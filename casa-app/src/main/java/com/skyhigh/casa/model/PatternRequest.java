@@ -0,0 +1,23 @@
+package com.skyhigh.casa.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Pattern to add or update through the pattern API
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatternRequest {
+
+    private String regex;
+
+    /** Risk weight of a match, 1-10 */
+    private Integer severity;
+
+    private String description;
+}
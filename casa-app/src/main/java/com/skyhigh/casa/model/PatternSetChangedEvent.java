@@ -0,0 +1,7 @@
+package com.skyhigh.casa.model;
+
+/**
+ * Application event published after the default scanner switched to a new pattern set
+ */
+public record PatternSetChangedEvent(String version) {
+}
@@ -0,0 +1,30 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Detection pattern set the scanner has run with
+ * Fingerprints are stored one "TYPE=fingerprint" per line so later versions can tell which types changed.
+ */
+@Entity
+@Table(name = "pattern_set_versions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatternSetVersion {
+
+    @Id
+    @Column(length = 16)
+    private String version;
+
+    @Column(nullable = false, length = 4000)
+    private String fingerprints;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,49 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the background rescan towards a pattern set version
+ * Uploads with an id up to lastAuditLogId have been rescanned or skipped.
+ */
+@Entity
+@Table(name = "rescan_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RescanCheckpoint {
+
+    @Id
+    @Column(length = 32)
+    private String jobName;
+
+    @Column(nullable = false, length = 16)
+    private String targetVersion;
+
+    @Column(nullable = false)
+    private Long lastAuditLogId;
+
+    @Column(nullable = false)
+    private Long filesScanned;
+
+    @Column(nullable = false)
+    private Long bytesScanned;
+
+    @Column(nullable = false)
+    private Long findings;
+
+    @Column(nullable = false)
+    private Long failures;
+
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,29 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Compaction progress per rollup granularity
+ * Buckets before compactedUntil have been folded into this granularity. For MINUTE it marks
+ * the one-time backfill: audit logs before it were counted from the table.
+ */
+@Entity
+@Table(name = "rollup_watermarks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupWatermark {
+
+    @Id
+    @Column(length = 10)
+    @Enumerated(EnumType.STRING)
+    private AuditRollup.Granularity granularity;
+
+    @Column(nullable = false)
+    private LocalDateTime compactedUntil;
+}
@@ -0,0 +1,55 @@
+package com.skyhigh.casa.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-addressed stored file shared by every upload with the same bytes
+ * The reference count is the number of audit records pointing at the object.
+ */
+@Entity
+@Table(name = "stored_objects",
+        uniqueConstraints = @UniqueConstraint(name = "uk_stored_object_content", columnNames = {"tier", "contentHash"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObject {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 16)
+    @Enumerated(EnumType.STRING)
+    private Tier tier;
+
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(nullable = false)
+    private String storageLocation;
+
+    @Column(nullable = false)
+    private Long size;
+
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long refCount;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime lastReferencedAt;
+
+    public enum Tier {
+        STORAGE,
+        QUARANTINE
+    }
+}
@@ -0,0 +1,9 @@
+package com.skyhigh.casa.model;
+
+import java.util.Map;
+
+/**
+ * Application event published after a tenant's scanner was compiled
+ */
+public record TenantPatternSetCompiledEvent(String tenantId, String version, Map<String, String> fingerprints) {
+}
@@ -0,0 +1,101 @@
+package com.skyhigh.casa.ratelimit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhigh.casa.model.FileUploadResponse;
+import com.skyhigh.casa.util.ClientIpResolver;
+import com.skyhigh.casa.util.HttpRequestUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * Enforces upload rate limits before the multipart body is read
+ * Only headers, the query string and Content-Length are inspected, so a rejected
+ * upload costs no body parsing or temp-file spooling.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+
+    private final UploadRateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final ClientIpResolver clientIpResolver;
+
+    @Value("${uploads.max-length:10485760}")
+    private long maxUploadLength;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equalsIgnoreCase(request.getMethod())
+                || !(request.getRequestURI().equals("/api/v1/upload")
+                        || request.getRequestURI().equals("/api/v1/upload/stream")
+                        || request.getRequestURI().equals("/api/v1/uploads"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String ipAddress = clientIpResolver.getClientIpAddress(request);
+        long retryAfter = rateLimiter.tryAcquire(resolveUserId(request), ipAddress, uploadLength(request));
+
+        if (retryAfter > 0) {
+            log.warn("Upload rate limit exceeded for {} (retry after {}s)", ipAddress, retryAfter);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    FileUploadResponse.error(null, "Rate limit exceeded, retry after " + retryAfter + " seconds"));
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Bytes to charge: the declared length when opening a chunked upload session, else the request body
+     * A body of unknown length (chunked transfer encoding) is charged as the largest accepted upload.
+     */
+    private long uploadLength(HttpServletRequest request) {
+        String declared = request.getHeader("Upload-Length");
+        if (declared != null) {
+            try {
+                return Long.parseLong(declared.trim());
+            } catch (NumberFormatException e) {
+                // Rejected by the controller; charge the body like any other request
+            }
+        }
+        long length = request.getContentLengthLong();
+        return length >= 0 ? length : maxUploadLength;
+    }
+
+    /**
+     * Resolve user without touching request parameters, which would parse the multipart body
+     */
+    private String resolveUserId(HttpServletRequest request) {
+        String header = request.getHeader(USER_ID_HEADER);
+        if (header != null && !header.isBlank()) {
+            return header.trim();
+        }
+        String fromQuery = HttpRequestUtils.getQueryParameter(request, "userId");
+        if (fromQuery != null && !fromQuery.isBlank()) {
+            return fromQuery;
+        }
+        Principal principal = request.getUserPrincipal();
+        return principal != null ? principal.getName() : null;
+    }
+}
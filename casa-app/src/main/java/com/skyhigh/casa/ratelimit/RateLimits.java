@@ -0,0 +1,31 @@
+package com.skyhigh.casa.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Upload rate limit settings
+ * Rates are per second, bursts are bucket capacities; a rate of 0 disables that limit
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimits {
+
+    private boolean enabled;
+
+    private double userRequestsPerSecond;
+    private long userRequestBurst;
+    private double userBytesPerSecond;
+    private long userByteBurst;
+
+    private double ipRequestsPerSecond;
+    private long ipRequestBurst;
+    private double ipBytesPerSecond;
+    private long ipByteBurst;
+
+    private int maxTrackedKeys;
+}
@@ -0,0 +1,64 @@
+package com.skyhigh.casa.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket using the generic cell rate algorithm (GCRA)
+ * The whole bucket state is one "theoretical arrival time" updated by CAS.
+ * Rate and burst are passed on every call, so limit changes apply immediately.
+ */
+public class TokenBucket {
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Try to take cost tokens
+     *
+     * @return 0 if allowed, otherwise nanoseconds until the request would be allowed
+     */
+    public long tryAcquire(long cost, double ratePerSecond, long burst, long nowNanos) {
+        if (ratePerSecond <= 0) {
+            return 0;
+        }
+        double interval = 1_000_000_000d / ratePerSecond;
+        long increment = (long) (Math.min(cost, burst) * interval);
+        long tolerance = (long) (burst * interval);
+
+        while (true) {
+            long current = theoreticalArrival.get();
+            long base = Math.max(current, nowNanos);
+            long next = base + increment;
+            long wait = next - tolerance - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Give back tokens taken by a request that was rejected by another bucket
+     */
+    public void refund(long cost, double ratePerSecond, long burst, long nowNanos) {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        long decrement = (long) (Math.min(cost, burst) * (1_000_000_000d / ratePerSecond));
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(nowNanos, current - decrement);
+            if (next >= current || theoreticalArrival.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * A bucket is idle once fully refilled; dropping it loses no state
+     */
+    public boolean isIdle(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
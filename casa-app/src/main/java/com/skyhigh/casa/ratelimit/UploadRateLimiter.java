@@ -0,0 +1,235 @@
+package com.skyhigh.casa.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-user and per-IP upload rate limiting, in both requests and bytes
+ * Buckets live in a bounded map; idle buckets are swept since a refilled bucket carries no state.
+ * When the map is full, idle buckets are dropped first and then the least recently used ones,
+ * so a flood of new keys costs old keys their state instead of throttling every new key together.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UploadRateLimiter {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ratelimit.user.requests-per-second:2}")
+    private double userRequestsPerSecond;
+
+    @Value("${ratelimit.user.request-burst:20}")
+    private long userRequestBurst;
+
+    @Value("${ratelimit.user.bytes-per-second:2097152}")
+    private double userBytesPerSecond;
+
+    @Value("${ratelimit.user.byte-burst:52428800}")
+    private long userByteBurst;
+
+    @Value("${ratelimit.ip.requests-per-second:5}")
+    private double ipRequestsPerSecond;
+
+    @Value("${ratelimit.ip.request-burst:50}")
+    private long ipRequestBurst;
+
+    @Value("${ratelimit.ip.bytes-per-second:5242880}")
+    private double ipBytesPerSecond;
+
+    @Value("${ratelimit.ip.byte-burst:104857600}")
+    private long ipByteBurst;
+
+    @Value("${ratelimit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private volatile RateLimits limits;
+    private final Map<String, Buckets> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, Buckets> ipBuckets = new ConcurrentHashMap<>();
+    private final ReentrantLock evicting = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        limits = RateLimits.builder()
+                .enabled(enabled)
+                .userRequestsPerSecond(userRequestsPerSecond)
+                .userRequestBurst(userRequestBurst)
+                .userBytesPerSecond(userBytesPerSecond)
+                .userByteBurst(userByteBurst)
+                .ipRequestsPerSecond(ipRequestsPerSecond)
+                .ipRequestBurst(ipRequestBurst)
+                .ipBytesPerSecond(ipBytesPerSecond)
+                .ipByteBurst(ipByteBurst)
+                .maxTrackedKeys(maxTrackedKeys)
+                .build();
+
+        Gauge.builder("casa.ratelimit.tracked.keys", userBuckets, Map::size)
+                .tag("dimension", "user").register(meterRegistry);
+        Gauge.builder("casa.ratelimit.tracked.keys", ipBuckets, Map::size)
+                .tag("dimension", "ip").register(meterRegistry);
+    }
+
+    /**
+     * Check an upload against the user and IP limits
+     *
+     * @return 0 if allowed, otherwise seconds the client should wait before retrying
+     */
+    public long tryAcquire(String userId, String ipAddress, long bytes) {
+        RateLimits current = limits;
+        if (!current.isEnabled()) {
+            return 0;
+        }
+
+        long now = System.nanoTime();
+        long cost = Math.max(0, bytes);
+
+        Buckets ip = bucketsFor(ipBuckets, ipAddress, current, now, "ip");
+        long wait = ip.acquire(cost, current.getIpRequestsPerSecond(), current.getIpRequestBurst(),
+                current.getIpBytesPerSecond(), current.getIpByteBurst(), now, "ip");
+        if (wait > 0) {
+            return toRetryAfterSeconds(wait);
+        }
+
+        if (userId != null && !userId.isBlank()) {
+            Buckets user = bucketsFor(userBuckets, userId, current, now, "user");
+            wait = user.acquire(cost, current.getUserRequestsPerSecond(), current.getUserRequestBurst(),
+                    current.getUserBytesPerSecond(), current.getUserByteBurst(), now, "user");
+            if (wait > 0) {
+                ip.refund(cost, current.getIpRequestsPerSecond(), current.getIpRequestBurst(),
+                        current.getIpBytesPerSecond(), current.getIpByteBurst(), now);
+                return toRetryAfterSeconds(wait);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get current limits
+     */
+    public RateLimits getLimits() {
+        return limits;
+    }
+
+    /**
+     * Replace limits at runtime; existing buckets keep their state
+     */
+    public RateLimits updateLimits(RateLimits newLimits) {
+        limits = newLimits;
+        log.info("Upload rate limits updated: {}", newLimits);
+        return newLimits;
+    }
+
+    /**
+     * Drop fully refilled buckets
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.sweep-interval:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        userBuckets.values().removeIf(buckets -> buckets.isIdle(now));
+        ipBuckets.values().removeIf(buckets -> buckets.isIdle(now));
+    }
+
+    private Buckets bucketsFor(Map<String, Buckets> buckets, String key, RateLimits current, long now,
+            String dimension) {
+        Buckets existing = buckets.get(key);
+        if (existing == null) {
+            if (buckets.size() >= current.getMaxTrackedKeys()) {
+                evict(buckets, current.getMaxTrackedKeys(), now, dimension);
+            }
+            existing = buckets.computeIfAbsent(key, k -> new Buckets());
+        }
+        existing.lastUsed = now;
+        return existing;
+    }
+
+    /**
+     * Make room in a full map: drop idle buckets, then the least recently used tenth of the bound
+     * One thread evicts at a time while the others go ahead, so the map can briefly exceed the bound.
+     */
+    private void evict(Map<String, Buckets> buckets, int maxKeys, long now, String dimension) {
+        if (!evicting.tryLock()) {
+            return;
+        }
+        try {
+            int before = buckets.size();
+            if (before < maxKeys) {
+                return;
+            }
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+            int excess = buckets.size() - (maxKeys - Math.max(1, maxKeys / 10));
+            if (excess > 0) {
+                long[] lastUsed = buckets.values().stream().mapToLong(bucket -> bucket.lastUsed).sorted().toArray();
+                long threshold = lastUsed[Math.min(excess, lastUsed.length) - 1];
+                buckets.values().removeIf(bucket -> bucket.lastUsed <= threshold);
+            }
+            Counter.builder("casa.ratelimit.evicted")
+                    .description("Rate limit buckets dropped to make room for new keys")
+                    .tag("dimension", dimension)
+                    .register(meterRegistry)
+                    .increment(before - buckets.size());
+        } finally {
+            evicting.unlock();
+        }
+    }
+
+    private static long toRetryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    /**
+     * Request and byte buckets for one key
+     */
+    private class Buckets {
+        private final TokenBucket requests = new TokenBucket();
+        private final TokenBucket bytes = new TokenBucket();
+        private volatile long lastUsed;
+
+        long acquire(long cost, double requestRate, long requestBurst, double byteRate, long byteBurst,
+                long now, String dimension) {
+            long wait = requests.tryAcquire(1, requestRate, requestBurst, now);
+            if (wait > 0) {
+                rejected(dimension, "requests").increment();
+                return wait;
+            }
+            wait = bytes.tryAcquire(cost, byteRate, byteBurst, now);
+            if (wait > 0) {
+                requests.refund(1, requestRate, requestBurst, now);
+                rejected(dimension, "bytes").increment();
+                return wait;
+            }
+            return 0;
+        }
+
+        void refund(long cost, double requestRate, long requestBurst, double byteRate, long byteBurst, long now) {
+            requests.refund(1, requestRate, requestBurst, now);
+            bytes.refund(cost, byteRate, byteBurst, now);
+        }
+
+        boolean isIdle(long now) {
+            return requests.isIdle(now) && bytes.isIdle(now);
+        }
+    }
+
+    private Counter rejected(String dimension, String limit) {
+        return Counter.builder("casa.ratelimit.rejected")
+                .description("Uploads rejected by rate limiting")
+                .tag("dimension", dimension)
+                .tag("limit", limit)
+                .register(meterRegistry);
+    }
+}
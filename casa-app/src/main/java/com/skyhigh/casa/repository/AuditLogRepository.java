@@ -0,0 +1,113 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.AuditLog;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for Audit Log operations
+ */
+@Repository
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+
+    /**
+     * Find the log of one upload
+     */
+    Optional<AuditLog> findByFileId(String fileId);
+
+    /**
+     * Find logs by status
+     */
+    Page<AuditLog> findByStatus(AuditLog.UploadStatus status, Pageable pageable);
+
+    /**
+     * Find logs by user ID
+     */
+    Page<AuditLog> findByUserId(String userId, Pageable pageable);
+
+    /**
+     * Find logs by date range
+     */
+    Page<AuditLog> findByTimestampBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Find a slice of logs in date range without counting them
+     */
+    Slice<AuditLog> findSliceByTimestampBetween(LocalDateTime start, LocalDateTime end, Pageable pageable);
+
+    /**
+     * Count logs in date range
+     */
+    long countByTimestampBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Find logs of one time partition [start, end) in id order
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.timestamp >= :start AND a.timestamp < :end ORDER BY a.id ASC")
+    List<AuditLog> findPartition(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+            Pageable pageable);
+
+    /**
+     * Find stored uploads after the given id that were not scanned with the given pattern set version
+     * Tenant uploads are included; a tenant whose overrides give it another version filters them further.
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.id > :afterId AND a.status = 'ALLOWED' AND a.storageLocation IS NOT NULL"
+            + " AND (a.patternSetVersion IS NULL OR a.patternSetVersion <> :version) ORDER BY a.id ASC")
+    List<AuditLog> findRescanCandidates(@Param("afterId") long afterId, @Param("version") String version,
+            Pageable pageable);
+
+    /**
+     * Find logs after the given id in id order
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.id > :afterId ORDER BY a.id ASC")
+    List<AuditLog> findAfterId(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Find the lowest id still in the hot table
+     */
+    @Query("SELECT MIN(a.id) FROM AuditLog a")
+    Long findMinId();
+
+    /**
+     * Find the highest id in the hot table
+     */
+    @Query("SELECT MAX(a.id) FROM AuditLog a")
+    Long findMaxId();
+
+    /**
+     * Find the oldest timestamp still in the hot table
+     */
+    @Query("SELECT MIN(a.timestamp) FROM AuditLog a")
+    LocalDateTime findEarliestTimestamp();
+
+    /**
+     * Find blocked uploads
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.status = 'BLOCKED' ORDER BY a.timestamp DESC")
+    List<AuditLog> findBlockedUploads();
+
+    /**
+     * Find high risk uploads
+     */
+    @Query("SELECT a FROM AuditLog a WHERE a.riskScore >= :threshold ORDER BY a.riskScore DESC")
+    List<AuditLog> findHighRiskUploads(@Param("threshold") int threshold);
+
+    /**
+     * Count uploads by status
+     */
+    long countByStatus(AuditLog.UploadStatus status);
+
+    /**
+     * Find recent logs
+     */
+    List<AuditLog> findTop10ByOrderByTimestampDesc();
+}
@@ -0,0 +1,79 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.AuditRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for audit rollup buckets
+ */
+@Repository
+public interface AuditRollupRepository extends JpaRepository<AuditRollup, Long> {
+
+    /**
+     * Add to an existing bucket, returns number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE AuditRollup r SET r.eventCount = r.eventCount + :count, " +
+            "r.riskScoreSum = r.riskScoreSum + :riskScoreSum, r.bytesSum = r.bytesSum + :bytesSum " +
+            "WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart " +
+            "AND r.dimension = :dimension AND r.dimensionKey = :dimensionKey AND r.subKey = :subKey")
+    int increment(@Param("granularity") AuditRollup.Granularity granularity,
+            @Param("bucketStart") LocalDateTime bucketStart,
+            @Param("dimension") AuditRollup.Dimension dimension,
+            @Param("dimensionKey") String dimensionKey,
+            @Param("subKey") String subKey,
+            @Param("count") long count,
+            @Param("riskScoreSum") long riskScoreSum,
+            @Param("bytesSum") long bytesSum);
+
+    /**
+     * Find buckets of one dimension in [start, end)
+     */
+    @Query("SELECT r FROM AuditRollup r WHERE r.granularity = :granularity AND r.dimension = :dimension " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end")
+    List<AuditRollup> findRange(@Param("granularity") AuditRollup.Granularity granularity,
+            @Param("dimension") AuditRollup.Dimension dimension,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    /**
+     * Find buckets of one dimension key in [start, end)
+     */
+    @Query("SELECT r FROM AuditRollup r WHERE r.granularity = :granularity AND r.dimension = :dimension " +
+            "AND r.dimensionKey = :dimensionKey AND r.bucketStart >= :start AND r.bucketStart < :end")
+    List<AuditRollup> findRangeForKey(@Param("granularity") AuditRollup.Granularity granularity,
+            @Param("dimension") AuditRollup.Dimension dimension,
+            @Param("dimensionKey") String dimensionKey,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    /**
+     * Find all buckets of a granularity in [start, end), used by compaction
+     */
+    @Query("SELECT r FROM AuditRollup r WHERE r.granularity = :granularity " +
+            "AND r.bucketStart >= :start AND r.bucketStart < :end")
+    List<AuditRollup> findAllInRange(@Param("granularity") AuditRollup.Granularity granularity,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end);
+
+    /**
+     * Find the earliest bucket of a granularity
+     */
+    @Query("SELECT MIN(r.bucketStart) FROM AuditRollup r WHERE r.granularity = :granularity")
+    LocalDateTime findEarliestBucket(@Param("granularity") AuditRollup.Granularity granularity);
+
+    /**
+     * Drop buckets older than the cutoff
+     */
+    @Modifying
+    @Query("DELETE FROM AuditRollup r WHERE r.granularity = :granularity AND r.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("granularity") AuditRollup.Granularity granularity,
+            @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,12 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.JournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for journal projection checkpoints
+ */
+@Repository
+public interface JournalCheckpointRepository extends JpaRepository<JournalCheckpoint, String> {
+}
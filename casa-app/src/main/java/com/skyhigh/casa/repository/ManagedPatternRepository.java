@@ -0,0 +1,12 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.ManagedPattern;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for patterns managed through the pattern API
+ */
+@Repository
+public interface ManagedPatternRepository extends JpaRepository<ManagedPattern, String> {
+}
@@ -0,0 +1,12 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.PatternSetVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for known detection pattern set versions
+ */
+@Repository
+public interface PatternSetVersionRepository extends JpaRepository<PatternSetVersion, String> {
+}
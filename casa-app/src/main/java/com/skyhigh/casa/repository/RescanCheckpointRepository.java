@@ -0,0 +1,12 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.RescanCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for background rescan checkpoints
+ */
+@Repository
+public interface RescanCheckpointRepository extends JpaRepository<RescanCheckpoint, String> {
+}
@@ -0,0 +1,13 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.AuditRollup;
+import com.skyhigh.casa.model.RollupWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for rollup compaction watermarks
+ */
+@Repository
+public interface RollupWatermarkRepository extends JpaRepository<RollupWatermark, AuditRollup.Granularity> {
+}
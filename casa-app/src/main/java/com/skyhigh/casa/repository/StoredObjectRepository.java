@@ -0,0 +1,52 @@
+package com.skyhigh.casa.repository;
+
+import com.skyhigh.casa.model.StoredObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Repository for content-addressed stored objects
+ */
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, Long> {
+
+    /**
+     * Find the object holding the given content in a tier
+     */
+    Optional<StoredObject> findByTierAndContentHash(StoredObject.Tier tier, String contentHash);
+
+    /**
+     * Add a reference to an object
+     *
+     * @return the number of rows updated, 0 when the object is gone
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount + 1, o.lastReferencedAt = :now WHERE o.id = :id")
+    int addReference(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    /**
+     * Drop a reference from an object
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredObject o SET o.refCount = o.refCount - 1 WHERE o.id = :id AND o.refCount > 0")
+    int removeReference(@Param("id") Long id);
+
+    /**
+     * Delete an object once nothing references it
+     *
+     * @return 1 when the object was deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredObject o WHERE o.id = :id AND o.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
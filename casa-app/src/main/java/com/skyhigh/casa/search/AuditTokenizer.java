@@ -0,0 +1,138 @@
+package com.skyhigh.casa.search;
+
+import com.skyhigh.casa.model.AuditLog;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Index terms for audit log fields
+ *
+ * Every field value is lower-cased and indexed as trigrams, so any substring of three or
+ * more characters can be looked up as the intersection of its trigrams. Whole words are
+ * indexed as well, for query terms shorter than a trigram. Terms are prefixed by field.
+ */
+public final class AuditTokenizer {
+
+    public static final int GRAM = 3;
+
+    private AuditTokenizer() {
+    }
+
+    /**
+     * Searchable audit log fields
+     */
+    public enum Field {
+        FILE_NAME("fileName", auditLog -> single(auditLog.getFileName())),
+        BLOCK_REASON("blockReason", auditLog -> single(auditLog.getBlockReason())),
+        USER_ID("userId", auditLog -> single(auditLog.getUserId())),
+        SENSITIVE_TYPE("sensitiveTypes", auditLog -> auditLog.getSensitiveTypes() != null
+                ? auditLog.getSensitiveTypes() : List.of());
+
+        private final String name;
+        private final Function<AuditLog, List<String>> values;
+
+        Field(String name, Function<AuditLog, List<String>> values) {
+            this.name = name;
+            this.values = values;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<String> values(AuditLog auditLog) {
+            return values.apply(auditLog);
+        }
+
+        /**
+         * Field by its request name, or null
+         */
+        public static Field byName(String name) {
+            for (Field field : values()) {
+                if (field.name.equalsIgnoreCase(name)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+
+        private static List<String> single(String value) {
+            return value != null ? List.of(value) : List.of();
+        }
+    }
+
+    /**
+     * All index terms of an audit log
+     */
+    public static Set<String> terms(AuditLog auditLog) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (Field field : Field.values()) {
+            for (String value : field.values(auditLog)) {
+                String text = normalize(value);
+                for (int i = 0; i + GRAM <= text.length(); i++) {
+                    terms.add(gramTerm(field, text.substring(i, i + GRAM)));
+                }
+                for (String word : words(text)) {
+                    terms.add(wordTerm(field, word));
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Terms that must all be present for a field to contain the query term
+     * A term shorter than a trigram matches whole words only.
+     */
+    public static List<String> queryTerms(Field field, String term) {
+        String text = normalize(term);
+        List<String> terms = new ArrayList<>();
+        if (text.length() < GRAM) {
+            terms.add(wordTerm(field, text));
+            return terms;
+        }
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            terms.add(gramTerm(field, text.substring(i, i + GRAM)));
+        }
+        return terms;
+    }
+
+    /**
+     * Check a field value against a query term, to drop trigram false positives
+     */
+    public static boolean matches(String value, String term) {
+        String text = normalize(value);
+        String query = normalize(term);
+        if (query.length() < GRAM) {
+            return words(text).contains(query);
+        }
+        return text.contains(query);
+    }
+
+    public static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String gramTerm(Field field, String gram) {
+        return field.ordinal() + ":" + gram;
+    }
+
+    private static String wordTerm(Field field, String word) {
+        return field.ordinal() + "=" + word;
+    }
+}
@@ -0,0 +1,164 @@
+package com.skyhigh.casa.search;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Immutable search index segment file
+ *
+ * Layout: magic, version, min and max document id, then the posting bitmaps back to back,
+ * then the term dictionary (sorted terms with bitmap offsets) and finally the dictionary
+ * offset. The file is memory-mapped and only the dictionary is held on heap; postings are
+ * decoded when a query asks for them.
+ */
+public class IndexSegment {
+
+    private static final int MAGIC = 0x43534958; // "CSIX"
+    private static final short VERSION = 1;
+
+    private final Path path;
+    private final long minId;
+    private final long maxId;
+    private final String[] terms;
+    private final int[] offsets;
+    private final MappedByteBuffer data;
+
+    private IndexSegment(Path path, long minId, long maxId, String[] terms, int[] offsets, MappedByteBuffer data) {
+        this.path = path;
+        this.minId = minId;
+        this.maxId = maxId;
+        this.terms = terms;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    /**
+     * Write a segment from postings iterated in term order, then sync it
+     */
+    public static void write(Path path, long minId, long maxId, Iterator<Map.Entry<String, RoaringBitmap>> postings)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(minId);
+            out.writeLong(maxId);
+
+            ByteBuffer dictionary = ByteBuffer.allocate(64 * 1024);
+            int count = 0;
+            while (postings.hasNext()) {
+                Map.Entry<String, RoaringBitmap> entry = postings.next();
+                if (entry.getValue().isEmpty()) {
+                    continue;
+                }
+                byte[] term = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                if (dictionary.remaining() < term.length + 8) {
+                    dictionary = ByteBuffer.allocate(dictionary.capacity() * 2).put(dictionary.flip());
+                }
+                dictionary.putShort((short) term.length).put(term).putInt(out.size());
+                entry.getValue().serialize(out);
+                count++;
+            }
+
+            int dictionaryOffset = out.size();
+            out.writeInt(count);
+            out.write(dictionary.array(), 0, dictionary.position());
+            out.writeInt(dictionaryOffset);
+            out.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Map a segment file and load its dictionary
+     */
+    public static IndexSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (data.getInt(0) != MAGIC) {
+                throw new IOException("Not a search index segment: " + path);
+            }
+            if (data.getShort(4) != VERSION) {
+                throw new IOException("Unsupported search index segment version " + data.getShort(4) + ": " + path);
+            }
+            long minId = data.getLong(6);
+            long maxId = data.getLong(14);
+
+            ByteBuffer dictionary = data.duplicate().position(data.getInt(data.limit() - 4));
+            int count = dictionary.getInt();
+            String[] terms = new String[count];
+            int[] offsets = new int[count];
+            for (int i = 0; i < count; i++) {
+                byte[] term = new byte[dictionary.getShort()];
+                dictionary.get(term);
+                terms[i] = new String(term, StandardCharsets.UTF_8);
+                offsets[i] = dictionary.getInt();
+            }
+            return new IndexSegment(path, minId, maxId, terms, offsets, data);
+        }
+    }
+
+    /**
+     * Postings of a term, or null when it does not occur in this segment
+     */
+    public RoaringBitmap postings(String term) {
+        int index = Arrays.binarySearch(terms, term);
+        return index >= 0 ? read(index) : null;
+    }
+
+    /**
+     * Iterate postings in term order, for merging
+     */
+    public Iterator<Map.Entry<String, RoaringBitmap>> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < terms.length;
+            }
+
+            @Override
+            public Map.Entry<String, RoaringBitmap> next() {
+                int index = next++;
+                return Map.entry(terms[index], read(index));
+            }
+        };
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getMinId() {
+        return minId;
+    }
+
+    public long getMaxId() {
+        return maxId;
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    public long getSizeBytes() {
+        return data.capacity();
+    }
+
+    private RoaringBitmap read(int index) {
+        return RoaringBitmap.deserialize(data.duplicate().position(offsets[index]));
+    }
+}
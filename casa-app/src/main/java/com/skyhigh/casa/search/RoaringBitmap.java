@@ -0,0 +1,353 @@
+package com.skyhigh.casa.search;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Compressed set of non-negative ints in the roaring layout
+ *
+ * Values are split by their high 16 bits into containers. A container holding up to 4096
+ * values is a sorted array of the low 16 bits; a denser one is a 65536-bit bitmap. Sparse
+ * posting lists therefore cost about two bytes per id and dense ones one bit.
+ * Not thread-safe.
+ */
+public class RoaringBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[4];
+    private Object[] containers = new Object[4];
+    private int[] cardinalities = new int[4];
+    private int size;
+
+    /**
+     * Add a value
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative value: " + value);
+        }
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new char[]{low}, 1);
+            return;
+        }
+        if (containers[index] instanceof long[] bitmap) {
+            long mask = 1L << low;
+            if ((bitmap[low >>> 6] & mask) == 0) {
+                bitmap[low >>> 6] |= mask;
+                cardinalities[index]++;
+            }
+            return;
+        }
+        char[] array = (char[]) containers[index];
+        int cardinality = cardinalities[index];
+        // Ids mostly arrive in increasing order, so try the end first
+        int position = cardinality > 0 && array[cardinality - 1] < low
+                ? -(cardinality + 1) : Arrays.binarySearch(array, 0, cardinality, low);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (cardinality == ARRAY_MAX) {
+            long[] bitmap = toBitmap(array, cardinality);
+            bitmap[low >>> 6] |= 1L << low;
+            containers[index] = bitmap;
+            cardinalities[index] = cardinality + 1;
+            return;
+        }
+        if (cardinality == array.length) {
+            array = Arrays.copyOf(array, Math.min(ARRAY_MAX, cardinality * 2));
+            containers[index] = array;
+        }
+        System.arraycopy(array, position, array, position + 1, cardinality - position);
+        array[position] = low;
+        cardinalities[index] = cardinality + 1;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        if (containers[index] instanceof long[] bitmap) {
+            return (bitmap[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) containers[index], 0, cardinalities[index], low) >= 0;
+    }
+
+    public long getCardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cardinalities[i];
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Values present in both bitmaps
+     */
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                long[] words = toBitmap(a, i);
+                long[] other = toBitmap(b, j);
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] &= other[w];
+                }
+                result.appendContainer(a.keys[i], words);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Values present in either bitmap
+     */
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.appendContainer(a.keys[i], toBitmap(a, i));
+                i++;
+            } else if (i == a.size || b.keys[j] < a.keys[i]) {
+                result.appendContainer(b.keys[j], toBitmap(b, j));
+                j++;
+            } else {
+                long[] words = toBitmap(a, i);
+                long[] other = toBitmap(b, j);
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] |= other[w];
+                }
+                result.appendContainer(a.keys[i], words);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Remove all values below the given one
+     */
+    public void removeBelow(int value) {
+        if (value <= 0) {
+            return;
+        }
+        char key = (char) (value >>> 16);
+        int first = 0;
+        while (first < size && keys[first] < key) {
+            first++;
+        }
+        if (first > 0) {
+            System.arraycopy(keys, first, keys, 0, size - first);
+            System.arraycopy(containers, first, containers, 0, size - first);
+            System.arraycopy(cardinalities, first, cardinalities, 0, size - first);
+            Arrays.fill(containers, size - first, size, null);
+            size -= first;
+        }
+        if (size > 0 && keys[0] == key) {
+            long[] words = toBitmap(this, 0);
+            char low = (char) value;
+            Arrays.fill(words, 0, low >>> 6, 0L);
+            words[low >>> 6] &= -1L << low;
+            Object[] packed = pack(words);
+            if (packed == null) {
+                removeContainer(0);
+            } else {
+                containers[0] = packed[0];
+                cardinalities[0] = (Integer) packed[1];
+            }
+        }
+    }
+
+    /**
+     * Visit values from the largest down until the visitor returns false
+     */
+    public void forEachDescending(IntPredicate visitor) {
+        for (int i = size - 1; i >= 0; i--) {
+            int high = keys[i] << 16;
+            if (containers[i] instanceof long[] bitmap) {
+                for (int w = BITMAP_WORDS - 1; w >= 0; w--) {
+                    long word = bitmap[w];
+                    while (word != 0) {
+                        int bit = 63 - Long.numberOfLeadingZeros(word);
+                        if (!visitor.test(high | (w << 6) | bit)) {
+                            return;
+                        }
+                        word &= ~(1L << bit);
+                    }
+                }
+            } else {
+                char[] array = (char[]) containers[i];
+                for (int k = cardinalities[i] - 1; k >= 0; k--) {
+                    if (!visitor.test(high | array[k])) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write the bitmap; the format is read back by deserialize
+     */
+    public void serialize(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            out.writeInt(cardinalities[i]);
+            if (containers[i] instanceof long[] bitmap) {
+                for (long word : bitmap) {
+                    out.writeLong(word);
+                }
+            } else {
+                char[] array = (char[]) containers[i];
+                for (int k = 0; k < cardinalities[i]; k++) {
+                    out.writeChar(array[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Read a bitmap written by serialize from the buffer's current position
+     */
+    public static RoaringBitmap deserialize(ByteBuffer in) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        int count = in.getInt();
+        bitmap.keys = new char[Math.max(1, count)];
+        bitmap.containers = new Object[Math.max(1, count)];
+        bitmap.cardinalities = new int[Math.max(1, count)];
+        for (int i = 0; i < count; i++) {
+            bitmap.keys[i] = in.getChar();
+            int cardinality = in.getInt();
+            bitmap.cardinalities[i] = cardinality;
+            if (cardinality > ARRAY_MAX) {
+                long[] words = new long[BITMAP_WORDS];
+                in.asLongBuffer().get(words);
+                in.position(in.position() + BITMAP_WORDS * Long.BYTES);
+                bitmap.containers[i] = words;
+            } else {
+                char[] array = new char[cardinality];
+                in.asCharBuffer().get(array);
+                in.position(in.position() + cardinality * Character.BYTES);
+                bitmap.containers[i] = array;
+            }
+        }
+        bitmap.size = count;
+        return bitmap;
+    }
+
+    private int indexOf(char key) {
+        // Appends dominate, so check the last container before searching
+        if (size > 0 && keys[size - 1] == key) {
+            return size - 1;
+        }
+        if (size > 0 && keys[size - 1] < key) {
+            return -(size + 1);
+        }
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void appendContainer(char key, long[] words) {
+        Object[] packed = pack(words);
+        if (packed != null) {
+            insertContainer(size, key, packed[0], (Integer) packed[1]);
+        }
+    }
+
+    private void insertContainer(int index, char key, Object container, int cardinality) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        System.arraycopy(cardinalities, index, cardinalities, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        cardinalities[index] = cardinality;
+        size++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        System.arraycopy(cardinalities, index + 1, cardinalities, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    /**
+     * Pick the smaller container representation for a bitmap, or null when it is empty
+     */
+    private static Object[] pack(long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality == 0) {
+            return null;
+        }
+        if (cardinality > ARRAY_MAX) {
+            return new Object[]{words, cardinality};
+        }
+        char[] array = new char[cardinality];
+        int k = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                array[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return new Object[]{array, cardinality};
+    }
+
+    /**
+     * Copy of a container as a bitmap, for container-wise set operations
+     */
+    private static long[] toBitmap(RoaringBitmap source, int index) {
+        if (source.containers[index] instanceof long[] bitmap) {
+            return bitmap.clone();
+        }
+        return toBitmap((char[]) source.containers[index], source.cardinalities[index]);
+    }
+
+    private static long[] toBitmap(char[] array, int cardinality) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int k = 0; k < cardinality; k++) {
+            words[array[k] >>> 6] |= 1L << array[k];
+        }
+        return words;
+    }
+}
@@ -0,0 +1,276 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.archive.AuditSegment;
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogsChangedEvent;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Audit log retention and cold archive
+ * audit_logs is treated as day partitions over the timestamp index. Partitions older than
+ * the hot-retention window are moved into compressed segment files and removed from the table.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditArchiveService {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final AuditLogRepository auditLogRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${audit.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.archive.hot-retention-days:90}")
+    private int hotRetentionDays;
+
+    @Value("${audit.archive.path:./archive}")
+    private String archivePath;
+
+    @Value("${audit.archive.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${audit.archive.cached-segments:8}")
+    private int cachedSegments;
+
+    private final List<AuditSegment.Header> catalog = new CopyOnWriteArrayList<>();
+    private Map<Path, List<AuditLog>> segmentCache;
+    private TransactionTemplate transactionTemplate;
+    private Path archiveDir;
+
+    @PostConstruct
+    void init() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        segmentCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, List<AuditLog>> eldest) {
+                return size() > cachedSegments;
+            }
+        });
+
+        archiveDir = Paths.get(archivePath).toAbsolutePath().normalize();
+        Files.createDirectories(archiveDir);
+        try (Stream<Path> files = Files.list(archiveDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    catalog.add(AuditSegment.readHeader(file));
+                }
+            }
+        }
+        log.info("Loaded {} archived audit segments from {}", catalog.size(), archiveDir);
+    }
+
+    /**
+     * Start of the hot window; older partitions belong in the archive
+     */
+    public LocalDateTime getHotCutoff() {
+        return LocalDate.now().minusDays(hotRetentionDays).atStartOfDay();
+    }
+
+    /**
+     * Move expired day partitions to segment files
+     */
+    @Scheduled(fixedDelayString = "${audit.archive.interval:3600000}",
+            initialDelayString = "${audit.archive.initial-delay:60000}")
+    public void archiveExpiredPartitions() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = getHotCutoff();
+        try {
+            LocalDateTime earliest;
+            while ((earliest = auditLogRepository.findEarliestTimestamp()) != null && earliest.isBefore(cutoff)) {
+                LocalDateTime dayStart = earliest.truncatedTo(ChronoUnit.DAYS);
+                archivePartition(dayStart, dayStart.plusDays(1));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Audit archiving failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Check whether any archived segment overlaps the range
+     */
+    public boolean hasArchivedData(LocalDateTime start, LocalDateTime end) {
+        return catalog.stream().anyMatch(header -> header.overlaps(start, end));
+    }
+
+    /**
+     * One page of archived logs in a range, and the number of archived logs in that range
+     */
+    public record ArchivedPage(List<AuditLog> content, long total) {
+    }
+
+    /**
+     * Find a page of archived logs in [start, end], ordered by timestamp then id
+     * Overlapping segments are grouped into runs, visited in order of their time ranges. A run
+     * that lies inside the range is counted from its headers and skipped unless it holds rows of
+     * the page; only runs that do, or that straddle a range boundary, are decoded.
+     */
+    public ArchivedPage findArchived(LocalDateTime start, LocalDateTime end, Sort.Direction direction,
+            long offset, int limit) {
+        List<AuditSegment.Header> overlapping = catalog.stream()
+                .filter(header -> header.overlaps(start, end))
+                .sorted(Comparator.comparing(AuditSegment.Header::minTimestamp))
+                .toList();
+
+        List<List<AuditSegment.Header>> runs = new ArrayList<>();
+        LocalDateTime runEnd = null;
+        for (AuditSegment.Header header : overlapping) {
+            if (runEnd == null || header.minTimestamp().isAfter(runEnd)) {
+                runs.add(new ArrayList<>());
+                runEnd = header.maxTimestamp();
+            } else if (header.maxTimestamp().isAfter(runEnd)) {
+                runEnd = header.maxTimestamp();
+            }
+            runs.get(runs.size() - 1).add(header);
+        }
+        Comparator<AuditLog> order = Comparator.comparing(AuditLog::getTimestamp).thenComparing(AuditLog::getId);
+        if (direction == Sort.Direction.DESC) {
+            Collections.reverse(runs);
+            order = order.reversed();
+        }
+
+        List<AuditLog> content = new ArrayList<>();
+        long total = 0;
+        for (List<AuditSegment.Header> run : runs) {
+            boolean inside = run.stream().allMatch(header ->
+                    !header.minTimestamp().isBefore(start) && !header.maxTimestamp().isAfter(end));
+            if (inside) {
+                long rows = run.stream().mapToLong(AuditSegment.Header::rowCount).sum();
+                if (total + rows <= offset || total >= offset + limit) {
+                    total += rows;
+                    continue;
+                }
+            }
+
+            List<AuditLog> rows = new ArrayList<>();
+            for (AuditSegment.Header header : run) {
+                for (AuditLog auditLog : loadSegment(header.path())) {
+                    LocalDateTime timestamp = auditLog.getTimestamp();
+                    if (!timestamp.isBefore(start) && !timestamp.isAfter(end)) {
+                        rows.add(auditLog);
+                    }
+                }
+            }
+            rows.sort(order);
+            int from = (int) Math.min(rows.size(), Math.max(0, offset - total));
+            int to = (int) Math.min(rows.size(), Math.max(0, offset + limit - total));
+            if (from < to) {
+                content.addAll(rows.subList(from, to));
+            }
+            total += rows.size();
+        }
+        return new ArchivedPage(content, total);
+    }
+
+    /**
+     * Get archived row counts by status, from segment headers only
+     */
+    public long[] getArchivedStatusCounts() {
+        long[] counts = new long[AuditLog.UploadStatus.values().length];
+        for (AuditSegment.Header header : catalog) {
+            for (int i = 0; i < counts.length && i < header.statusCounts().length; i++) {
+                counts[i] += header.statusCounts()[i];
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Archive one day partition in batches
+     * Each batch is written and synced before its rows are deleted, so a crash can only
+     * leave a row in both places, never in neither
+     */
+    private void archivePartition(LocalDateTime start, LocalDateTime end) throws IOException {
+        long archived = 0;
+        while (true) {
+            List<AuditLog> batch = transactionTemplate.execute(status -> {
+                List<AuditLog> logs = auditLogRepository.findPartition(start, end, PageRequest.of(0, batchSize));
+                logs.forEach(auditLog -> auditLog.getSensitiveTypes().size());
+                return logs;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+
+            Path segment = archiveDir.resolve(String.format("audit-%s-%d%s",
+                    start.toLocalDate(), batch.get(0).getId(), SEGMENT_SUFFIX));
+            Path temp = segment.resolveSibling(segment.getFileName() + ".tmp");
+            AuditSegment.write(temp, batch);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE);
+            register(AuditSegment.readHeader(segment));
+
+            List<Long> ids = batch.stream().map(AuditLog::getId).toList();
+            transactionTemplate.executeWithoutResult(status -> auditLogRepository.deleteAllById(ids));
+            eventPublisher.publishEvent(new AuditLogsChangedEvent(ids.size()));
+            archived += batch.size();
+        }
+        log.info("Archived {} audit logs for partition {}", archived, start.toLocalDate());
+    }
+
+    /**
+     * Add a segment to the catalog, replacing the entry of a file it overwrote
+     * Re-archiving a batch whose rows a crash left in the table rewrites the same file.
+     */
+    private synchronized void register(AuditSegment.Header header) {
+        catalog.removeIf(existing -> existing.path().equals(header.path()));
+        catalog.add(header);
+        segmentCache.remove(header.path());
+    }
+
+    private List<AuditLog> loadSegment(Path path) {
+        List<AuditLog> cached = segmentCache.get(path);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            List<AuditLog> logs = AuditSegment.read(path);
+            segmentCache.put(path, logs);
+            return logs;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read audit segment " + path, e);
+        }
+    }
+}
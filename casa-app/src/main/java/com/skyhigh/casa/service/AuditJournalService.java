@@ -0,0 +1,301 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.exception.CapacityExceededException;
+import com.skyhigh.casa.journal.AuditJournal;
+import com.skyhigh.casa.journal.AuditRecordCodec;
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogCreatedEvent;
+import com.skyhigh.casa.model.AuditLogsChangedEvent;
+import com.skyhigh.casa.model.JournalCheckpoint;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import com.skyhigh.casa.repository.JournalCheckpointRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Local audit journal in front of the audit log table
+ *
+ * Audit decisions are appended to a memory-mapped journal on local disk and the upload
+ * continues once the record is synced, so uploads do not wait on the database and keep going
+ * while it is down or under maintenance. A projector thread applies journal records to the
+ * table in batches, together with a checkpoint of the last applied sequence number, and
+ * publishes the created events once they have committed. On startup it resumes from the
+ * checkpoint, so records journaled before a crash are applied exactly once.
+ *
+ * Off unless journal.enabled is set. With the journal on, an upload answers before its audit
+ * row exists: the entry has no id yet and the audit log endpoints show it once projected.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditJournalService {
+
+    static final String JOURNAL_NAME = "audit";
+
+    private final AuditLogRepository auditLogRepository;
+    private final JournalCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${journal.path:./audit-journal}")
+    private String journalPath;
+
+    @Value("${journal.segment-size:67108864}")
+    private int segmentSize;
+
+    @Value("${journal.max-segments:64}")
+    private int maxSegments;
+
+    @Value("${journal.sync:true}")
+    private boolean sync;
+
+    @Value("${journal.projector.batch-size:500}")
+    private int batchSize;
+
+    @Value("${journal.projector.idle-wait:100}")
+    private long idleWaitMs;
+
+    @Value("${journal.projector.max-backoff:30000}")
+    private long maxBackoffMs;
+
+    @Value("${journal.projector.shutdown-timeout:10000}")
+    private long shutdownTimeoutMs;
+
+    private AuditJournal journal;
+    private TransactionTemplate transactionTemplate;
+    private volatile Thread projector;
+    private volatile boolean running;
+    private volatile long appliedSeq;
+    private Timer appendTimer;
+    private Counter syncCounter;
+    private Counter projectedCounter;
+    private Counter failureCounter;
+
+    @PostConstruct
+    void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        appliedSeq = checkpointRepository.findById(JOURNAL_NAME)
+                .map(JournalCheckpoint::getAppliedSeq)
+                .orElse(0L);
+        journal = AuditJournal.open(Path.of(journalPath), segmentSize, maxSegments, appliedSeq + 1);
+        log.info("Audit journal opened at {}: {} segments, last record {}, applied up to {}",
+                journalPath, journal.getSegmentCount(), journal.getLastSeq(), appliedSeq);
+
+        appendTimer = Timer.builder("casa.journal.append")
+                .description("Time to journal an audit decision, including the group sync")
+                .register(meterRegistry);
+        syncCounter = Counter.builder("casa.journal.syncs")
+                .description("Group syncs of the audit journal")
+                .register(meterRegistry);
+        projectedCounter = Counter.builder("casa.journal.projected")
+                .description("Journal records applied to the audit log table")
+                .register(meterRegistry);
+        failureCounter = Counter.builder("casa.journal.projection.failures")
+                .description("Failed attempts to apply a batch of journal records")
+                .register(meterRegistry);
+        Gauge.builder("casa.journal.backlog", this, AuditJournalService::getBacklog)
+                .description("Journal records not yet applied to the audit log table")
+                .register(meterRegistry);
+        Gauge.builder("casa.journal.segments", journal, AuditJournal::getSegmentCount)
+                .description("Audit journal segment files on disk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start applying the journal once the application is ready
+     * Ordered last, so listeners seeding from the table do not count replayed records twice.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void startProjector() {
+        if (!enabled) {
+            return;
+        }
+        long backlog = getBacklog();
+        if (backlog > 0) {
+            log.info("Replaying {} audit journal records from sequence {}", backlog, appliedSeq + 1);
+        }
+        running = true;
+        Thread thread = new Thread(this::project, "audit-journal-projector");
+        thread.setDaemon(true);
+        projector = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        running = false;
+        Thread thread = projector;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join(shutdownTimeoutMs);
+        }
+        journal.close();
+        log.info("Audit journal closed, {} records left to apply on the next start", getBacklog());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Journal an audit decision
+     * Returns once the record is synced to disk, or once it is in the page cache when
+     * journal.sync is off. The entry gets its id when the projector applies it.
+     *
+     * @throws CapacityExceededException when the journal is full because the table is unavailable
+     */
+    public void append(AuditLog auditLog) {
+        long start = System.nanoTime();
+        if (auditLog.getTimestamp() == null) {
+            auditLog.setTimestamp(LocalDateTime.now());
+        }
+        byte[] payload = AuditRecordCodec.encode(auditLog);
+        try {
+            long seq = journal.append(payload);
+            LockSupport.unpark(projector);
+            if (sync && journal.sync(seq)) {
+                syncCounter.increment();
+            }
+        } catch (AuditJournal.JournalFullException e) {
+            throw new CapacityExceededException("Audit journal is full, please retry", 60);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to journal audit log", e);
+        } finally {
+            appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Sync records appended since the last sync when appends do not wait for it
+     */
+    @Scheduled(fixedDelayString = "${journal.flush-interval:1000}")
+    public void flush() {
+        if (!enabled || sync) {
+            return;
+        }
+        try {
+            journal.syncAll();
+        } catch (IOException e) {
+            log.error("Failed to sync the audit journal: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Journal records not yet applied to the table
+     */
+    public long getBacklog() {
+        return enabled ? journal.getLastSeq() - appliedSeq : 0;
+    }
+
+    private void project() {
+        AuditJournal.Cursor cursor = journal.cursor(appliedSeq + 1);
+        List<AuditJournal.JournalRecord> pending = List.of();
+        long backoffMs = 0;
+        while (true) {
+            if (pending.isEmpty()) {
+                pending = cursor.next(batchSize);
+                if (pending.isEmpty()) {
+                    if (!running) {
+                        return;
+                    }
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(idleWaitMs));
+                    continue;
+                }
+            }
+
+            List<AuditLog> applied;
+            try {
+                applied = apply(pending);
+            } catch (RuntimeException e) {
+                failureCounter.increment();
+                if (!running) {
+                    log.warn("Audit journal projection stopped with records left to apply: {}", e.getMessage());
+                    return;
+                }
+                backoffMs = Math.min(maxBackoffMs, Math.max(idleWaitMs, backoffMs * 2));
+                log.warn("Failed to apply {} audit journal records, retrying in {} ms: {}",
+                        pending.size(), backoffMs, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs));
+                continue;
+            }
+            backoffMs = 0;
+            appliedSeq = pending.get(pending.size() - 1).seq();
+            pending = List.of();
+            projectedCounter.increment(applied.size());
+            publish(applied);
+
+            int released = journal.release(appliedSeq);
+            if (released > 0) {
+                log.debug("Released {} applied audit journal segments", released);
+            }
+        }
+    }
+
+    /**
+     * Insert a batch of records and advance the checkpoint in one transaction
+     */
+    private List<AuditLog> apply(List<AuditJournal.JournalRecord> records) {
+        List<AuditLog> logs = new ArrayList<>(records.size());
+        for (AuditJournal.JournalRecord record : records) {
+            try {
+                logs.add(AuditRecordCodec.decode(record.payload()));
+            } catch (IOException | RuntimeException e) {
+                // Passed its checksum, so retrying cannot help
+                log.error("Skipping unreadable audit journal record {}: {}", record.seq(), e.getMessage());
+            }
+        }
+        long lastSeq = records.get(records.size() - 1).seq();
+        transactionTemplate.executeWithoutResult(status -> {
+            auditLogRepository.saveAll(logs);
+            checkpointRepository.save(new JournalCheckpoint(JOURNAL_NAME, lastSeq, LocalDateTime.now()));
+        });
+        return logs;
+    }
+
+    private void publish(List<AuditLog> logs) {
+        eventPublisher.publishEvent(new AuditLogsChangedEvent(logs.size()));
+        for (AuditLog auditLog : logs) {
+            try {
+                eventPublisher.publishEvent(new AuditLogCreatedEvent(auditLog));
+            } catch (RuntimeException e) {
+                log.error("Audit log listener failed for {}: {}", auditLog.getId(), e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogCreatedEvent;
+import com.skyhigh.casa.model.AuditLogsChangedEvent;
+import com.skyhigh.casa.model.MatchDetailsResponse;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import com.skyhigh.casa.util.MatchDetailCodec;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service for managing audit logs
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditLogService {
+
+    private final AuditLogRepository auditLogRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditArchiveService auditArchiveService;
+    private final AuditJournalService auditJournalService;
+    private final PlatformTransactionManager transactionManager;
+
+    private final AtomicLong version = new AtomicLong();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Create audit log entry
+     * With the journal enabled the entry is journaled and written to the table shortly after,
+     * so the returned entry has no id yet.
+     */
+    public AuditLog createLog(AuditLog auditLog) {
+        log.info("Creating audit log for file: {}", auditLog.getFileName());
+        if (auditJournalService.isEnabled()) {
+            auditJournalService.append(auditLog);
+            return auditLog;
+        }
+        return transactionTemplate.execute(status -> {
+            AuditLog saved = auditLogRepository.save(auditLog);
+            version.incrementAndGet();
+            eventPublisher.publishEvent(new AuditLogCreatedEvent(saved));
+            return saved;
+        });
+    }
+
+    /**
+     * Counter bumped on every write to the audit logs, for caching derived views
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Logs were updated or archived outside createLog
+     */
+    @EventListener
+    public void onAuditLogsChanged(AuditLogsChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Get decoded match details of one log
+     */
+    @Transactional(readOnly = true)
+    public Optional<MatchDetailsResponse> getMatchDetails(Long id) throws IOException {
+        Optional<AuditLog> found = auditLogRepository.findById(id);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        AuditLog auditLog = found.get();
+        MatchDetailCodec.MatchDetails details = auditLog.getMatchDetails() != null
+                ? MatchDetailCodec.decode(auditLog.getMatchDetails())
+                : MatchDetailCodec.MatchDetails.EMPTY;
+        return Optional.of(MatchDetailsResponse.builder()
+                .auditLogId(auditLog.getId())
+                .fileId(auditLog.getFileId())
+                .fileName(auditLog.getFileName())
+                .totalMatches(details.totalMatches())
+                .truncated(details.isTruncated())
+                .typeTotals(details.typeTotals())
+                .matches(details.matches())
+                .build());
+    }
+
+    /**
+     * Get all logs with pagination
+     */
+    @Transactional(readOnly = true)
+    public Page<AuditLog> getAllLogs(Pageable pageable) {
+        return auditLogRepository.findAll(pageable);
+    }
+
+    /**
+     * Get logs by status
+     */
+    @Transactional(readOnly = true)
+    public Page<AuditLog> getLogsByStatus(AuditLog.UploadStatus status, Pageable pageable) {
+        return auditLogRepository.findByStatus(status, pageable);
+    }
+
+    /**
+     * Get logs by user
+     */
+    @Transactional(readOnly = true)
+    public Page<AuditLog> getLogsByUser(String userId, Pageable pageable) {
+        return auditLogRepository.findByUserId(userId, pageable);
+    }
+
+    /**
+     * Get logs by date range
+     * Ranges reaching into archived partitions are ordered by timestamp (then id) in the
+     * direction requested for timestamp, newest first by default; archived partitions are older
+     * than every hot row, so they follow the hot rows newest first and precede them oldest first
+     */
+    @Transactional(readOnly = true)
+    public Page<AuditLog> getLogsByDateRange(LocalDateTime start, LocalDateTime end, Pageable pageable) {
+        if (!auditArchiveService.hasArchivedData(start, end)) {
+            return auditLogRepository.findByTimestampBetween(start, end, pageable);
+        }
+
+        Sort.Order order = pageable.getSort().getOrderFor("timestamp");
+        Sort.Direction direction = order != null ? order.getDirection() : Sort.Direction.DESC;
+        Sort sort = Sort.by(direction, "timestamp", "id");
+        long offset = pageable.getOffset();
+        int limit = pageable.getPageSize();
+        long hotTotal = auditLogRepository.countByTimestampBetween(start, end);
+
+        List<AuditLog> content = new ArrayList<>();
+        AuditArchiveService.ArchivedPage archived;
+        if (direction == Sort.Direction.DESC) {
+            if (offset < hotTotal) {
+                content.addAll(findHot(start, end, sort, offset, limit));
+            }
+            archived = auditArchiveService.findArchived(start, end, direction,
+                    Math.max(0, offset - hotTotal), limit - content.size());
+            content.addAll(archived.content());
+        } else {
+            archived = auditArchiveService.findArchived(start, end, direction, offset, limit);
+            content.addAll(archived.content());
+            if (content.size() < limit && offset + content.size() < archived.total() + hotTotal) {
+                content.addAll(findHot(start, end, sort,
+                        Math.max(0, offset - archived.total()), limit - content.size()));
+            }
+        }
+
+        return new PageImpl<>(content, pageable, hotTotal + archived.total());
+    }
+
+    /**
+     * Hot rows in range at an offset that need not be a multiple of the page size
+     */
+    private List<AuditLog> findHot(LocalDateTime start, LocalDateTime end, Sort sort, long offset, int limit) {
+        int page = (int) (offset / limit);
+        int skip = (int) (offset % limit);
+        Slice<AuditLog> first = auditLogRepository.findSliceByTimestampBetween(start, end, PageRequest.of(page, limit, sort));
+        List<AuditLog> rows = new ArrayList<>(first.getContent());
+        if (skip > 0 && first.hasNext()) {
+            rows.addAll(auditLogRepository.findSliceByTimestampBetween(start, end,
+                    PageRequest.of(page + 1, limit, sort)).getContent());
+        }
+        return rows.subList(Math.min(skip, rows.size()), Math.min(skip + limit, rows.size()));
+    }
+
+    /**
+     * Get blocked uploads
+     */
+    @Transactional(readOnly = true)
+    public List<AuditLog> getBlockedUploads() {
+        return auditLogRepository.findBlockedUploads();
+    }
+
+    /**
+     * Get high risk uploads
+     */
+    @Transactional(readOnly = true)
+    public List<AuditLog> getHighRiskUploads(int threshold) {
+        return auditLogRepository.findHighRiskUploads(threshold);
+    }
+
+    /**
+     * Get statistics
+     */
+    @Transactional(readOnly = true)
+    public AuditStatistics getStatistics() {
+        long[] archived = auditArchiveService.getArchivedStatusCounts();
+        long totalUploads = auditLogRepository.count() + Arrays.stream(archived).sum();
+        long allowedUploads = auditLogRepository.countByStatus(AuditLog.UploadStatus.ALLOWED)
+                + archived[AuditLog.UploadStatus.ALLOWED.ordinal()];
+        long blockedUploads = auditLogRepository.countByStatus(AuditLog.UploadStatus.BLOCKED)
+                + archived[AuditLog.UploadStatus.BLOCKED.ordinal()];
+        long quarantinedUploads = auditLogRepository.countByStatus(AuditLog.UploadStatus.QUARANTINED)
+                + archived[AuditLog.UploadStatus.QUARANTINED.ordinal()];
+
+        return new AuditStatistics(totalUploads, allowedUploads, blockedUploads, quarantinedUploads);
+    }
+
+    /**
+     * Get recent logs
+     */
+    @Transactional(readOnly = true)
+    public List<AuditLog> getRecentLogs() {
+        return auditLogRepository.findTop10ByOrderByTimestampDesc();
+    }
+
+    /**
+     * Statistics DTO
+     */
+    public record AuditStatistics(
+            long totalUploads,
+            long allowedUploads,
+            long blockedUploads,
+            long quarantinedUploads) {
+    }
+}
@@ -0,0 +1,575 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogCreatedEvent;
+import com.skyhigh.casa.model.AuditRollup;
+import com.skyhigh.casa.model.RollupWatermark;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import com.skyhigh.casa.repository.AuditRollupRepository;
+import com.skyhigh.casa.repository.RollupWatermarkRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * Time-bucketed audit rollups
+ * Audit decisions are accumulated in memory and flushed into minute buckets.
+ * A background job folds closed minutes into hours and closed hours into days,
+ * then prunes fine buckets past their retention. Audit logs written before the rollups were
+ * kept are folded in once, in the background after startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditRollupService {
+
+    private final AuditRollupRepository rollupRepository;
+    private final RollupWatermarkRepository watermarkRepository;
+    private final AuditLogRepository auditLogRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${analytics.rollup.minute-retention-hours:48}")
+    private int minuteRetentionHours;
+
+    @Value("${analytics.rollup.hour-retention-days:90}")
+    private int hourRetentionDays;
+
+    @Value("${analytics.rollup.compaction-lag-seconds:120}")
+    private long compactionLagSeconds;
+
+    @Value("${analytics.rollup.max-compaction-steps:48}")
+    private int maxCompactionSteps;
+
+    @Value("${analytics.rollup.backfill-batch-size:5000}")
+    private int backfillBatchSize;
+
+    private final ReadWriteLock pendingLock = new ReentrantReadWriteLock();
+    private final ReentrantLock maintenanceLock = new ReentrantLock();
+    private final Map<AuditRollup.Granularity, LocalDateTime> watermarks = new ConcurrentHashMap<>();
+    private Map<RollupKey, Accumulator> pending = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+
+    /** Set until the backfill has run; compaction waits for it */
+    private volatile boolean backfillPending;
+    private LocalDateTime backfillCutoff;
+    private long backfillMaxId;
+
+    /**
+     * Load the watermarks and, if the backfill has not run yet, fix the audit logs it covers
+     * Decisions made from here on arrive as created events, so the backfill counts only rows
+     * that exist now: older than the cutoff and up to the current highest id. Later rows with
+     * older timestamps, such as replayed journal records, are therefore not counted twice.
+     */
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        watermarkRepository.findAll()
+                .forEach(watermark -> watermarks.put(watermark.getGranularity(), watermark.getCompactedUntil()));
+        if (watermarks.containsKey(AuditRollup.Granularity.MINUTE)) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now();
+        for (AuditRollup.Granularity granularity : AuditRollup.Granularity.values()) {
+            LocalDateTime earliest = rollupRepository.findEarliestBucket(granularity);
+            if (earliest != null && earliest.isBefore(cutoff)) {
+                cutoff = earliest;
+            }
+        }
+        Long maxId = auditLogRepository.findMaxId();
+        backfillCutoff = cutoff;
+        backfillMaxId = maxId != null ? maxId : 0;
+        backfillPending = true;
+    }
+
+    /**
+     * Run the backfill once the application is up, so startup does not wait for it
+     * Until it finishes, series before the cutoff are missing the backfilled decisions.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void startBackfill() {
+        if (!backfillPending) {
+            return;
+        }
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.error("Rollup backfill failed, retrying on next start: {}", e.getMessage(), e);
+        } finally {
+            backfillPending = false;
+        }
+    }
+
+    /**
+     * Accumulate a committed audit decision into its minute bucket
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuditLogCreated(AuditLogCreatedEvent event) {
+        AuditLog auditLog = event.auditLog();
+        long risk = riskScore(auditLog);
+        long bytes = fileSize(auditLog);
+
+        pendingLock.readLock().lock();
+        try {
+            for (RollupKey key : keys(auditLog)) {
+                add(key, risk, bytes);
+            }
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write accumulated counters to the minute buckets
+     * Buckets that were already compacted are also added to the coarser levels
+     */
+    @Scheduled(fixedDelayString = "${analytics.rollup.flush-interval:5000}")
+    public void flush() {
+        Map<RollupKey, Accumulator> batch;
+        pendingLock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            pendingLock.writeLock().unlock();
+        }
+
+        maintenanceLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> batch.forEach((key, accumulator) -> {
+                long count = accumulator.count.sum();
+                long risk = accumulator.riskScoreSum.sum();
+                long bytes = accumulator.bytesSum.sum();
+                upsert(AuditRollup.Granularity.MINUTE, key.bucketStart(), key, count, risk, bytes);
+                for (AuditRollup.Granularity coarser : List.of(AuditRollup.Granularity.HOUR, AuditRollup.Granularity.DAY)) {
+                    LocalDateTime watermark = watermarks.get(coarser);
+                    if (watermark != null && key.bucketStart().isBefore(watermark)) {
+                        upsert(coarser, truncate(key.bucketStart(), coarser), key, count, risk, bytes);
+                    }
+                }
+            }));
+            log.debug("Flushed {} rollup counters", batch.size());
+        } catch (RuntimeException e) {
+            log.error("Failed to flush rollups, retrying on next cycle: {}", e.getMessage(), e);
+            requeue(batch);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Fold closed minute buckets into hours, closed hours into days, then prune
+     */
+    @Scheduled(fixedDelayString = "${analytics.rollup.compaction-interval:60000}",
+            initialDelayString = "${analytics.rollup.compaction-interval:60000}")
+    public void compact() {
+        if (backfillPending) {
+            return;
+        }
+        maintenanceLock.lock();
+        try {
+            LocalDateTime horizon = LocalDateTime.now().minusSeconds(compactionLagSeconds);
+            compactInto(AuditRollup.Granularity.HOUR, horizon.truncatedTo(ChronoUnit.HOURS));
+
+            LocalDateTime hourWatermark = watermarks.get(AuditRollup.Granularity.HOUR);
+            if (hourWatermark != null) {
+                compactInto(AuditRollup.Granularity.DAY, hourWatermark.truncatedTo(ChronoUnit.DAYS));
+            }
+
+            prune(AuditRollup.Granularity.MINUTE, AuditRollup.Granularity.HOUR,
+                    LocalDateTime.now().minusHours(minuteRetentionHours));
+            prune(AuditRollup.Granularity.HOUR, AuditRollup.Granularity.DAY,
+                    LocalDateTime.now().minusDays(hourRetentionDays));
+        } catch (RuntimeException e) {
+            log.error("Rollup compaction failed: {}", e.getMessage(), e);
+        } finally {
+            maintenanceLock.unlock();
+        }
+    }
+
+    /**
+     * Check whether buckets of this granularity are still kept for a range starting at from
+     * Finer buckets are pruned after their retention, so older ranges need a coarser granularity.
+     */
+    public boolean isRetained(AuditRollup.Granularity granularity, LocalDateTime from) {
+        LocalDateTime retainedFrom = switch (granularity) {
+            case MINUTE -> LocalDateTime.now().minusHours(minuteRetentionHours);
+            case HOUR -> LocalDateTime.now().minusDays(hourRetentionDays);
+            case DAY -> null;
+        };
+        return retainedFrom == null || !truncate(from, granularity).isBefore(retainedFrom);
+    }
+
+    /**
+     * Uploads per bucket broken down by status
+     */
+    public List<TimeBucket> getUploadsByStatus(AuditRollup.Granularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        return aggregate(load(granularity, AuditRollup.Dimension.STATUS, null, from, to), granularity, false);
+    }
+
+    /**
+     * Most frequent sensitive types per bucket
+     * A file with several types counts once under each, so the counts can add up to more than
+     * the bucket's uploads; total, average risk and bytes are taken from the status rollups and
+     * count every upload in the bucket once.
+     */
+    public List<TimeBucket> getTopSensitiveTypes(AuditRollup.Granularity granularity,
+            LocalDateTime from, LocalDateTime to, int limit) {
+        List<TimeBucket> buckets = aggregate(
+                load(granularity, AuditRollup.Dimension.SENSITIVE_TYPE, null, from, to), granularity, false);
+        Map<LocalDateTime, TimeBucket> uploads = aggregate(
+                load(granularity, AuditRollup.Dimension.STATUS, null, from, to), granularity, false).stream()
+                .collect(Collectors.toMap(TimeBucket::bucketStart, bucket -> bucket));
+
+        return buckets.stream()
+                .map(bucket -> {
+                    TimeBucket totals = uploads.get(bucket.bucketStart());
+                    return new TimeBucket(bucket.bucketStart(),
+                            totals != null ? totals.total() : 0,
+                            totals != null ? totals.averageRiskScore() : 0.0,
+                            totals != null ? totals.totalBytes() : 0,
+                            bucket.counts().entrySet().stream()
+                                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                                    .limit(limit)
+                                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue,
+                                            (a, b) -> a, LinkedHashMap::new)));
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Risk score distribution (10-point bands) per bucket, optionally for one user
+     */
+    public List<TimeBucket> getRiskDistribution(String userId, AuditRollup.Granularity granularity,
+            LocalDateTime from, LocalDateTime to) {
+        return aggregate(load(granularity, AuditRollup.Dimension.USER_RISK, userId, from, to), granularity, true);
+    }
+
+    /**
+     * Load rows covering [from, to) at the requested granularity
+     * Ranges not yet compacted into that granularity are read from the finer levels
+     */
+    private List<AuditRollup> load(AuditRollup.Granularity granularity, AuditRollup.Dimension dimension,
+            String dimensionKey, LocalDateTime from, LocalDateTime to) {
+        List<AuditRollup> rows = new ArrayList<>();
+        LocalDateTime cursor = truncate(from, granularity);
+
+        for (int level = granularity.ordinal(); level >= 0 && cursor.isBefore(to); level--) {
+            AuditRollup.Granularity source = AuditRollup.Granularity.values()[level];
+            LocalDateTime levelEnd = to;
+            if (source != AuditRollup.Granularity.MINUTE) {
+                LocalDateTime watermark = watermarks.get(source);
+                levelEnd = watermark == null ? cursor : (watermark.isBefore(to) ? watermark : to);
+            }
+            if (cursor.isBefore(levelEnd)) {
+                rows.addAll(dimensionKey == null
+                        ? rollupRepository.findRange(source, dimension, cursor, levelEnd)
+                        : rollupRepository.findRangeForKey(source, dimension, dimensionKey, cursor, levelEnd));
+                cursor = levelEnd;
+            }
+        }
+        return rows;
+    }
+
+    private List<TimeBucket> aggregate(List<AuditRollup> rows, AuditRollup.Granularity granularity,
+            boolean bySubKey) {
+        Map<LocalDateTime, Map<String, long[]>> buckets = new TreeMap<>();
+        for (AuditRollup row : rows) {
+            String label = bySubKey ? row.getSubKey() : row.getDimensionKey();
+            long[] sums = buckets
+                    .computeIfAbsent(truncate(row.getBucketStart(), granularity), b -> new TreeMap<>())
+                    .computeIfAbsent(label, l -> new long[3]);
+            sums[0] += row.getEventCount();
+            sums[1] += row.getRiskScoreSum();
+            sums[2] += row.getBytesSum();
+        }
+
+        List<TimeBucket> result = new ArrayList<>();
+        buckets.forEach((bucketStart, labels) -> {
+            long total = 0;
+            long risk = 0;
+            long bytes = 0;
+            Map<String, Long> counts = new LinkedHashMap<>();
+            for (Map.Entry<String, long[]> entry : labels.entrySet()) {
+                counts.put(entry.getKey(), entry.getValue()[0]);
+                total += entry.getValue()[0];
+                risk += entry.getValue()[1];
+                bytes += entry.getValue()[2];
+            }
+            result.add(new TimeBucket(bucketStart, total, total > 0 ? (double) risk / total : 0.0, bytes, counts));
+        });
+        return result;
+    }
+
+    /**
+     * Fold audit logs that predate the rollups into the buckets, once
+     * The MINUTE watermark records the backfill: rows before it were counted from the table,
+     * later ones arrive as created events. It is the earliest existing bucket, or the startup
+     * time on an empty rollup table. Rows go straight into the coarsest level that keeps them
+     * past retention, and everything is written in one transaction with the watermark, so a
+     * failed backfill counts nothing and runs again.
+     */
+    private void backfill() {
+        LocalDateTime cutoff = backfillCutoff;
+        LocalDateTime hourWatermark = watermarks.getOrDefault(AuditRollup.Granularity.HOUR,
+                truncate(cutoff, AuditRollup.Granularity.HOUR));
+        LocalDateTime dayWatermark = watermarks.getOrDefault(AuditRollup.Granularity.DAY,
+                truncate(min(cutoff, hourWatermark), AuditRollup.Granularity.DAY));
+        LocalDateTime minuteKeep = min(hourWatermark, LocalDateTime.now().minusHours(minuteRetentionHours));
+        LocalDateTime hourKeep = min(dayWatermark, LocalDateTime.now().minusDays(hourRetentionDays));
+
+        Map<AuditRollup.Granularity, Map<RollupKey, long[]>> sums = new HashMap<>();
+        long rows = 0;
+        long afterId = 0;
+        List<AuditLog> page;
+        do {
+            long after = afterId;
+            page = transactionTemplate.execute(status -> {
+                List<AuditLog> logs = auditLogRepository.findAfterId(after, PageRequest.of(0, backfillBatchSize));
+                // Touch the lazy collection while the session is open
+                logs.forEach(AuditRollupService::keys);
+                return logs;
+            });
+            for (AuditLog auditLog : page) {
+                afterId = auditLog.getId();
+                if (afterId > backfillMaxId || !auditLog.getTimestamp().isBefore(cutoff)) {
+                    continue;
+                }
+                rows++;
+                long risk = riskScore(auditLog);
+                long bytes = fileSize(auditLog);
+                for (RollupKey key : keys(auditLog)) {
+                    LocalDateTime minute = key.bucketStart();
+                    LocalDateTime hour = truncate(minute, AuditRollup.Granularity.HOUR);
+                    LocalDateTime day = truncate(minute, AuditRollup.Granularity.DAY);
+                    if (!minute.isBefore(minuteKeep)) {
+                        accumulate(sums, AuditRollup.Granularity.MINUTE, key, minute, risk, bytes);
+                    }
+                    if (hour.isBefore(hourWatermark) && !hour.isBefore(hourKeep)) {
+                        accumulate(sums, AuditRollup.Granularity.HOUR, key, hour, risk, bytes);
+                    }
+                    if (day.isBefore(dayWatermark)) {
+                        accumulate(sums, AuditRollup.Granularity.DAY, key, day, risk, bytes);
+                    }
+                }
+            }
+        } while (page.size() == backfillBatchSize && afterId < backfillMaxId);
+
+        LocalDateTime backfilledUntil = cutoff;
+        maintenanceLock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                sums.forEach((granularity, keys) -> keys.forEach((key, total) ->
+                        upsert(granularity, key.bucketStart(), key, total[0], total[1], total[2])));
+                watermarkRepository.save(new RollupWatermark(AuditRollup.Granularity.HOUR, hourWatermark));
+                watermarkRepository.save(new RollupWatermark(AuditRollup.Granularity.DAY, dayWatermark));
+                watermarkRepository.save(new RollupWatermark(AuditRollup.Granularity.MINUTE, backfilledUntil));
+            });
+            watermarks.put(AuditRollup.Granularity.HOUR, hourWatermark);
+            watermarks.put(AuditRollup.Granularity.DAY, dayWatermark);
+            watermarks.put(AuditRollup.Granularity.MINUTE, backfilledUntil);
+        } finally {
+            maintenanceLock.unlock();
+        }
+        if (rows > 0) {
+            log.info("Backfilled rollups from {} audit logs before {}", rows, backfilledUntil);
+        }
+    }
+
+    /**
+     * Fold source buckets into the target granularity up to (excluding) the given time
+     */
+    private void compactInto(AuditRollup.Granularity target, LocalDateTime until) {
+        AuditRollup.Granularity source = AuditRollup.Granularity.values()[target.ordinal() - 1];
+        ChronoUnit unit = target == AuditRollup.Granularity.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+
+        LocalDateTime cursor = watermarks.get(target);
+        if (cursor == null) {
+            LocalDateTime earliest = rollupRepository.findEarliestBucket(source);
+            cursor = earliest != null ? truncate(earliest, target) : until;
+        }
+
+        int steps = 0;
+        while (cursor.isBefore(until) && steps++ < maxCompactionSteps) {
+            LocalDateTime start = cursor;
+            LocalDateTime end = cursor.plus(1, unit);
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<RollupKey, long[]> sums = new HashMap<>();
+                for (AuditRollup row : rollupRepository.findAllInRange(source, start, end)) {
+                    long[] total = sums.computeIfAbsent(
+                            new RollupKey(start, row.getDimension(), row.getDimensionKey(), row.getSubKey()),
+                            key -> new long[3]);
+                    total[0] += row.getEventCount();
+                    total[1] += row.getRiskScoreSum();
+                    total[2] += row.getBytesSum();
+                }
+                sums.forEach((key, total) -> upsert(target, start, key, total[0], total[1], total[2]));
+                watermarkRepository.save(new RollupWatermark(target, end));
+            });
+            watermarks.put(target, end);
+            cursor = end;
+        }
+
+        if (!watermarks.containsKey(target)) {
+            watermarkRepository.save(new RollupWatermark(target, cursor));
+            watermarks.put(target, cursor);
+        }
+    }
+
+    /**
+     * Delete fine buckets past retention, never beyond what has been compacted
+     */
+    private void prune(AuditRollup.Granularity granularity, AuditRollup.Granularity compactedInto,
+            LocalDateTime retentionCutoff) {
+        LocalDateTime watermark = watermarks.get(compactedInto);
+        if (watermark == null) {
+            return;
+        }
+        LocalDateTime cutoff = watermark.isBefore(retentionCutoff) ? watermark : retentionCutoff;
+        Integer deleted = transactionTemplate.execute(status -> rollupRepository.deleteOlderThan(granularity, cutoff));
+        if (deleted != null && deleted > 0) {
+            log.info("Pruned {} {} rollup buckets older than {}", deleted, granularity, cutoff);
+        }
+    }
+
+    private void upsert(AuditRollup.Granularity granularity, LocalDateTime bucketStart, RollupKey key,
+            long count, long risk, long bytes) {
+        int updated = rollupRepository.increment(granularity, bucketStart, key.dimension(), key.dimensionKey(),
+                key.subKey(), count, risk, bytes);
+        if (updated == 0) {
+            rollupRepository.save(AuditRollup.builder()
+                    .granularity(granularity)
+                    .bucketStart(bucketStart)
+                    .dimension(key.dimension())
+                    .dimensionKey(key.dimensionKey())
+                    .subKey(key.subKey())
+                    .eventCount(count)
+                    .riskScoreSum(risk)
+                    .bytesSum(bytes)
+                    .build());
+        }
+    }
+
+    /**
+     * Minute buckets an audit decision counts towards, one per dimension and sensitive type
+     */
+    private static List<RollupKey> keys(AuditLog auditLog) {
+        LocalDateTime minute = auditLog.getTimestamp().truncatedTo(ChronoUnit.MINUTES);
+        List<RollupKey> keys = new ArrayList<>();
+        keys.add(new RollupKey(minute, AuditRollup.Dimension.STATUS, auditLog.getStatus().name(), ""));
+        keys.add(new RollupKey(minute, AuditRollup.Dimension.USER_RISK, auditLog.getUserId(),
+                riskBand(riskScore(auditLog))));
+        if (auditLog.getSensitiveTypes() != null) {
+            for (String type : auditLog.getSensitiveTypes()) {
+                keys.add(new RollupKey(minute, AuditRollup.Dimension.SENSITIVE_TYPE, type, ""));
+            }
+        }
+        return keys;
+    }
+
+    private static void accumulate(Map<AuditRollup.Granularity, Map<RollupKey, long[]>> sums,
+            AuditRollup.Granularity granularity, RollupKey key, LocalDateTime bucketStart, long risk, long bytes) {
+        long[] total = sums.computeIfAbsent(granularity, g -> new HashMap<>())
+                .computeIfAbsent(new RollupKey(bucketStart, key.dimension(), key.dimensionKey(), key.subKey()),
+                        k -> new long[3]);
+        total[0]++;
+        total[1] += risk;
+        total[2] += bytes;
+    }
+
+    private static long riskScore(AuditLog auditLog) {
+        return auditLog.getRiskScore() != null ? auditLog.getRiskScore() : 0;
+    }
+
+    private static long fileSize(AuditLog auditLog) {
+        return auditLog.getFileSize() != null ? auditLog.getFileSize() : 0;
+    }
+
+    private static LocalDateTime min(LocalDateTime a, LocalDateTime b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private void add(RollupKey key, long risk, long bytes) {
+        Accumulator accumulator = pending.computeIfAbsent(key, k -> new Accumulator());
+        accumulator.count.increment();
+        accumulator.riskScoreSum.add(risk);
+        accumulator.bytesSum.add(bytes);
+    }
+
+    private void requeue(Map<RollupKey, Accumulator> batch) {
+        pendingLock.readLock().lock();
+        try {
+            batch.forEach((key, failed) -> {
+                Accumulator accumulator = pending.computeIfAbsent(key, k -> new Accumulator());
+                accumulator.count.add(failed.count.sum());
+                accumulator.riskScoreSum.add(failed.riskScoreSum.sum());
+                accumulator.bytesSum.add(failed.bytesSum.sum());
+            });
+        } finally {
+            pendingLock.readLock().unlock();
+        }
+    }
+
+    private static LocalDateTime truncate(LocalDateTime time, AuditRollup.Granularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> time.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+        };
+    }
+
+    private static String riskBand(long riskScore) {
+        int band = (int) Math.max(0, Math.min(9, riskScore / 10));
+        return band == 9 ? "90-100" : (band * 10) + "-" + (band * 10 + 9);
+    }
+
+    private record RollupKey(LocalDateTime bucketStart, AuditRollup.Dimension dimension,
+            String dimensionKey, String subKey) {
+    }
+
+    private static class Accumulator {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder riskScoreSum = new LongAdder();
+        private final LongAdder bytesSum = new LongAdder();
+    }
+
+    /**
+     * One time bucket of an analytics series
+     */
+    public record TimeBucket(
+            LocalDateTime bucketStart,
+            long total,
+            double averageRiskScore,
+            long totalBytes,
+            Map<String, Long> counts) {
+    }
+}
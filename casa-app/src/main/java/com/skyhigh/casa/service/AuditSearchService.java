@@ -0,0 +1,570 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogCreatedEvent;
+import com.skyhigh.casa.model.AuditSearchResponse;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import com.skyhigh.casa.search.AuditTokenizer;
+import com.skyhigh.casa.search.IndexSegment;
+import com.skyhigh.casa.search.RoaringBitmap;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Free-text search over audit logs through an incrementally updated inverted index
+ *
+ * New audit logs go into an in-memory segment of trigram and word postings. It is flushed
+ * to an immutable, memory-mapped segment file when large or old enough, and small segment
+ * files are merged in the background. A manifest lists the live segments and the id up to
+ * which the table has been indexed; on startup indexing resumes from there, so the index
+ * also builds itself over existing rows. Trigram hits are verified against the rows, so
+ * results are exact; rows already moved to the archive drop out of results and are pruned
+ * from postings on merge.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditSearchService {
+
+    private static final String MANIFEST = "segments";
+    private static final String SEGMENT_PREFIX = "seg-";
+    private static final String SEGMENT_SUFFIX = ".idx";
+    private static final String WATERMARK = "watermark=";
+    // Rows committed out of id order around the watermark are indexed again on restart
+    private static final long CATCH_UP_OVERLAP = 1000;
+    private static final long CATCH_UP_BUDGET_MS = 2000;
+
+    private final AuditLogRepository auditLogRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${search.index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${search.index.path:./search-index}")
+    private String indexPath;
+
+    @Value("${search.index.flush-docs:10000}")
+    private long flushDocs;
+
+    @Value("${search.index.flush-interval:60000}")
+    private long flushIntervalMs;
+
+    @Value("${search.index.max-segments:8}")
+    private int maxSegments;
+
+    @Value("${search.index.merge-factor:4}")
+    private int mergeFactor;
+
+    @Value("${search.index.catch-up-batch:1000}")
+    private int catchUpBatch;
+
+    @Value("${search.max-verified:5000}")
+    private int maxVerified;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, RoaringBitmap> memtable = new TreeMap<>();
+    private long memtableDocs;
+    private long memtableMaxId;
+    private long memtableSince;
+    // Replaced under the write lock, read under the read lock
+    private List<TreeMap<String, RoaringBitmap>> frozen = List.of();
+    private List<IndexSegment> segments = List.of();
+
+    private Path indexDir;
+    private TransactionTemplate transactionTemplate;
+    private long generation;
+    private long watermark;
+    private long catchUpCursor;
+    private volatile boolean caughtUp;
+    private Timer queryTimer;
+
+    @PostConstruct
+    void init() throws IOException {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        indexDir = Paths.get(indexPath).toAbsolutePath();
+        Files.createDirectories(indexDir);
+        if (enabled) {
+            load();
+        }
+        catchUpCursor = Math.max(0, watermark - CATCH_UP_OVERLAP);
+
+        Gauge.builder("casa.search.index.segments", this, service -> service.segments.size())
+                .description("Search index segment files")
+                .register(meterRegistry);
+        Gauge.builder("casa.search.index.buffered", this, service -> service.memtableDocs)
+                .description("Audit logs indexed in memory and not yet flushed")
+                .register(meterRegistry);
+        queryTimer = Timer.builder("casa.search.query")
+                .description("Audit log search latency")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Index a committed audit log
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuditLogCreated(AuditLogCreatedEvent event) {
+        if (enabled) {
+            index(event.auditLog());
+        }
+    }
+
+    /**
+     * Index rows not indexed yet, flush the in-memory segment and merge segment files
+     */
+    @Scheduled(fixedDelayString = "${search.index.maintenance-interval:5000}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!caughtUp) {
+                catchUp();
+            }
+            if (memtableDocs >= flushDocs
+                    || (memtableDocs > 0 && System.currentTimeMillis() - memtableSince >= flushIntervalMs)) {
+                flush();
+            }
+            if (segments.size() > maxSegments) {
+                merge();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Search index maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Find audit logs matching every whitespace-separated term, newest first
+     *
+     * @param fieldName restrict matching to one field, or null for any field
+     * @param before    only return logs with a smaller id, for paging
+     */
+    public AuditSearchResponse search(String query, String fieldName, Long before, int size) {
+        List<String> terms = Arrays.stream(query.trim().split("\\s+")).filter(term -> !term.isEmpty()).toList();
+        if (terms.isEmpty()) {
+            throw new IllegalArgumentException("Query is empty");
+        }
+        List<AuditTokenizer.Field> fields;
+        if (fieldName == null) {
+            fields = List.of(AuditTokenizer.Field.values());
+        } else {
+            AuditTokenizer.Field field = AuditTokenizer.Field.byName(fieldName);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown search field: " + fieldName);
+            }
+            fields = List.of(field);
+        }
+
+        long start = System.nanoTime();
+        RoaringBitmap candidates = candidates(terms, fields);
+
+        List<AuditLog> results = new ArrayList<>(size);
+        long limit = before != null ? before : Long.MAX_VALUE;
+        List<Integer> pending = new ArrayList<>();
+        long[] verified = {0};
+        Long[] nextBefore = {null};
+        int chunk = Math.max(size * 2, 50);
+        candidates.forEachDescending(id -> {
+            if (id >= limit) {
+                return true;
+            }
+            if (results.size() == size || verified[0] >= maxVerified) {
+                nextBefore[0] = results.isEmpty() ? (long) id + 1 : results.get(results.size() - 1).getId();
+                return false;
+            }
+            pending.add(id);
+            verified[0]++;
+            if (pending.size() == chunk) {
+                verify(pending, terms, fields, results, size);
+                pending.clear();
+            }
+            return true;
+        });
+        verify(pending, terms, fields, results, size);
+        if (nextBefore[0] == null && results.size() == size && verified[0] > 0) {
+            // Stopped mid-chunk with a full page: continue below the last result
+            nextBefore[0] = results.get(results.size() - 1).getId();
+        }
+
+        long took = System.nanoTime() - start;
+        queryTimer.record(took, TimeUnit.NANOSECONDS);
+        return AuditSearchResponse.builder()
+                .query(query)
+                .field(fieldName)
+                .results(results)
+                .nextBefore(nextBefore[0])
+                .candidates(candidates.getCardinality())
+                .tookMillis(TimeUnit.NANOSECONDS.toMillis(took))
+                .indexComplete(caughtUp)
+                .build();
+    }
+
+    private RoaringBitmap candidates(List<String> terms, List<AuditTokenizer.Field> fields) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = null;
+            for (String term : terms) {
+                RoaringBitmap termHits = new RoaringBitmap();
+                for (AuditTokenizer.Field field : fields) {
+                    RoaringBitmap fieldHits = null;
+                    for (String key : AuditTokenizer.queryTerms(field, term)) {
+                        RoaringBitmap postings = postings(key);
+                        fieldHits = fieldHits == null ? postings : RoaringBitmap.and(fieldHits, postings);
+                        if (fieldHits.isEmpty()) {
+                            break;
+                        }
+                    }
+                    termHits = RoaringBitmap.or(termHits, fieldHits);
+                }
+                candidates = candidates == null ? termHits : RoaringBitmap.and(candidates, termHits);
+                if (candidates.isEmpty()) {
+                    break;
+                }
+            }
+            return candidates;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Postings of a term across all segments; called under the read lock
+     */
+    private RoaringBitmap postings(String term) {
+        RoaringBitmap result = new RoaringBitmap();
+        RoaringBitmap buffered = memtable.get(term);
+        if (buffered != null) {
+            result = RoaringBitmap.or(result, buffered);
+        }
+        for (TreeMap<String, RoaringBitmap> map : frozen) {
+            RoaringBitmap postings = map.get(term);
+            if (postings != null) {
+                result = RoaringBitmap.or(result, postings);
+            }
+        }
+        for (IndexSegment segment : segments) {
+            RoaringBitmap postings = segment.postings(term);
+            if (postings != null) {
+                result = RoaringBitmap.or(result, postings);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Load candidate rows and keep those that really contain every term, in id order
+     */
+    private void verify(List<Integer> ids, List<String> terms, List<AuditTokenizer.Field> fields,
+            List<AuditLog> results, int size) {
+        if (ids.isEmpty() || results.size() == size) {
+            return;
+        }
+        List<Long> keys = ids.stream().map(Integer::longValue).toList();
+        Map<Long, AuditLog> rows = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> auditLogRepository.findAllById(keys).forEach(row -> {
+            row.getSensitiveTypes().size();
+            rows.put(row.getId(), row);
+        }));
+        for (Long id : keys) {
+            AuditLog row = rows.get(id);
+            if (row != null && matchesAll(row, terms, fields)) {
+                results.add(row);
+                if (results.size() == size) {
+                    return;
+                }
+            }
+        }
+    }
+
+    static boolean matchesAll(AuditLog row, List<String> terms, List<AuditTokenizer.Field> fields) {
+        for (String term : terms) {
+            boolean found = false;
+            for (AuditTokenizer.Field field : fields) {
+                for (String value : field.values(row)) {
+                    if (AuditTokenizer.matches(value, term)) {
+                        found = true;
+                        break;
+                    }
+                }
+                if (found) {
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(AuditLog auditLog) {
+        if (auditLog.getId() == null || auditLog.getId() > Integer.MAX_VALUE) {
+            return;
+        }
+        int id = auditLog.getId().intValue();
+        Set<String> terms = AuditTokenizer.terms(auditLog);
+        lock.writeLock().lock();
+        try {
+            for (String term : terms) {
+                memtable.computeIfAbsent(term, key -> new RoaringBitmap()).add(id);
+            }
+            if (memtableDocs++ == 0) {
+                memtableSince = System.currentTimeMillis();
+            }
+            memtableMaxId = Math.max(memtableMaxId, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index table rows above the cursor, for a bounded time per run
+     */
+    private void catchUp() throws IOException {
+        long deadline = System.currentTimeMillis() + CATCH_UP_BUDGET_MS;
+        while (System.currentTimeMillis() < deadline) {
+            long after = catchUpCursor;
+            List<AuditLog> batch = transactionTemplate.execute(status -> {
+                List<AuditLog> logs = auditLogRepository.findAfterId(after, PageRequest.of(0, catchUpBatch));
+                logs.forEach(auditLog -> auditLog.getSensitiveTypes().size());
+                return logs;
+            });
+            if (batch == null || batch.isEmpty()) {
+                caughtUp = true;
+                log.info("Search index caught up at audit log id {}", catchUpCursor);
+                return;
+            }
+            batch.forEach(this::index);
+            catchUpCursor = batch.get(batch.size() - 1).getId();
+            if (memtableDocs >= flushDocs) {
+                flush();
+            }
+        }
+    }
+
+    /**
+     * Write the in-memory segment to a segment file
+     * It stays searchable as a frozen map until the file is open.
+     */
+    private void flush() throws IOException {
+        TreeMap<String, RoaringBitmap> snapshot;
+        long maxId;
+        lock.writeLock().lock();
+        try {
+            if (memtableDocs == 0) {
+                return;
+            }
+            snapshot = memtable;
+            maxId = memtableMaxId;
+            memtable = new TreeMap<>();
+            memtableDocs = 0;
+            memtableMaxId = 0;
+            frozen = append(frozen, snapshot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Everything below the catch-up cursor is in this snapshot or an earlier segment
+        long indexedThrough = caughtUp ? Math.max(catchUpCursor, maxId) : catchUpCursor;
+
+        Path path = nextSegmentPath();
+        IndexSegment.write(path, 0, maxId, snapshot.entrySet().iterator());
+        IndexSegment segment = IndexSegment.open(path);
+
+        lock.writeLock().lock();
+        try {
+            segments = append(segments, segment);
+            List<TreeMap<String, RoaringBitmap>> remaining = new ArrayList<>(frozen);
+            remaining.remove(snapshot);
+            frozen = List.copyOf(remaining);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        watermark = Math.max(watermark, indexedThrough);
+        writeManifest();
+        log.info("Search index flushed {} terms to {}", segment.getTermCount(), path.getFileName());
+    }
+
+    /**
+     * Merge the smallest segment files into one, dropping ids that have left the hot table
+     */
+    private void merge() throws IOException {
+        List<IndexSegment> current = segments;
+        List<IndexSegment> picked = new ArrayList<>(current);
+        picked.sort(Comparator.comparingLong(IndexSegment::getSizeBytes));
+        picked = picked.subList(0, Math.min(picked.size(), Math.max(2, Math.min(mergeFactor,
+                current.size() - maxSegments + 1))));
+
+        Long minHotId = auditLogRepository.findMinId();
+        int pruneBelow = minHotId != null ? (int) Math.min(minHotId, Integer.MAX_VALUE) : 0;
+        long maxId = picked.stream().mapToLong(IndexSegment::getMaxId).max().orElse(0);
+
+        Path path = nextSegmentPath();
+        IndexSegment.write(path, pruneBelow, maxId, mergedPostings(picked, pruneBelow));
+        IndexSegment merged = IndexSegment.open(path);
+
+        Set<IndexSegment> replaced = new HashSet<>(picked);
+        lock.writeLock().lock();
+        try {
+            List<IndexSegment> next = new ArrayList<>();
+            for (IndexSegment segment : segments) {
+                if (!replaced.contains(segment)) {
+                    next.add(segment);
+                }
+            }
+            next.add(merged);
+            segments = List.copyOf(next);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        writeManifest();
+        // Queries still holding the old segments keep their mappings; the files can go
+        for (IndexSegment segment : picked) {
+            Files.deleteIfExists(segment.getPath());
+        }
+        log.info("Search index merged {} segments into {} ({} terms)", picked.size(), path.getFileName(),
+                merged.getTermCount());
+    }
+
+    /**
+     * Union of the postings of several segments, in term order
+     */
+    static Iterator<Map.Entry<String, RoaringBitmap>> mergedPostings(List<IndexSegment> sources,
+            int pruneBelow) {
+        record Head(Map.Entry<String, RoaringBitmap> entry, Iterator<Map.Entry<String, RoaringBitmap>> rest) {
+        }
+        PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing((Head head) -> head.entry().getKey()));
+        for (IndexSegment source : sources) {
+            Iterator<Map.Entry<String, RoaringBitmap>> iterator = source.iterator();
+            if (iterator.hasNext()) {
+                heads.add(new Head(iterator.next(), iterator));
+            }
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Map.Entry<String, RoaringBitmap> next() {
+                if (heads.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                String term = heads.peek().entry().getKey();
+                RoaringBitmap union = new RoaringBitmap();
+                while (!heads.isEmpty() && heads.peek().entry().getKey().equals(term)) {
+                    Head head = heads.poll();
+                    union = RoaringBitmap.or(union, head.entry().getValue());
+                    if (head.rest().hasNext()) {
+                        heads.add(new Head(head.rest().next(), head.rest()));
+                    }
+                }
+                union.removeBelow(pruneBelow);
+                return Map.entry(term, union);
+            }
+        };
+    }
+
+    /**
+     * Open the segments listed in the manifest and remove files it does not list
+     * An unreadable index is discarded and rebuilt from the table.
+     */
+    private void load() throws IOException {
+        Path manifest = indexDir.resolve(MANIFEST);
+        List<IndexSegment> loaded = new ArrayList<>();
+        Set<Path> live = new HashSet<>();
+        if (Files.exists(manifest)) {
+            try {
+                for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                    if (line.startsWith(WATERMARK)) {
+                        watermark = Long.parseLong(line.substring(WATERMARK.length()));
+                    } else if (!line.isBlank()) {
+                        Path path = indexDir.resolve(line.trim());
+                        loaded.add(IndexSegment.open(path));
+                        live.add(path);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Search index unreadable, rebuilding: {}", e.getMessage());
+                loaded.clear();
+                live.clear();
+                watermark = 0;
+            }
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(indexDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                generation = Math.max(generation, parseGeneration(file));
+                if (!live.contains(file)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        segments = List.copyOf(loaded);
+        log.info("Search index loaded: {} segments, indexed through audit log id {}", segments.size(), watermark);
+    }
+
+    private void writeManifest() throws IOException {
+        StringBuilder content = new StringBuilder(WATERMARK).append(watermark).append('\n');
+        for (IndexSegment segment : segments) {
+            content.append(segment.getPath().getFileName()).append('\n');
+        }
+        Path temp = indexDir.resolve(MANIFEST + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        Files.move(temp, indexDir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path nextSegmentPath() {
+        return indexDir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, ++generation, SEGMENT_SUFFIX));
+    }
+
+    private static long parseGeneration(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static <T> List<T> append(List<T> list, T element) {
+        List<T> copy = new ArrayList<>(list);
+        copy.add(element);
+        return List.copyOf(copy);
+    }
+}
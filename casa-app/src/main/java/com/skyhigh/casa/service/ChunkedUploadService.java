@@ -0,0 +1,314 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.exception.CapacityExceededException;
+import com.skyhigh.casa.exception.UploadSessionException;
+import com.skyhigh.casa.model.FileUploadResponse;
+import com.skyhigh.casa.model.ScanResult;
+import com.skyhigh.casa.model.UploadSessionResponse;
+import com.skyhigh.casa.scanner.IncrementalScan;
+import com.skyhigh.casa.tenant.TenantLease;
+import com.skyhigh.casa.tenant.TenantRegistry;
+import com.skyhigh.casa.util.PathMultipartFile;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resumable chunked uploads
+ * A session is created with the declared length, chunks are appended at the current
+ * offset and written to a part file, and every chunk is fed into an incremental scan
+ * as it lands. Completing the session only has to scan the tail before the usual
+ * policy, audit and storage steps run. A client that loses its connection asks for
+ * the session offset and continues from there.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ChunkedUploadService {
+
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final TenantRegistry tenantRegistry;
+    private final ScanScheduler scanScheduler;
+    private final FileProcessingService fileProcessingService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${uploads.session-path:./upload-sessions}")
+    private String sessionPath;
+
+    @Value("${uploads.max-length:10485760}")
+    private long maxLength;
+
+    @Value("${uploads.max-sessions:1000}")
+    private int maxSessions;
+
+    @Value("${uploads.session-timeout:3600000}")
+    private long sessionTimeoutMs;
+
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private Path sessionDir;
+
+    @PostConstruct
+    void init() throws IOException {
+        sessionDir = Paths.get(sessionPath).toAbsolutePath();
+        Files.createDirectories(sessionDir);
+        Gauge.builder("casa.uploads.sessions", sessions, Map::size)
+                .description("Open chunked upload sessions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Open an upload session for a file of the given length
+     */
+    public UploadSessionResponse create(String fileName, String contentType, long length, String userId,
+            String ipAddress, String tenantId) throws IOException {
+        if (fileName == null || fileName.isBlank()) {
+            throw new UploadSessionException(HttpStatus.BAD_REQUEST, "File name is required", null);
+        }
+        if (length <= 0) {
+            throw new UploadSessionException(HttpStatus.BAD_REQUEST, "File is empty", null);
+        }
+        if (length > maxLength) {
+            throw new UploadSessionException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Upload length exceeds " + maxLength + " bytes", null);
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new CapacityExceededException("Too many open upload sessions, please retry", 60);
+        }
+
+        String uploadId = UUID.randomUUID().toString();
+        Path path = sessionDir.resolve(uploadId + ".part");
+        // The session keeps its tenant's engines until it completes, is aborted or expires
+        TenantLease tenant = tenantRegistry.acquire(tenantId, userId);
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            tenant.close();
+            throw e;
+        }
+        UploadSession session = new UploadSession(uploadId, fileName, contentType, length, userId, ipAddress,
+                path, channel, tenant, tenant.getEngines().getScanner().startIncremental(fileName, contentType));
+        sessions.put(uploadId, session);
+
+        log.info("Upload session {} created for {} ({} bytes)", uploadId, fileName, length);
+        return toResponse(session);
+    }
+
+    /**
+     * Get the session state, including the offset to resume from
+     */
+    public UploadSessionResponse getStatus(String uploadId) {
+        UploadSession session = find(uploadId);
+        synchronized (session) {
+            ensureOpen(session);
+            return toResponse(session);
+        }
+    }
+
+    /**
+     * Append a chunk at the given offset
+     * Bytes are accepted as they are read, so a chunk cut short by the client still moves the offset.
+     */
+    public UploadSessionResponse append(String uploadId, long offset, InputStream body) throws IOException {
+        UploadSession session = find(uploadId);
+        synchronized (session) {
+            ensureOpen(session);
+            if (session.offset != offset) {
+                throw new UploadSessionException(HttpStatus.CONFLICT,
+                        "Offset mismatch, expected " + session.offset, session.offset);
+            }
+
+            byte[] buffer = new byte[READ_BUFFER];
+            int read;
+            try {
+                while ((read = body.read(buffer)) != -1) {
+                    long remaining = session.length - session.offset;
+                    int accepted = (int) Math.min(read, remaining);
+                    write(session, buffer, accepted);
+                    if (accepted < read) {
+                        throw new UploadSessionException(HttpStatus.BAD_REQUEST,
+                                "Chunk exceeds declared upload length", session.offset);
+                    }
+                }
+            } finally {
+                session.lastTouched = System.currentTimeMillis();
+            }
+            return toResponse(session);
+        }
+    }
+
+    /**
+     * Finish the scan of a fully received upload and run it through policy, audit and storage
+     */
+    public FileUploadResponse complete(String uploadId) {
+        UploadSession session = find(uploadId);
+        synchronized (session) {
+            ensureOpen(session);
+            if (session.offset != session.length) {
+                throw new UploadSessionException(HttpStatus.CONFLICT,
+                        "Upload incomplete, received " + session.offset + " of " + session.length + " bytes",
+                        session.offset);
+            }
+
+            PathMultipartFile file = new PathMultipartFile(session.path, session.fileName, session.contentType,
+                    session.length);
+            FileUploadResponse response = fileProcessingService.processFile(file, session.userId,
+                    session.ipAddress, session.tenant.getEngines(), () -> finishScan(session));
+
+            // A capacity rejection propagates above and keeps the session, so the client can retry completion
+            sessions.remove(uploadId);
+            discard(session);
+            return response;
+        }
+    }
+
+    /**
+     * Abort an upload session
+     */
+    public void abort(String uploadId) {
+        UploadSession session = sessions.remove(uploadId);
+        if (session == null) {
+            throw notFound(uploadId);
+        }
+        synchronized (session) {
+            discard(session);
+        }
+        log.info("Upload session {} aborted", uploadId);
+    }
+
+    /**
+     * Drop sessions that have been idle longer than the timeout
+     */
+    @Scheduled(fixedDelayString = "${uploads.sweep-interval:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - sessionTimeoutMs;
+        sessions.values().removeIf(session -> {
+            if (session.lastTouched >= cutoff) {
+                return false;
+            }
+            synchronized (session) {
+                discard(session);
+            }
+            log.info("Upload session {} expired at offset {} of {}", session.uploadId, session.offset,
+                    session.length);
+            return true;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sessions.values().forEach(this::discard);
+        sessions.clear();
+    }
+
+    private ScanResult finishScan(UploadSession session) throws IOException {
+        if (!session.scan.isDeferred()) {
+            return session.scan.finish();
+        }
+        return scanScheduler.execute(session.length, session.fileName,
+                () -> session.tenant.getEngines().getScanner().scan(session.fileName, session.contentType,
+                        Files.readAllBytes(session.path)));
+    }
+
+    private void write(UploadSession session, byte[] buffer, int length) throws IOException {
+        ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, length);
+        while (chunk.hasRemaining()) {
+            session.channel.write(chunk);
+        }
+        session.scan.update(buffer, 0, length);
+        session.offset += length;
+    }
+
+    private UploadSession find(String uploadId) {
+        UploadSession session = sessions.get(uploadId);
+        if (session == null) {
+            throw notFound(uploadId);
+        }
+        return session;
+    }
+
+    private static void ensureOpen(UploadSession session) {
+        if (session.closed) {
+            throw notFound(session.uploadId);
+        }
+    }
+
+    private static UploadSessionException notFound(String uploadId) {
+        return new UploadSessionException(HttpStatus.NOT_FOUND, "Upload session not found: " + uploadId, null);
+    }
+
+    private void discard(UploadSession session) {
+        session.closed = true;
+        session.tenant.close();
+        try {
+            session.channel.close();
+            Files.deleteIfExists(session.path);
+        } catch (IOException e) {
+            log.warn("Failed to remove upload session file {}: {}", session.path, e.getMessage());
+        }
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session) {
+        return UploadSessionResponse.builder()
+                .uploadId(session.uploadId)
+                .fileName(session.fileName)
+                .length(session.length)
+                .offset(session.offset)
+                .expiresAt(Instant.ofEpochMilli(session.lastTouched + sessionTimeoutMs).toString())
+                .build();
+    }
+
+    /**
+     * State of one upload in progress; guarded by its own monitor
+     */
+    private static class UploadSession {
+        private final String uploadId;
+        private final String fileName;
+        private final String contentType;
+        private final long length;
+        private final String userId;
+        private final String ipAddress;
+        private final Path path;
+        private final FileChannel channel;
+        private final TenantLease tenant;
+        private final IncrementalScan scan;
+        private long offset;
+        private boolean closed;
+        private volatile long lastTouched = System.currentTimeMillis();
+
+        UploadSession(String uploadId, String fileName, String contentType, long length, String userId,
+                String ipAddress, Path path, FileChannel channel, TenantLease tenant, IncrementalScan scan) {
+            this.uploadId = uploadId;
+            this.fileName = fileName;
+            this.contentType = contentType;
+            this.length = length;
+            this.userId = userId;
+            this.ipAddress = ipAddress;
+            this.path = path;
+            this.channel = channel;
+            this.tenant = tenant;
+            this.scan = scan;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.skyhigh.casa.service;
+
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.PutObjectArgs;
+import io.minio.GetObjectArgs;
+import io.minio.RemoveObjectArgs;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Cloud Storage Service using MinIO
+ * Falls back to local storage if MinIO is not available
+ */
+@Service
+@Slf4j
+public class CloudStorageService {
+
+    @Autowired(required = false)
+    private MinioClient minioClient;
+
+    @Value("${minio.bucket-name}")
+    private String bucketName;
+
+    @Value("${policy.quarantine-path:./storage}")
+    private String localStoragePath;
+
+    /**
+     * Store content under its hash in cloud storage or local storage
+     * The transfer is skipped when an object with the same hash is already there.
+     */
+    public String storeObject(MultipartFile file, String contentHash) throws Exception {
+        if (minioClient != null) {
+            return storeInMinio(file, contentHash);
+        } else {
+            return "local://" + storeLocal(Paths.get(localStoragePath), file, contentHash);
+        }
+    }
+
+    /**
+     * Store content under its hash below a local root directory, skipping the write when present
+     *
+     * @return the absolute path of the stored object
+     */
+    public Path storeLocal(Path root, MultipartFile file, String contentHash) throws Exception {
+        try {
+            Path target = root.toAbsolutePath().normalize().resolve(objectName(contentHash));
+            if (Files.exists(target)) {
+                log.debug("Object already stored locally: {}", target);
+                return target;
+            }
+            Files.createDirectories(target.getParent());
+
+            // Write beside the target and rename, so a concurrent reader never sees a partial object
+            Path temp = Files.createTempFile(target.getParent(), contentHash, ".tmp");
+            try {
+                try (InputStream in = file.getInputStream()) {
+                    Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.info("File stored locally: {}", target);
+            return target;
+
+        } catch (Exception e) {
+            log.error("Failed to store file locally: {}", e.getMessage(), e);
+            throw new Exception("Failed to upload file to local storage", e);
+        }
+    }
+
+    /**
+     * Upload to MinIO unless the object already exists
+     */
+    private String storeInMinio(MultipartFile file, String contentHash) throws Exception {
+        try {
+            String objectName = objectName(contentHash);
+            String storageLocation = String.format("s3://%s/%s", bucketName, objectName);
+            if (existsInMinio(objectName)) {
+                log.debug("Object already stored in MinIO: {}", storageLocation);
+                return storageLocation;
+            }
+
+            minioClient.putObject(
+                    PutObjectArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .stream(file.getInputStream(), file.getSize(), -1)
+                            .contentType(file.getContentType())
+                            .build());
+
+            log.info("File uploaded to MinIO: {}", storageLocation);
+            return storageLocation;
+
+        } catch (Exception e) {
+            log.error("Failed to upload file to MinIO: {}", e.getMessage(), e);
+            throw new Exception("Failed to upload file to cloud storage", e);
+        }
+    }
+
+    private boolean existsInMinio(String objectName) throws Exception {
+        try {
+            minioClient.statObject(StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+            return true;
+        } catch (ErrorResponseException e) {
+            if ("NoSuchKey".equals(e.errorResponse().code())) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Download file from cloud storage
+     */
+    public InputStream downloadFile(String objectName) throws Exception {
+        if (minioClient != null) {
+            try {
+                return minioClient.getObject(
+                        GetObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectName)
+                                .build());
+            } catch (Exception e) {
+                log.error("Failed to download file from MinIO: {}", e.getMessage(), e);
+                throw new Exception("Failed to download file from cloud storage", e);
+            }
+        } else {
+            throw new Exception("MinIO not configured");
+        }
+    }
+
+    /**
+     * Open a stored file by the location recorded at upload time (s3:// or local)
+     */
+    public InputStream openStoredFile(String storageLocation) throws Exception {
+        Path path = localPath(storageLocation);
+        if (path != null) {
+            return Files.newInputStream(path);
+        }
+        return openStoredRange(storageLocation, 0, -1);
+    }
+
+    /**
+     * Open part of a MinIO object without fetching what comes before it
+     *
+     * @param length bytes to read, or -1 for the rest of the object
+     */
+    public InputStream openStoredRange(String storageLocation, long offset, long length) throws Exception {
+        if (!storageLocation.startsWith("s3://")) {
+            throw new Exception("Unsupported storage location: " + storageLocation);
+        }
+        if (minioClient == null) {
+            throw new Exception("MinIO not configured");
+        }
+        String path = storageLocation.substring("s3://".length());
+        int slash = path.indexOf('/');
+        GetObjectArgs.Builder args = GetObjectArgs.builder()
+                .bucket(path.substring(0, slash))
+                .object(path.substring(slash + 1));
+        if (offset > 0 || length >= 0) {
+            args.offset(offset);
+            if (length >= 0) {
+                args.length(length);
+            }
+        }
+        return minioClient.getObject(args.build());
+    }
+
+    /**
+     * Local path of a stored file, or null when it is held in MinIO
+     * Quarantined files are recorded as plain paths, stored files as local:// locations.
+     */
+    public Path localPath(String storageLocation) {
+        if (storageLocation.startsWith("s3://")) {
+            return null;
+        }
+        return Paths.get(storageLocation.startsWith("local://")
+                ? storageLocation.substring("local://".length()) : storageLocation);
+    }
+
+    /**
+     * Delete a stored file by the location recorded at upload time (s3:// or local path)
+     */
+    public void deleteStoredFile(String storageLocation) throws Exception {
+        if (storageLocation.startsWith("s3://")) {
+            String path = storageLocation.substring("s3://".length());
+            int slash = path.indexOf('/');
+            deleteFile(path.substring(slash + 1));
+        } else {
+            Files.deleteIfExists(localPath(storageLocation));
+        }
+    }
+
+    /**
+     * Delete file from cloud storage
+     */
+    public void deleteFile(String objectName) throws Exception {
+        if (minioClient != null) {
+            try {
+                minioClient.removeObject(
+                        RemoveObjectArgs.builder()
+                                .bucket(bucketName)
+                                .object(objectName)
+                                .build());
+                log.info("File deleted successfully: {}", objectName);
+            } catch (Exception e) {
+                log.error("Failed to delete file from MinIO: {}", e.getMessage(), e);
+                throw new Exception("Failed to delete file from cloud storage", e);
+            }
+        }
+    }
+
+    /**
+     * Object name for content, fanned out by the first hash byte
+     */
+    private static String objectName(String contentHash) {
+        return String.format("objects/%s/%s", contentHash.substring(0, 2), contentHash);
+    }
+}
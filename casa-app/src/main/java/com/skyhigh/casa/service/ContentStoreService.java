@@ -0,0 +1,160 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.StoredObject;
+import com.skyhigh.casa.repository.StoredObjectRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Content-addressed, deduplicated storage for allowed and quarantined uploads
+ * Files are keyed by the SHA-256 of their bytes. The first upload of some content writes
+ * the object; identical uploads only add a reference to it, and the object is removed
+ * when its last reference is released.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentStoreService {
+
+    private static final int HASH_BUFFER = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private final CloudStorageService cloudStorageService;
+    private final StoredObjectRepository storedObjectRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${policy.quarantine-path}")
+    private String quarantinePath;
+
+    // Serializes store and release of the same content within this instance
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private Counter writes;
+    private Counter deduplicated;
+
+    @PostConstruct
+    void init() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        writes = Counter.builder("casa.storage.objects.written")
+                .description("Uploads whose content was written to storage")
+                .register(meterRegistry);
+        deduplicated = Counter.builder("casa.storage.objects.deduplicated")
+                .description("Uploads that referenced already stored content")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reference to stored content
+     */
+    public record StoredContent(String contentHash, String storageLocation, boolean deduplicated) {
+    }
+
+    /**
+     * Store a file in the given tier, or add a reference when its content is already there
+     */
+    public StoredContent store(MultipartFile file, StoredObject.Tier tier) throws Exception {
+        String contentHash = hash(file);
+        synchronized (lockFor(contentHash)) {
+            Optional<StoredObject> existing = storedObjectRepository.findByTierAndContentHash(tier, contentHash);
+            if (existing.isPresent() && storedObjectRepository.addReference(existing.get().getId(),
+                    LocalDateTime.now()) > 0) {
+                deduplicated.increment();
+                log.info("Content {} already stored, reference added: {}", contentHash,
+                        existing.get().getStorageLocation());
+                return new StoredContent(contentHash, existing.get().getStorageLocation(), true);
+            }
+
+            // Quarantined objects get their own directory so the tiers never share a file
+            String storageLocation = tier == StoredObject.Tier.QUARANTINE
+                    ? cloudStorageService.storeLocal(Paths.get(quarantinePath, "quarantine"), file, contentHash)
+                            .toString()
+                    : cloudStorageService.storeObject(file, contentHash);
+            LocalDateTime now = LocalDateTime.now();
+            try {
+                storedObjectRepository.save(StoredObject.builder()
+                        .tier(tier)
+                        .contentHash(contentHash)
+                        .storageLocation(storageLocation)
+                        .size(file.getSize())
+                        .contentType(file.getContentType())
+                        .refCount(1L)
+                        .createdAt(now)
+                        .lastReferencedAt(now)
+                        .build());
+                writes.increment();
+            } catch (DataIntegrityViolationException e) {
+                // Another instance recorded the same content first
+                StoredObject winner = storedObjectRepository.findByTierAndContentHash(tier, contentHash)
+                        .orElseThrow(() -> e);
+                storedObjectRepository.addReference(winner.getId(), now);
+                deduplicated.increment();
+                return new StoredContent(contentHash, winner.getStorageLocation(), true);
+            }
+            return new StoredContent(contentHash, storageLocation, false);
+        }
+    }
+
+    /**
+     * Release one reference, deleting the object when it was the last
+     */
+    public void release(String contentHash, StoredObject.Tier tier) {
+        synchronized (lockFor(contentHash)) {
+            Optional<StoredObject> existing = storedObjectRepository.findByTierAndContentHash(tier, contentHash);
+            if (existing.isEmpty()) {
+                return;
+            }
+            StoredObject object = existing.get();
+            storedObjectRepository.removeReference(object.getId());
+            if (storedObjectRepository.deleteIfUnreferenced(object.getId()) > 0) {
+                try {
+                    cloudStorageService.deleteStoredFile(object.getStorageLocation());
+                    log.info("Stored object {} deleted, no references left", object.getStorageLocation());
+                } catch (Exception e) {
+                    log.warn("Failed to delete unreferenced object {}: {}", object.getStorageLocation(),
+                            e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * SHA-256 of the file content, hex encoded
+     */
+    public static String hash(MultipartFile file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[HASH_BUFFER];
+        try (InputStream in = file.getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Object lockFor(String contentHash) {
+        return locks[Math.floorMod(contentHash.hashCode(), LOCK_STRIPES)];
+    }
+}
@@ -0,0 +1,181 @@
+package com.skyhigh.casa.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.DashboardResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Dashboard aggregate with a shared response cache
+ *
+ * Responses are serialized once per audit log version and query, and shared by every client
+ * polling the same view; concurrent requests for a view that is not cached wait for one load
+ * instead of each running the queries. A write bumps the version, so the next request
+ * reloads. Entries also expire after a short time, for changes made around the services.
+ * The ETag is a hash of the serialized body, so a client is answered 304 whenever its view
+ * has not changed, even across writes that did not touch it. Views are keyed by page and
+ * filter, user filters included, so the cache is bounded and evicts the least recently used
+ * view rather than dropping the views every other client is polling.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DashboardService {
+
+    private final AuditLogService auditLogService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dashboard.cache.ttl:5000}")
+    private long ttlMs;
+
+    @Value("${dashboard.cache.max-entries:256}")
+    private int maxEntries;
+
+    private Map<String, CompletableFuture<CachedDashboard>> cache;
+    private TransactionTemplate transactionTemplate;
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<CachedDashboard>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        hitCounter = Counter.builder("casa.dashboard.cache")
+                .description("Dashboard requests by cache outcome")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        missCounter = Counter.builder("casa.dashboard.cache")
+                .description("Dashboard requests by cache outcome")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("casa.dashboard.cache.entries", cache, Map::size)
+                .description("Dashboard views cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Serialized dashboard for a page of logs, optionally filtered by status or user
+     *
+     * @throws IllegalArgumentException for an unknown status
+     */
+    public CachedDashboard getDashboard(int page, int size, String status, String userId) {
+        AuditLog.UploadStatus uploadStatus = status != null && !status.isEmpty()
+                ? AuditLog.UploadStatus.valueOf(status.toUpperCase()) : null;
+        String key = page + ":" + size + ":" + (uploadStatus != null ? uploadStatus : "")
+                + ":" + (userId != null ? userId : "");
+
+        while (true) {
+            long version = auditLogService.getVersion();
+            CompletableFuture<CachedDashboard> future = cache.get(key);
+            CachedDashboard cached = future != null ? future.getNow(null) : null;
+            if (future != null && (cached == null || cached.isCurrent(version, ttlMs))) {
+                // Cached, or being loaded by another request
+                hitCounter.increment();
+                return join(future);
+            }
+
+            CompletableFuture<CachedDashboard> created = new CompletableFuture<>();
+            boolean claimed = future == null
+                    ? cache.putIfAbsent(key, created) == null
+                    : cache.replace(key, future, created);
+            if (!claimed) {
+                continue;
+            }
+            missCounter.increment();
+            try {
+                created.complete(load(version, page, size, uploadStatus, userId));
+            } catch (RuntimeException e) {
+                cache.remove(key, created);
+                created.completeExceptionally(e);
+                throw e;
+            }
+            return join(created);
+        }
+    }
+
+    /**
+     * Run the dashboard queries and serialize the result
+     * The version is read before the queries, so a write during the load leaves the entry stale.
+     */
+    private CachedDashboard load(long version, int page, int size, AuditLog.UploadStatus status, String userId) {
+        return transactionTemplate.execute(tx -> {
+            Pageable pageable = PageRequest.of(page, size, Sort.by("timestamp").descending());
+            Page<AuditLog> logs;
+            if (status != null) {
+                logs = auditLogService.getLogsByStatus(status, pageable);
+            } else if (userId != null && !userId.isEmpty()) {
+                logs = auditLogService.getLogsByUser(userId, pageable);
+            } else {
+                logs = auditLogService.getAllLogs(pageable);
+            }
+            DashboardResponse response = DashboardResponse.builder()
+                    .statistics(auditLogService.getStatistics())
+                    .logs(logs)
+                    .build();
+            try {
+                byte[] body = objectMapper.writeValueAsBytes(response);
+                return new CachedDashboard(version, System.currentTimeMillis(), etag(body), body);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize dashboard", e);
+            }
+        });
+    }
+
+    private static CachedDashboard join(CompletableFuture<CachedDashboard> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Serialized dashboard with the version it was built from
+     */
+    public record CachedDashboard(long version, long loadedAt, String etag, byte[] body) {
+
+        boolean isCurrent(long currentVersion, long ttlMs) {
+            return version == currentVersion && System.currentTimeMillis() - loadedAt < ttlMs;
+        }
+    }
+}
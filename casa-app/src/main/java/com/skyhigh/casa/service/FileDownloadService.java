@@ -0,0 +1,142 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.Globals;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Serves stored and quarantined uploads
+ * Local files are handed to the container's sendfile support when it is available, or
+ * copied with FileChannel.transferTo otherwise; MinIO objects are streamed through with
+ * only the requested range fetched.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FileDownloadService {
+
+    private final AuditLogRepository auditLogRepository;
+    private final CloudStorageService cloudStorageService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${downloads.sendfile-min-size:49152}")
+    private long sendfileMinSize;
+
+    private Counter sendfileBytes;
+    private Counter transferBytes;
+    private Counter streamBytes;
+
+    @PostConstruct
+    void init() {
+        sendfileBytes = bytesCounter("sendfile");
+        transferBytes = bytesCounter("transfer");
+        streamBytes = bytesCounter("stream");
+    }
+
+    /**
+     * Stored content of an upload
+     *
+     * @param localPath the file on disk, or null for MinIO objects
+     */
+    public record StoredFile(String fileId, String fileName, String contentHash, String storageLocation,
+            Path localPath, long size) {
+
+        /**
+         * Strong validator: the content hash, or the file id for uploads stored before hashing
+         */
+        public String etag() {
+            return "\"" + (contentHash != null ? contentHash : fileId) + "\"";
+        }
+    }
+
+    /**
+     * Find the stored content of an upload, if it was stored and is still there
+     */
+    public Optional<StoredFile> find(String fileId) throws IOException {
+        Optional<AuditLog> found = auditLogRepository.findByFileId(fileId);
+        if (found.isEmpty() || found.get().getStorageLocation() == null) {
+            return Optional.empty();
+        }
+        AuditLog auditLog = found.get();
+        Path path = cloudStorageService.localPath(auditLog.getStorageLocation());
+        if (path != null && !Files.isRegularFile(path)) {
+            log.warn("Stored file missing for {}: {}", fileId, path);
+            return Optional.empty();
+        }
+        long size = path != null ? Files.size(path) : auditLog.getFileSize();
+        return Optional.of(new StoredFile(fileId, auditLog.getFileName(), auditLog.getContentHash(),
+                auditLog.getStorageLocation(), path, size));
+    }
+
+    /**
+     * Write count bytes of the file from start to the response; headers must already be set
+     */
+    public void transfer(StoredFile file, long start, long count, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        if (file.localPath() == null) {
+            stream(file, start, count, response);
+        } else if (count >= sendfileMinSize
+                && Boolean.TRUE.equals(request.getAttribute(Globals.SENDFILE_SUPPORTED_ATTR))) {
+            // The container sends the file once the request returns, without copying it through the JVM
+            request.setAttribute(Globals.SENDFILE_FILENAME_ATTR, file.localPath().toAbsolutePath().toString());
+            request.setAttribute(Globals.SENDFILE_FILE_START_ATTR, start);
+            request.setAttribute(Globals.SENDFILE_FILE_END_ATTR, start + count);
+            sendfileBytes.increment(count);
+        } else {
+            try (FileChannel channel = FileChannel.open(file.localPath(), StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                long end = start + count;
+                while (position < end) {
+                    long sent = channel.transferTo(position, end - position, out);
+                    if (sent <= 0) {
+                        throw new IOException("Stored file shorter than expected: " + file.localPath());
+                    }
+                    position += sent;
+                }
+            }
+            transferBytes.increment(count);
+        }
+    }
+
+    private void stream(StoredFile file, long start, long count, HttpServletResponse response) throws IOException {
+        try (InputStream in = cloudStorageService.openStoredRange(file.storageLocation(), start, count)) {
+            in.transferTo(response.getOutputStream());
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read stored file: " + file.storageLocation(), e);
+        }
+        streamBytes.increment(count);
+    }
+
+    private Counter bytesCounter(String mode) {
+        return Counter.builder("casa.downloads.bytes")
+                .description("Bytes of stored files served")
+                .baseUnit("bytes")
+                .tag("mode", mode)
+                .register(meterRegistry);
+    }
+}
@@ -1,19 +1,15 @@
 package com.skyhigh.casa.service;
 
+import com.skyhigh.casa.exception.CapacityExceededException;
 import com.skyhigh.casa.model.*;
-import com.skyhigh.casa.policy.PolicyEngine;
-import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import com.skyhigh.casa.tenant.TenantEngines;
+import com.skyhigh.casa.util.MatchDetailCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.UUID;
 
 /**
@@ -25,51 +21,63 @@ import java.util.UUID;
 @Slf4j
 public class FileProcessingService {
 
-    private final SensitiveDataScanner scanner;
-    private final PolicyEngine policyEngine;
-    private final CloudStorageService cloudStorageService;
+    private final ScanScheduler scanScheduler;
+    private final ContentStoreService contentStoreService;
     private final AuditLogService auditLogService;
+    private final MemoryBudget memoryBudget;
 
-    @Value("${policy.quarantine-path}")
-    private String quarantinePath;
+    /**
+     * Process uploaded file with the engines of the uploading tenant
+     */
+    public FileUploadResponse processFile(MultipartFile file, String userId, String ipAddress,
+            TenantEngines tenant) {
+        return processFile(file, userId, ipAddress, tenant, () -> scanScheduler.execute(file.getSize(),
+                file.getOriginalFilename(),
+                () -> tenant.getScanner().scan(file.getOriginalFilename(), file.getContentType(), file.getBytes())));
+    }
 
     /**
-     * Process uploaded file
+     * Process uploaded file whose scan is produced by the given task
+     * Memory budget for the file is held from the scan until it is stored.
      */
-    public FileUploadResponse processFile(MultipartFile file, String userId, String ipAddress) {
+    public FileUploadResponse processFile(MultipartFile file, String userId, String ipAddress,
+            TenantEngines tenant, ScanScheduler.ScanTask<ScanResult> scanTask) {
         String fileId = UUID.randomUUID().toString();
 
         log.info("Processing file upload: {} (ID: {})", file.getOriginalFilename(), fileId);
 
-        try {
+        try (MemoryBudget.Reservation ignored = memoryBudget.reserve(file.getSize(), file.getOriginalFilename())) {
             // Step 1: Scan file for sensitive data
-            ScanResult scanResult = scanner.scanFile(file);
+            ScanResult scanResult = scanTask.run();
             log.info("Scan complete - Risk Score: {}, Sensitive Data: {}",
                     scanResult.getRiskScore(), scanResult.isContainsSensitiveData());
 
             // Step 2: Evaluate policy
-            PolicyDecision policyDecision = policyEngine.evaluate(scanResult, userId, ipAddress);
+            PolicyDecision policyDecision = tenant.getPolicyEngine().evaluate(scanResult, userId, ipAddress);
             log.info("Policy decision: {} - {}", policyDecision.getAction(), policyDecision.getReason());
 
             // Step 3: Create audit log
             AuditLog auditLog = createAuditLog(fileId, file, scanResult, policyDecision, userId, ipAddress);
+            auditLog.setTenantId(tenant.getTenantId());
 
             // Step 4: Handle based on policy decision
             if (policyDecision.isAllowed()) {
                 return handleAllowedUpload(file, fileId, auditLog);
-            } else if (policyDecision.getAction() == AuditLog.PolicyAction.QUARANTINE) {
+            } else if (policyDecision.getAction() == PolicyAction.QUARANTINE) {
                 return handleQuarantinedUpload(file, fileId, auditLog);
             } else {
                 return handleBlockedUpload(auditLog);
             }
 
+        } catch (CapacityExceededException e) {
+            throw e;
         } catch (IOException e) {
             log.error("Error processing file: {}", e.getMessage(), e);
-            auditLogService.createLog(createErrorLog(fileId, file, userId, ipAddress, e.getMessage()));
+            auditLogService.createLog(createErrorLog(fileId, file, userId, ipAddress, tenant, e.getMessage()));
             return FileUploadResponse.error(file.getOriginalFilename(), e.getMessage());
         } catch (Exception e) {
             log.error("Unexpected error processing file: {}", e.getMessage(), e);
-            auditLogService.createLog(createErrorLog(fileId, file, userId, ipAddress, e.getMessage()));
+            auditLogService.createLog(createErrorLog(fileId, file, userId, ipAddress, tenant, e.getMessage()));
             return FileUploadResponse.error(file.getOriginalFilename(), "Internal server error");
         }
     }
@@ -78,20 +86,23 @@ public class FileProcessingService {
      * Handle allowed upload
      */
     private FileUploadResponse handleAllowedUpload(MultipartFile file, String fileId, AuditLog auditLog) {
+        ContentStoreService.StoredContent stored = null;
         try {
-            // Upload to cloud storage
-            String storageLocation = cloudStorageService.uploadFile(file, fileId);
-            auditLog.setStorageLocation(storageLocation);
+            // Upload to cloud storage, or reference the copy already there
+            stored = contentStoreService.store(file, StoredObject.Tier.STORAGE);
+            auditLog.setStorageLocation(stored.storageLocation());
+            auditLog.setContentHash(stored.contentHash());
             auditLog.setStatus(AuditLog.UploadStatus.ALLOWED);
 
             // Save audit log
             auditLogService.createLog(auditLog);
 
-            log.info("File upload allowed and stored: {}", storageLocation);
+            log.info("File upload allowed and stored: {}", stored.storageLocation());
             return FileUploadResponse.success(auditLog);
 
         } catch (Exception e) {
             log.error("Failed to upload file to cloud storage: {}", e.getMessage(), e);
+            releaseUnrecorded(stored, StoredObject.Tier.STORAGE, auditLog);
             auditLog.setStatus(AuditLog.UploadStatus.ERROR);
             auditLog.setBlockReason("Cloud storage error: " + e.getMessage());
             auditLogService.createLog(auditLog);
@@ -103,26 +114,41 @@ public class FileProcessingService {
      * Handle quarantined upload
      */
     private FileUploadResponse handleQuarantinedUpload(MultipartFile file, String fileId, AuditLog auditLog) {
+        ContentStoreService.StoredContent stored = null;
         try {
-            // Save to quarantine directory
-            String quarantineLocation = saveToQuarantine(file, fileId);
-            auditLog.setStorageLocation(quarantineLocation);
+            // Save to quarantine directory, or reference the copy already there
+            stored = contentStoreService.store(file, StoredObject.Tier.QUARANTINE);
+            auditLog.setStorageLocation(stored.storageLocation());
+            auditLog.setContentHash(stored.contentHash());
             auditLog.setStatus(AuditLog.UploadStatus.QUARANTINED);
 
             // Save audit log
             auditLogService.createLog(auditLog);
 
-            log.warn("File quarantined: {}", quarantineLocation);
+            log.warn("File quarantined: {}", stored.storageLocation());
             return FileUploadResponse.blocked(auditLog);
 
-        } catch (IOException e) {
+        } catch (Exception e) {
             log.error("Failed to quarantine file: {}", e.getMessage(), e);
+            releaseUnrecorded(stored, StoredObject.Tier.QUARANTINE, auditLog);
             auditLog.setStatus(AuditLog.UploadStatus.ERROR);
             auditLogService.createLog(auditLog);
             return FileUploadResponse.error(file.getOriginalFilename(), "Failed to quarantine file");
         }
     }
 
+    /**
+     * Drop the reference taken for an upload whose audit record could not be saved
+     */
+    private void releaseUnrecorded(ContentStoreService.StoredContent stored, StoredObject.Tier tier,
+            AuditLog auditLog) {
+        if (stored != null) {
+            contentStoreService.release(stored.contentHash(), tier);
+            auditLog.setStorageLocation(null);
+            auditLog.setContentHash(null);
+        }
+    }
+
     /**
      * Handle blocked upload
      */
@@ -134,24 +160,6 @@ public class FileProcessingService {
         return FileUploadResponse.blocked(auditLog);
     }
 
-    /**
-     * Save file to quarantine directory
-     */
-    private String saveToQuarantine(MultipartFile file, String fileId) throws IOException {
-        // Create quarantine directory if it doesn't exist
-        Path quarantineDir = Paths.get(quarantinePath);
-        if (!Files.exists(quarantineDir)) {
-            Files.createDirectories(quarantineDir);
-        }
-
-        // Save file
-        String filename = fileId + "-" + file.getOriginalFilename();
-        Path filePath = quarantineDir.resolve(filename);
-        file.transferTo(filePath.toFile());
-
-        return filePath.toString();
-    }
-
     /**
      * Create audit log from scan and policy results
      */
@@ -168,6 +176,8 @@ public class FileProcessingService {
                 .sensitiveTypes(scanResult.getSensitiveTypes())
                 .policyAction(policyDecision.getAction())
                 .blockReason(policyDecision.getReason())
+                .patternSetVersion(scanResult.getPatternSetVersion())
+                .matchDetails(MatchDetailCodec.encode(scanResult.getMatches()))
                 .build();
     }
 
@@ -175,17 +185,18 @@ public class FileProcessingService {
      * Create error audit log
      */
     private AuditLog createErrorLog(String fileId, MultipartFile file, String userId,
-            String ipAddress, String errorMessage) {
+            String ipAddress, TenantEngines tenant, String errorMessage) {
         return AuditLog.builder()
                 .fileId(fileId)
                 .fileName(file.getOriginalFilename())
                 .fileSize(file.getSize())
                 .userId(userId != null ? userId : "anonymous")
                 .ipAddress(ipAddress != null ? ipAddress : "unknown")
+                .tenantId(tenant.getTenantId())
                 .status(AuditLog.UploadStatus.ERROR)
                 .riskScore(0)
                 .sensitiveDataFound(false)
-                .policyAction(AuditLog.PolicyAction.BLOCK)
+                .policyAction(PolicyAction.BLOCK)
                 .blockReason("Error: " + errorMessage)
                 .build();
     }
@@ -0,0 +1,223 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.exception.IdempotencyException;
+import com.skyhigh.casa.model.FileUploadResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Idempotent upload processing keyed by client-supplied idempotency keys
+ * The first request with a key does the work; identical requests arriving while it runs
+ * wait for and share its result, and later retries get the stored response replayed.
+ * Keys are scoped per user, and a key reused for a different request is rejected.
+ * Error responses are not stored, so a retry after a failure runs again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${idempotency.ttl:86400000}")
+    private long ttlMs;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.max-wait-ms:60000}")
+    private long maxWaitMs;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    // Insertion order is expiry order, since every entry lives for the same ttl; guarded by itself
+    private final LinkedHashMap<String, Completed> completed = new LinkedHashMap<>();
+
+    private Counter executed;
+    private Counter coalesced;
+    private Counter replayed;
+
+    @PostConstruct
+    void init() {
+        executed = outcomeCounter("executed");
+        coalesced = outcomeCounter("coalesced");
+        replayed = outcomeCounter("replayed");
+        Gauge.builder("casa.idempotency.stored", this, IdempotencyService::getStoredCount)
+                .description("Upload responses kept for replay")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Result of an idempotent request
+     *
+     * @param replayed whether the response was produced by an earlier request with the same key
+     */
+    public record Outcome(FileUploadResponse response, boolean replayed) {
+    }
+
+    /**
+     * Upload processing run at most once per key
+     */
+    @FunctionalInterface
+    public interface UploadTask {
+        FileUploadResponse run() throws IOException;
+    }
+
+    /**
+     * Run the task once for the key, or share the result of the request that already did
+     *
+     * @param scope       owner of the key, usually the user id
+     * @param fingerprint identifies the request, so a key reused for another upload is detected
+     */
+    public Outcome execute(String scope, String key, String fingerprint, UploadTask task) throws IOException {
+        validate(key);
+        String id = scope + "\n" + key;
+
+        Completed done = lookup(id);
+        if (done != null) {
+            checkFingerprint(done.fingerprint, fingerprint);
+            replayed.increment();
+            return new Outcome(done.response, true);
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            checkFingerprint(running.fingerprint, fingerprint);
+            coalesced.increment();
+            log.info("Request with idempotency key {} joined the one in flight", key);
+            return new Outcome(await(running.result, key), true);
+        }
+
+        try {
+            // The previous holder may have finished between the lookup and taking the slot
+            done = lookup(id);
+            if (done != null) {
+                checkFingerprint(done.fingerprint, fingerprint);
+                mine.result.complete(done.response);
+                replayed.increment();
+                return new Outcome(done.response, true);
+            }
+
+            FileUploadResponse response = task.run();
+            if (!"ERROR".equals(response.getStatus())) {
+                remember(id, fingerprint, response);
+            }
+            executed.increment();
+            mine.result.complete(response);
+            return new Outcome(response, false);
+        } catch (IOException | RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    public int getStoredCount() {
+        synchronized (completed) {
+            return completed.size();
+        }
+    }
+
+    private FileUploadResponse await(CompletableFuture<FileUploadResponse> result, String key) throws IOException {
+        try {
+            return result.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyException(HttpStatus.CONFLICT,
+                    "A request with this idempotency key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for request with idempotency key " + key, e);
+        } catch (ExecutionException e) {
+            // Share the failure of the first request, e.g. a capacity rejection the client should back off from
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Completed lookup(String id) {
+        synchronized (completed) {
+            purgeExpired();
+            return completed.get(id);
+        }
+    }
+
+    private void remember(String id, String fingerprint, FileUploadResponse response) {
+        synchronized (completed) {
+            completed.remove(id);
+            completed.put(id, new Completed(fingerprint, response, System.currentTimeMillis() + ttlMs));
+            purgeExpired();
+            Iterator<Completed> oldest = completed.values().iterator();
+            while (completed.size() > maxEntries && oldest.hasNext()) {
+                oldest.next();
+                oldest.remove();
+            }
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        Iterator<Completed> oldest = completed.values().iterator();
+        while (oldest.hasNext() && oldest.next().expiresAt <= now) {
+            oldest.remove();
+        }
+    }
+
+    private static void validate(String key) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyException(HttpStatus.BAD_REQUEST,
+                    "Idempotency key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x21 || c > 0x7E) {
+                throw new IdempotencyException(HttpStatus.BAD_REQUEST,
+                        "Idempotency key must be printable ASCII");
+            }
+        }
+    }
+
+    private static void checkFingerprint(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new IdempotencyException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency key was already used for a different request");
+        }
+    }
+
+    private Counter outcomeCounter(String outcome) {
+        return Counter.builder("casa.idempotency.requests")
+                .description("Uploads sent with an idempotency key")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private record InFlight(String fingerprint, CompletableFuture<FileUploadResponse> result) {
+    }
+
+    private record Completed(String fingerprint, FileUploadResponse response, long expiresAt) {
+    }
+}
@@ -0,0 +1,240 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.analytics.CountMinSketch;
+import com.skyhigh.casa.analytics.HeavyHitters;
+import com.skyhigh.casa.analytics.RateBaselineSketch;
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogCreatedEvent;
+import com.skyhigh.casa.model.LiveAnalyticsResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Real-time heavy hitters and upload bursts in fixed memory
+ * The sliding window is a ring of slots. Each slot holds a count-min sketch and a bounded
+ * heavy-hitter set per dimension (user, IP address, sensitive type) for uploads with
+ * sensitive data; a query sums the slots. Upload rates per user are tracked against an
+ * EWMA baseline in a hashed grid, and a user whose uploads in one slot climb past
+ * burst-factor times their baseline is flagged. Memory does not grow with the number of users.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveAnalyticsService {
+
+    private static final int MAX_BURSTS = 100;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${analytics.live.slot-seconds:60}")
+    private long slotSeconds;
+
+    @Value("${analytics.live.slots:5}")
+    private int slotCount;
+
+    @Value("${analytics.live.sketch-width:1024}")
+    private int sketchWidth;
+
+    @Value("${analytics.live.sketch-depth:4}")
+    private int sketchDepth;
+
+    @Value("${analytics.live.top-k:10}")
+    private int topK;
+
+    @Value("${analytics.live.ewma-alpha:0.3}")
+    private double ewmaAlpha;
+
+    @Value("${analytics.live.burst-factor:3.0}")
+    private double burstFactor;
+
+    @Value("${analytics.live.burst-min-uploads:20}")
+    private long burstMinUploads;
+
+    private Slot[] slots;
+    private RateBaselineSketch rates;
+    private final Deque<LiveAnalyticsResponse.Burst> bursts = new ArrayDeque<>();
+    private long currentInterval;
+    private Counter burstCounter;
+
+    @PostConstruct
+    void init() {
+        slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            // Keep a few more candidates than reported, so keys near the cut-off are not lost between slots
+            slots[i] = new Slot(sketchWidth, sketchDepth, topK * 4);
+        }
+        rates = new RateBaselineSketch(sketchWidth, sketchDepth, ewmaAlpha);
+        currentInterval = interval(System.currentTimeMillis());
+        burstCounter = Counter.builder("casa.analytics.bursts")
+                .description("Users flagged for uploading well above their baseline rate")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Count a committed audit decision
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuditLogCreated(AuditLogCreatedEvent event) {
+        AuditLog auditLog = event.auditLog();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            advance(now);
+            Slot slot = slots[(int) Math.floorMod(currentInterval, (long) slotCount)];
+            slot.uploads++;
+
+            RateBaselineSketch.Rate rate = rates.add(auditLog.getUserId());
+            double threshold = Math.max(burstMinUploads, burstFactor * rate.baseline());
+            // Flag once per interval, when the count first crosses the threshold
+            if (rate.count() > threshold && rate.count() - 1 <= threshold) {
+                flagBurst(auditLog.getUserId(), rate, now);
+            }
+
+            if (Boolean.TRUE.equals(auditLog.getSensitiveDataFound())) {
+                slot.sensitiveUploads++;
+                slot.add(Dimension.USER, auditLog.getUserId());
+                slot.add(Dimension.IP_ADDRESS, auditLog.getIpAddress());
+                if (auditLog.getSensitiveTypes() != null) {
+                    for (String type : auditLog.getSensitiveTypes()) {
+                        slot.add(Dimension.SENSITIVE_TYPE, type);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Heavy hitters and bursts over the current window
+     */
+    public synchronized LiveAnalyticsResponse getLive(int limit) {
+        long now = System.currentTimeMillis();
+        advance(now);
+        int count = Math.max(1, Math.min(limit, topK));
+
+        long uploads = 0;
+        long sensitiveUploads = 0;
+        for (Slot slot : slots) {
+            uploads += slot.uploads;
+            sensitiveUploads += slot.sensitiveUploads;
+        }
+
+        long windowStart = now - slotSeconds * 1000 * slotCount;
+        List<LiveAnalyticsResponse.Burst> recentBursts = bursts.stream()
+                .filter(burst -> Instant.parse(burst.detectedAt()).toEpochMilli() >= windowStart)
+                .toList();
+
+        return LiveAnalyticsResponse.builder()
+                .windowSeconds(slotSeconds * slotCount)
+                .generatedAt(Instant.ofEpochMilli(now).toString())
+                .uploads(uploads)
+                .sensitiveUploads(sensitiveUploads)
+                .topUsers(top(Dimension.USER, count))
+                .topIpAddresses(top(Dimension.IP_ADDRESS, count))
+                .topSensitiveTypes(top(Dimension.SENSITIVE_TYPE, count))
+                .bursts(recentBursts)
+                .build();
+    }
+
+    private List<LiveAnalyticsResponse.HeavyHitter> top(Dimension dimension, int count) {
+        Set<String> candidates = new HashSet<>();
+        for (Slot slot : slots) {
+            candidates.addAll(slot.hitters.get(dimension).keys());
+        }
+        List<LiveAnalyticsResponse.HeavyHitter> ranked = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            long estimate = 0;
+            for (Slot slot : slots) {
+                estimate += slot.sketches.get(dimension).estimate(key);
+            }
+            ranked.add(new LiveAnalyticsResponse.HeavyHitter(key, estimate));
+        }
+        ranked.sort(Comparator.comparingLong(LiveAnalyticsResponse.HeavyHitter::sensitiveUploads).reversed()
+                .thenComparing(LiveAnalyticsResponse.HeavyHitter::key));
+        return ranked.size() > count ? ranked.subList(0, count) : ranked;
+    }
+
+    private void flagBurst(String userId, RateBaselineSketch.Rate rate, long now) {
+        bursts.addFirst(new LiveAnalyticsResponse.Burst(userId, rate.count(),
+                Math.round(rate.baseline() * 100) / 100.0, Instant.ofEpochMilli(now).toString()));
+        while (bursts.size() > MAX_BURSTS) {
+            bursts.removeLast();
+        }
+        burstCounter.increment();
+        log.warn("Upload burst from user {}: {} uploads this interval, baseline {}", userId, rate.count(),
+                String.format("%.2f", rate.baseline()));
+    }
+
+    /**
+     * Move the window forward to the interval containing now, clearing slots that fell out of it
+     */
+    private void advance(long now) {
+        long interval = interval(now);
+        long elapsed = interval - currentInterval;
+        if (elapsed <= 0) {
+            return;
+        }
+        for (long i = 1; i <= Math.min(elapsed, slotCount); i++) {
+            slots[(int) Math.floorMod(currentInterval + i, (long) slotCount)].clear();
+        }
+        rates.advance(elapsed);
+        currentInterval = interval;
+    }
+
+    private long interval(long epochMillis) {
+        return epochMillis / (slotSeconds * 1000);
+    }
+
+    private enum Dimension {
+        USER,
+        IP_ADDRESS,
+        SENSITIVE_TYPE
+    }
+
+    /**
+     * Sensitive upload counts of one interval
+     */
+    private static class Slot {
+        private final Map<Dimension, CountMinSketch> sketches = new EnumMap<>(Dimension.class);
+        private final Map<Dimension, HeavyHitters> hitters = new EnumMap<>(Dimension.class);
+        private long uploads;
+        private long sensitiveUploads;
+
+        Slot(int width, int depth, int candidates) {
+            for (Dimension dimension : Dimension.values()) {
+                sketches.put(dimension, new CountMinSketch(width, depth));
+                hitters.put(dimension, new HeavyHitters(candidates));
+            }
+        }
+
+        void add(Dimension dimension, String key) {
+            if (key == null) {
+                return;
+            }
+            long estimate = sketches.get(dimension).add(key, 1);
+            hitters.get(dimension).offer(key, estimate);
+        }
+
+        void clear() {
+            sketches.values().forEach(CountMinSketch::clear);
+            hitters.values().forEach(HeavyHitters::clear);
+            uploads = 0;
+            sensitiveUploads = 0;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogCreatedEvent;
+import com.skyhigh.casa.model.LiveAuditEvent;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live dashboard feed over Server-Sent Events
+ * Fans out audit decisions and statistics to all subscribers from memory,
+ * so connected dashboards never query the database
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveFeedService {
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditLogService auditLogService;
+
+    @Value("${live-feed.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${live-feed.recent-size:10}")
+    private int recentSize;
+
+    @Value("${live-feed.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${live-feed.emitter-timeout:1800000}")
+    private long emitterTimeout;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Deque<LiveAuditEvent> recentEvents = new ArrayDeque<>();
+
+    private final LongAdder totalUploads = new LongAdder();
+    private final LongAdder allowedUploads = new LongAdder();
+    private final LongAdder blockedUploads = new LongAdder();
+    private final LongAdder quarantinedUploads = new LongAdder();
+
+    private ExecutorService sender;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        sender = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "live-feed-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+        sender.shutdownNow();
+    }
+
+    /**
+     * Seed counters and recent decisions once at startup
+     * Runs before the audit journal replays, whose records then arrive as created events.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void seed() {
+        AuditLogService.AuditStatistics statistics = auditLogService.getStatistics();
+        totalUploads.add(statistics.totalUploads());
+        allowedUploads.add(statistics.allowedUploads());
+        blockedUploads.add(statistics.blockedUploads());
+        quarantinedUploads.add(statistics.quarantinedUploads());
+
+        List<AuditLog> recent = auditLogRepository.findTop10ByOrderByTimestampDesc();
+        synchronized (recentEvents) {
+            for (AuditLog auditLog : recent) {
+                if (recentEvents.size() < recentSize) {
+                    recentEvents.addLast(LiveAuditEvent.from(auditLog));
+                }
+            }
+        }
+        log.info("Live feed seeded with {} uploads", totalUploads.sum());
+    }
+
+    /**
+     * Register a new dashboard subscriber
+     * The subscriber is registered and its snapshot taken under the lock decisions are published
+     * under, so every decision is either in the snapshot or queued after it.
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeout);
+        Subscriber subscriber = new Subscriber(emitter, bufferSize);
+
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (recentEvents) {
+            subscribers.add(subscriber);
+            subscriber.pendingSnapshot.set(Map.of("statistics", currentStatistics(), "recent", recentSnapshot()));
+        }
+        schedule(subscriber);
+        log.info("Live feed subscriber connected ({} active)", subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Publish a committed audit decision to all subscribers
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAuditLogCreated(AuditLogCreatedEvent event) {
+        AuditLog auditLog = event.auditLog();
+        LiveAuditEvent liveEvent = LiveAuditEvent.from(auditLog);
+        synchronized (recentEvents) {
+            countDecision(auditLog.getStatus());
+            recentEvents.addFirst(liveEvent);
+            while (recentEvents.size() > recentSize) {
+                recentEvents.removeLast();
+            }
+
+            AuditLogService.AuditStatistics statistics = currentStatistics();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(liveEvent);
+                subscriber.pendingStatistics.set(statistics);
+            }
+        }
+        subscribers.forEach(this::schedule);
+    }
+
+    /**
+     * Keep idle connections alive and detect disconnected clients
+     */
+    @Scheduled(fixedRateString = "${live-feed.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.heartbeatPending.set(true);
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Get number of connected subscribers
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Get statistics from the in-memory counters
+     */
+    public AuditLogService.AuditStatistics currentStatistics() {
+        return new AuditLogService.AuditStatistics(
+                totalUploads.sum(), allowedUploads.sum(), blockedUploads.sum(), quarantinedUploads.sum());
+    }
+
+    private void countDecision(AuditLog.UploadStatus status) {
+        totalUploads.increment();
+        if (status == AuditLog.UploadStatus.ALLOWED) {
+            allowedUploads.increment();
+        } else if (status == AuditLog.UploadStatus.BLOCKED) {
+            blockedUploads.increment();
+        } else if (status == AuditLog.UploadStatus.QUARANTINED) {
+            quarantinedUploads.increment();
+        }
+    }
+
+    private List<LiveAuditEvent> recentSnapshot() {
+        synchronized (recentEvents) {
+            return new ArrayList<>(recentEvents);
+        }
+    }
+
+    /**
+     * Schedule a drain of the subscriber's buffer, at most one at a time per subscriber
+     */
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Send everything buffered for one subscriber
+     * A slow client only ever occupies one sender thread
+     */
+    private void drain(Subscriber subscriber) {
+        try {
+            while (true) {
+                Map<String, Object> snapshot = subscriber.pendingSnapshot.getAndSet(null);
+                if (snapshot != null) {
+                    subscriber.emitter.send(SseEmitter.event().name("snapshot").data(snapshot));
+                }
+
+                int dropped = subscriber.takeDropped();
+                if (dropped > 0) {
+                    subscriber.emitter.send(SseEmitter.event().name("resync").data(Map.of("dropped", dropped)));
+                }
+
+                LiveAuditEvent event;
+                while ((event = subscriber.poll()) != null) {
+                    subscriber.emitter.send(SseEmitter.event().name("decision").data(event));
+                }
+
+                AuditLogService.AuditStatistics statistics = subscriber.pendingStatistics.getAndSet(null);
+                if (statistics != null) {
+                    subscriber.emitter.send(SseEmitter.event().name("statistics").data(statistics));
+                }
+
+                if (subscriber.heartbeatPending.getAndSet(false)) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+
+                subscriber.draining.set(false);
+                if (!subscriber.hasPending() || !subscriber.draining.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Live feed subscriber disconnected: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            subscriber.draining.set(false);
+        }
+    }
+
+    /**
+     * Per-subscriber bounded buffer
+     * The connect snapshot goes out first; decisions drop oldest-first when full, statistics
+     * coalesce to the latest snapshot
+     */
+    private static class Subscriber {
+        private final SseEmitter emitter;
+        private final int capacity;
+        private final Deque<LiveAuditEvent> buffer = new ArrayDeque<>();
+        private final AtomicReference<Map<String, Object>> pendingSnapshot = new AtomicReference<>();
+        private final AtomicReference<AuditLogService.AuditStatistics> pendingStatistics = new AtomicReference<>();
+        private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private int dropped;
+
+        Subscriber(SseEmitter emitter, int capacity) {
+            this.emitter = emitter;
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(LiveAuditEvent event) {
+            if (buffer.size() >= capacity) {
+                buffer.removeFirst();
+                dropped++;
+            }
+            buffer.addLast(event);
+        }
+
+        synchronized LiveAuditEvent poll() {
+            return buffer.pollFirst();
+        }
+
+        synchronized int takeDropped() {
+            int count = dropped;
+            dropped = 0;
+            return count;
+        }
+
+        synchronized boolean hasPending() {
+            return !buffer.isEmpty() || dropped > 0 || pendingSnapshot.get() != null
+                    || pendingStatistics.get() != null || heartbeatPending.get();
+        }
+    }
+}
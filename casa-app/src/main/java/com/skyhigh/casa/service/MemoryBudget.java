@@ -0,0 +1,141 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.concurrency.ByteBudget;
+import com.skyhigh.casa.exception.CapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Global heap budget for uploads being processed
+ * Each upload reserves its declared size times the expected in-memory expansion for its
+ * file type (raw bytes, extracted text and matches alive together) before it is scanned,
+ * so the heap used by processing stays below a fixed ceiling however many arrive at once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MemoryBudget {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${memory-budget.max-bytes:0}")
+    private long maxBytes;
+
+    @Value("${memory-budget.heap-fraction:0.5}")
+    private double heapFraction;
+
+    @Value("${memory-budget.max-wait-ms:2000}")
+    private long maxWaitMs;
+
+    private ByteBudget budget;
+    private Timer waitTimer;
+    private Counter rejections;
+
+    @PostConstruct
+    void init() {
+        long limit = maxBytes > 0 ? maxBytes : (long) (Runtime.getRuntime().maxMemory() * heapFraction);
+        budget = new ByteBudget(limit);
+
+        Gauge.builder("casa.memory.budget.limit", budget, ByteBudget::getLimit)
+                .description("Bytes of heap reserved for upload processing")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("casa.memory.budget.used", budget, ByteBudget::getUsed)
+                .description("Bytes currently reserved by uploads in processing")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("casa.memory.budget.queue.depth", budget, ByteBudget::getWaiting)
+                .description("Uploads waiting for memory budget")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("casa.memory.budget.wait")
+                .description("Time spent waiting for memory budget")
+                .register(meterRegistry);
+        rejections = Counter.builder("casa.memory.budget.rejected")
+                .description("Uploads rejected after waiting for memory budget")
+                .register(meterRegistry);
+
+        log.info("Memory budget initialized ({} bytes)", limit);
+    }
+
+    /**
+     * Reserve budget for a file, waiting briefly when it is exhausted
+     *
+     * @return a reservation to close once processing is done
+     */
+    public Reservation reserve(long fileSize, String fileName) throws IOException {
+        long bytes = estimate(fileSize, fileName);
+
+        long waitStart = System.nanoTime();
+        long reserved;
+        try {
+            reserved = budget.acquire(bytes, maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for memory budget", e);
+        }
+        waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        if (reserved < 0) {
+            rejections.increment();
+            log.warn("Memory budget exhausted ({} of {} bytes used), rejecting file: {} ({} bytes reserved)",
+                    budget.getUsed(), budget.getLimit(), fileName, bytes);
+            throw new CapacityExceededException("Server is at memory capacity, please retry",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs)));
+        }
+        return new Reservation(budget, reserved);
+    }
+
+    /**
+     * Expected peak heap use while a file is processed
+     */
+    static long estimate(long fileSize, String fileName) {
+        long size = Math.max(0, fileSize);
+        int factor = expansionFactor(fileName);
+        return size > Long.MAX_VALUE / factor ? Long.MAX_VALUE : size * factor;
+    }
+
+    private static int expansionFactor(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            return 4;
+        }
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        return switch (extension) {
+            // Zipped XML: extracted text is often many times the archive size
+            case "docx", "xlsx" -> 12;
+            case "pdf" -> 6;
+            // Raw bytes, a copy for the scanner and the decoded text
+            default -> 4;
+        };
+    }
+
+    /**
+     * Budget held by one upload
+     */
+    public static final class Reservation implements AutoCloseable {
+        private final ByteBudget budget;
+        private long bytes;
+
+        private Reservation(ByteBudget budget, long bytes) {
+            this.budget = budget;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void close() {
+            if (bytes > 0) {
+                budget.release(bytes);
+                bytes = 0;
+            }
+        }
+    }
+}
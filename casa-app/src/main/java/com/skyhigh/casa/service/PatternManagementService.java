@@ -0,0 +1,275 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.ManagedPattern;
+import com.skyhigh.casa.model.PatternChangeResponse;
+import com.skyhigh.casa.model.PatternRequest;
+import com.skyhigh.casa.model.PatternSetChangedEvent;
+import com.skyhigh.casa.repository.ManagedPatternRepository;
+import com.skyhigh.casa.scanner.PatternDefinition;
+import com.skyhigh.casa.scanner.PatternProfile;
+import com.skyhigh.casa.scanner.PatternProfiler;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Runtime management of detection patterns
+ *
+ * Patterns are added, updated and disabled through the API and stored in managed_patterns.
+ * Before a pattern goes live it is profiled over the sample corpus under patterns.corpus.path;
+ * one that is slower than the throughput floor, or spends longer than the time limit on any
+ * document, is rejected. Accepted changes are swapped into the running scanner at once, and
+ * tenant engines are recompiled with them on their next request.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PatternManagementService {
+
+    private static final Pattern TYPE = Pattern.compile("[A-Z][A-Z0-9_]{0,63}");
+    private static final String ENTROPY_TYPE = "HIGH_ENTROPY_SECRET";
+
+    private final SensitiveDataScanner scanner;
+    private final ManagedPatternRepository managedPatternRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${patterns.corpus.path:./pattern-corpus}")
+    private String corpusPath;
+
+    @Value("${patterns.corpus.max-bytes:67108864}")
+    private long corpusMaxBytes;
+
+    @Value("${patterns.profile.min-throughput:5}")
+    private double minThroughput;
+
+    @Value("${patterns.profile.max-document-millis:500}")
+    private long maxDocumentMillis;
+
+    private volatile List<PatternDefinition> definitions = List.of();
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("casa.patterns.managed", this, service -> service.definitions.size())
+                .description("Patterns added, changed or disabled through the pattern API")
+                .register(meterRegistry);
+        acceptedCounter = Counter.builder("casa.patterns.changes")
+                .description("Pattern changes by outcome")
+                .tag("outcome", "accepted")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("casa.patterns.changes")
+                .description("Pattern changes by outcome")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+
+        if (managedPatternRepository.count() > 0) {
+            String version = applyStored();
+            log.info("Applied {} managed patterns, pattern set {}", definitions.size(), version);
+        }
+    }
+
+    /**
+     * Managed pattern definitions, applied on top of the configured ones by every scanner
+     */
+    public List<PatternDefinition> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * Patterns the default scanner is running with, by detection type
+     */
+    public Map<String, PatternDefinition> getActivePatterns() {
+        return scanner.getPatternDefinitions();
+    }
+
+    /**
+     * Patterns changed through the API, including disabled ones
+     */
+    public List<ManagedPattern> getManagedPatterns() {
+        return managedPatternRepository.findAll(Sort.by("type"));
+    }
+
+    /**
+     * Profile a candidate pattern without activating it
+     */
+    public PatternChangeResponse profile(String type, PatternRequest request) {
+        validate(type, request);
+        PatternChangeResponse response = evaluate(type, request);
+        response.setPatternSetVersion(scanner.getPatternSetVersion());
+        return response;
+    }
+
+    /**
+     * Add or update a pattern; it goes live only if its profile is within the limits
+     */
+    public PatternChangeResponse save(String type, PatternRequest request) {
+        validate(type, request);
+        PatternChangeResponse response = evaluate(type, request);
+        if (!response.isAccepted()) {
+            rejectedCounter.increment();
+            log.warn("Rejected pattern {}: {}", type, response.getReason());
+            response.setPatternSetVersion(scanner.getPatternSetVersion());
+            return response;
+        }
+
+        String version;
+        synchronized (this) {
+            managedPatternRepository.save(ManagedPattern.builder()
+                    .type(type)
+                    .regex(request.getRegex())
+                    .severity(request.getSeverity())
+                    .description(request.getDescription())
+                    .enabled(true)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+            version = applyStored();
+        }
+        acceptedCounter.increment();
+        log.info("Activated pattern {} ({} MB/s over the corpus), pattern set {}", type,
+                String.format("%.1f", response.getProfile().getThroughputMbPerSecond()), version);
+        eventPublisher.publishEvent(new PatternSetChangedEvent(version));
+        response.setPatternSetVersion(version);
+        return response;
+    }
+
+    /**
+     * Disable a pattern; empty when no pattern of the type is active
+     */
+    public Optional<PatternChangeResponse> disable(String type) {
+        String version;
+        synchronized (this) {
+            PatternDefinition active = scanner.getPatternDefinitions().get(type);
+            if (active == null) {
+                return Optional.empty();
+            }
+            managedPatternRepository.save(ManagedPattern.builder()
+                    .type(type)
+                    .regex(active.getRegex())
+                    .severity(active.getSeverity())
+                    .description(active.getDescription())
+                    .enabled(false)
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+            version = applyStored();
+        }
+        acceptedCounter.increment();
+        log.info("Disabled pattern {}, pattern set {}", type, version);
+        eventPublisher.publishEvent(new PatternSetChangedEvent(version));
+        return Optional.of(PatternChangeResponse.builder()
+                .type(type)
+                .accepted(true)
+                .patternSetVersion(version)
+                .build());
+    }
+
+    /**
+     * Rebuild the scanner's pattern set from the stored rows
+     */
+    private String applyStored() {
+        List<PatternDefinition> updated = managedPatternRepository.findAll(Sort.by("type")).stream()
+                .map(pattern -> PatternDefinition.builder()
+                        .type(pattern.getType())
+                        .regex(pattern.getRegex())
+                        .severity(pattern.getSeverity())
+                        .description(pattern.getDescription())
+                        .enabled(pattern.getEnabled())
+                        .build())
+                .toList();
+        String version = scanner.updatePatterns(updated);
+        definitions = updated;
+        return version;
+    }
+
+    private static void validate(String type, PatternRequest request) {
+        if (type == null || !TYPE.matcher(type).matches() || ENTROPY_TYPE.equals(type)) {
+            throw new IllegalArgumentException("Pattern type must be upper case letters, digits and underscores: "
+                    + type);
+        }
+        if (request.getRegex() == null || request.getRegex().isEmpty()) {
+            throw new IllegalArgumentException("Pattern regex is required");
+        }
+        if (request.getSeverity() == null || request.getSeverity() < 1 || request.getSeverity() > 10) {
+            throw new IllegalArgumentException("Pattern severity must be between 1 and 10");
+        }
+        // Throws PatternSyntaxException, an IllegalArgumentException, for an invalid regex
+        if (Pattern.compile(request.getRegex()).matcher("").matches()) {
+            throw new IllegalArgumentException("Pattern must not match empty text");
+        }
+    }
+
+    /**
+     * Profile the candidate over the corpus and check it against the cost limits
+     */
+    private PatternChangeResponse evaluate(String type, PatternRequest request) {
+        PatternChangeResponse response = PatternChangeResponse.builder().type(type).build();
+        Map<String, String> corpus = loadCorpus();
+        if (corpus.isEmpty()) {
+            response.setReason("No sample corpus under " + corpusPath + " to profile the pattern against");
+            return response;
+        }
+
+        PatternProfile profile = new PatternProfiler(maxDocumentMillis).profile(request.getRegex(), corpus);
+        response.setProfile(profile);
+        if (profile.isTimedOut() || profile.getWorstDocumentMillis() > maxDocumentMillis) {
+            response.setReason("Took over " + maxDocumentMillis + " ms on " + profile.getWorstDocument());
+        } else if (profile.getThroughputMbPerSecond() < minThroughput) {
+            response.setReason(String.format("Throughput %.1f MB/s is below the %.1f MB/s minimum",
+                    profile.getThroughputMbPerSecond(), minThroughput));
+        } else {
+            response.setAccepted(true);
+        }
+        return response;
+    }
+
+    /**
+     * Read the corpus files as UTF-8 text, up to the byte limit
+     */
+    private Map<String, String> loadCorpus() {
+        Path root = Paths.get(corpusPath);
+        Map<String, String> corpus = new LinkedHashMap<>();
+        if (!Files.isDirectory(root)) {
+            return corpus;
+        }
+        long remaining = corpusMaxBytes;
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                if (remaining <= 0) {
+                    break;
+                }
+                try (InputStream in = Files.newInputStream(file)) {
+                    byte[] bytes = in.readNBytes((int) Math.min(remaining, Integer.MAX_VALUE - 8));
+                    remaining -= bytes.length;
+                    corpus.put(root.relativize(file).toString(), new String(bytes, StandardCharsets.UTF_8));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read pattern corpus " + root, e);
+        }
+        return corpus;
+    }
+}
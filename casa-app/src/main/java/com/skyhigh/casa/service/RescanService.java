@@ -0,0 +1,441 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.exception.CapacityExceededException;
+import com.skyhigh.casa.exception.UnknownTenantException;
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.AuditLogsChangedEvent;
+import com.skyhigh.casa.model.PatternSetChangedEvent;
+import com.skyhigh.casa.model.PatternSetVersion;
+import com.skyhigh.casa.model.RescanCheckpoint;
+import com.skyhigh.casa.model.ScanResult;
+import com.skyhigh.casa.model.TenantPatternSetCompiledEvent;
+import com.skyhigh.casa.ratelimit.TokenBucket;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import com.skyhigh.casa.repository.PatternSetVersionRepository;
+import com.skyhigh.casa.repository.RescanCheckpointRepository;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import com.skyhigh.casa.tenant.TenantLease;
+import com.skyhigh.casa.tenant.TenantRegistry;
+import com.skyhigh.casa.util.MatchDetailCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background rescan of stored uploads after detection patterns change
+ * Each upload records the pattern set version it was scanned with. When the running
+ * version differs, stored objects are streamed back in id order and scanned with only
+ * the detection types whose fingerprint changed. Reads are throttled to a byte budget,
+ * scanning is throttled to a CPU duty cycle, and the job yields to live uploads. Each object
+ * is read whole for the scanner, under a reservation from the same memory budget as uploads.
+ * Tenant uploads are rescanned with their tenant's scanner and diffed against the tenant's
+ * fingerprints; every compiled tenant pattern set is registered for that. The job restarts
+ * when the default pattern set changes, which managed pattern changes do for every tenant;
+ * a change to a tenant's own scanner overrides alone does not start one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RescanService {
+
+    static final String JOB_NAME = "pattern-rescan";
+    private static final int READ_CHUNK = 64 * 1024;
+
+    private final SensitiveDataScanner scanner;
+    private final CloudStorageService cloudStorageService;
+    private final ScanScheduler scanScheduler;
+    private final AuditLogRepository auditLogRepository;
+    private final PatternSetVersionRepository versionRepository;
+    private final RescanCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MemoryBudget memoryBudget;
+    private final TenantRegistry tenantRegistry;
+
+    @Value("${rescan.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rescan.batch-size:50}")
+    private int batchSize;
+
+    @Value("${rescan.max-batch-millis:10000}")
+    private long maxBatchMillis;
+
+    @Value("${rescan.max-bytes-per-second:4194304}")
+    private long maxBytesPerSecond;
+
+    @Value("${rescan.cpu-fraction:0.25}")
+    private double cpuFraction;
+
+    @Value("${rescan.pause-on-live-scans:true}")
+    private boolean pauseOnLiveScans;
+
+    private final TokenBucket readBudget = new TokenBucket();
+    private final Map<String, Map<String, String>> knownFingerprints = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+    private Counter findingsCounter;
+    private Counter filesCounter;
+    private Counter bytesCounter;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        findingsCounter = Counter.builder("casa.rescan.findings")
+                .description("Stored uploads with new findings after a pattern change")
+                .register(meterRegistry);
+        filesCounter = Counter.builder("casa.rescan.files")
+                .description("Stored uploads rescanned")
+                .register(meterRegistry);
+        bytesCounter = Counter.builder("casa.rescan.bytes")
+                .description("Bytes read back from storage for rescans")
+                .register(meterRegistry);
+        registerVersion(scanner.getPatternSetVersion(), scanner.getPatternFingerprints());
+    }
+
+    /**
+     * Record the fingerprints of a pattern set swapped in at runtime
+     */
+    @EventListener
+    public void onPatternSetChanged(PatternSetChangedEvent event) {
+        registerVersion(scanner.getPatternSetVersion(), scanner.getPatternFingerprints());
+    }
+
+    /**
+     * Record the fingerprints of a tenant's pattern set, so its uploads can later be diffed
+     */
+    @EventListener
+    public void onTenantPatternSetCompiled(TenantPatternSetCompiledEvent event) {
+        registerVersion(event.version(), event.fingerprints());
+    }
+
+    /**
+     * Store a pattern set's fingerprints so uploads scanned with it can later be diffed
+     */
+    private synchronized void registerVersion(String current, Map<String, String> fingerprints) {
+        if (knownFingerprints.containsKey(current)) {
+            return;
+        }
+        if (!versionRepository.existsById(current)) {
+            versionRepository.save(new PatternSetVersion(current, encode(fingerprints), LocalDateTime.now()));
+        }
+        knownFingerprints.put(current, fingerprints);
+    }
+
+    /**
+     * Get rescan progress towards the running pattern set version
+     */
+    public RescanCheckpoint getStatus() {
+        return loadCheckpoint();
+    }
+
+    /**
+     * Rescan one batch of stored uploads
+     * The checkpoint is saved after every upload so a restart resumes where it stopped.
+     */
+    @Scheduled(fixedDelayString = "${rescan.interval:30000}", initialDelayString = "${rescan.initial-delay:60000}")
+    public void rescanBatch() {
+        if (!enabled) {
+            return;
+        }
+        RescanCheckpoint checkpoint = loadCheckpoint();
+        if (checkpoint.getCompletedAt() != null) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchMillis);
+        List<AuditLog> candidates = transactionTemplate.execute(status -> {
+            List<AuditLog> page = auditLogRepository.findRescanCandidates(checkpoint.getLastAuditLogId(),
+                    checkpoint.getTargetVersion(), PageRequest.of(0, batchSize));
+            page.forEach(auditLog -> Hibernate.initialize(auditLog.getSensitiveTypes()));
+            return page;
+        });
+        if (candidates.isEmpty()) {
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            log.info("Rescan to pattern set {} complete: {} files, {} findings, {} failures",
+                    checkpoint.getTargetVersion(), checkpoint.getFilesScanned(), checkpoint.getFindings(),
+                    checkpoint.getFailures());
+            return;
+        }
+
+        for (AuditLog auditLog : candidates) {
+            if (System.nanoTime() > deadline || (pauseOnLiveScans && scanScheduler.getInFlight() > 0)) {
+                break;
+            }
+            try {
+                rescan(auditLog, checkpoint);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (CapacityExceededException e) {
+                // Live uploads hold the memory budget; try this upload again in the next batch
+                log.debug("Rescan paused at {}: {}", auditLog.getFileId(), e.getMessage());
+                break;
+            } catch (Exception e) {
+                checkpoint.setFailures(checkpoint.getFailures() + 1);
+                log.warn("Rescan failed for {} ({}): {}", auditLog.getFileId(), auditLog.getStorageLocation(),
+                        e.getMessage());
+            }
+            checkpoint.setLastAuditLogId(auditLog.getId());
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+        }
+    }
+
+    private void rescan(AuditLog auditLog, RescanCheckpoint checkpoint) throws Exception {
+        if (auditLog.getTenantId() == null) {
+            rescan(auditLog, checkpoint, scanner);
+            return;
+        }
+        TenantLease tenant;
+        try {
+            tenant = tenantRegistry.acquire(auditLog.getTenantId(), null);
+        } catch (UnknownTenantException e) {
+            // The tenant was removed from the configuration; its uploads fall back to the global settings
+            rescan(auditLog, checkpoint, scanner);
+            return;
+        }
+        try (tenant) {
+            rescan(auditLog, checkpoint, tenant.getEngines().getScanner());
+        }
+    }
+
+    private void rescan(AuditLog auditLog, RescanCheckpoint checkpoint, SensitiveDataScanner scanner)
+            throws Exception {
+        String target = scanner.getPatternSetVersion();
+        if (target.equals(auditLog.getPatternSetVersion())) {
+            // A tenant upload already scanned with its tenant's current pattern set
+            return;
+        }
+        Set<String> types = changedTypes(scanner, auditLog.getPatternSetVersion());
+        if (types.isEmpty()) {
+            markScanned(auditLog.getId(), target, null, types);
+            return;
+        }
+
+        // Held like a live upload's, so rescans and uploads together stay within the heap ceiling
+        ScanResult result;
+        long elapsed;
+        try (MemoryBudget.Reservation ignored = memoryBudget.reserve(auditLog.getFileSize(),
+                auditLog.getFileName())) {
+            byte[] content = read(auditLog.getStorageLocation(), auditLog.getFileSize());
+            long start = System.nanoTime();
+            result = scanner.scan(auditLog.getFileName(), null, content, types);
+            elapsed = System.nanoTime() - start;
+        }
+
+        checkpoint.setFilesScanned(checkpoint.getFilesScanned() + 1);
+        checkpoint.setBytesScanned(checkpoint.getBytesScanned() + auditLog.getFileSize());
+        filesCounter.increment();
+
+        List<String> previous = auditLog.getSensitiveTypes() != null ? auditLog.getSensitiveTypes() : List.of();
+        List<String> added = new ArrayList<>();
+        for (String type : result.getSensitiveTypes()) {
+            if (!previous.contains(type)) {
+                added.add(type);
+            }
+        }
+        if (!added.isEmpty()) {
+            checkpoint.setFindings(checkpoint.getFindings() + 1);
+            findingsCounter.increment();
+            log.warn("Rescan found {} in stored upload {} ({})", added, auditLog.getFileId(),
+                    auditLog.getStorageLocation());
+        }
+        markScanned(auditLog.getId(), target, added.isEmpty() ? null : result, types);
+
+        // Stay within the CPU budget: a scan taking t is followed by t * (1 - f) / f of idle time
+        if (cpuFraction > 0 && cpuFraction < 1) {
+            TimeUnit.NANOSECONDS.sleep((long) (elapsed * (1 - cpuFraction) / cpuFraction));
+        }
+    }
+
+    /**
+     * Record the version on the upload and merge any new findings into it
+     */
+    private void markScanned(Long id, String version, ScanResult findings, Set<String> scannedTypes) {
+        transactionTemplate.executeWithoutResult(status -> auditLogRepository.findById(id).ifPresent(auditLog -> {
+            auditLog.setPatternSetVersion(version);
+            if (findings != null) {
+                Set<String> types = new LinkedHashSet<>();
+                if (auditLog.getSensitiveTypes() != null) {
+                    types.addAll(auditLog.getSensitiveTypes());
+                }
+                types.addAll(findings.getSensitiveTypes());
+                auditLog.setSensitiveTypes(new ArrayList<>(types));
+                auditLog.setSensitiveDataFound(true);
+                auditLog.setRiskScore(Math.max(auditLog.getRiskScore(), findings.getRiskScore()));
+                auditLog.setMatchDetails(mergeMatchDetails(auditLog.getMatchDetails(), scannedTypes,
+                        findings.getMatches()));
+            }
+            auditLogRepository.save(auditLog);
+        }));
+        eventPublisher.publishEvent(new AuditLogsChangedEvent(1));
+    }
+
+    /**
+     * Replace the stored matches of the rescanned types with the new ones
+     * Totals are kept per type, so the total stays exact when the stored matches were truncated.
+     */
+    static byte[] mergeMatchDetails(byte[] stored, Set<String> scannedTypes,
+            List<ScanResult.SensitiveDataMatch> found) {
+        List<ScanResult.SensitiveDataMatch> merged = new ArrayList<>();
+        Map<String, Integer> typeTotals = new TreeMap<>();
+        if (stored != null) {
+            try {
+                MatchDetailCodec.MatchDetails previous = MatchDetailCodec.decode(stored);
+                for (ScanResult.SensitiveDataMatch match : previous.matches()) {
+                    if (!scannedTypes.contains(match.getType())) {
+                        merged.add(match);
+                        if (previous.typeTotals() == null) {
+                            typeTotals.merge(match.getType(), 1, Integer::sum);
+                        }
+                    }
+                }
+                if (previous.typeTotals() != null) {
+                    previous.typeTotals().forEach((type, count) -> {
+                        if (!scannedTypes.contains(type)) {
+                            typeTotals.put(type, count);
+                        }
+                    });
+                } else {
+                    // Older details without per-type totals: matches beyond the stored ones are dropped
+                    log.debug("Counting only the stored matches of older match details");
+                }
+            } catch (IOException e) {
+                log.warn("Dropping unreadable match details: {}", e.getMessage());
+            }
+        }
+        for (ScanResult.SensitiveDataMatch match : found) {
+            merged.add(match);
+            typeTotals.merge(match.getType(), 1, Integer::sum);
+        }
+        return MatchDetailCodec.encode(merged, typeTotals);
+    }
+
+    /**
+     * Detection types that are new or whose fingerprint differs from the given version
+     */
+    private Set<String> changedTypes(SensitiveDataScanner scanner, String version) {
+        Map<String, String> current = scanner.getPatternFingerprints();
+        Map<String, String> previous = version != null ? fingerprintsOf(version) : null;
+        if (previous == null) {
+            return new TreeSet<>(current.keySet());
+        }
+        Set<String> changed = new TreeSet<>();
+        current.forEach((type, fingerprint) -> {
+            if (!fingerprint.equals(previous.get(type))) {
+                changed.add(type);
+            }
+        });
+        return changed;
+    }
+
+    private Map<String, String> fingerprintsOf(String version) {
+        Map<String, String> fingerprints = knownFingerprints.get(version);
+        if (fingerprints == null) {
+            fingerprints = versionRepository.findById(version).map(v -> decode(v.getFingerprints())).orElse(null);
+            if (fingerprints != null) {
+                knownFingerprints.put(version, fingerprints);
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Read a stored object of the recorded size under the read budget
+     * Read straight into an array of that size, so the heap used is the size the memory budget
+     * was reserved for; an object that turns out larger is refused rather than buffered.
+     */
+    private byte[] read(String storageLocation, long size) throws Exception {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IOException("Stored object too large to rescan: " + size + " bytes");
+        }
+        byte[] content = new byte[(int) size];
+        int position = 0;
+        try (InputStream in = cloudStorageService.openStoredFile(storageLocation)) {
+            int read;
+            while ((read = in.read(content, position, Math.min(READ_CHUNK, content.length - position))) > 0) {
+                throttle(read);
+                position += read;
+            }
+            if (position == content.length && in.read() != -1) {
+                throw new IOException("Stored object is larger than its recorded " + size + " bytes");
+            }
+        }
+        bytesCounter.increment(position);
+        return position == content.length ? content : Arrays.copyOf(content, position);
+    }
+
+    private void throttle(int bytes) throws InterruptedException {
+        if (maxBytesPerSecond <= 0) {
+            return;
+        }
+        long wait;
+        while ((wait = readBudget.tryAcquire(bytes, maxBytesPerSecond, maxBytesPerSecond, System.nanoTime())) > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Load the checkpoint, restarting it when the running pattern set has changed
+     */
+    private RescanCheckpoint loadCheckpoint() {
+        String current = scanner.getPatternSetVersion();
+        RescanCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME).orElse(null);
+        if (checkpoint == null || !current.equals(checkpoint.getTargetVersion())) {
+            if (checkpoint != null) {
+                log.info("Pattern set changed from {} to {}, restarting rescan", checkpoint.getTargetVersion(),
+                        current);
+            }
+            registerVersion(current, scanner.getPatternFingerprints());
+            checkpoint = checkpointRepository.save(new RescanCheckpoint(JOB_NAME, current, 0L, 0L, 0L, 0L, 0L,
+                    LocalDateTime.now(), null, null));
+        }
+        return checkpoint;
+    }
+
+    private static String encode(Map<String, String> fingerprints) {
+        StringBuilder encoded = new StringBuilder();
+        fingerprints.forEach((type, fingerprint) -> encoded.append(type).append('=').append(fingerprint).append('\n'));
+        return encoded.toString();
+    }
+
+    private static Map<String, String> decode(String encoded) {
+        Map<String, String> fingerprints = new HashMap<>();
+        for (String line : encoded.split("\n")) {
+            int separator = line.indexOf('=');
+            if (separator > 0) {
+                fingerprints.put(line.substring(0, separator), line.substring(separator + 1));
+            }
+        }
+        return Collections.unmodifiableMap(fingerprints);
+    }
+}
@@ -0,0 +1,202 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.concurrency.AdaptiveConcurrencyLimiter;
+import com.skyhigh.casa.exception.CapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Schedules scanning work through adaptive concurrency limits
+ * Work is split into lanes by expected cost (size weighted by file type) so a burst of
+ * large documents cannot hold up small files; each lane adapts its own limit to scan latency
+ * per cost unit. Only failures that signal overload make a lane back off.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScanScheduler {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${scanner.lanes.small-cost-threshold:262144}")
+    private long smallCostThreshold;
+
+    @Value("${scanner.lanes.small.initial-limit:16}")
+    private int smallInitialLimit;
+
+    @Value("${scanner.lanes.small.max-limit:64}")
+    private int smallMaxLimit;
+
+    @Value("${scanner.lanes.large.initial-limit:2}")
+    private int largeInitialLimit;
+
+    @Value("${scanner.lanes.large.max-limit:0}")
+    private int largeMaxLimit;
+
+    @Value("${scanner.lanes.max-wait-ms:5000}")
+    private long maxWaitMs;
+
+    @Value("${scanner.lanes.cost-unit:65536}")
+    private long costUnit;
+
+    private final Map<Lane, AdaptiveConcurrencyLimiter> limiters = new EnumMap<>(Lane.class);
+    private final Map<Lane, Timer> waitTimers = new EnumMap<>(Lane.class);
+    private final Map<Lane, Counter> rejections = new EnumMap<>(Lane.class);
+
+    @PostConstruct
+    void init() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        register(Lane.SMALL, smallInitialLimit, 1, smallMaxLimit);
+        register(Lane.LARGE, largeInitialLimit, 1, largeMaxLimit > 0 ? largeMaxLimit : cores);
+    }
+
+    /**
+     * Run a scan in the lane matching its expected cost
+     */
+    public <T> T execute(long fileSize, String fileName, ScanTask<T> task) throws IOException {
+        Lane lane = laneFor(fileSize, fileName);
+        AdaptiveConcurrencyLimiter limiter = limiters.get(lane);
+
+        long waitStart = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = limiter.acquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for scan capacity", e);
+        }
+        waitTimers.get(lane).record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            rejections.get(lane).increment();
+            log.warn("Scan capacity exhausted in {} lane for file: {}", lane, fileName);
+            throw new CapacityExceededException("Scanner is at capacity, please retry",
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMs)));
+        }
+
+        long start = System.nanoTime();
+        AdaptiveConcurrencyLimiter.Outcome outcome = AdaptiveConcurrencyLimiter.Outcome.IGNORED;
+        try {
+            T result = task.run();
+            outcome = AdaptiveConcurrencyLimiter.Outcome.SUCCESS;
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            if (isOverload(e)) {
+                outcome = AdaptiveConcurrencyLimiter.Outcome.DROPPED;
+            }
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, costUnits(fileSize, fileName), outcome);
+        }
+    }
+
+    /**
+     * Get the number of scans currently running across all lanes
+     */
+    public int getInFlight() {
+        return limiters.values().stream().mapToInt(AdaptiveConcurrencyLimiter::getInFlight).sum();
+    }
+
+    /**
+     * Pick a lane from declared size and the relative extraction cost of the file type
+     */
+    Lane laneFor(long fileSize, String fileName) {
+        return fileSize * costFactor(fileName) <= smallCostThreshold ? Lane.SMALL : Lane.LARGE;
+    }
+
+    /**
+     * Expected cost in cost units, at least one so small files sample their fixed overhead
+     */
+    double costUnits(long fileSize, String fileName) {
+        return Math.max(1.0, (double) Math.max(0, fileSize) * costFactor(fileName) / costUnit);
+    }
+
+    /**
+     * Failures that signal overload: timeouts and capacity refusals, here or further down
+     * Parse errors and other failures of one file say nothing about load.
+     */
+    static boolean isOverload(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof CapacityExceededException
+                    || cause instanceof RejectedExecutionException
+                    || cause instanceof TimeoutException
+                    || cause instanceof InterruptedIOException
+                    || cause instanceof OutOfMemoryError) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int costFactor(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            return 1;
+        }
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase();
+        return switch (extension) {
+            case "pdf" -> 4;
+            case "doc", "docx", "xls", "xlsx" -> 3;
+            default -> 1;
+        };
+    }
+
+    private void register(Lane lane, int initialLimit, int minLimit, int maxLimit) {
+        String name = lane.name().toLowerCase();
+        Counter limitChanges = Counter.builder("casa.scan.lane.limit.changes")
+                .description("Adaptive limit adjustments")
+                .tag("lane", name)
+                .register(meterRegistry);
+
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                newLimit -> {
+                    limitChanges.increment();
+                    log.debug("Scan lane {} limit changed to {}", name, newLimit);
+                });
+        limiters.put(lane, limiter);
+
+        Gauge.builder("casa.scan.lane.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("lane", name).register(meterRegistry);
+        Gauge.builder("casa.scan.lane.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("lane", name).register(meterRegistry);
+        Gauge.builder("casa.scan.lane.queue.depth", limiter, AdaptiveConcurrencyLimiter::getWaiting)
+                .tag("lane", name).register(meterRegistry);
+        waitTimers.put(lane, Timer.builder("casa.scan.lane.wait")
+                .description("Time spent waiting for a scan permit")
+                .tag("lane", name)
+                .register(meterRegistry));
+        rejections.put(lane, Counter.builder("casa.scan.lane.rejected")
+                .description("Scans rejected after waiting for a permit")
+                .tag("lane", name)
+                .register(meterRegistry));
+
+        log.info("Scan lane {} initialized (limit {}, max {})", name, initialLimit, maxLimit);
+    }
+
+    /**
+     * Scanning work run under a lane permit
+     */
+    @FunctionalInterface
+    public interface ScanTask<T> {
+        T run() throws IOException;
+    }
+
+    enum Lane {
+        SMALL,
+        LARGE
+    }
+}
@@ -0,0 +1,204 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.exception.IdempotencyException;
+import com.skyhigh.casa.model.FileUploadResponse;
+import com.skyhigh.casa.model.ScanResult;
+import com.skyhigh.casa.scanner.IncrementalScan;
+import com.skyhigh.casa.tenant.TenantEngines;
+import com.skyhigh.casa.util.StagedMultipartFile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tomcat.util.http.fileupload.FileItemIterator;
+import org.apache.tomcat.util.http.fileupload.FileItemStream;
+import org.apache.tomcat.util.http.fileupload.FileUpload;
+import org.apache.tomcat.util.http.fileupload.FileUploadException;
+import org.apache.tomcat.util.http.fileupload.impl.SizeException;
+import org.apache.tomcat.util.http.fileupload.servlet.ServletRequestContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Multipart uploads processed while the request body is read
+ * The file part is pulled straight off the request stream: each buffer is fed to an
+ * incremental scan and staged in memory, spilling to disk only past the per-request
+ * cap. Nothing is spooled by the container, so a typical upload touches disk once,
+ * when it is stored.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingUploadService {
+
+    private static final int READ_BUFFER = 64 * 1024;
+    private static final int MAX_FIELD_LENGTH = 1024;
+
+    private final ScanScheduler scanScheduler;
+    private final FileProcessingService fileProcessingService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${uploads.max-length:10485760}")
+    private long maxLength;
+
+    @Value("${uploads.stream.memory-cap:2097152}")
+    private int memoryCap;
+
+    @Value("${uploads.stream.spill-path:${java.io.tmpdir}/casa-spill}")
+    private String spillPath;
+
+    private Path spillDir;
+    private Counter spilledCounter;
+
+    @PostConstruct
+    void init() {
+        spillDir = Paths.get(spillPath).toAbsolutePath();
+        spilledCounter = Counter.builder("casa.uploads.stream.spilled")
+                .description("Streamed uploads that exceeded the memory cap and spilled to disk")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Read, scan and process a multipart upload in one pass over the request body
+     * The file part is named "file"; a "userId" form field is honoured when no user was given otherwise.
+     * The tenant is resolved before the body is read, so it comes from the header or the query user.
+     *
+     * @param expectedHash SHA-256 the client declared for the file, hex encoded, or null
+     * @throws IdempotencyException when the file does not match the declared hash
+     */
+    public FileUploadResponse processStream(HttpServletRequest request, String userId, String ipAddress,
+            TenantEngines tenant, String expectedHash) throws IOException {
+        FileUpload upload = new FileUpload();
+        upload.setSizeMax(maxLength + MAX_FIELD_LENGTH * 4L);
+        upload.setFileSizeMax(maxLength);
+
+        StagedMultipartFile staged = null;
+        IncrementalScan scan = null;
+        MessageDigest digest = expectedHash != null ? sha256() : null;
+        String formUserId = null;
+        try {
+            FileItemIterator items = upload.getItemIterator(new ServletRequestContext(request));
+            while (items.hasNext()) {
+                FileItemStream item = items.next();
+                if (item.isFormField()) {
+                    if ("userId".equals(item.getFieldName())) {
+                        formUserId = readField(item);
+                    }
+                } else if ("file".equals(item.getFieldName()) && staged == null) {
+                    staged = new StagedMultipartFile(item.getName(), item.getContentType(), memoryCap, spillDir);
+                    scan = tenant.getScanner().startIncremental(item.getName(), item.getContentType());
+                    stage(item, staged, scan, digest);
+                }
+            }
+        } catch (FileUploadException e) {
+            discard(staged);
+            if (e instanceof SizeException) {
+                throw new MaxUploadSizeExceededException(maxLength, e);
+            }
+            throw new MultipartException("Malformed multipart request: " + e.getMessage(), e);
+        } catch (IOException e) {
+            discard(staged);
+            if (e.getCause() instanceof SizeException) {
+                throw new MaxUploadSizeExceededException(maxLength, e);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            discard(staged);
+            throw e;
+        }
+
+        if (staged == null || staged.isEmpty()) {
+            discard(staged);
+            throw new MultipartException("File is empty");
+        }
+        if (digest != null && !HexFormat.of().formatHex(digest.digest()).equals(expectedHash)) {
+            discard(staged);
+            throw new IdempotencyException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "File content does not match the declared SHA-256");
+        }
+        if (staged.isSpilled()) {
+            spilledCounter.increment();
+        }
+
+        String effectiveUserId = userId != null && !userId.isEmpty() ? userId : formUserId;
+        StagedMultipartFile file = staged;
+        IncrementalScan fileScan = scan;
+        try {
+            log.info("Received streamed upload: {} ({} bytes, {})", file.getOriginalFilename(), file.getSize(),
+                    file.isSpilled() ? "spilled" : "in memory");
+            return fileProcessingService.processFile(file, effectiveUserId, ipAddress, tenant,
+                    () -> finishScan(file, fileScan, tenant));
+        } finally {
+            file.discard();
+        }
+    }
+
+    private void stage(FileItemStream item, StagedMultipartFile staged, IncrementalScan scan, MessageDigest digest)
+            throws IOException {
+        byte[] buffer = new byte[READ_BUFFER];
+        try (InputStream in = item.openStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                staged.write(buffer, 0, read);
+                scan.update(buffer, 0, read);
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        }
+        staged.finish();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private ScanResult finishScan(StagedMultipartFile file, IncrementalScan scan, TenantEngines tenant)
+            throws IOException {
+        if (!scan.isDeferred()) {
+            return scan.finish();
+        }
+        return scanScheduler.execute(file.getSize(), file.getOriginalFilename(),
+                () -> tenant.getScanner().scan(file.getOriginalFilename(), file.getContentType(), file.getBytes()));
+    }
+
+    private static String readField(FileItemStream item) throws IOException {
+        try (InputStream in = item.openStream()) {
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (value.size() + read > MAX_FIELD_LENGTH) {
+                    throw new MultipartException("Form field too long: " + item.getFieldName());
+                }
+                value.write(buffer, 0, read);
+            }
+            return value.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void discard(StagedMultipartFile staged) {
+        if (staged != null) {
+            staged.discard();
+        }
+    }
+}
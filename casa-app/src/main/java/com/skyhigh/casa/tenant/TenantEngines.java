@@ -0,0 +1,80 @@
+package com.skyhigh.casa.tenant;
+
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+
+/**
+ * Scanner and policy engine of one tenant, compiled once and shared by all its requests
+ * Requests hold a lease while they use the engines; an evicted tenant is closed once the
+ * last lease is returned.
+ */
+public class TenantEngines {
+
+    private final String tenantId;
+    private final SensitiveDataScanner scanner;
+    private final PolicyEngine policyEngine;
+    private final boolean shared;
+    private int leases;
+    private boolean retired;
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    TenantEngines(String tenantId, SensitiveDataScanner scanner, PolicyEngine policyEngine, boolean shared) {
+        this.tenantId = tenantId;
+        this.scanner = scanner;
+        this.policyEngine = policyEngine;
+        this.shared = shared;
+    }
+
+    /**
+     * Tenant id, null for the default engines
+     */
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public SensitiveDataScanner getScanner() {
+        return scanner;
+    }
+
+    public PolicyEngine getPolicyEngine() {
+        return policyEngine;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    /**
+     * Take a lease, or return false when the engines were evicted in the meantime
+     */
+    synchronized boolean lease() {
+        if (retired) {
+            return false;
+        }
+        leases++;
+        lastUsed = System.currentTimeMillis();
+        return true;
+    }
+
+    synchronized void release() {
+        leases--;
+        lastUsed = System.currentTimeMillis();
+        if (retired && leases == 0) {
+            close();
+        }
+    }
+
+    synchronized void retire() {
+        retired = true;
+        if (leases == 0) {
+            close();
+        }
+    }
+
+    private void close() {
+        // The default engines are Spring beans and closed by the context
+        if (!shared) {
+            scanner.close();
+        }
+    }
+}
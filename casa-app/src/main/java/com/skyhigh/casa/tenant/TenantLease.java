@@ -0,0 +1,26 @@
+package com.skyhigh.casa.tenant;
+
+/**
+ * Use of a tenant's engines for the duration of a request or upload session
+ */
+public class TenantLease implements AutoCloseable {
+
+    private final TenantEngines engines;
+    private boolean closed;
+
+    TenantLease(TenantEngines engines) {
+        this.engines = engines;
+    }
+
+    public TenantEngines getEngines() {
+        return engines;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            engines.release();
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.skyhigh.casa.tenant;
+
+import com.skyhigh.casa.config.ScannerConfiguration;
+import com.skyhigh.casa.exception.TenantMismatchException;
+import com.skyhigh.casa.exception.UnknownTenantException;
+import com.skyhigh.casa.model.PatternSetChangedEvent;
+import com.skyhigh.casa.model.TenantPatternSetCompiledEvent;
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.ScannerConfig;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import com.skyhigh.casa.service.PatternManagementService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Tenant-scoped scanners and policy engines
+ *
+ * A request belongs to the tenant its user is listed under (tenants.&lt;id&gt;.users); users
+ * that are not listed may pick a tenant with the X-Tenant-Id header, and otherwise get the
+ * default engines built from the global settings. A listed user's header must name their own
+ * tenant, so a client cannot switch itself onto another tenant's policy. A tenant's engines are compiled from its tenants.&lt;id&gt;.scanner.* and
+ * .policy.* overrides on first use and kept in a bounded cache; tenants idle longer than the
+ * timeout, or least recently used beyond the size limit, are evicted and compiled again when
+ * they return. A request costs one map lookup whatever the number of tenants. Patterns managed
+ * through the pattern API apply to every tenant; a change evicts all tenants so they are
+ * compiled again with it. All tenants share the default scanner's PDF extraction pool, so
+ * the scanner.pdf.* settings are global and not overridden per tenant.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TenantRegistry {
+
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final SensitiveDataScanner defaultScanner;
+    private final PolicyEngine defaultPolicyEngine;
+    private final PatternManagementService patternManagementService;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${tenants.ids:}")
+    private String tenantIds;
+
+    @Value("${tenants.cache.max-size:32}")
+    private int maxCached;
+
+    @Value("${tenants.cache.idle-timeout:1800000}")
+    private long idleTimeoutMs;
+
+    private final Map<String, CompletableFuture<TenantEngines>> cache = new ConcurrentHashMap<>();
+    private Set<String> tenants;
+    private Map<String, String> userTenants;
+    private TenantEngines defaults;
+    private Counter compiledCounter;
+    private Counter evictedCounter;
+
+    @PostConstruct
+    void init() {
+        tenants = Arrays.stream(tenantIds.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        Map<String, String> users = new HashMap<>();
+        for (String tenant : tenants) {
+            if (!TENANT_ID.matcher(tenant).matches()) {
+                throw new IllegalStateException("Invalid tenant id: " + tenant);
+            }
+            String members = environment.getProperty("tenants." + tenant + ".users", "");
+            for (String user : members.split(",")) {
+                if (!user.isBlank() && users.putIfAbsent(user.trim(), tenant) != null) {
+                    throw new IllegalStateException("User " + user.trim() + " is listed under two tenants");
+                }
+            }
+        }
+        userTenants = Map.copyOf(users);
+        defaults = new TenantEngines(null, defaultScanner, defaultPolicyEngine, true);
+
+        Gauge.builder("casa.tenants.cached", cache, Map::size)
+                .description("Tenants with compiled engines in memory")
+                .register(meterRegistry);
+        compiledCounter = Counter.builder("casa.tenants.compiled")
+                .description("Tenant pattern sets and policies compiled")
+                .register(meterRegistry);
+        evictedCounter = Counter.builder("casa.tenants.evicted")
+                .description("Tenant engines evicted from the cache")
+                .register(meterRegistry);
+        log.info("{} tenants configured, {} users mapped", tenants.size(), userTenants.size());
+    }
+
+    /**
+     * Lease the engines of the user's tenant, or of the tenant named by the header
+     * The lease must be closed when the request is done with the engines.
+     *
+     * @throws UnknownTenantException when the header names a tenant that is not configured
+     * @throws TenantMismatchException when the header names a tenant the user is not listed under
+     */
+    public TenantLease acquire(String tenantHeader, String userId) {
+        String tenantId = resolve(tenantHeader, userId);
+        if (tenantId == null) {
+            defaults.lease();
+            return new TenantLease(defaults);
+        }
+        while (true) {
+            TenantEngines engines = engines(tenantId);
+            // Fails only if the tenant was evicted since the lookup
+            if (engines.lease()) {
+                return new TenantLease(engines);
+            }
+        }
+    }
+
+    /**
+     * Tenant of a request, null for the default engines
+     */
+    public String resolve(String tenantHeader, String userId) {
+        String mapped = userId != null ? userTenants.get(userId) : null;
+        if (tenantHeader == null || tenantHeader.isBlank()) {
+            return mapped;
+        }
+        String tenantId = tenantHeader.trim();
+        if (!tenants.contains(tenantId)) {
+            throw new UnknownTenantException(tenantId);
+        }
+        if (mapped != null && !mapped.equals(tenantId)) {
+            throw new TenantMismatchException(tenantId, userId);
+        }
+        return tenantId;
+    }
+
+    /**
+     * Evict tenants that have not been used within the idle timeout
+     */
+    @Scheduled(fixedDelayString = "${tenants.cache.sweep-interval:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        cache.forEach((tenantId, future) -> {
+            TenantEngines engines = future.getNow(null);
+            if (engines != null && engines.getLastUsed() < cutoff) {
+                evict(tenantId, future, "idle");
+            }
+        });
+    }
+
+    /**
+     * Drop all compiled tenants once the managed patterns have changed
+     */
+    @EventListener
+    public void onPatternSetChanged(PatternSetChangedEvent event) {
+        cache.forEach((tenantId, future) -> evict(tenantId, future, "patterns changed"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        cache.forEach((tenantId, future) -> evict(tenantId, future, "shutdown"));
+    }
+
+    private TenantEngines engines(String tenantId) {
+        CompletableFuture<TenantEngines> future = cache.get(tenantId);
+        if (future == null) {
+            CompletableFuture<TenantEngines> created = new CompletableFuture<>();
+            future = cache.putIfAbsent(tenantId, created);
+            if (future == null) {
+                // This request compiles; concurrent requests for the tenant wait for it
+                future = created;
+                try {
+                    created.complete(compile(tenantId));
+                } catch (RuntimeException e) {
+                    cache.remove(tenantId, created);
+                    created.completeExceptionally(e);
+                    throw e;
+                }
+                evictOverflow();
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private TenantEngines compile(String tenantId) {
+        long start = System.nanoTime();
+        String prefix = "tenants." + tenantId + ".";
+        ScannerConfig scannerConfig = ScannerConfiguration.scannerConfig(environment, prefix);
+        scannerConfig.setPatterns(patternManagementService.getDefinitions());
+        TenantEngines engines = new TenantEngines(tenantId,
+                new SensitiveDataScanner(scannerConfig, defaultScanner.getPdfPageExtractor()),
+                new PolicyEngine(ScannerConfiguration.policyConfig(environment, prefix)),
+                false);
+        compiledCounter.increment();
+        log.info("Compiled engines for tenant {} in {} ms (pattern set {})", tenantId,
+                (System.nanoTime() - start) / 1_000_000, engines.getScanner().getPatternSetVersion());
+        eventPublisher.publishEvent(new TenantPatternSetCompiledEvent(tenantId,
+                engines.getScanner().getPatternSetVersion(), engines.getScanner().getPatternFingerprints()));
+        return engines;
+    }
+
+    /**
+     * Evict least recently used tenants while the cache is over its size limit
+     */
+    private void evictOverflow() {
+        while (cache.size() > maxCached) {
+            String oldest = null;
+            CompletableFuture<TenantEngines> oldestFuture = null;
+            long oldestUse = Long.MAX_VALUE;
+            for (Map.Entry<String, CompletableFuture<TenantEngines>> entry : cache.entrySet()) {
+                TenantEngines engines = entry.getValue().getNow(null);
+                if (engines != null && engines.getLastUsed() < oldestUse) {
+                    oldest = entry.getKey();
+                    oldestFuture = entry.getValue();
+                    oldestUse = engines.getLastUsed();
+                }
+            }
+            if (oldest == null) {
+                return;
+            }
+            evict(oldest, oldestFuture, "size limit");
+        }
+    }
+
+    private void evict(String tenantId, CompletableFuture<TenantEngines> future, String reason) {
+        if (!cache.remove(tenantId, future)) {
+            return;
+        }
+        TenantEngines engines = future.getNow(null);
+        if (engines != null) {
+            engines.retire();
+        }
+        evictedCounter.increment();
+        log.info("Evicted engines of tenant {} ({})", tenantId, reason);
+    }
+}
@@ -0,0 +1,89 @@
+package com.skyhigh.casa.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves the client address of a request behind reverse proxies
+ * X-Forwarded-For is only read when the connection comes from a trusted proxy, and then from
+ * the right: each proxy appends the address it received the request from, so the first hop that
+ * is not a trusted proxy is the client. Hops left of it were sent by the client and are ignored.
+ */
+@Component
+@Slf4j
+public class ClientIpResolver {
+
+    private static final Pattern IPV4 = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}");
+    private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    @Value("${client-ip.trusted-proxies:}")
+    private List<String> trustedProxies;
+
+    private List<IpAddressMatcher> matchers;
+
+    @PostConstruct
+    void init() {
+        matchers = trustedProxies.stream()
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+        if (!matchers.isEmpty()) {
+            log.info("Trusting X-Forwarded-For from {}", trustedProxies);
+        }
+    }
+
+    /**
+     * Get client IP address
+     */
+    public String getClientIpAddress(HttpServletRequest request) {
+        String remote = request.getRemoteAddr();
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor == null || xForwardedFor.isBlank() || !isTrustedProxy(remote)) {
+            return remote;
+        }
+        String[] hops = xForwardedFor.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!isIpAddress(hop)) {
+                // Not written by a proxy we trust, so nothing left of it can be believed either
+                return i == hops.length - 1 ? remote : hops[i + 1].trim();
+            }
+            if (!isTrustedProxy(hop)) {
+                return hop;
+            }
+        }
+        // Every hop is a trusted proxy: the leftmost one is as close to the client as we can tell
+        return hops[0].trim();
+    }
+
+    private boolean isTrustedProxy(String address) {
+        if (matchers.isEmpty() || !isIpAddress(address)) {
+            return false;
+        }
+        try {
+            for (IpAddressMatcher matcher : matchers) {
+                if (matcher.matches(address)) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // Shaped like an address but not one, e.g. with a port
+        }
+        return false;
+    }
+
+    /**
+     * Literal IPv4 or IPv6 address; anything else could make the matcher resolve a host name
+     */
+    private static boolean isIpAddress(String address) {
+        return address != null && (IPV4.matcher(address).matches() || IPV6.matcher(address).matches());
+    }
+}
@@ -0,0 +1,40 @@
+package com.skyhigh.casa.util;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Helpers for reading client details and conditional headers from HTTP requests
+ */
+public final class HttpRequestUtils {
+
+    private HttpRequestUtils() {
+    }
+
+    /**
+     * Get a query string parameter without request.getParameter, which would parse a multipart body
+     */
+    public static String getQueryParameter(HttpServletRequest request, String name) {
+        if (request.getQueryString() == null) {
+            return null;
+        }
+        return UriComponentsBuilder.newInstance().query(request.getQueryString()).build()
+                .getQueryParams().getFirst(name);
+    }
+
+    /**
+     * Whether an If-None-Match header matches the current ETag, weakly compared
+     */
+    public static boolean matchesEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
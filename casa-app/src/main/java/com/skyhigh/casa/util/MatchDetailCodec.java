@@ -0,0 +1,285 @@
+package com.skyhigh.casa.util;
+
+import com.skyhigh.casa.model.ScanResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compact columnar encoding of per-match scan details for the audit record
+ *
+ * Layout: version, total match count, stored match count, then one column per field.
+ * Matches are sorted by page and position. Types are a dictionary holding each type's total
+ * match count, with a varint id per match; severities are packed two per byte, pages and
+ * positions are delta-encoded varints (pages stored as page + 1 so that 0 means no page,
+ * positions restart at each page), and masked values are a dictionary with a varint index
+ * per match. Version 1 had one byte type ids, no per-type totals and stored pages as is.
+ */
+public final class MatchDetailCodec {
+
+    private static final int VERSION = 2;
+    private static final int VERSION_1 = 1;
+    public static final int MAX_STORED_MATCHES = 1024;
+
+    private static final Comparator<ScanResult.SensitiveDataMatch> LOCATION_ORDER = Comparator
+            .comparingInt(MatchDetailCodec::pageKey)
+            .thenComparingInt(ScanResult.SensitiveDataMatch::getPosition);
+
+    private MatchDetailCodec() {
+    }
+
+    /**
+     * Decoded match details
+     *
+     * @param totalMatches matches found by the scan, which may exceed the stored ones
+     * @param typeTotals matches found per type, or null for a truncated version 1 blob
+     */
+    public record MatchDetails(int totalMatches, Map<String, Integer> typeTotals,
+            List<ScanResult.SensitiveDataMatch> matches) {
+
+        public static final MatchDetails EMPTY = new MatchDetails(0, Map.of(), List.of());
+
+        public boolean isTruncated() {
+            return matches.size() < totalMatches;
+        }
+    }
+
+    /**
+     * Encode matches, keeping the first MAX_STORED_MATCHES in location order
+     *
+     * @return the encoded blob, or null when there are no matches
+     */
+    public static byte[] encode(List<ScanResult.SensitiveDataMatch> matches) {
+        Map<String, Integer> typeTotals = new TreeMap<>();
+        if (matches != null) {
+            matches.forEach(match -> typeTotals.merge(match.getType(), 1, Integer::sum));
+        }
+        return encode(matches, typeTotals);
+    }
+
+    /**
+     * Encode matches that are part of a larger set with the given count per type
+     * Every type of matches must be in typeTotals with at least as many as there are matches.
+     */
+    public static byte[] encode(List<ScanResult.SensitiveDataMatch> matches, Map<String, Integer> typeTotals) {
+        if (matches == null || matches.isEmpty()) {
+            return null;
+        }
+        List<ScanResult.SensitiveDataMatch> sorted = new ArrayList<>(matches);
+        sorted.sort(LOCATION_ORDER);
+        if (sorted.size() > MAX_STORED_MATCHES) {
+            sorted = sorted.subList(0, MAX_STORED_MATCHES);
+        }
+        int rows = sorted.size();
+
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(rows * 6 + 64);
+            out.write(VERSION);
+            writeVarInt(out, typeTotals.values().stream().mapToInt(Integer::intValue).sum());
+            writeVarInt(out, rows);
+
+            // Types with their totals, then type ids
+            Map<String, Integer> types = new HashMap<>();
+            writeVarInt(out, typeTotals.size());
+            for (Map.Entry<String, Integer> entry : typeTotals.entrySet()) {
+                types.put(entry.getKey(), types.size());
+                writeString(out, entry.getKey());
+                writeVarInt(out, entry.getValue());
+            }
+            for (ScanResult.SensitiveDataMatch match : sorted) {
+                Integer id = types.get(match.getType());
+                if (id == null) {
+                    throw new IllegalArgumentException("No total for match type " + match.getType());
+                }
+                writeVarInt(out, id);
+            }
+
+            // Severities, 4 bits each
+            byte[] severities = new byte[(rows + 1) / 2];
+            for (int i = 0; i < rows; i++) {
+                int severity = Math.max(0, Math.min(15, sorted.get(i).getSeverity()));
+                severities[i / 2] |= (byte) (i % 2 == 0 ? severity : severity << 4);
+            }
+            out.write(severities);
+
+            // Pages and positions
+            int previousPage = 0;
+            int previousPosition = 0;
+            for (ScanResult.SensitiveDataMatch match : sorted) {
+                int page = pageKey(match);
+                if (page != previousPage) {
+                    previousPosition = 0;
+                }
+                writeVarInt(out, page - previousPage);
+                writeVarInt(out, match.getPosition() - previousPosition);
+                previousPage = page;
+                previousPosition = match.getPosition();
+            }
+
+            // Masked exemplars
+            Map<String, Integer> exemplars = new HashMap<>();
+            List<String> exemplarDictionary = new ArrayList<>();
+            int[] exemplarIds = new int[rows];
+            for (int i = 0; i < rows; i++) {
+                String value = sorted.get(i).getMatchedValue() != null ? sorted.get(i).getMatchedValue() : "";
+                exemplarIds[i] = exemplars.computeIfAbsent(value, v -> {
+                    exemplarDictionary.add(v);
+                    return exemplarDictionary.size() - 1;
+                });
+            }
+            writeStrings(out, exemplarDictionary);
+            for (int id : exemplarIds) {
+                writeVarInt(out, id);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decode a blob written by encode
+     */
+    public static MatchDetails decode(byte[] data) throws IOException {
+        InputStream in = new ByteArrayInputStream(data);
+        int version = in.read();
+        if (version != VERSION && version != VERSION_1) {
+            throw new IOException("Unsupported match detail version: " + version);
+        }
+        int total = readVarInt(in);
+        int rows = readVarInt(in);
+
+        List<String> typeDictionary;
+        Map<String, Integer> typeTotals = new TreeMap<>();
+        int[] typeIds = new int[rows];
+        if (version == VERSION_1) {
+            typeDictionary = readStrings(in);
+            byte[] ids = readFully(in, rows);
+            for (int i = 0; i < rows; i++) {
+                typeIds[i] = ids[i] & 0xFF;
+                typeTotals.merge(typeDictionary.get(typeIds[i]), 1, Integer::sum);
+            }
+            if (rows < total) {
+                // Only the total of the matches beyond the stored ones was kept
+                typeTotals = null;
+            }
+        } else {
+            int types = readVarInt(in);
+            typeDictionary = new ArrayList<>(types);
+            for (int i = 0; i < types; i++) {
+                String type = readString(in);
+                typeDictionary.add(type);
+                typeTotals.put(type, readVarInt(in));
+            }
+            for (int i = 0; i < rows; i++) {
+                typeIds[i] = readVarInt(in);
+            }
+        }
+        byte[] severities = readFully(in, (rows + 1) / 2);
+
+        int[] pages = new int[rows];
+        int[] positions = new int[rows];
+        int page = 0;
+        int position = 0;
+        for (int i = 0; i < rows; i++) {
+            int pageDelta = readVarInt(in);
+            if (pageDelta != 0) {
+                position = 0;
+            }
+            page += pageDelta;
+            position += readVarInt(in);
+            pages[i] = version == VERSION_1 ? page : page - 1;
+            positions[i] = position;
+        }
+
+        List<String> exemplarDictionary = readStrings(in);
+        List<ScanResult.SensitiveDataMatch> matches = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            int exemplar = readVarInt(in);
+            int severity = (severities[i / 2] >> (i % 2 == 0 ? 0 : 4)) & 0x0F;
+            matches.add(ScanResult.SensitiveDataMatch.builder()
+                    .type(typeDictionary.get(typeIds[i]))
+                    .matchedValue(exemplarDictionary.get(exemplar))
+                    .position(positions[i])
+                    .page(version == VERSION_1 && pages[i] == 0 || pages[i] < 0 ? null : pages[i])
+                    .severity(severity)
+                    .build());
+        }
+        return new MatchDetails(total, typeTotals, matches);
+    }
+
+    /**
+     * Page as stored: 0 for no page, page + 1 otherwise
+     */
+    private static int pageKey(ScanResult.SensitiveDataMatch match) {
+        return match.getPage() != null ? match.getPage() + 1 : 0;
+    }
+
+    private static void writeStrings(OutputStream out, List<String> values) throws IOException {
+        writeVarInt(out, values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeString(OutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static List<String> readStrings(InputStream in) throws IOException {
+        int count = readVarInt(in);
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(in));
+        }
+        return values;
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        return new String(readFully(in, readVarInt(in)), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length != length) {
+            throw new IOException("Truncated match details");
+        }
+        return bytes;
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarInt(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Truncated match details");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in match details");
+    }
+}
@@ -0,0 +1,149 @@
+package com.skyhigh.casa.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Upload body staged in memory up to a cap, spilling to a temp file only beyond it
+ * Bytes are appended while the request is read; afterwards the staged content is
+ * exposed as a MultipartFile for the normal policy and storage path.
+ */
+public class StagedMultipartFile implements MultipartFile {
+
+    private final String originalFilename;
+    private final String contentType;
+    private final int memoryCap;
+    private final Path spillDir;
+
+    private MemoryBuffer memory = new MemoryBuffer();
+    private Path spillFile;
+    private OutputStream spillOut;
+    private long size;
+
+    public StagedMultipartFile(String originalFilename, String contentType, int memoryCap, Path spillDir) {
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.memoryCap = memoryCap;
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Append bytes, moving everything to the spill file once the memory cap is passed
+     */
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (spillOut == null && memory.size() + length > memoryCap) {
+            Files.createDirectories(spillDir);
+            spillFile = Files.createTempFile(spillDir, "upload-", ".part");
+            spillOut = Files.newOutputStream(spillFile);
+            memory.writeTo(spillOut);
+            memory = null;
+        }
+        if (spillOut != null) {
+            spillOut.write(bytes, offset, length);
+        } else {
+            memory.write(bytes, offset, length);
+        }
+        size += length;
+    }
+
+    /**
+     * Flush the spill file after the last write
+     */
+    public void finish() throws IOException {
+        if (spillOut != null) {
+            spillOut.close();
+        }
+    }
+
+    /**
+     * Whether the content spilled to disk
+     */
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * Remove the spill file, if any
+     */
+    public void discard() {
+        try {
+            if (spillOut != null) {
+                spillOut.close();
+            }
+            if (spillFile != null) {
+                Files.deleteIfExists(spillFile);
+            }
+        } catch (IOException e) {
+            // Temp directory cleanup will get it
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return spillFile != null ? Files.readAllBytes(spillFile) : memory.toByteArray();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return spillFile != null ? Files.newInputStream(spillFile) : memory.openInputStream();
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        transferTo(dest.toPath());
+    }
+
+    @Override
+    public void transferTo(Path dest) throws IOException {
+        if (spillFile != null) {
+            Files.copy(spillFile, dest, StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            try (OutputStream out = Files.newOutputStream(dest)) {
+                memory.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Byte buffer that can be read back without copying
+     */
+    private static class MemoryBuffer extends ByteArrayOutputStream {
+        InputStream openInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+}
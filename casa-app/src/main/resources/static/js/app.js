@@ -92,8 +92,11 @@ async function uploadFile() {
     formData.append('file', selectedFile);
 
     const userId = userIdInput.value.trim();
+    const headers = {};
     if (userId) {
         formData.append('userId', userId);
+        // Lets the server apply per-user rate limits before reading the body
+        headers['X-User-Id'] = userId;
     }
 
     // Show progress
@@ -116,6 +119,7 @@ async function uploadFile() {
         // Upload file
         const response = await fetch(`${API_BASE_URL}/upload`, {
             method: 'POST',
+            headers: headers,
             body: formData
         });
 
@@ -5,52 +5,80 @@ const API_BASE_URL = 'http://localhost:8080/api/v1';
 let currentPage = 0;
 let currentSize = 10;
 let currentFilter = {};
+let currentLogs = [];
+let liveFeed = null;
 
 // Load dashboard on page load
 document.addEventListener('DOMContentLoaded', () => {
-    loadDashboard();
+    loadLogs();
+    connectLiveFeed();
 });
 
+// Subscribe to the live audit feed (Server-Sent Events)
+function connectLiveFeed() {
+    if (!window.EventSource) {
+        return;
+    }
+
+    liveFeed = new EventSource(`${API_BASE_URL}/logs/stream`);
+
+    liveFeed.addEventListener('snapshot', (event) => {
+        const snapshot = JSON.parse(event.data);
+        displayStatistics(snapshot.statistics);
+    });
+
+    liveFeed.addEventListener('statistics', (event) => {
+        displayStatistics(JSON.parse(event.data));
+    });
+
+    liveFeed.addEventListener('decision', (event) => {
+        prependLog(JSON.parse(event.data));
+    });
+
+    // Events were dropped because this client fell behind; reload the current page once
+    liveFeed.addEventListener('resync', () => {
+        loadLogs(currentPage);
+    });
+
+    liveFeed.onerror = () => {
+        console.warn('Live feed disconnected, browser will reconnect');
+    };
+}
+
 // Load Dashboard Data
 async function loadDashboard() {
-    await loadStatistics();
-    await loadLogs();
+    await loadLogs(currentPage);
 }
 
-// Load Statistics
-async function loadStatistics() {
-    try {
-        const response = await fetch(`${API_BASE_URL}/logs/statistics`);
-        const stats = await response.json();
-
-        document.getElementById('totalUploads').textContent = stats.totalUploads;
-        document.getElementById('allowedUploads').textContent = stats.allowedUploads;
-        document.getElementById('blockedUploads').textContent = stats.blockedUploads;
-        document.getElementById('quarantinedUploads').textContent = stats.quarantinedUploads;
-    } catch (error) {
-        console.error('Error loading statistics:', error);
-    }
+// Display Statistics
+function displayStatistics(stats) {
+    document.getElementById('totalUploads').textContent = stats.totalUploads;
+    document.getElementById('allowedUploads').textContent = stats.allowedUploads;
+    document.getElementById('blockedUploads').textContent = stats.blockedUploads;
+    document.getElementById('quarantinedUploads').textContent = stats.quarantinedUploads;
 }
 
-// Load Logs
+// Load statistics and a page of logs in one request
+// The browser revalidates with If-None-Match (Cache-Control: no-cache), so unchanged views cost a 304
 async function loadLogs(page = 0) {
     currentPage = page;
 
     try {
-        let url = `${API_BASE_URL}/logs?page=${page}&size=${currentSize}`;
+        const params = new URLSearchParams({ page, size: currentSize });
 
         // Apply filters
         if (currentFilter.status) {
-            url = `${API_BASE_URL}/logs/status/${currentFilter.status}?page=${page}&size=${currentSize}`;
+            params.set('status', currentFilter.status);
         } else if (currentFilter.userId) {
-            url = `${API_BASE_URL}/logs/user/${currentFilter.userId}?page=${page}&size=${currentSize}`;
+            params.set('userId', currentFilter.userId);
         }
 
-        const response = await fetch(url);
+        const response = await fetch(`${API_BASE_URL}/dashboard?${params}`);
         const data = await response.json();
 
-        displayLogs(data.content);
-        displayPagination(data);
+        displayStatistics(data.statistics);
+        displayLogs(data.logs.content);
+        displayPagination(data.logs);
     } catch (error) {
         console.error('Error loading logs:', error);
         document.getElementById('logsTableBody').innerHTML = `
@@ -63,9 +91,19 @@ async function loadLogs(page = 0) {
     }
 }
 
+// Prepend a live decision to the first page if it matches the active filters
+function prependLog(log) {
+    if (currentPage !== 0) return;
+    if (currentFilter.status && log.status !== currentFilter.status) return;
+    if (currentFilter.userId && log.userId !== currentFilter.userId) return;
+
+    displayLogs([log, ...currentLogs].slice(0, currentSize));
+}
+
 // Display Logs in Table
 function displayLogs(logs) {
     const tbody = document.getElementById('logsTableBody');
+    currentLogs = logs;
 
     if (logs.length === 0) {
         tbody.innerHTML = `
@@ -0,0 +1,214 @@
+package com.skyhigh.casa.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for AuditJournal
+ */
+class AuditJournalTest {
+
+    /** Room for four records of the payloads below */
+    private static final int SEGMENT_SIZE = JournalSegment.HEADER + 4 * (JournalSegment.RECORD_HEADER + 8);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsRecordsBackAcrossSegments() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+        for (int i = 1; i <= 10; i++) {
+            assertThat(journal.append(payload(i))).isEqualTo(i);
+        }
+
+        assertThat(journal.getSegmentCount()).isEqualTo(3);
+        assertThat(seqs(journal.cursor(1).next(100))).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L);
+        assertThat(seqs(journal.cursor(6).next(3))).containsExactly(6L, 7L, 8L);
+        assertThat(journal.cursor(3).next(1).get(0).payload()).isEqualTo(payload(3));
+    }
+
+    @Test
+    void cursorFollowsAppendsIntoNewSegments() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+        journal.append(payload(1));
+        AuditJournal.Cursor cursor = journal.cursor(1);
+
+        assertThat(seqs(cursor.next(10))).containsExactly(1L);
+        assertThat(cursor.next(10)).isEmpty();
+        for (int i = 2; i <= 6; i++) {
+            journal.append(payload(i));
+        }
+        assertThat(seqs(cursor.next(10))).containsExactly(2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void recoversRecordsAfterACrash() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+        for (int i = 1; i <= 6; i++) {
+            journal.append(payload(i));
+        }
+        journal.syncAll();
+
+        // Reopened without closing, as after a crash
+        AuditJournal recovered = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+
+        assertThat(recovered.getLastSeq()).isEqualTo(6);
+        assertThat(recovered.append(payload(7))).isEqualTo(7);
+        assertThat(seqs(recovered.cursor(1).next(100))).containsExactly(1L, 2L, 3L, 4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    void dropsATornTailAndReusesItsSequenceNumber() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+        for (int i = 1; i <= 3; i++) {
+            journal.append(payload(i));
+        }
+        journal.syncAll();
+        // Corrupt the payload of record 3, as if the crash hit before it reached the disk
+        int third = JournalSegment.HEADER + 2 * (JournalSegment.RECORD_HEADER + 8);
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), third + JournalSegment.RECORD_HEADER);
+        }
+
+        AuditJournal recovered = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+
+        assertThat(recovered.getLastSeq()).isEqualTo(2);
+        assertThat(recovered.append(payload(30))).isEqualTo(3);
+        List<AuditJournal.JournalRecord> records = recovered.cursor(1).next(100);
+        assertThat(seqs(records)).containsExactly(1L, 2L, 3L);
+        assertThat(records.get(2).payload()).isEqualTo(payload(30));
+    }
+
+    @Test
+    void continuesFromTheCheckpointWhenSegmentsAreGone() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 500);
+
+        assertThat(journal.getLastSeq()).isEqualTo(499);
+        assertThat(journal.append(payload(1))).isEqualTo(500);
+        assertThat(seqs(journal.cursor(500).next(10))).containsExactly(500L);
+    }
+
+    @Test
+    void releasesOnlySealedSegmentsThatWereApplied() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+        for (int i = 1; i <= 10; i++) {
+            journal.append(payload(i));
+        }
+
+        // Segment 1-4 still holds record 4
+        assertThat(journal.release(3)).isZero();
+        assertThat(journal.release(4)).isEqualTo(1);
+        // The current segment is never released, even when fully applied
+        assertThat(journal.release(10)).isEqualTo(1);
+
+        assertThat(journal.getSegmentCount()).isEqualTo(1);
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(seqs(journal.cursor(9).next(10))).containsExactly(9L, 10L);
+        assertThat(AuditJournal.open(dir, SEGMENT_SIZE, 16, 1).getLastSeq()).isEqualTo(10);
+    }
+
+    @Test
+    void refusesAppendsAtTheSegmentLimit() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 2, 1);
+        for (int i = 1; i <= 8; i++) {
+            journal.append(payload(i));
+        }
+
+        assertThatThrownBy(() -> journal.append(payload(9))).isInstanceOf(AuditJournal.JournalFullException.class);
+        assertThat(journal.getLastSeq()).isEqualTo(8);
+        journal.release(4);
+        assertThat(journal.append(payload(9))).isEqualTo(9);
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+
+        assertThatThrownBy(() -> journal.append(new byte[SEGMENT_SIZE])).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void oneSyncCoversEveryRecordAppendedBeforeIt() throws IOException {
+        AuditJournal journal = AuditJournal.open(dir, SEGMENT_SIZE, 16, 1);
+        journal.append(payload(1));
+        journal.append(payload(2));
+        journal.append(payload(3));
+
+        assertThat(journal.sync(3)).isTrue();
+        assertThat(journal.sync(1)).isFalse();
+        assertThat(journal.sync(2)).isFalse();
+        assertThat(journal.sync(3)).isFalse();
+        journal.append(payload(4));
+        assertThat(journal.sync(4)).isTrue();
+    }
+
+    @Test
+    void concurrentWritersShareSyncs() throws Exception {
+        AuditJournal journal = AuditJournal.open(dir, 1 << 16, 16, 1);
+        int writers = 8;
+        int perWriter = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int performed = 0;
+                    for (int i = 0; i < perWriter; i++) {
+                        if (journal.sync(journal.append(payload(i)))) {
+                            performed++;
+                        }
+                    }
+                    return performed;
+                }));
+            }
+            start.countDown();
+            int syncs = 0;
+            for (Future<Integer> result : results) {
+                syncs += result.get(30, TimeUnit.SECONDS);
+            }
+
+            assertThat(syncs).isBetween(1, writers * perWriter);
+            assertThat(journal.getLastSeq()).isEqualTo(writers * perWriter);
+            assertThat(journal.sync(journal.getLastSeq())).isFalse();
+            assertThat(journal.cursor(1).next(writers * perWriter + 1)).hasSize(writers * perWriter);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static List<Long> seqs(List<AuditJournal.JournalRecord> records) {
+        return records.stream().map(AuditJournal.JournalRecord::seq).toList();
+    }
+
+    /** Eight bytes, so a segment holds exactly four records */
+    private static byte[] payload(int i) {
+        return String.format("rec-%04d", i).getBytes(StandardCharsets.UTF_8);
+    }
+}
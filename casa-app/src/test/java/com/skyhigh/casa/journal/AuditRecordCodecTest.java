@@ -0,0 +1,81 @@
+package com.skyhigh.casa.journal;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.PolicyAction;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for AuditRecordCodec
+ */
+class AuditRecordCodecTest {
+
+    @Test
+    void roundTripsEveryColumnButTheId() throws IOException {
+        AuditLog auditLog = AuditLog.builder()
+                .id(42L)
+                .fileId("f-1")
+                .fileName("Résumé.pdf")
+                .fileSize(12_345L)
+                .userId("alice")
+                .tenantId("hr")
+                .ipAddress("10.0.0.1")
+                .status(AuditLog.UploadStatus.QUARANTINED)
+                .riskScore(65)
+                .sensitiveDataFound(true)
+                .sensitiveTypes(List.of("SSN", "CREDIT_CARD"))
+                .policyAction(PolicyAction.QUARANTINE)
+                .storageLocation("/quarantine/f-1")
+                .contentHash("abc123")
+                .blockReason("SSN found")
+                .patternSetVersion("e01de7f42f57c0ed")
+                .matchDetails(new byte[]{2, 0, -1, 127})
+                .timestamp(LocalDateTime.of(2024, 2, 29, 23, 59, 58, 123_456_000))
+                .metadata("{\"pages\":3}")
+                .build();
+
+        AuditLog decoded = AuditRecordCodec.decode(AuditRecordCodec.encode(auditLog));
+
+        assertThat(decoded.getId()).isNull();
+        auditLog.setId(null);
+        assertThat(decoded).isEqualTo(auditLog);
+    }
+
+    @Test
+    void roundTripsNullsAndEmptyLists() throws IOException {
+        AuditLog empty = AuditLog.builder().build();
+        AuditLog noTypes = AuditLog.builder().sensitiveDataFound(false).sensitiveTypes(List.of()).build();
+
+        assertThat(AuditRecordCodec.decode(AuditRecordCodec.encode(empty))).isEqualTo(empty);
+        assertThat(AuditRecordCodec.decode(AuditRecordCodec.encode(noTypes))).isEqualTo(noTypes);
+    }
+
+    @Test
+    void keepsTimestampsToTheMicrosecond() throws IOException {
+        AuditLog auditLog = AuditLog.builder()
+                .timestamp(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_999))
+                .build();
+
+        AuditLog decoded = AuditRecordCodec.decode(AuditRecordCodec.encode(auditLog));
+
+        assertThat(decoded.getTimestamp()).isEqualTo(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000));
+    }
+
+    @Test
+    void rejectsUnknownFormatsAndTruncatedRecords() {
+        byte[] payload = AuditRecordCodec.encode(AuditLog.builder().fileName("a.txt").build());
+        byte[] truncated = new byte[payload.length - 1];
+        System.arraycopy(payload, 0, truncated, 0, truncated.length);
+        payload[0] = 9;
+
+        assertThatThrownBy(() -> AuditRecordCodec.decode(payload)).isInstanceOf(IOException.class)
+                .hasMessageContaining("format 9");
+        assertThatThrownBy(() -> AuditRecordCodec.decode(truncated)).isInstanceOf(IOException.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.skyhigh.casa.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for JournalSegment
+ */
+class JournalSegmentTest {
+
+    private static final int SIZE = 256;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void appendsAndReadsRecordsInOrder() throws IOException {
+        JournalSegment segment = JournalSegment.create(dir.resolve("seg"), 10, SIZE);
+
+        assertThat(segment.isEmpty()).isTrue();
+        assertThat(segment.append(10, bytes("first"))).isTrue();
+        assertThat(segment.append(11, bytes("second"))).isTrue();
+
+        JournalSegment.Entry first = segment.read(JournalSegment.HEADER);
+        JournalSegment.Entry second = segment.read(first.next());
+        assertThat(first.seq()).isEqualTo(10);
+        assertThat(first.payload()).isEqualTo(bytes("first"));
+        assertThat(second.seq()).isEqualTo(11);
+        assertThat(second.payload()).isEqualTo(bytes("second"));
+        assertThat(second.next()).isEqualTo(segment.getPublished());
+        assertThat(segment.getNextSeq()).isEqualTo(12);
+    }
+
+    @Test
+    void refusesRecordsThatDoNotFit() throws IOException {
+        JournalSegment segment = JournalSegment.create(dir.resolve("seg"), 1, SIZE);
+        byte[] payload = new byte[SIZE - JournalSegment.HEADER - JournalSegment.RECORD_HEADER];
+
+        assertThat(segment.append(1, payload)).isTrue();
+        assertThat(segment.append(2, new byte[1])).isFalse();
+        assertThat(segment.getNextSeq()).isEqualTo(2);
+    }
+
+    @Test
+    void recoversEveryIntactRecord() throws IOException {
+        Path path = dir.resolve("seg");
+        JournalSegment segment = JournalSegment.create(path, 5, SIZE);
+        segment.append(5, bytes("a"));
+        segment.append(6, bytes("bb"));
+        segment.force();
+
+        JournalSegment recovered = JournalSegment.recover(path);
+
+        assertThat(recovered.getFirstSeq()).isEqualTo(5);
+        assertThat(recovered.getNextSeq()).isEqualTo(7);
+        assertThat(recovered.getPublished()).isEqualTo(segment.getPublished());
+        assertThat(recovered.read(JournalSegment.HEADER).payload()).isEqualTo(bytes("a"));
+    }
+
+    @Test
+    void stopsAtATornRecordAndZeroesIt() throws IOException {
+        Path path = dir.resolve("seg");
+        JournalSegment segment = JournalSegment.create(path, 1, SIZE);
+        segment.append(1, bytes("kept"));
+        segment.append(2, bytes("torn"));
+        int torn = segment.read(JournalSegment.HEADER).next();
+        segment.force();
+        // A crash after the length and sequence number were written but not the payload
+        write(path, torn + JournalSegment.RECORD_HEADER, bytes("XXXX"));
+
+        JournalSegment recovered = JournalSegment.recover(path);
+
+        assertThat(recovered.getNextSeq()).isEqualTo(2);
+        assertThat(recovered.getPublished()).isEqualTo(torn);
+        byte[] file = Files.readAllBytes(path);
+        for (int i = torn; i < file.length; i++) {
+            assertThat(file[i]).as("byte %d", i).isZero();
+        }
+        // The tail is reusable and recovers cleanly afterwards
+        assertThat(recovered.append(2, bytes("again"))).isTrue();
+        recovered.force();
+        assertThat(JournalSegment.recover(path).getNextSeq()).isEqualTo(3);
+    }
+
+    @Test
+    void stopsAtARecordOutOfSequence() throws IOException {
+        Path path = dir.resolve("seg");
+        JournalSegment segment = JournalSegment.create(path, 1, SIZE);
+        segment.append(1, bytes("one"));
+        segment.append(3, bytes("three"));
+        segment.force();
+
+        assertThat(JournalSegment.recover(path).getNextSeq()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path small = dir.resolve("small");
+        Files.write(small, new byte[4]);
+        Path other = dir.resolve("other");
+        Files.write(other, new byte[SIZE]);
+
+        assertThatThrownBy(() -> JournalSegment.recover(small)).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> JournalSegment.recover(other)).isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a journal segment");
+    }
+
+    private static void write(Path path, int position, byte[] data) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(data), position);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
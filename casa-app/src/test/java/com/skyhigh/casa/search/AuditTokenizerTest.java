@@ -0,0 +1,78 @@
+package com.skyhigh.casa.search;
+
+import com.skyhigh.casa.model.AuditLog;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for AuditTokenizer
+ */
+class AuditTokenizerTest {
+
+    @Test
+    void indexesLowerCasedTrigramsAndWordsPerField() {
+        AuditLog auditLog = AuditLog.builder()
+                .fileName("Q3 Report.PDF")
+                .userId("bob")
+                .sensitiveTypes(List.of("SSN"))
+                .build();
+
+        assertThat(AuditTokenizer.terms(auditLog)).containsExactlyInAnyOrder(
+                "0:q3 ", "0:3 r", "0: re", "0:rep", "0:epo", "0:por", "0:ort", "0:rt.", "0:t.p", "0:.pd", "0:pdf",
+                "0=q3", "0=report", "0=pdf",
+                "2:bob", "2=bob",
+                "3:ssn", "3=ssn");
+    }
+
+    @Test
+    void skipsMissingFields() {
+        AuditLog auditLog = AuditLog.builder().fileName("ab").build();
+
+        assertThat(AuditTokenizer.terms(auditLog)).containsExactly("0=ab");
+    }
+
+    @Test
+    void queriesLongTermsByTrigramsAndShortOnesByWord() {
+        assertThat(AuditTokenizer.queryTerms(AuditTokenizer.Field.FILE_NAME, "Invoice"))
+                .containsExactly("0:inv", "0:nvo", "0:voi", "0:oic", "0:ice");
+        assertThat(AuditTokenizer.queryTerms(AuditTokenizer.Field.USER_ID, "Q3"))
+                .containsExactly("2=q3");
+    }
+
+    @Test
+    void everyQueryTermOfASubstringIsIndexed() {
+        AuditLog auditLog = AuditLog.builder().blockReason("Credit card number detected").build();
+
+        assertThat(AuditTokenizer.terms(auditLog))
+                .containsAll(AuditTokenizer.queryTerms(AuditTokenizer.Field.BLOCK_REASON, "CARD NUM"));
+    }
+
+    @Test
+    void verificationDropsTrigramFalsePositives() {
+        // Holds both trigrams of "abcd" but not the substring itself
+        String value = "abc-bcd.txt";
+        AuditLog auditLog = AuditLog.builder().fileName(value).build();
+
+        assertThat(AuditTokenizer.terms(auditLog))
+                .containsAll(AuditTokenizer.queryTerms(AuditTokenizer.Field.FILE_NAME, "abcd"));
+        assertThat(AuditTokenizer.matches(value, "abcd")).isFalse();
+        assertThat(AuditTokenizer.matches(value, "BC-B")).isTrue();
+    }
+
+    @Test
+    void shortTermsMatchWholeWordsOnly() {
+        assertThat(AuditTokenizer.matches("Q3 report", "q3")).isTrue();
+        assertThat(AuditTokenizer.matches("Q34 report", "q3")).isFalse();
+        assertThat(AuditTokenizer.matches("report_q3", "Q3")).isTrue();
+    }
+
+    @Test
+    void findsFieldsByRequestName() {
+        assertThat(AuditTokenizer.Field.byName("FILENAME")).isEqualTo(AuditTokenizer.Field.FILE_NAME);
+        assertThat(AuditTokenizer.Field.byName("sensitiveTypes")).isEqualTo(AuditTokenizer.Field.SENSITIVE_TYPE);
+        assertThat(AuditTokenizer.Field.byName("status")).isNull();
+    }
+}
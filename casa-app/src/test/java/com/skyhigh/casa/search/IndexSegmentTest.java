@@ -0,0 +1,97 @@
+package com.skyhigh.casa.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.skyhigh.casa.search.RoaringBitmapTest.of;
+import static com.skyhigh.casa.search.RoaringBitmapTest.values;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for IndexSegment
+ */
+class IndexSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsPostingsAndIdRange() throws IOException {
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int i = 100; i < 10_000; i++) {
+            dense.add(i);
+        }
+        TreeMap<String, RoaringBitmap> postings = new TreeMap<>();
+        postings.put("0:inv", of(100, 205, 70_000));
+        postings.put("0:voi", dense);
+        postings.put("2=alice", of(300));
+        postings.put("3:ssn", new RoaringBitmap());
+        Path path = dir.resolve("seg-1.idx");
+
+        IndexSegment.write(path, 100, 70_000, postings.entrySet().iterator());
+        IndexSegment segment = IndexSegment.open(path);
+
+        assertThat(segment.getMinId()).isEqualTo(100);
+        assertThat(segment.getMaxId()).isEqualTo(70_000);
+        assertThat(segment.getSizeBytes()).isEqualTo(Files.size(path));
+        // Empty postings are not written
+        assertThat(segment.getTermCount()).isEqualTo(3);
+        assertThat(segment.postings("3:ssn")).isNull();
+        assertThat(segment.postings("0:zzz")).isNull();
+        assertThat(values(segment.postings("0:inv"))).containsExactly(70_000, 205, 100);
+        assertThat(values(segment.postings("2=alice"))).containsExactly(300);
+        assertThat(segment.postings("0:voi").getCardinality()).isEqualTo(9_900);
+        assertThat(keys(segment.iterator())).containsExactly("0:inv", "0:voi", "2=alice");
+    }
+
+    @Test
+    void growsTheDictionaryForManyTerms() throws IOException {
+        TreeMap<String, RoaringBitmap> postings = new TreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            postings.put(String.format("0:term-%05d-%s", i, "x".repeat(i % 40)), of(i));
+        }
+        Path path = dir.resolve("seg-2.idx");
+
+        IndexSegment.write(path, 0, 19_999, postings.entrySet().iterator());
+        IndexSegment segment = IndexSegment.open(path);
+
+        assertThat(segment.getTermCount()).isEqualTo(20_000);
+        assertThat(values(segment.postings(postings.lastKey()))).containsExactly(19_999);
+        assertThat(values(segment.postings(String.format("0:term-%05d-%s", 12_345, "x".repeat(12_345 % 40)))))
+                .containsExactly(12_345);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path path = dir.resolve("not-a-segment.idx");
+        Files.write(path, new byte[64]);
+
+        assertThatThrownBy(() -> IndexSegment.open(path)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void refusesToOverwriteASegment() throws IOException {
+        Path path = dir.resolve("seg-3.idx");
+        IndexSegment.write(path, 0, 0, new TreeMap<String, RoaringBitmap>().entrySet().iterator());
+
+        assertThat(IndexSegment.open(path).getTermCount()).isZero();
+        assertThatThrownBy(() -> IndexSegment.write(path, 0, 0,
+                new TreeMap<String, RoaringBitmap>().entrySet().iterator())).isInstanceOf(IOException.class);
+    }
+
+    private static List<String> keys(Iterator<Map.Entry<String, RoaringBitmap>> iterator) {
+        List<String> keys = new ArrayList<>();
+        iterator.forEachRemaining(entry -> keys.add(entry.getKey()));
+        return keys;
+    }
+}
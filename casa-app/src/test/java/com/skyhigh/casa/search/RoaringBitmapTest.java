@@ -0,0 +1,191 @@
+package com.skyhigh.casa.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for RoaringBitmap
+ */
+class RoaringBitmapTest {
+
+    /** Largest container still stored as a sorted array */
+    private static final int ARRAY_MAX = 4096;
+
+    @Test
+    void startsEmpty() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.getCardinality()).isZero();
+        assertThat(bitmap.contains(0)).isFalse();
+        assertThat(values(bitmap)).isEmpty();
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+
+        assertThatThrownBy(() -> bitmap.add(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(bitmap.contains(-1)).isFalse();
+    }
+
+    @Test
+    void agreesWithTreeSetForRandomValues() {
+        Random random = new Random(42);
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            // A few dense containers and many sparse ones, added out of order
+            int value = i % 3 == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(3 << 16);
+            bitmap.add(value);
+            expected.add(value);
+        }
+
+        assertThat(bitmap.getCardinality()).isEqualTo(expected.size());
+        assertThat(values(bitmap)).containsExactlyElementsOf(expected.descendingSet());
+        for (int i = 0; i < 1_000; i++) {
+            int probe = random.nextInt(3 << 16);
+            assertThat(bitmap.contains(probe)).isEqualTo(expected.contains(probe));
+        }
+    }
+
+    @Test
+    void turnsArrayIntoBitmapPastArrayMax() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < ARRAY_MAX; i++) {
+            bitmap.add(i * 2);
+        }
+        bitmap.add(ARRAY_MAX * 2);
+        bitmap.add(1);
+        // Duplicates neither grow the array nor the bitmap
+        bitmap.add(0);
+        bitmap.add(1);
+
+        assertThat(bitmap.getCardinality()).isEqualTo(ARRAY_MAX + 2);
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(3)).isFalse();
+        assertThat(bitmap.contains(ARRAY_MAX * 2)).isTrue();
+        assertThat(serializedSize(bitmap)).isEqualTo(4 + 2 + 4 + 1024 * Long.BYTES);
+    }
+
+    @Test
+    void turnsBitmapBackIntoArrayWhenRemovingBelow() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < ARRAY_MAX + 100; i++) {
+            bitmap.add(i);
+        }
+        bitmap.add((1 << 16) + 5);
+
+        bitmap.removeBelow(ARRAY_MAX);
+
+        assertThat(bitmap.getCardinality()).isEqualTo(101);
+        assertThat(bitmap.contains(ARRAY_MAX - 1)).isFalse();
+        assertThat(bitmap.contains(ARRAY_MAX)).isTrue();
+        assertThat(serializedSize(bitmap)).isEqualTo(4 + 2 * (2 + 4) + 101 * Character.BYTES);
+    }
+
+    @Test
+    void removesWholeContainersBelow() {
+        RoaringBitmap bitmap = of(3, 70_000, 70_001, 200_000);
+
+        bitmap.removeBelow(70_001);
+        assertThat(values(bitmap)).containsExactly(200_000, 70_001);
+
+        bitmap.removeBelow(70_002);
+        assertThat(values(bitmap)).containsExactly(200_000);
+
+        bitmap.removeBelow(300_000);
+        assertThat(bitmap.isEmpty()).isTrue();
+    }
+
+    @Test
+    void intersectsAndUnitesArrayAndBitmapContainers() {
+        RoaringBitmap dense = new RoaringBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            dense.add(i);
+        }
+        RoaringBitmap sparse = of(5, 9_999, 10_000, 1 << 20);
+
+        assertThat(values(RoaringBitmap.and(dense, sparse))).containsExactly(9_999, 5);
+        assertThat(values(RoaringBitmap.and(sparse, of(7)))).isEmpty();
+        assertThat(RoaringBitmap.and(sparse, of(7)).isEmpty()).isTrue();
+
+        RoaringBitmap union = RoaringBitmap.or(dense, sparse);
+        assertThat(union.getCardinality()).isEqualTo(10_002);
+        assertThat(union.contains(10_000)).isTrue();
+        assertThat(union.contains(1 << 20)).isTrue();
+        assertThat(values(RoaringBitmap.or(new RoaringBitmap(), sparse))).containsExactly(1 << 20, 10_000, 9_999, 5);
+    }
+
+    @Test
+    void stopsVisitingWhenTheVisitorSaysSo() {
+        RoaringBitmap bitmap = of(1, 2, 3, 100_000);
+        List<Integer> visited = new ArrayList<>();
+
+        bitmap.forEachDescending(value -> {
+            visited.add(value);
+            return visited.size() < 2;
+        });
+
+        assertThat(visited).containsExactly(100_000, 3);
+    }
+
+    @Test
+    void roundTripsThroughSerialization() throws IOException {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 6_000; i++) {
+            bitmap.add(i * 3);
+        }
+        bitmap.add(5 << 16);
+        bitmap.add(Integer.MAX_VALUE);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.serialize(new DataOutputStream(bytes));
+        // Read from an offset, as postings are read out of a mapped segment
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.size() + 7);
+        buffer.position(7);
+        buffer.put(bytes.toByteArray());
+        RoaringBitmap read = RoaringBitmap.deserialize(buffer.position(7));
+
+        assertThat(buffer.remaining()).isZero();
+        assertThat(read.getCardinality()).isEqualTo(bitmap.getCardinality());
+        assertThat(values(read)).isEqualTo(values(bitmap));
+        read.add(1);
+        assertThat(read.contains(1)).isTrue();
+    }
+
+    static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    static List<Integer> values(RoaringBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEachDescending(values::add);
+        return values;
+    }
+
+    private static int serializedSize(RoaringBitmap bitmap) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            bitmap.serialize(new DataOutputStream(bytes));
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return bytes.size();
+    }
+}
@@ -0,0 +1,92 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.model.PolicyAction;
+import com.skyhigh.casa.model.StoredObject;
+import com.skyhigh.casa.repository.AuditLogRepository;
+import com.skyhigh.casa.repository.StoredObjectRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for AuditArchiveService
+ */
+@SpringBootTest(properties = {
+        "journal.enabled=false",
+        "audit.archive.hot-retention-days=1",
+        "audit.archive.initial-delay=3600000"
+})
+class AuditArchiveServiceTest {
+
+    @TempDir
+    static Path dir;
+
+    @Autowired
+    private AuditArchiveService auditArchiveService;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private ContentStoreService contentStoreService;
+
+    @Autowired
+    private CloudStorageService cloudStorageService;
+
+    @DynamicPropertySource
+    static void paths(DynamicPropertyRegistry registry) {
+        registry.add("policy.quarantine-path", () -> dir.resolve("storage").toString());
+        registry.add("audit.archive.path", () -> dir.resolve("archive").toString());
+        registry.add("uploads.session-path", () -> dir.resolve("upload-sessions").toString());
+        registry.add("patterns.corpus.path", () -> dir.resolve("pattern-corpus").toString());
+        registry.add("search.index.path", () -> dir.resolve("search-index").toString());
+        registry.add("journal.path", () -> dir.resolve("audit-journal").toString());
+    }
+
+    @Test
+    void archivingLeavesStoredObjectsInPlace() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "old.txt", "text/plain",
+                "archived long ago".getBytes(StandardCharsets.UTF_8));
+        ContentStoreService.StoredContent stored = contentStoreService.store(file, StoredObject.Tier.STORAGE);
+        AuditLog old = auditLogRepository.save(AuditLog.builder()
+                .fileId("f-old")
+                .fileName("old.txt")
+                .fileSize(file.getSize())
+                .userId("alice")
+                .ipAddress("10.0.0.1")
+                .status(AuditLog.UploadStatus.ALLOWED)
+                .riskScore(0)
+                .sensitiveDataFound(false)
+                .policyAction(PolicyAction.UPLOAD)
+                .storageLocation(stored.storageLocation())
+                .contentHash(stored.contentHash())
+                .timestamp(LocalDateTime.now().minusDays(30))
+                .build());
+
+        auditArchiveService.archiveExpiredPartitions();
+
+        assertThat(auditLogRepository.findById(old.getId())).isEmpty();
+        assertThat(auditArchiveService.hasArchivedData(old.getTimestamp().minusDays(1),
+                old.getTimestamp().plusDays(1))).isTrue();
+        StoredObject object = storedObjectRepository
+                .findByTierAndContentHash(StoredObject.Tier.STORAGE, stored.contentHash())
+                .orElseThrow();
+        assertThat(object.getRefCount()).isEqualTo(1);
+        assertThat(Files.exists(cloudStorageService.localPath(stored.storageLocation()))).isTrue();
+    }
+}
@@ -0,0 +1,104 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.AuditLog;
+import com.skyhigh.casa.search.AuditTokenizer;
+import com.skyhigh.casa.search.IndexSegment;
+import com.skyhigh.casa.search.RoaringBitmap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for AuditSearchService
+ */
+class AuditSearchServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void mergeUnitesPostingsInTermOrderAndPrunesOldIds() throws IOException {
+        IndexSegment first = segment("seg-1.idx", Map.of(
+                "0:abc", bitmap(1, 2, 3),
+                "0:xyz", bitmap(2)));
+        IndexSegment second = segment("seg-2.idx", Map.of(
+                "0:abc", bitmap(10, 70_000),
+                "0:mno", bitmap(11),
+                "2=bob", bitmap(12)));
+        IndexSegment third = segment("seg-3.idx", Map.of(
+                "0:xyz", bitmap(20)));
+
+        Path path = dir.resolve("seg-4.idx");
+        IndexSegment.write(path, 3, 70_000,
+                AuditSearchService.mergedPostings(List.of(first, second, third), 3));
+        IndexSegment merged = IndexSegment.open(path);
+
+        assertThat(merged.getMinId()).isEqualTo(3);
+        assertThat(values(merged.postings("0:abc"))).containsExactly(70_000, 10, 3);
+        assertThat(values(merged.postings("0:mno"))).containsExactly(11);
+        assertThat(values(merged.postings("0:xyz"))).containsExactly(20);
+        assertThat(values(merged.postings("2=bob"))).containsExactly(12);
+        List<String> terms = new ArrayList<>();
+        merged.iterator().forEachRemaining(entry -> terms.add(entry.getKey()));
+        assertThat(terms).containsExactly("0:abc", "0:mno", "0:xyz", "2=bob");
+    }
+
+    @Test
+    void mergeDropsTermsLeftWithoutIds() throws IOException {
+        IndexSegment first = segment("seg-1.idx", Map.of("0:old", bitmap(1, 2), "0:new", bitmap(5)));
+        IndexSegment second = segment("seg-2.idx", Map.of("0:old", bitmap(3)));
+
+        Path path = dir.resolve("seg-3.idx");
+        IndexSegment.write(path, 5, 5, AuditSearchService.mergedPostings(List.of(first, second), 5));
+        IndexSegment merged = IndexSegment.open(path);
+
+        assertThat(merged.getTermCount()).isEqualTo(1);
+        assertThat(merged.postings("0:old")).isNull();
+    }
+
+    @Test
+    void verificationRequiresEveryTermInSomeField() {
+        AuditLog row = AuditLog.builder()
+                .fileName("abc-bcd.txt")
+                .userId("alice")
+                .sensitiveTypes(List.of("CREDIT_CARD"))
+                .build();
+        List<AuditTokenizer.Field> all = List.of(AuditTokenizer.Field.values());
+
+        assertThat(AuditSearchService.matchesAll(row, List.of("alice", "card"), all)).isTrue();
+        // Every trigram of abcd is in the file name, the substring is not
+        assertThat(AuditSearchService.matchesAll(row, List.of("abcd"), all)).isFalse();
+        assertThat(AuditSearchService.matchesAll(row, List.of("alice", "bob"), all)).isFalse();
+        assertThat(AuditSearchService.matchesAll(row, List.of("alice"),
+                List.of(AuditTokenizer.Field.FILE_NAME))).isFalse();
+    }
+
+    private IndexSegment segment(String name, Map<String, RoaringBitmap> postings) throws IOException {
+        Path path = dir.resolve(name);
+        TreeMap<String, RoaringBitmap> sorted = new TreeMap<>(postings);
+        IndexSegment.write(path, 0, 0, sorted.entrySet().iterator());
+        return IndexSegment.open(path);
+    }
+
+    private static RoaringBitmap bitmap(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    private static List<Integer> values(RoaringBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEachDescending(values::add);
+        return values;
+    }
+}
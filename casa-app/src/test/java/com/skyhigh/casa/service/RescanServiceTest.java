@@ -0,0 +1,62 @@
+package com.skyhigh.casa.service;
+
+import com.skyhigh.casa.model.ScanResult;
+import com.skyhigh.casa.util.MatchDetailCodec;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for RescanService
+ */
+class RescanServiceTest {
+
+    @Test
+    void mergeKeepsExactTotalsOfTruncatedDetails() throws IOException {
+        List<ScanResult.SensitiveDataMatch> original = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            original.add(match("EMAIL", i));
+        }
+        for (int i = 0; i < 300; i++) {
+            original.add(match("SSN", 1_000_000 + i));
+        }
+        byte[] stored = MatchDetailCodec.encode(original);
+
+        byte[] merged = RescanService.mergeMatchDetails(stored, Set.of("EMAIL"),
+                List.of(match("EMAIL", 5), match("EMAIL", 6)));
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(merged);
+
+        // All stored rows were EMAIL, so only the SSN total survives of the old matches
+        assertThat(details.typeTotals()).containsOnly(Map.entry("EMAIL", 2), Map.entry("SSN", 300));
+        assertThat(details.totalMatches()).isEqualTo(302);
+        assertThat(details.matches()).hasSize(2);
+        assertThat(details.isTruncated()).isTrue();
+    }
+
+    @Test
+    void mergeReplacesOnlyRescannedTypes() throws IOException {
+        byte[] stored = MatchDetailCodec.encode(List.of(match("EMAIL", 1), match("SSN", 2), match("SSN", 3)));
+
+        byte[] merged = RescanService.mergeMatchDetails(stored, Set.of("SSN"), List.of(match("SSN", 4)));
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(merged);
+
+        assertThat(details.typeTotals()).containsOnly(Map.entry("EMAIL", 1), Map.entry("SSN", 1));
+        assertThat(details.matches()).extracting(ScanResult.SensitiveDataMatch::getPosition).containsExactly(1, 4);
+        assertThat(details.isTruncated()).isFalse();
+    }
+
+    private static ScanResult.SensitiveDataMatch match(String type, int position) {
+        return ScanResult.SensitiveDataMatch.builder()
+                .type(type)
+                .matchedValue("x****y")
+                .position(position)
+                .severity(6)
+                .build();
+    }
+}
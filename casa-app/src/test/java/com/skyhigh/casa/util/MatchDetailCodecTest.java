@@ -0,0 +1,146 @@
+package com.skyhigh.casa.util;
+
+import com.skyhigh.casa.model.ScanResult;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for MatchDetailCodec
+ */
+class MatchDetailCodecTest {
+
+    @Test
+    void encodesNoMatchesAsNull() {
+        assertThat(MatchDetailCodec.encode(List.of())).isNull();
+        assertThat(MatchDetailCodec.encode(null)).isNull();
+    }
+
+    @Test
+    void roundTripsMatchesInLocationOrder() throws IOException {
+        List<ScanResult.SensitiveDataMatch> matches = List.of(
+                match("EMAIL", "jane****.com", 420, null, 5),
+                match("CREDIT_CARD", "4111****1111", 17, null, 9),
+                match("SSN", "123-****6789", 70_000, null, 10));
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(MatchDetailCodec.encode(matches));
+
+        assertThat(details.totalMatches()).isEqualTo(3);
+        assertThat(details.isTruncated()).isFalse();
+        assertThat(details.typeTotals()).containsOnly(
+                Map.entry("CREDIT_CARD", 1), Map.entry("EMAIL", 1), Map.entry("SSN", 1));
+        assertThat(details.matches()).containsExactly(matches.get(1), matches.get(0), matches.get(2));
+    }
+
+    @Test
+    void keepsPageZeroApartFromNoPage() throws IOException {
+        List<ScanResult.SensitiveDataMatch> matches = List.of(
+                match("EMAIL", "a****b", 5, null, 5),
+                match("EMAIL", "c****d", 3, 0, 5),
+                match("EMAIL", "e****f", 1, 1, 5),
+                match("EMAIL", "g****h", 2, 2, 5));
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(MatchDetailCodec.encode(matches));
+
+        assertThat(details.matches()).extracting(ScanResult.SensitiveDataMatch::getPage)
+                .containsExactly(null, 0, 1, 2);
+        assertThat(details.matches()).extracting(ScanResult.SensitiveDataMatch::getPosition)
+                .containsExactly(5, 3, 1, 2);
+    }
+
+    @Test
+    void truncatesToTheFirstStoredMatchesAndKeepsTotals() throws IOException {
+        List<ScanResult.SensitiveDataMatch> matches = new ArrayList<>();
+        for (int i = 1500; i > 0; i--) {
+            matches.add(match(i % 3 == 0 ? "SSN" : "EMAIL", "x****" + (i % 7), i * 10, null, 7));
+        }
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(MatchDetailCodec.encode(matches));
+
+        assertThat(details.totalMatches()).isEqualTo(1500);
+        assertThat(details.isTruncated()).isTrue();
+        assertThat(details.matches()).hasSize(MatchDetailCodec.MAX_STORED_MATCHES);
+        assertThat(details.matches().get(0).getPosition()).isEqualTo(10);
+        assertThat(details.matches().get(MatchDetailCodec.MAX_STORED_MATCHES - 1).getPosition())
+                .isEqualTo(MatchDetailCodec.MAX_STORED_MATCHES * 10);
+        assertThat(details.typeTotals()).containsOnly(Map.entry("EMAIL", 1000), Map.entry("SSN", 500));
+    }
+
+    @Test
+    void keepsTotalsOfTypesWithoutStoredMatches() throws IOException {
+        List<ScanResult.SensitiveDataMatch> stored = List.of(match("EMAIL", "a****b", 1, null, 5));
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(
+                MatchDetailCodec.encode(stored, Map.of("EMAIL", 3, "SSN", 4)));
+
+        assertThat(details.totalMatches()).isEqualTo(7);
+        assertThat(details.isTruncated()).isTrue();
+        assertThat(details.typeTotals()).containsOnly(Map.entry("EMAIL", 3), Map.entry("SSN", 4));
+    }
+
+    @Test
+    void roundTripsMoreThan256Types() throws IOException {
+        List<ScanResult.SensitiveDataMatch> matches = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            matches.add(match("TYPE_" + i, "v****" + i, i, null, 3));
+        }
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(MatchDetailCodec.encode(matches));
+
+        assertThat(details.typeTotals()).hasSize(300);
+        assertThat(details.matches()).extracting(ScanResult.SensitiveDataMatch::getType)
+                .containsExactlyElementsOf(matches.stream().map(ScanResult.SensitiveDataMatch::getType).toList());
+    }
+
+    @Test
+    void clampsSeveritiesToFourBits() throws IOException {
+        List<ScanResult.SensitiveDataMatch> matches = List.of(
+                match("EMAIL", "a****b", 1, null, -3),
+                match("EMAIL", "a****b", 2, null, 0),
+                match("EMAIL", "a****b", 3, null, 10),
+                match("EMAIL", "a****b", 4, null, 15),
+                match("EMAIL", "a****b", 5, null, 42));
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(MatchDetailCodec.encode(matches));
+
+        assertThat(details.matches()).extracting(ScanResult.SensitiveDataMatch::getSeverity)
+                .containsExactly(0, 0, 10, 15, 15);
+    }
+
+    @Test
+    void decodesVersion1Details() throws IOException {
+        // Version 1: one byte type ids, pages stored as is (0 for none), no per-type totals
+        byte[] blob = {
+                1, 5, 2,
+                1, 5, 'E', 'M', 'A', 'I', 'L',
+                0, 0,
+                (byte) 0x75,
+                0, 9, 3, 4,
+                1, 3, 'a', '*', 'b',
+                0, 0};
+
+        MatchDetailCodec.MatchDetails details = MatchDetailCodec.decode(blob);
+
+        assertThat(details.totalMatches()).isEqualTo(5);
+        assertThat(details.typeTotals()).isNull();
+        assertThat(details.matches()).containsExactly(
+                match("EMAIL", "a*b", 9, null, 5),
+                match("EMAIL", "a*b", 4, 3, 7));
+    }
+
+    private static ScanResult.SensitiveDataMatch match(String type, String value, int position, Integer page,
+            int severity) {
+        return ScanResult.SensitiveDataMatch.builder()
+                .type(type)
+                .matchedValue(value)
+                .position(position)
+                .page(page)
+                .severity(severity)
+                .build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.skyhigh.casa.bulk;
+
+import io.minio.GetObjectArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bucket crawler
+ * Listing is paged and sequential, so the listing thread feeds objects to the worker pool and
+ * stops once a few batches per worker are outstanding; object reads and scans run in parallel.
+ */
+@Slf4j
+final class BucketCrawler {
+
+    private final ObjectSource source;
+    private final String bucket;
+    private final String prefix;
+    private final BulkScanner bulkScanner;
+
+    BucketCrawler(MinioClient minioClient, String bucket, String prefix, BulkScanner bulkScanner) {
+        this(new MinioObjectSource(minioClient), bucket, prefix, bulkScanner);
+    }
+
+    BucketCrawler(ObjectSource source, String bucket, String prefix, BulkScanner bulkScanner) {
+        this.source = source;
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.bulkScanner = bulkScanner;
+    }
+
+    /**
+     * List the bucket and scan every object on the pool, returning once all scans finish
+     */
+    void crawl(ForkJoinPool pool) throws Exception {
+        Semaphore outstanding = new Semaphore(pool.getParallelism() * 4);
+
+        for (Result<Item> result : source.list(bucket, prefix)) {
+            Item item = result.get();
+            if (item.isDir()) {
+                continue;
+            }
+
+            String key = item.objectName();
+            String path = "s3://" + bucket + "/" + key;
+            outstanding.acquire();
+            pool.execute(() -> {
+                try {
+                    bulkScanner.scanObject(path, key.substring(key.lastIndexOf('/') + 1), item.size(),
+                            () -> read(key));
+                } finally {
+                    outstanding.release();
+                }
+            });
+        }
+
+        pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.DAYS);
+    }
+
+    private byte[] read(String key) throws Exception {
+        try (InputStream stream = source.open(bucket, key)) {
+            return stream.readAllBytes();
+        }
+    }
+
+    /**
+     * The listing and read calls the crawler makes against a bucket
+     */
+    interface ObjectSource {
+
+        /**
+         * List every object under the prefix, recursively
+         */
+        Iterable<Result<Item>> list(String bucket, String prefix);
+
+        /**
+         * Open an object for reading
+         */
+        InputStream open(String bucket, String key) throws Exception;
+    }
+
+    private record MinioObjectSource(MinioClient minioClient) implements ObjectSource {
+
+        @Override
+        public Iterable<Result<Item>> list(String bucket, String prefix) {
+            return minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(bucket)
+                    .prefix(prefix)
+                    .recursive(true)
+                    .build());
+        }
+
+        @Override
+        public InputStream open(String bucket, String key) throws Exception {
+            return minioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(key).build());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.skyhigh.casa.bulk;
+
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command line options for the bulk scanner
+ */
+@Data
+public class BulkScanOptions {
+
+    static final String USAGE = """
+            Usage: casa-bulk-scanner (--dir <path> | --bucket <name>) [options]
+
+            Sources:
+              --dir <path>             Scan a directory tree
+              --bucket <name>          Scan a MinIO/S3 bucket
+              --prefix <prefix>        Only scan objects under this key prefix
+              --endpoint <url>         MinIO endpoint (default $MINIO_ENDPOINT or http://localhost:9000)
+              --access-key <key>       MinIO access key (default $MINIO_ACCESS_KEY)
+              --secret-key <key>       MinIO secret key (default $MINIO_SECRET_KEY)
+
+            Options:
+              --output <file>          NDJSON results file (default casa-scan-results.ndjson)
+              --config <file>          Properties file with scanner.* and policy.* settings
+              --threads <n>            Worker threads (default: number of cores)
+              --max-file-size <bytes>  Skip larger files (default 268435456)
+              --mmap-threshold <bytes> Memory-map text files at least this large (default 65536)
+              --checkpoint-every <n>   Sync output every n results (default 1000)
+              --no-resume              Start over instead of skipping paths already in the output
+            """;
+
+    private Path directory;
+    private String bucket;
+    private String prefix = "";
+    private String endpoint = env("MINIO_ENDPOINT", "http://localhost:9000");
+    private String accessKey = env("MINIO_ACCESS_KEY", null);
+    private String secretKey = env("MINIO_SECRET_KEY", null);
+    private Path output = Paths.get("casa-scan-results.ndjson");
+    private Path config;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private long maxFileSize = 256L * 1024 * 1024;
+    private long mmapThreshold = 64 * 1024;
+    private int checkpointEvery = 1000;
+    private boolean resume = true;
+
+    /**
+     * Parse command line arguments
+     */
+    public static BulkScanOptions parse(String[] args) {
+        BulkScanOptions options = new BulkScanOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--dir" -> options.directory = Paths.get(value(args, ++i, arg));
+                case "--bucket" -> options.bucket = value(args, ++i, arg);
+                case "--prefix" -> options.prefix = value(args, ++i, arg);
+                case "--endpoint" -> options.endpoint = value(args, ++i, arg);
+                case "--access-key" -> options.accessKey = value(args, ++i, arg);
+                case "--secret-key" -> options.secretKey = value(args, ++i, arg);
+                case "--output" -> options.output = Paths.get(value(args, ++i, arg));
+                case "--config" -> options.config = Paths.get(value(args, ++i, arg));
+                case "--threads" -> options.threads = positive(value(args, ++i, arg), arg);
+                case "--max-file-size" -> options.maxFileSize = Long.parseLong(value(args, ++i, arg));
+                case "--mmap-threshold" -> options.mmapThreshold = Long.parseLong(value(args, ++i, arg));
+                case "--checkpoint-every" -> options.checkpointEvery = positive(value(args, ++i, arg), arg);
+                case "--no-resume" -> options.resume = false;
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+
+        if ((options.directory == null) == (options.bucket == null)) {
+            throw new IllegalArgumentException("Exactly one of --dir or --bucket is required");
+        }
+        return options;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static int positive(String value, String option) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException(option + " must be positive");
+        }
+        return parsed;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+}
@@ -0,0 +1,32 @@
+package com.skyhigh.casa.bulk;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One NDJSON output line: the scan and policy outcome for a single file or object
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkScanRecord {
+
+    private String path;
+    private long size;
+    private String status; // ALLOWED, BLOCKED, QUARANTINED, SKIPPED, ERROR
+    private Integer riskScore;
+    private List<String> sensitiveTypes;
+    private Integer matchCount;
+    private String policyAction;
+    private String reason;
+    private String error;
+    private long durationMs;
+    private String scannedAt;
+}
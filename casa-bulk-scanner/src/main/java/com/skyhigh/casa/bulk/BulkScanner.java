@@ -0,0 +1,175 @@
+package com.skyhigh.casa.bulk;
+
+import com.skyhigh.casa.model.PolicyAction;
+import com.skyhigh.casa.model.PolicyDecision;
+import com.skyhigh.casa.model.ScanResult;
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Scans single files or objects and records the outcome
+ * Thread-safe; called concurrently from the crawler's worker threads.
+ */
+@Slf4j
+final class BulkScanner {
+
+    /** Extensions scanned as raw text, skipping Tika extraction */
+    private static final Set<String> TEXT_EXTENSIONS = Set.of(
+            "txt", "csv", "tsv", "log", "json", "ndjson", "xml", "yaml", "yml", "md", "properties",
+            "env", "conf", "cfg", "ini", "sql", "sh", "py", "java", "js", "ts", "go", "rb", "html");
+
+    private final SensitiveDataScanner scanner;
+    private final PolicyEngine policyEngine;
+    private final ResultWriter resultWriter;
+    private final long maxFileSize;
+    private final long mmapThreshold;
+
+    private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder bytesScanned = new LongAdder();
+    private final LongAdder resumed = new LongAdder();
+
+    BulkScanner(SensitiveDataScanner scanner, PolicyEngine policyEngine, ResultWriter resultWriter,
+                BulkScanOptions options) {
+        this.scanner = scanner;
+        this.policyEngine = policyEngine;
+        this.resultWriter = resultWriter;
+        this.maxFileSize = options.getMaxFileSize();
+        this.mmapThreshold = options.getMmapThreshold();
+    }
+
+    /**
+     * Scan a local file; plain-text files at or above the threshold are memory-mapped
+     */
+    void scanFile(Path file, long size) {
+        String path = file.toAbsolutePath().toString();
+        scan(path, size, () -> {
+            String fileName = file.getFileName().toString();
+            if (!isText(fileName)) {
+                return scanner.scan(fileName, null, Files.readAllBytes(file));
+            }
+            if (size < mmapThreshold) {
+                return scanner.scanText(fileName, size, new ByteBufferCharSequence(ByteBuffer.wrap(Files.readAllBytes(file))));
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                return scanner.scanText(fileName, size, new ByteBufferCharSequence(mapped));
+            }
+        });
+    }
+
+    /**
+     * Scan an object fetched from a bucket
+     */
+    void scanObject(String path, String fileName, long size, ObjectReader reader) {
+        scan(path, size, () -> {
+            byte[] content = reader.read();
+            return isText(fileName)
+                    ? scanner.scanText(fileName, size, new ByteBufferCharSequence(ByteBuffer.wrap(content)))
+                    : scanner.scan(fileName, null, content);
+        });
+    }
+
+    /**
+     * Record a path that could not be listed or read
+     */
+    void recordError(String path, Exception e) {
+        write(BulkScanRecord.builder().path(path).status("ERROR").error(e.getMessage()), System.nanoTime());
+    }
+
+    /**
+     * Get counts per outcome, including paths skipped because an earlier run finished them
+     */
+    Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+        counts.put("RESUMED", resumed.sum());
+        return counts;
+    }
+
+    long getProcessedCount() {
+        return statusCounts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    long getBytesScanned() {
+        return bytesScanned.sum();
+    }
+
+    private void scan(String path, long size, ScanAction action) {
+        if (resultWriter.isCompleted(path)) {
+            resumed.increment();
+            return;
+        }
+
+        long start = System.nanoTime();
+        BulkScanRecord.BulkScanRecordBuilder record = BulkScanRecord.builder().path(path).size(size);
+        if (size > maxFileSize) {
+            write(record.status("SKIPPED").reason("File larger than " + maxFileSize + " bytes"), start);
+            return;
+        }
+
+        try {
+            ScanResult result = action.scan();
+            PolicyDecision decision = policyEngine.evaluate(result, null, null);
+            bytesScanned.add(size);
+            write(record
+                    .status(statusOf(decision))
+                    .riskScore(result.getRiskScore())
+                    .sensitiveTypes(result.getSensitiveTypes())
+                    .matchCount(result.getMatches().size())
+                    .policyAction(decision.getAction().name())
+                    .reason(decision.getReason()), start);
+        } catch (Exception e) {
+            log.debug("Failed to scan {}: {}", path, e.getMessage());
+            write(record.status("ERROR").error(e.getMessage()), start);
+        }
+    }
+
+    private void write(BulkScanRecord.BulkScanRecordBuilder record, long start) {
+        BulkScanRecord built = record
+                .durationMs((System.nanoTime() - start) / 1_000_000)
+                .scannedAt(LocalDateTime.now().toString())
+                .build();
+        resultWriter.write(built);
+        statusCounts.computeIfAbsent(built.getStatus(), status -> new LongAdder()).increment();
+    }
+
+    private static String statusOf(PolicyDecision decision) {
+        if (decision.isAllowed()) {
+            return "ALLOWED";
+        }
+        return decision.getAction() == PolicyAction.QUARANTINE ? "QUARANTINED" : "BLOCKED";
+    }
+
+    private static boolean isText(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 && TEXT_EXTENSIONS.contains(fileName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    @FunctionalInterface
+    private interface ScanAction {
+        ScanResult scan() throws Exception;
+    }
+
+    /**
+     * Fetches object content on the worker thread
+     */
+    @FunctionalInterface
+    interface ObjectReader {
+        byte[] read() throws Exception;
+    }
+}
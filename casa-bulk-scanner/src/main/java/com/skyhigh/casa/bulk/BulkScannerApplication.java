@@ -0,0 +1,112 @@
+package com.skyhigh.casa.bulk;
+
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import io.minio.MinioClient;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CASA Bulk Scanner
+ * Headless backfill runner: scans a directory tree or bucket with the same scanner and policy
+ * engine as the upload path and writes one NDJSON line per file. Re-running with the same
+ * output file resumes where the previous run stopped.
+ */
+@Slf4j
+public class BulkScannerApplication {
+
+    public static void main(String[] args) {
+        if (args.length == 0 || "--help".equals(args[0])) {
+            System.out.print(BulkScanOptions.USAGE);
+            return;
+        }
+
+        BulkScanOptions options;
+        try {
+            options = BulkScanOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(BulkScanOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        try {
+            run(options);
+        } catch (Exception e) {
+            log.error("Bulk scan failed: {}", e.getMessage(), e);
+            System.exit(1);
+        }
+    }
+
+    static void run(BulkScanOptions options) throws Exception {
+        Properties properties = loadProperties(options.getConfig());
+        ForkJoinPool pool = new ForkJoinPool(options.getThreads());
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bulk-scan-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (SensitiveDataScanner scanner = new SensitiveDataScanner(EngineProperties.scannerConfig(properties));
+             ResultWriter resultWriter = new ResultWriter(options.getOutput(), options.isResume(),
+                     options.getCheckpointEvery())) {
+            PolicyEngine policyEngine = new PolicyEngine(EngineProperties.policyConfig(properties));
+            BulkScanner bulkScanner = new BulkScanner(scanner, policyEngine, resultWriter, options);
+
+            long start = System.nanoTime();
+            progress.scheduleAtFixedRate(() -> logProgress(bulkScanner, start), 10, 10, TimeUnit.SECONDS);
+
+            if (options.getDirectory() != null) {
+                log.info("Scanning directory {} with {} threads", options.getDirectory().toAbsolutePath(),
+                        options.getThreads());
+                pool.invoke(new DirectoryCrawler(options.getDirectory(), bulkScanner));
+            } else {
+                log.info("Scanning bucket {} at {} with {} threads", options.getBucket(), options.getEndpoint(),
+                        options.getThreads());
+                MinioClient minioClient = MinioClient.builder()
+                        .endpoint(options.getEndpoint())
+                        .credentials(options.getAccessKey(), options.getSecretKey())
+                        .build();
+                new BucketCrawler(minioClient, options.getBucket(), options.getPrefix(), bulkScanner).crawl(pool);
+            }
+
+            logProgress(bulkScanner, start);
+            log.info("Bulk scan complete: {} -> {}", bulkScanner.getCounts(), options.getOutput().toAbsolutePath());
+        } finally {
+            progress.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void logProgress(BulkScanner bulkScanner, long start) {
+        double seconds = Math.max(1e-3, (System.nanoTime() - start) / 1e9);
+        long processed = bulkScanner.getProcessedCount();
+        log.info("Processed {} files ({} MB) in {}s - {} files/s, {} MB/s",
+                processed,
+                bulkScanner.getBytesScanned() / (1024 * 1024),
+                String.format("%.0f", seconds),
+                String.format("%.1f", processed / seconds),
+                String.format("%.1f", bulkScanner.getBytesScanned() / seconds / (1024 * 1024)));
+    }
+
+    private static Properties loadProperties(Path config) throws IOException {
+        Properties properties = new Properties();
+        if (config != null) {
+            try (Reader reader = Files.newBufferedReader(config, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+}
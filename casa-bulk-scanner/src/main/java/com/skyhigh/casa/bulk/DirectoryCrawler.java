@@ -0,0 +1,84 @@
+package com.skyhigh.casa.bulk;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Work-stealing directory crawler
+ * Each directory is a fork/join task: subdirectories and batches of files are forked so idle
+ * workers steal them, which keeps every core busy whether the tree is wide, deep or has a
+ * few huge directories. Symbolic links are not followed.
+ */
+final class DirectoryCrawler extends RecursiveAction {
+
+    private static final int FILE_BATCH_SIZE = 32;
+
+    private final Path directory;
+    private final BulkScanner bulkScanner;
+
+    DirectoryCrawler(Path directory, BulkScanner bulkScanner) {
+        this.directory = directory;
+        this.bulkScanner = bulkScanner;
+    }
+
+    @Override
+    protected void compute() {
+        List<ForkJoinTask<?>> forked = new ArrayList<>();
+        List<FileEntry> batch = new ArrayList<>(FILE_BATCH_SIZE);
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    bulkScanner.recordError(entry.toAbsolutePath().toString(), e);
+                    continue;
+                }
+
+                if (attributes.isDirectory()) {
+                    forked.add(new DirectoryCrawler(entry, bulkScanner).fork());
+                } else if (attributes.isRegularFile()) {
+                    batch.add(new FileEntry(entry, attributes.size()));
+                    if (batch.size() == FILE_BATCH_SIZE) {
+                        forked.add(new FileBatch(batch, bulkScanner).fork());
+                        batch = new ArrayList<>(FILE_BATCH_SIZE);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            bulkScanner.recordError(directory.toAbsolutePath().toString(), e);
+        }
+
+        new FileBatch(batch, bulkScanner).compute();
+        forked.forEach(ForkJoinTask::join);
+    }
+
+    private record FileEntry(Path path, long size) {
+    }
+
+    private static final class FileBatch extends RecursiveAction {
+        private final List<FileEntry> files;
+        private final BulkScanner bulkScanner;
+
+        FileBatch(List<FileEntry> files, BulkScanner bulkScanner) {
+            this.files = files;
+            this.bulkScanner = bulkScanner;
+        }
+
+        @Override
+        protected void compute() {
+            for (FileEntry file : files) {
+                bulkScanner.scanFile(file.path(), file.size());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.skyhigh.casa.bulk;
+
+import com.skyhigh.casa.policy.PolicyConfig;
+import com.skyhigh.casa.scanner.ScannerConfig;
+
+import java.util.Properties;
+
+/**
+ * Maps scanner.* and policy.* properties onto the engine settings
+ * Uses the same keys as the web application, so its properties file can be reused as is
+ */
+final class EngineProperties {
+
+    private EngineProperties() {
+    }
+
+    static ScannerConfig scannerConfig(Properties properties) {
+        ScannerConfig defaults = ScannerConfig.builder().build();
+        return ScannerConfig.builder()
+                .emailPattern(properties.getProperty("scanner.patterns.email", defaults.getEmailPattern()))
+                .creditCardPattern(properties.getProperty("scanner.patterns.credit-card", defaults.getCreditCardPattern()))
+                .aadhaarPattern(properties.getProperty("scanner.patterns.aadhaar", defaults.getAadhaarPattern()))
+                .awsKeyPattern(properties.getProperty("scanner.patterns.aws-key", defaults.getAwsKeyPattern()))
+                .passwordPattern(properties.getProperty("scanner.patterns.password", defaults.getPasswordPattern()))
+                .digitPrefilter(Boolean.parseBoolean(properties.getProperty("scanner.prefilter.digit-runs",
+                        String.valueOf(defaults.isDigitPrefilter()))))
+                .digitPrefilterSimd(Boolean.parseBoolean(properties.getProperty("scanner.prefilter.simd",
+                        String.valueOf(defaults.isDigitPrefilterSimd()))))
+                .matchValidation(Boolean.parseBoolean(properties.getProperty("scanner.validation.enabled",
+                        String.valueOf(defaults.isMatchValidation()))))
+                .entropyEnabled(Boolean.parseBoolean(properties.getProperty("scanner.entropy.enabled",
+                        String.valueOf(defaults.isEntropyEnabled()))))
+                .entropyMinLength(Integer.parseInt(properties.getProperty("scanner.entropy.min-length",
+                        String.valueOf(defaults.getEntropyMinLength()))))
+                .entropyContextMinLength(Integer.parseInt(properties.getProperty("scanner.entropy.context-min-length",
+                        String.valueOf(defaults.getEntropyContextMinLength()))))
+                .entropyMaxLength(Integer.parseInt(properties.getProperty("scanner.entropy.max-length",
+                        String.valueOf(defaults.getEntropyMaxLength()))))
+                .entropyThreshold(Double.parseDouble(properties.getProperty("scanner.entropy.threshold",
+                        String.valueOf(defaults.getEntropyThreshold()))))
+                .pdfThreads(Integer.parseInt(properties.getProperty("scanner.pdf.threads",
+                        String.valueOf(defaults.getPdfThreads()))))
+                .pdfParallelMinPages(Integer.parseInt(properties.getProperty("scanner.pdf.parallel-min-pages",
+                        String.valueOf(defaults.getPdfParallelMinPages()))))
+                .pdfPagesPerTask(Integer.parseInt(properties.getProperty("scanner.pdf.pages-per-task",
+                        String.valueOf(defaults.getPdfPagesPerTask()))))
+                .pdfMainMemoryBytes(Long.parseLong(properties.getProperty("scanner.pdf.main-memory-bytes",
+                        String.valueOf(defaults.getPdfMainMemoryBytes()))))
+                .pdfCopyBudgetBytes(Long.parseLong(properties.getProperty("scanner.pdf.copy-budget-bytes",
+                        String.valueOf(defaults.getPdfCopyBudgetBytes()))))
+                .build();
+    }
+
+    static PolicyConfig policyConfig(Properties properties) {
+        PolicyConfig defaults = PolicyConfig.builder().build();
+        return PolicyConfig.builder()
+                .maxFileSize(Long.parseLong(properties.getProperty("policy.max-file-size",
+                        String.valueOf(defaults.getMaxFileSize()))))
+                .blockSensitiveData(Boolean.parseBoolean(properties.getProperty("policy.block-sensitive-data",
+                        String.valueOf(defaults.isBlockSensitiveData()))))
+                // There is no uploading user in a batch run
+                .requireAuthentication(false)
+                .allowedFileTypes(properties.getProperty("policy.allowed-file-types", defaults.getAllowedFileTypes()))
+                .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.skyhigh.casa.bulk;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * NDJSON result sink that doubles as the resume checkpoint
+ * Every path already present in the output (except errors, which are retried) is skipped on
+ * resume. The file is flushed and synced every few records, and a torn last line from a crash
+ * is cut off before appending, so the output is always a valid prefix of the run.
+ */
+@Slf4j
+final class ResultWriter implements Closeable {
+
+    private static final long SYNC_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+    private final FileChannel channel;
+    private final Writer writer;
+    private final int checkpointEvery;
+
+    private int sinceSync;
+    private long lastSync = System.nanoTime();
+
+    ResultWriter(Path output, boolean resume, int checkpointEvery) throws IOException {
+        this.checkpointEvery = checkpointEvery;
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+
+        if (resume && Files.exists(output)) {
+            channel = FileChannel.open(output, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long validLength = lastNewline(channel) + 1;
+            if (validLength < channel.size()) {
+                log.warn("Discarding {} bytes of incomplete output at end of {}", channel.size() - validLength, output);
+                channel.truncate(validLength);
+            }
+            loadCompleted(output);
+            channel.position(channel.size());
+            log.info("Resuming: {} entries already scanned in {}", completed.size(), output);
+        } else {
+            channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8),
+                1 << 16);
+    }
+
+    /**
+     * Check whether a path was already scanned by an earlier run
+     */
+    boolean isCompleted(String path) {
+        return completed.contains(path);
+    }
+
+    int getCompletedCount() {
+        return completed.size();
+    }
+
+    /**
+     * Append one result line, syncing to disk at checkpoint boundaries
+     */
+    synchronized void write(BulkScanRecord record) {
+        try {
+            writer.write(objectMapper.writeValueAsString(record));
+            writer.write('\n');
+            if (++sinceSync >= checkpointEvery || System.nanoTime() - lastSync > SYNC_INTERVAL_NANOS) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write scan result", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        writer.close();
+    }
+
+    private void sync() throws IOException {
+        writer.flush();
+        channel.force(false);
+        sinceSync = 0;
+        lastSync = System.nanoTime();
+    }
+
+    private void loadCompleted(Path output) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(output, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node = objectMapper.readTree(line);
+                if (node.hasNonNull("path") && !"ERROR".equals(node.path("status").asText())) {
+                    completed.add(node.get("path").asText());
+                }
+            }
+        }
+    }
+
+    /**
+     * Offset of the last newline in the file, or -1 if there is none
+     */
+    private static long lastNewline(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // read the whole chunk
+            }
+            for (int i = (int) (end - start) - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i;
+                }
+            }
+            end = start;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,206 @@
+package com.skyhigh.casa.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import io.minio.Result;
+import io.minio.messages.Item;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for BucketCrawler
+ */
+class BucketCrawlerTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void scansEveryListedObjectOnce() throws Exception {
+        StubSource source = new StubSource();
+        source.put("docs/ssn.txt", "employee ssn 123-45-6789");
+        for (int i = 0; i < 50; i++) {
+            source.put("docs/logs/app-" + i + ".log", "line " + i);
+        }
+        source.directory("docs/logs/");
+
+        Map<String, Long> counts = crawl(source, "docs/", true);
+
+        List<BulkScanRecord> records = readOutput();
+        assertThat(source.listedPrefix).isEqualTo("docs/");
+        assertThat(records).extracting(BulkScanRecord::getPath)
+                .containsExactlyInAnyOrderElementsOf(source.paths());
+        assertThat(records).filteredOn(record -> record.getPath().equals("s3://bucket/docs/ssn.txt"))
+                .singleElement()
+                .satisfies(record -> assertThat(record.getSensitiveTypes()).contains("SSN"));
+        assertThat(source.opened).containsExactlyInAnyOrderElementsOf(source.objects.keySet());
+        assertThat(counts.get("RESUMED")).isZero();
+    }
+
+    @Test
+    void keepsAtMostAFewObjectsPerWorkerOutstanding() throws Exception {
+        StubSource source = new StubSource();
+        for (int i = 0; i < 40; i++) {
+            source.put("k" + i + ".txt", "v" + i);
+        }
+
+        crawl(source, "", true);
+
+        // Two workers, four objects each, counted when the listing hands the next object over
+        assertThat(source.maxAhead.get()).isBetween(1, 2 * 4 + 1);
+        assertThat(readOutput()).hasSize(40);
+    }
+
+    @Test
+    void resumeDoesNotReadCompletedObjects() throws Exception {
+        StubSource source = new StubSource();
+        source.put("a.txt", "first");
+        source.put("b.txt", "second");
+        crawl(source, "", true);
+        source.put("c.txt", "third");
+        source.opened.clear();
+
+        Map<String, Long> counts = crawl(source, "", true);
+
+        assertThat(counts.get("RESUMED")).isEqualTo(2);
+        assertThat(source.opened).containsExactly("c.txt");
+        List<BulkScanRecord> records = readOutput();
+        assertThat(records).extracting(BulkScanRecord::getPath)
+                .containsExactlyInAnyOrder("s3://bucket/a.txt", "s3://bucket/b.txt", "s3://bucket/c.txt");
+        assertThat(records.get(2).getPath()).isEqualTo("s3://bucket/c.txt");
+    }
+
+    @Test
+    void recordsObjectsThatCannotBeRead() throws Exception {
+        StubSource source = new StubSource();
+        source.put("gone.txt", "deleted after listing");
+        source.missing.add("gone.txt");
+
+        Map<String, Long> counts = crawl(source, "", true);
+
+        assertThat(counts.get("ERROR")).isEqualTo(1);
+        assertThat(readOutput()).singleElement().satisfies(record -> {
+            assertThat(record.getPath()).isEqualTo("s3://bucket/gone.txt");
+            assertThat(record.getError()).contains("gone.txt");
+        });
+    }
+
+    private Map<String, Long> crawl(StubSource source, String prefix, boolean resume) throws Exception {
+        Properties properties = new Properties();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try (SensitiveDataScanner scanner = new SensitiveDataScanner(EngineProperties.scannerConfig(properties));
+             ResultWriter resultWriter = new ResultWriter(output(), resume, 10)) {
+            BulkScanner bulkScanner = new BulkScanner(scanner,
+                    new PolicyEngine(EngineProperties.policyConfig(properties)), resultWriter, new BulkScanOptions());
+            new BucketCrawler(source, "bucket", prefix, bulkScanner).crawl(pool);
+            return bulkScanner.getCounts();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<BulkScanRecord> readOutput() throws IOException {
+        List<BulkScanRecord> records = new ArrayList<>();
+        for (String line : Files.readAllLines(output(), StandardCharsets.UTF_8)) {
+            records.add(OBJECT_MAPPER.readValue(line, BulkScanRecord.class));
+        }
+        return records;
+    }
+
+    private Path output() {
+        return dir.resolve("results.ndjson");
+    }
+
+    /**
+     * In-memory bucket that tracks how far the listing runs ahead of the reads
+     */
+    private static final class StubSource implements BucketCrawler.ObjectSource {
+
+        private final Map<String, byte[]> objects = new LinkedHashMap<>();
+        private final List<String> directories = new ArrayList<>();
+        private final Set<String> missing = ConcurrentHashMap.newKeySet();
+        private final Set<String> opened = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger listed = new AtomicInteger();
+        private final AtomicInteger maxAhead = new AtomicInteger();
+        private String listedPrefix;
+
+        void put(String key, String content) {
+            objects.put(key, content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void directory(String key) {
+            directories.add(key);
+        }
+
+        List<String> paths() {
+            return objects.keySet().stream().map(key -> "s3://bucket/" + key).toList();
+        }
+
+        @Override
+        public Iterable<Result<Item>> list(String bucket, String prefix) {
+            listedPrefix = prefix;
+            List<Item> items = new ArrayList<>();
+            directories.forEach(key -> items.add(item(key, 0, true)));
+            objects.forEach((key, content) -> items.add(item(key, content.length, false)));
+            return () -> items.stream()
+                    .peek(item -> {
+                        if (!item.isDir()) {
+                            maxAhead.accumulateAndGet(listed.incrementAndGet() - opened.size(), Math::max);
+                        }
+                    })
+                    .map(Result::new)
+                    .iterator();
+        }
+
+        @Override
+        public InputStream open(String bucket, String key) throws Exception {
+            assertThat(bucket).isEqualTo("bucket");
+            opened.add(key);
+            if (missing.contains(key)) {
+                throw new FileNotFoundException("No such key: " + key);
+            }
+            return new ByteArrayInputStream(objects.get(key));
+        }
+
+        private static Item item(String key, long size, boolean dir) {
+            return new Item() {
+                @Override
+                public String objectName() {
+                    return key;
+                }
+
+                @Override
+                public long size() {
+                    return size;
+                }
+
+                @Override
+                public boolean isDir() {
+                    return dir;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.skyhigh.casa.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for ByteBufferCharSequence
+ */
+class ByteBufferCharSequenceTest {
+
+    @Test
+    void readsBytesAsLatin1Characters() {
+        ByteBufferCharSequence text = new ByteBufferCharSequence(ByteBuffer.wrap(new byte[]{'a', 'Z', (byte) 0xE9, (byte) 0xFF}));
+
+        assertThat(text.length()).isEqualTo(4);
+        assertThat(text.charAt(0)).isEqualTo('a');
+        assertThat(text.charAt(1)).isEqualTo('Z');
+        assertThat(text.charAt(2)).isEqualTo('é');
+        assertThat(text.charAt(3)).isEqualTo('ÿ');
+        assertThat(text.toString()).isEqualTo("aZéÿ");
+    }
+
+    @Test
+    void startsAtTheBufferPosition() {
+        ByteBuffer buffer = bytes("skip:kept");
+        buffer.position(5);
+
+        ByteBufferCharSequence text = new ByteBufferCharSequence(buffer);
+
+        assertThat(text.length()).isEqualTo(4);
+        assertThat(text.charAt(0)).isEqualTo('k');
+        assertThat(text.toString()).isEqualTo("kept");
+    }
+
+    @Test
+    void subSequencesIndexFromTheirOwnStart() {
+        ByteBufferCharSequence text = new ByteBufferCharSequence(bytes("hello, world"));
+
+        CharSequence world = text.subSequence(7, 12);
+        CharSequence orl = world.subSequence(1, 4);
+
+        assertThat(world.length()).isEqualTo(5);
+        assertThat(world.charAt(0)).isEqualTo('w');
+        assertThat(world.toString()).isEqualTo("world");
+        assertThat(orl.charAt(0)).isEqualTo('o');
+        assertThat(orl.toString()).isEqualTo("orl");
+        assertThat(text.subSequence(3, 3).length()).isZero();
+        assertThat(text.subSequence(3, 3).toString()).isEmpty();
+    }
+
+    @Test
+    void rejectsIndexesOutsideTheView() {
+        CharSequence world = new ByteBufferCharSequence(bytes("hello, world")).subSequence(7, 12);
+
+        assertThatThrownBy(() -> world.charAt(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> world.charAt(5)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> world.subSequence(-1, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> world.subSequence(2, 6)).isInstanceOf(IndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> world.subSequence(3, 2)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    @Test
+    void reportsMatchPositionsAsByteOffsets() {
+        ByteBufferCharSequence text = new ByteBufferCharSequence(ByteBuffer.wrap(
+                "café ssn 123-45-6789".getBytes(StandardCharsets.UTF_8)));
+
+        Matcher matcher = Pattern.compile("\\d{3}-\\d{2}-\\d{4}").matcher(text);
+
+        assertThat(matcher.find()).isTrue();
+        // The two-byte é shifts the match one position past its character offset
+        assertThat(matcher.start()).isEqualTo(10);
+        assertThat(matcher.group()).isEqualTo("123-45-6789");
+    }
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
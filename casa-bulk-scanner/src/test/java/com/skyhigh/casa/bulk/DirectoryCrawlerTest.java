@@ -0,0 +1,170 @@
+package com.skyhigh.casa.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skyhigh.casa.policy.PolicyEngine;
+import com.skyhigh.casa.scanner.SensitiveDataScanner;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for DirectoryCrawler
+ */
+class DirectoryCrawlerTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void scansEveryFileInTheTreeOnce() throws IOException {
+        Path root = dir.resolve("tree");
+        List<Path> files = createTree(root);
+
+        Map<String, Long> counts = crawl(root, true);
+
+        List<BulkScanRecord> records = readOutput();
+        assertThat(records).extracting(BulkScanRecord::getPath)
+                .containsExactlyInAnyOrderElementsOf(paths(files));
+        assertThat(byPath(records).get(path(root.resolve("a/b/ssn.txt"))).getSensitiveTypes()).contains("SSN");
+        assertThat(byPath(records).get(path(root.resolve("top.txt"))).getStatus()).isEqualTo("ALLOWED");
+        assertThat(counts.get("RESUMED")).isZero();
+    }
+
+    @Test
+    void resumeSkipsFilesAlreadyInTheOutput() throws IOException {
+        Path root = dir.resolve("tree");
+        List<Path> files = createTree(root);
+        crawl(root, true);
+        Path added = write(root.resolve("a/added.txt"), "written after the first run");
+
+        Map<String, Long> counts = crawl(root, true);
+
+        List<BulkScanRecord> records = readOutput();
+        assertThat(counts.get("RESUMED")).isEqualTo(files.size());
+        assertThat(counts.get("ALLOWED")).isEqualTo(1);
+        assertThat(records).hasSize(files.size() + 1);
+        assertThat(records.get(records.size() - 1).getPath()).isEqualTo(path(added));
+    }
+
+    @Test
+    void resumeRescansThePathOfATornLastLine() throws IOException {
+        Path root = dir.resolve("tree");
+        List<Path> files = createTree(root);
+        crawl(root, true);
+        List<BulkScanRecord> before = readOutput();
+        String torn = before.get(before.size() - 1).getPath();
+        // A crash part way through the last line: drop its newline and the closing characters
+        try (FileChannel channel = FileChannel.open(output(), StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 5);
+        }
+
+        Map<String, Long> counts = crawl(root, true);
+
+        List<BulkScanRecord> records = readOutput();
+        assertThat(counts.get("RESUMED")).isEqualTo(files.size() - 1);
+        assertThat(records).extracting(BulkScanRecord::getPath)
+                .containsExactlyInAnyOrderElementsOf(paths(files));
+        assertThat(records.get(records.size() - 1).getPath()).isEqualTo(torn);
+    }
+
+    @Test
+    void resumeRetriesErrors() throws IOException {
+        Path root = dir.resolve("tree");
+        Path file = write(root.resolve("retry.txt"), "plain text");
+        Files.writeString(output(), OBJECT_MAPPER.writeValueAsString(BulkScanRecord.builder()
+                .path(path(file)).status("ERROR").error("Permission denied").build()) + "\n");
+
+        Map<String, Long> counts = crawl(root, true);
+
+        assertThat(counts.get("RESUMED")).isZero();
+        assertThat(readOutput()).extracting(BulkScanRecord::getStatus).containsExactly("ERROR", "ALLOWED");
+    }
+
+    @Test
+    void noResumeStartsOver() throws IOException {
+        Path root = dir.resolve("tree");
+        List<Path> files = createTree(root);
+        crawl(root, true);
+
+        Map<String, Long> counts = crawl(root, false);
+
+        assertThat(counts.get("RESUMED")).isZero();
+        assertThat(readOutput()).hasSize(files.size());
+    }
+
+    /**
+     * Nested directories, plus enough files in one directory to span several batches
+     */
+    private static List<Path> createTree(Path root) throws IOException {
+        List<Path> files = new ArrayList<>();
+        files.add(write(root.resolve("top.txt"), "nothing sensitive here"));
+        files.add(write(root.resolve("a/b/ssn.txt"), "employee ssn 123-45-6789"));
+        files.add(write(root.resolve("a/b/c/deep.csv"), "id,name\n1,widget\n"));
+        Files.createDirectories(root.resolve("empty"));
+        for (int i = 0; i < 70; i++) {
+            files.add(write(root.resolve("wide/file-" + i + ".log"), "line " + i));
+        }
+        return files;
+    }
+
+    private Map<String, Long> crawl(Path root, boolean resume) throws IOException {
+        BulkScanOptions options = new BulkScanOptions();
+        Properties properties = new Properties();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try (SensitiveDataScanner scanner = new SensitiveDataScanner(EngineProperties.scannerConfig(properties));
+             ResultWriter resultWriter = new ResultWriter(output(), resume, 10)) {
+            BulkScanner bulkScanner = new BulkScanner(scanner,
+                    new PolicyEngine(EngineProperties.policyConfig(properties)), resultWriter, options);
+            pool.invoke(new DirectoryCrawler(root, bulkScanner));
+            return bulkScanner.getCounts();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private List<BulkScanRecord> readOutput() throws IOException {
+        List<BulkScanRecord> records = new ArrayList<>();
+        for (String line : Files.readAllLines(output(), StandardCharsets.UTF_8)) {
+            records.add(OBJECT_MAPPER.readValue(line, BulkScanRecord.class));
+        }
+        return records;
+    }
+
+    private Path output() {
+        return dir.resolve("results.ndjson");
+    }
+
+    private static Map<String, BulkScanRecord> byPath(List<BulkScanRecord> records) {
+        return records.stream().collect(Collectors.toMap(BulkScanRecord::getPath, Function.identity()));
+    }
+
+    private static List<String> paths(List<Path> files) {
+        return files.stream().map(DirectoryCrawlerTest::path).toList();
+    }
+
+    private static String path(Path file) {
+        return file.toAbsolutePath().toString();
+    }
+
+    private static Path write(Path file, String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
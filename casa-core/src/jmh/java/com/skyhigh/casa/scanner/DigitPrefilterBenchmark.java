@@ -0,0 +1,110 @@
+package com.skyhigh.casa.scanner;
+
+import com.skyhigh.casa.model.ScanResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Numeric pattern matching with and without the digit-run prefilter
+ *
+ * Run with: mvn -pl casa-core -Pbenchmark,vector test-compile exec:exec
+ * Without the vector profile runsVector falls back to the scalar classifier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class DigitPrefilterBenchmark {
+
+    private static final Set<String> NUMERIC_TYPES = Set.of("CREDIT_CARD", "AADHAAR", "SSN", "PHONE", "IP_ADDRESS");
+    private static final String[] WORDS = {"the", "quarterly", "report", "shows", "revenue", "growth", "across",
+            "all", "regions", "and", "customer", "retention", "improved", "while", "costs", "remained", "flat"};
+
+    /** Share of lines carrying a number, in percent */
+    @Param({"0", "5", "50"})
+    private int numericPercent;
+
+    @Param({"1048576"})
+    private int length;
+
+    private String text;
+    private SensitiveDataScanner fullScanner;
+    private SensitiveDataScanner prefilteredScanner;
+    private DigitRunPrefilter scalar;
+    private DigitRunPrefilter vector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder(length + 128);
+        while (builder.length() < length) {
+            for (int i = 0; i < 12; i++) {
+                builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            if (random.nextInt(100) < numericPercent) {
+                switch (random.nextInt(4)) {
+                    case 0 -> builder.append("card 4111 1111 1111 1111");
+                    case 1 -> builder.append("ssn ").append(100 + random.nextInt(900)).append("-45-6789");
+                    case 2 -> builder.append("call 555.").append(100 + random.nextInt(900)).append(".0199");
+                    default -> builder.append("host 10.0.").append(random.nextInt(256)).append(".7");
+                }
+            } else {
+                builder.append("in ").append(2000 + random.nextInt(25));
+            }
+            builder.append(".\n");
+        }
+        text = builder.toString();
+
+        fullScanner = new SensitiveDataScanner(ScannerConfig.builder()
+                .digitPrefilter(false)
+                .entropyEnabled(false)
+                .build());
+        prefilteredScanner = new SensitiveDataScanner(ScannerConfig.builder().entropyEnabled(false).build());
+        scalar = DigitRunPrefilter.create(false);
+        vector = DigitRunPrefilter.create(true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fullScanner.close();
+        prefilteredScanner.close();
+    }
+
+    @Benchmark
+    public List<ScanResult.SensitiveDataMatch> fullScan() {
+        return fullScanner.findMatches(text, NUMERIC_TYPES);
+    }
+
+    @Benchmark
+    public List<ScanResult.SensitiveDataMatch> prefilteredScan() {
+        return prefilteredScanner.findMatches(text, NUMERIC_TYPES);
+    }
+
+    @Benchmark
+    public DigitRunPrefilter.Runs runsScalar() {
+        return scalar.find(text, 4);
+    }
+
+    @Benchmark
+    public DigitRunPrefilter.Runs runsVector() {
+        return vector.find(text, 4);
+    }
+}
@@ -0,0 +1,11 @@
+package com.skyhigh.casa.model;
+
+/**
+ * Action taken on a file by the policy engine
+ */
+public enum PolicyAction {
+    UPLOAD,
+    BLOCK,
+    QUARANTINE,
+    ALERT
+}
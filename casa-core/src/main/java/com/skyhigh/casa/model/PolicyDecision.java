@@ -16,7 +16,7 @@ public class PolicyDecision {
 
     private boolean allowed;
     private String reason;
-    private AuditLog.PolicyAction action;
+    private PolicyAction action;
     private java.util.List<String> violatedRules;
     private int severity; // 1-10
 
@@ -26,7 +26,7 @@ public class PolicyDecision {
     public static PolicyDecision allow() {
         return PolicyDecision.builder()
                 .allowed(true)
-                .action(AuditLog.PolicyAction.UPLOAD)
+                .action(PolicyAction.UPLOAD)
                 .reason("No policy violations detected")
                 .severity(0)
                 .build();
@@ -38,7 +38,7 @@ public class PolicyDecision {
     public static PolicyDecision block(String reason, java.util.List<String> rules) {
         return PolicyDecision.builder()
                 .allowed(false)
-                .action(AuditLog.PolicyAction.BLOCK)
+                .action(PolicyAction.BLOCK)
                 .reason(reason)
                 .violatedRules(rules)
                 .severity(8)
@@ -51,7 +51,7 @@ public class PolicyDecision {
     public static PolicyDecision quarantine(String reason) {
         return PolicyDecision.builder()
                 .allowed(false)
-                .action(AuditLog.PolicyAction.QUARANTINE)
+                .action(PolicyAction.QUARANTINE)
                 .reason(reason)
                 .severity(6)
                 .build();
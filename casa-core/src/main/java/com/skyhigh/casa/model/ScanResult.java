@@ -33,6 +33,8 @@ public class ScanResult {
 
     private String contentType;
 
+    private String patternSetVersion;
+
     /**
      * Represents a single match of sensitive data
      */
@@ -45,6 +47,7 @@ public class ScanResult {
         private String pattern;
         private String matchedValue;
         private int position;
+        private Integer page; // 1-based PDF page, null when not paged
         private int severity; // 1-10
     }
 
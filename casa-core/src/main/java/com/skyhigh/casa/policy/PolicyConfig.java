@@ -0,0 +1,28 @@
+package com.skyhigh.casa.policy;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Policy engine settings
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyConfig {
+
+    @Builder.Default
+    private long maxFileSize = 5242880;
+
+    @Builder.Default
+    private boolean blockSensitiveData = true;
+
+    @Builder.Default
+    private boolean requireAuthentication = false;
+
+    @Builder.Default
+    private String allowedFileTypes = "pdf,txt,doc,docx,xls,xlsx,csv,json";
+}
@@ -1,10 +1,9 @@
 package com.skyhigh.casa.policy;
 
+import com.skyhigh.casa.model.PolicyAction;
 import com.skyhigh.casa.model.PolicyDecision;
 import com.skyhigh.casa.model.ScanResult;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,21 +14,20 @@ import java.util.List;
  * 
  * @author Bishal Thakur
  */
-@Service
 @Slf4j
 public class PolicyEngine {
 
-    @Value("${policy.max-file-size}")
-    private long maxFileSize;
+    private final long maxFileSize;
+    private final boolean blockSensitiveData;
+    private final boolean requireAuthentication;
+    private final String allowedFileTypes;
 
-    @Value("${policy.block-sensitive-data}")
-    private boolean blockSensitiveData;
-
-    @Value("${policy.require-authentication}")
-    private boolean requireAuthentication;
-
-    @Value("${policy.allowed-file-types}")
-    private String allowedFileTypes;
+    public PolicyEngine(PolicyConfig config) {
+        this.maxFileSize = config.getMaxFileSize();
+        this.blockSensitiveData = config.isBlockSensitiveData();
+        this.requireAuthentication = config.isRequireAuthentication();
+        this.allowedFileTypes = config.getAllowedFileTypes();
+    }
 
     /**
      * Evaluate policy for file upload
@@ -141,7 +139,7 @@ public class PolicyEngine {
         log.warn("Admin override applied by: {} - Reason: {}", adminId, reason);
         return PolicyDecision.builder()
                 .allowed(true)
-                .action(com.skyhigh.casa.model.AuditLog.PolicyAction.UPLOAD)
+                .action(PolicyAction.UPLOAD)
                 .reason("Admin override: " + reason)
                 .severity(0)
                 .build();
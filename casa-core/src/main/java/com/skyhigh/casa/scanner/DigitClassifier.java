@@ -0,0 +1,18 @@
+package com.skyhigh.casa.scanner;
+
+/**
+ * Classifies a block of up to 64 chars into digit and numeric-separator bitmasks
+ */
+interface DigitClassifier {
+
+    /**
+     * Set bit i of masks[0] when chars[offset + i] is an ASCII digit, and bit i of masks[1] when
+     * it is a digit or a separator that numeric patterns allow (space, '-', '.', other whitespace)
+     */
+    void classify(char[] chars, int offset, int length, long[] masks);
+
+    /**
+     * Short name for logs and benchmarks
+     */
+    String getName();
+}
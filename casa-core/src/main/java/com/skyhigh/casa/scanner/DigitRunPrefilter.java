@@ -0,0 +1,170 @@
+package com.skyhigh.casa.scanner;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+
+/**
+ * Finds the regions of a text where numeric patterns can match
+ *
+ * Credit card, Aadhaar, SSN, phone and IP address matches consist of digits and a few
+ * separators only, and start with a digit. A run is a stretch starting at a digit and
+ * continuing over digits and separators; every such match lies inside one run with at least
+ * as many digits as the pattern needs. Text is classified 64 chars at a time into digit and
+ * separator bitmasks, optionally with the Vector API, and runs are read off the masks, so
+ * blocks without digits are skipped with one test. Prose-heavy text yields few runs and the
+ * numeric patterns never look at the rest of it.
+ */
+@Slf4j
+public class DigitRunPrefilter {
+
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final int BLOCK = 64;
+    private static final int CHUNK = 64 * BLOCK;
+
+    private final DigitClassifier classifier;
+
+    DigitRunPrefilter(DigitClassifier classifier) {
+        this.classifier = classifier;
+    }
+
+    /**
+     * Prefilter with SIMD classification if requested and available, scalar otherwise
+     * On JDK 17 the scalar loop is auto-vectorized by C2 and measures faster than the incubating
+     * Vector API, so SIMD is opt-in; DigitPrefilterBenchmark compares both.
+     */
+    public static DigitRunPrefilter create(boolean vector) {
+        DigitClassifier classifier = vector ? vectorClassifier() : null;
+        return new DigitRunPrefilter(classifier != null ? classifier : new ScalarDigitClassifier());
+    }
+
+    /**
+     * Name of the classifier in use
+     */
+    public String getImplementation() {
+        return classifier.getName();
+    }
+
+    /**
+     * Find all runs with at least minDigits digits
+     */
+    public Runs find(CharSequence text, int minDigits) {
+        Runs runs = new Runs();
+        int length = text.length();
+        char[] chunk = new char[Math.min(CHUNK, Math.max(length, 1))];
+        long[] masks = new long[2];
+        int runStart = -1;
+        int runDigits = 0;
+
+        for (int chunkStart = 0; chunkStart < length; chunkStart += CHUNK) {
+            int chunkLength = Math.min(CHUNK, length - chunkStart);
+            copy(text, chunkStart, chunkLength, chunk);
+
+            for (int offset = 0; offset < chunkLength; offset += BLOCK) {
+                int blockLength = Math.min(BLOCK, chunkLength - offset);
+                classifier.classify(chunk, offset, blockLength, masks);
+                long digits = masks[0];
+                long numeric = masks[1];
+                if (runStart < 0 && digits == 0) {
+                    continue;
+                }
+
+                int base = chunkStart + offset;
+                int position = 0;
+                while (position < BLOCK) {
+                    long from = -1L << position;
+                    if (runStart < 0) {
+                        long next = digits & from;
+                        if (next == 0) {
+                            break;
+                        }
+                        position = Long.numberOfTrailingZeros(next);
+                        runStart = base + position;
+                        runDigits = 0;
+                        from = -1L << position;
+                    }
+                    long stop = ~numeric & from;
+                    if (stop == 0) {
+                        // The run continues into the next block
+                        runDigits += Long.bitCount(digits & from);
+                        break;
+                    }
+                    int end = Long.numberOfTrailingZeros(stop);
+                    runDigits += Long.bitCount(digits & from & ((1L << end) - 1));
+                    if (runDigits >= minDigits) {
+                        runs.add(runStart, base + end, runDigits);
+                    }
+                    runStart = -1;
+                    position = end;
+                }
+            }
+        }
+        if (runStart >= 0 && runDigits >= minDigits) {
+            runs.add(runStart, length, runDigits);
+        }
+        return runs;
+    }
+
+    private static void copy(CharSequence text, int start, int length, char[] target) {
+        if (text instanceof String string) {
+            string.getChars(start, start + length, target, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                target[i] = text.charAt(start + i);
+            }
+        }
+    }
+
+    private static DigitClassifier vectorClassifier() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            log.warn("Digit prefilter is scalar; run with --add-modules {} to vectorize it", VECTOR_MODULE);
+            return null;
+        }
+        try {
+            DigitClassifier classifier = (DigitClassifier) Class.forName(
+                    "com.skyhigh.casa.scanner.VectorDigitClassifier").getDeclaredConstructor().newInstance();
+            log.info("Digit prefilter uses {}", classifier.getName());
+            return classifier;
+        } catch (ClassNotFoundException e) {
+            log.warn("Digit prefilter is scalar; casa-core was built without the vector profile (-Pvector)");
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector digit prefilter unavailable, using scalar: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Runs in text order: [start, end) and the digits they contain
+     */
+    public static final class Runs {
+        private int[] data = new int[24];
+        private int size;
+
+        private void add(int start, int end, int digits) {
+            if (size * 3 == data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size * 3] = start;
+            data[size * 3 + 1] = end;
+            data[size * 3 + 2] = digits;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public int start(int index) {
+            return data[index * 3];
+        }
+
+        public int end(int index) {
+            return data[index * 3 + 1];
+        }
+
+        public int digits(int index) {
+            return data[index * 3 + 2];
+        }
+    }
+}
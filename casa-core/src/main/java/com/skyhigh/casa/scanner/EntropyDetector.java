@@ -0,0 +1,308 @@
+package com.skyhigh.casa.scanner;
+
+/**
+ * High-entropy secret detector
+ * Tokenizes text in a single pass over the characters and scores each candidate token with
+ * Shannon entropy, without allocating a String per token. Catches generic API tokens, JWTs
+ * and random passwords that do not fit a fixed regex shape.
+ *
+ * Entropy alone cannot tell a short random token from an identifier such as
+ * getUserProfileById2023, so only two kinds of token are scored: values assigned to a
+ * secret-like key (api_key=, token:, "password": ...) and, anywhere else, long base64-shaped
+ * tokens. Tokens made mostly of words and numbers are skipped either way. The threshold is a
+ * fraction of the highest entropy a token of that length and alphabet can reach, so short and
+ * long tokens are held to the same standard.
+ */
+public class EntropyDetector {
+
+    private static final int ALPHABET = 128;
+    private static final int UPPER = 1;
+    private static final int LOWER = 2;
+    private static final int DIGIT = 4;
+    private static final int SYMBOL = 8;
+    private static final int MIXED = UPPER | LOWER | DIGIT;
+    private static final int BASE64_ALPHABET = 64;
+    private static final int HEX_ALPHABET = 16;
+
+    /** Words and numbers shorter than this do not count towards a token looking like a name */
+    private static final int MIN_WORD_LENGTH = 4;
+
+    /** Longest key name looked at before a value; keeps the lookback inside the scan context */
+    private static final int MAX_KEY_LENGTH = 40;
+
+    /** Key names whose values are secrets; matched in place as substrings of the key, ignoring ASCII case */
+    private static final String[] SECRET_KEYS = {
+            "key", "token", "secret", "passw", "pwd", "auth", "credential", "bearer"};
+
+    /** Character class per ASCII char; 0 means the char ends a token */
+    private static final byte[] CLASSES = new byte[ALPHABET];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] = UPPER;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LOWER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        // '/' is left out so file paths and URLs split into short segments
+        for (char c : "+=_-.".toCharArray()) {
+            CLASSES[c] = SYMBOL;
+        }
+    }
+
+    private final boolean enabled;
+    private final int minLength;
+    private final int contextMinLength;
+    private final int maxLength;
+    private final double threshold;
+
+    public EntropyDetector(ScannerConfig config) {
+        this.enabled = config.isEntropyEnabled();
+        this.minLength = config.getEntropyMinLength();
+        this.contextMinLength = config.getEntropyContextMinLength();
+        this.maxLength = config.getEntropyMaxLength();
+        this.threshold = config.getEntropyThreshold();
+    }
+
+    /**
+     * Get the longest token that is scored
+     */
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Report every candidate token whose entropy reaches the threshold
+     * A token after a secret-like key needs contextMinLength characters and may be hex or
+     * base64; any other token needs minLength characters, upper and lower case letters and
+     * digits, and is never hex, which keeps words, identifiers, paths and digests out.
+     */
+    public void scan(CharSequence text, TokenConsumer consumer) {
+        if (!enabled) {
+            return;
+        }
+
+        int[] histogram = new int[ALPHABET];
+        int length = text.length();
+        int start = -1;
+        int classMask = 0;
+
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            int charClass = c < ALPHABET ? CLASSES[c] : 0;
+
+            // '=' separates a key from its value; only at the end of a token is it base64 padding
+            if (c == '=' && (start < 0 || !isPadding(text, i))) {
+                charClass = 0;
+            }
+            if (charClass != 0) {
+                if (start < 0) {
+                    start = i;
+                    classMask = 0;
+                }
+                classMask |= charClass;
+                continue;
+            }
+
+            if (start >= 0) {
+                score(text, start, i, classMask, histogram, consumer);
+                start = -1;
+            }
+        }
+    }
+
+    private void score(CharSequence text, int start, int end, int classMask, int[] histogram,
+            TokenConsumer consumer) {
+        int tokenLength = end - start;
+        if (tokenLength < Math.min(minLength, contextMinLength) || tokenLength > maxLength) {
+            return;
+        }
+        boolean hex = isHex(text, start, end);
+        boolean standalone = tokenLength >= minLength && !hex && (classMask & MIXED) == MIXED;
+        if (!standalone && !inSecretContext(text, start) || isWordLike(text, start, end)) {
+            return;
+        }
+
+        double entropy = entropy(text, start, end, histogram);
+        if (entropy >= threshold * maxEntropy(tokenLength, hex ? HEX_ALPHABET : BASE64_ALPHABET)) {
+            consumer.accept(start, end, entropy);
+        }
+    }
+
+    /**
+     * Highest entropy in bits per character a token of this length over this alphabet can have
+     */
+    static double maxEntropy(int length, int alphabet) {
+        return Math.log(Math.min(length, alphabet)) / Math.log(2);
+    }
+
+    /**
+     * Whether the token starting at start is the value of a secret-like key
+     * Recognizes key=value, key: value, key => value with optional quotes, and "Bearer value".
+     */
+    static boolean inSecretContext(CharSequence text, int start) {
+        int i = skipQuotesAndSpaces(text, start - 1);
+        boolean separator = false;
+        if (i >= 0 && (text.charAt(i) == '=' || text.charAt(i) == ':')) {
+            separator = true;
+            i--;
+        } else if (i >= 1 && text.charAt(i) == '>' && text.charAt(i - 1) == '=') {
+            separator = true;
+            i -= 2;
+        }
+        i = skipQuotesAndSpaces(text, i);
+
+        int keyEnd = i + 1;
+        while (i >= 0 && keyEnd - i <= MAX_KEY_LENGTH && isKeyChar(text.charAt(i))) {
+            i--;
+        }
+        int keyStart = i + 1;
+        if (keyEnd - keyStart == 0) {
+            return false;
+        }
+        if (!separator) {
+            return keyEnd - keyStart == "bearer".length() && regionMatchesLower(text, keyStart, "bearer");
+        }
+        for (String secretKey : SECRET_KEYS) {
+            for (int at = keyStart; at + secretKey.length() <= keyEnd; at++) {
+                if (regionMatchesLower(text, at, secretKey)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether text holds the lower-case ASCII word at offset, ignoring the case of text
+     */
+    private static boolean regionMatchesLower(CharSequence text, int offset, String word) {
+        for (int j = 0; j < word.length(); j++) {
+            char c = text.charAt(offset + j);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != word.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether at least two thirds of the token are words and numbers, as in camelCase and
+     * snake_case names
+     * Random tokens switch case and class too often to form many pieces of MIN_WORD_LENGTH.
+     */
+    static boolean isWordLike(CharSequence text, int start, int end) {
+        int inWords = 0;
+        int i = start;
+        while (i < end) {
+            char c = text.charAt(i);
+            int pieceStart = i;
+            if (c >= '0' && c <= '9') {
+                i = skip(text, i, end, '0', '9');
+            } else if (c >= 'A' && c <= 'Z') {
+                int upperEnd = skip(text, i, end, 'A', 'Z');
+                i = skip(text, upperEnd, end, 'a', 'z');
+                if (i == upperEnd) {
+                    // Acronym without a word after it
+                    continue;
+                }
+                // Only the last capital of a run starts the word, as in HTTPRequest
+                pieceStart = upperEnd - 1;
+            } else if (c >= 'a' && c <= 'z') {
+                i = skip(text, i, end, 'a', 'z');
+            } else {
+                i++;
+                continue;
+            }
+            if (i - pieceStart >= MIN_WORD_LENGTH) {
+                inWords += i - pieceStart;
+            }
+        }
+        return inWords * 3 >= (end - start) * 2;
+    }
+
+    /**
+     * Shannon entropy in bits per character of text[start, end)
+     * The histogram is cleared again over the same range, so only touched buckets are reset.
+     */
+    static double entropy(CharSequence text, int start, int end, int[] histogram) {
+        for (int i = start; i < end; i++) {
+            histogram[text.charAt(i)]++;
+        }
+
+        int n = end - start;
+        double sum = 0;
+        for (int i = start; i < end; i++) {
+            int count = histogram[text.charAt(i)];
+            if (count > 0) {
+                sum += count * Math.log(count);
+                histogram[text.charAt(i)] = 0;
+            }
+        }
+        return (Math.log(n) - sum / n) / Math.log(2);
+    }
+
+    private static int skip(CharSequence text, int position, int end, char from, char to) {
+        int i = position;
+        while (i < end && text.charAt(i) >= from && text.charAt(i) <= to) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isPadding(CharSequence text, int position) {
+        int i = position;
+        while (i < text.length() && text.charAt(i) == '=') {
+            i++;
+        }
+        if (i == text.length()) {
+            return true;
+        }
+        char next = text.charAt(i);
+        return next >= ALPHABET || CLASSES[next] == 0;
+    }
+
+    private static boolean isHex(CharSequence text, int start, int end) {
+        boolean upper = false;
+        boolean lower = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'f') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'F') {
+                upper = true;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return !(upper && lower);
+    }
+
+    private static int skipQuotesAndSpaces(CharSequence text, int position) {
+        int i = position;
+        while (i >= 0 && (text.charAt(i) == ' ' || text.charAt(i) == '\t'
+                || text.charAt(i) == '"' || text.charAt(i) == '\'')) {
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean isKeyChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '_' || c == '-' || c == '.';
+    }
+
+    /**
+     * Receives the bounds of a flagged token
+     */
+    @FunctionalInterface
+    public interface TokenConsumer {
+        void accept(int start, int end, double entropy);
+    }
+}
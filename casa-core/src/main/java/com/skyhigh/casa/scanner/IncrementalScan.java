@@ -0,0 +1,169 @@
+package com.skyhigh.casa.scanner;
+
+import com.skyhigh.casa.model.ScanResult;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scan state for a file that arrives in pieces
+ * Plain text is decoded and matched as chunks are fed in, so finishing only has to
+ * match the last window. Text is kept in a window that overlaps the previous batch by
+ * more than the longest match, and a match is only accepted once it starts before the
+ * overlap. Each pattern picks up the next batch where its last accepted match ended, as one
+ * pass over the whole file would, which makes the result independent of where the chunks
+ * were split.
+ * Formats that need extraction (PDF, Office) are not matched incrementally; the scan is
+ * deferred and the caller runs a full scan once all bytes are there.
+ */
+public class IncrementalScan {
+
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "csv", "json", "log");
+    private static final int SNIFF_BYTES = 1024;
+    private static final int BATCH_CHARS = 64 * 1024;
+    private static final int MIN_OVERLAP = 1024;
+    private static final int CONTEXT_CHARS = 64;
+
+    private final SensitiveDataScanner scanner;
+    private final SensitiveDataScanner.PatternSet patternSet;
+    private final ScanResult result;
+    private final int overlap;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private final StringBuilder window = new StringBuilder();
+    private final Map<String, Integer> resumeAt = new HashMap<>();
+    private ByteBuffer pending = ByteBuffer.allocate(0);
+    private int scanFrom;
+    private int windowPosition;
+    private long bytesSeen;
+    private boolean sniffed;
+    private boolean deferred;
+    private boolean finished;
+
+    IncrementalScan(SensitiveDataScanner scanner, SensitiveDataScanner.PatternSet patternSet, String fileName,
+            String contentType, int maxTokenLength) {
+        this.scanner = scanner;
+        this.patternSet = patternSet;
+        this.result = ScanResult.builder()
+                .fileName(fileName)
+                .contentType(contentType)
+                .build();
+        this.overlap = Math.max(MIN_OVERLAP, 2 * maxTokenLength);
+        this.deferred = !isTextFile(fileName);
+    }
+
+    /**
+     * Feed the next bytes of the file
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        if (finished) {
+            throw new IllegalStateException("Scan already finished");
+        }
+        if (!sniffed && length > 0) {
+            sniffed = true;
+            deferred = deferred || looksBinary(bytes, offset, length);
+        }
+        bytesSeen += length;
+        if (deferred) {
+            return;
+        }
+
+        decode(ByteBuffer.wrap(bytes, offset, length), false);
+        if (window.length() - scanFrom >= BATCH_CHARS + overlap) {
+            scanWindow(false);
+        }
+    }
+
+    /**
+     * Whether this file has to be scanned in full once complete
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    /**
+     * Get the number of bytes fed so far
+     */
+    public long getBytesSeen() {
+        return bytesSeen;
+    }
+
+    /**
+     * Match the remaining text and complete the result
+     */
+    public ScanResult finish() {
+        if (deferred) {
+            throw new IllegalStateException("Scan is deferred to a full scan");
+        }
+        if (!finished) {
+            finished = true;
+            decode(ByteBuffer.allocate(0), true);
+            scanWindow(true);
+            result.setFileSize(bytesSeen);
+            scanner.complete(result, patternSet);
+        }
+        return result;
+    }
+
+    private void decode(ByteBuffer input, boolean endOfInput) {
+        ByteBuffer in = input;
+        if (pending.hasRemaining()) {
+            in = ByteBuffer.allocate(pending.remaining() + input.remaining()).put(pending).put(input).flip();
+        }
+        CharBuffer out = CharBuffer.allocate(in.remaining() + 1);
+        decoder.decode(in, out, endOfInput);
+        if (endOfInput) {
+            decoder.flush(out);
+        }
+        out.flip();
+        window.append(out);
+
+        // Keep the bytes of a character split across chunks for the next call
+        pending = ByteBuffer.allocate(in.remaining()).put(in).flip();
+    }
+
+    /**
+     * Match the unscanned part of the window, then drop text that can no longer be part of a match
+     */
+    private void scanWindow(boolean last) {
+        int cut = last ? window.length() : window.length() - overlap;
+        if (cut <= scanFrom) {
+            return;
+        }
+        scanner.findMatches(patternSet, window, scanFrom, cut, resumeAt, windowPosition, null, null)
+                .forEach(result::addMatch);
+        if (last) {
+            return;
+        }
+
+        int keepFrom = Math.max(0, cut - CONTEXT_CHARS);
+        window.delete(0, keepFrom);
+        windowPosition += keepFrom;
+        scanFrom = cut - keepFrom;
+    }
+
+    private static boolean isTextFile(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            return false;
+        }
+        return TEXT_EXTENSIONS.contains(fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase());
+    }
+
+    private static boolean looksBinary(byte[] bytes, int offset, int length) {
+        int end = offset + Math.min(length, SNIFF_BYTES);
+        for (int i = offset; i < end; i++) {
+            if (bytes[i] == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
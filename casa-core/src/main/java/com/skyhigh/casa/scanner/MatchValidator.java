@@ -0,0 +1,19 @@
+package com.skyhigh.casa.scanner;
+
+/**
+ * Post-match check that rejects regex matches which cannot be real values
+ * Runs between the regex match and the result, on the match bounds in the scanned text,
+ * so implementations should not allocate.
+ */
+public interface MatchValidator {
+
+    /**
+     * Whether text[start, end) is a plausible value
+     */
+    boolean isValid(CharSequence text, int start, int end);
+
+    /**
+     * Short name for metrics and pattern fingerprints
+     */
+    String getName();
+}
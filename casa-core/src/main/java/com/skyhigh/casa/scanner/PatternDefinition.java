@@ -0,0 +1,29 @@
+package com.skyhigh.casa.scanner;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Detection pattern added to, replacing or disabling one of the built-in patterns
+ * A definition for a built-in type keeps that type's validator; a disabled one removes the type.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatternDefinition {
+
+    private String type;
+
+    private String regex;
+
+    /** Risk weight of a match, 1-10 */
+    private int severity;
+
+    private String description;
+
+    @Builder.Default
+    private boolean enabled = true;
+}
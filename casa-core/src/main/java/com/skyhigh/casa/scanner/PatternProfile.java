@@ -0,0 +1,35 @@
+package com.skyhigh.casa.scanner;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cost of a regex over a sample corpus, as measured by PatternProfiler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatternProfile {
+
+    private int documents;
+
+    /** Characters scanned; equal to bytes for ASCII text */
+    private long chars;
+
+    private long matches;
+
+    private double elapsedMillis;
+
+    /** Characters per second, in millions */
+    private double throughputMbPerSecond;
+
+    private String worstDocument;
+
+    private double worstDocumentMillis;
+
+    /** The worst document hit the time limit and was not scanned to the end */
+    private boolean timedOut;
+}
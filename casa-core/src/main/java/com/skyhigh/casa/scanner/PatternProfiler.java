@@ -0,0 +1,121 @@
+package com.skyhigh.casa.scanner;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures what a regex costs before it goes live
+ *
+ * The pattern is run over every corpus document the way the scanner runs it, once to warm up
+ * and once timed. Each document gets a time limit; the text is read through a CharSequence
+ * that checks the deadline, so catastrophic backtracking is cut off instead of hanging the
+ * caller.
+ */
+public class PatternProfiler {
+
+    private final long maxDocumentNanos;
+
+    public PatternProfiler(long maxDocumentMillis) {
+        this.maxDocumentNanos = maxDocumentMillis * 1_000_000;
+    }
+
+    /**
+     * Profile a regex over documents keyed by name
+     *
+     * @throws java.util.regex.PatternSyntaxException when the regex does not compile
+     */
+    public PatternProfile profile(String regex, Map<String, ? extends CharSequence> corpus) {
+        Pattern pattern = Pattern.compile(regex);
+        for (CharSequence text : corpus.values()) {
+            if (run(pattern, text) < 0) {
+                break;
+            }
+        }
+
+        PatternProfile profile = PatternProfile.builder().documents(corpus.size()).build();
+        long total = 0;
+        long worst = -1;
+        for (Map.Entry<String, ? extends CharSequence> document : corpus.entrySet()) {
+            long start = System.nanoTime();
+            long matches = run(pattern, document.getValue());
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            if (elapsed > worst) {
+                worst = elapsed;
+                profile.setWorstDocument(document.getKey());
+            }
+            if (matches < 0) {
+                profile.setTimedOut(true);
+                break;
+            }
+            profile.setChars(profile.getChars() + document.getValue().length());
+            profile.setMatches(profile.getMatches() + matches);
+        }
+
+        profile.setElapsedMillis(total / 1e6);
+        profile.setWorstDocumentMillis(Math.max(worst, 0) / 1e6);
+        profile.setThroughputMbPerSecond(total > 0 ? profile.getChars() * 1e3 / total : 0);
+        return profile;
+    }
+
+    /**
+     * Count matches in one document, -1 when it runs past the time limit
+     */
+    private long run(Pattern pattern, CharSequence text) {
+        Matcher matcher = pattern.matcher(new DeadlineCharSequence(text, System.nanoTime() + maxDocumentNanos));
+        long matches = 0;
+        try {
+            while (matcher.find()) {
+                matches++;
+            }
+        } catch (DeadlineExceededException e) {
+            return -1;
+        }
+        return matches;
+    }
+
+    /**
+     * Text view that fails once the deadline has passed
+     * The clock is read every 4096 accesses to keep the check off the matcher's hot path.
+     */
+    private static final class DeadlineCharSequence implements CharSequence {
+        private final CharSequence text;
+        private final long deadline;
+        private int accesses;
+
+        DeadlineCharSequence(CharSequence text, long deadline) {
+            this.text = text;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if ((++accesses & 0xFFF) == 0 && System.nanoTime() > deadline) {
+                throw new DeadlineExceededException();
+            }
+            return text.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return text.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return text.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+
+    private static final class DeadlineExceededException extends RuntimeException {
+        DeadlineExceededException() {
+            super(null, null, false, false);
+        }
+    }
+}
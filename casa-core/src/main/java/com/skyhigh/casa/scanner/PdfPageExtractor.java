@@ -0,0 +1,199 @@
+package com.skyhigh.casa.scanner;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Page-level PDF text extraction
+ * Large documents are split into page ranges extracted in parallel on a bounded pool.
+ * PDDocument is not thread-safe, so the calling thread extracts the first range from the
+ * document it loaded and every other range loads its own copy. Copies are paid for from a
+ * byte budget shared by all extractions (file size plus the main memory each copy may use
+ * before spilling to a scratch file); when it runs low a document gets fewer ranges, down to
+ * extracting sequentially from the one copy the caller already holds.
+ */
+@Slf4j
+public class PdfPageExtractor implements AutoCloseable {
+
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+
+    private static final int KIB = 1024;
+
+    private final int parallelMinPages;
+    private final int pagesPerTask;
+    private final long mainMemoryBytes;
+    private final int copyBudgetKib;
+    private final Semaphore copyBudget;
+    private final ThreadPoolExecutor pool;
+
+    public PdfPageExtractor(ScannerConfig config) {
+        this.parallelMinPages = config.getPdfParallelMinPages();
+        this.pagesPerTask = config.getPdfPagesPerTask();
+        this.mainMemoryBytes = config.getPdfMainMemoryBytes();
+        this.copyBudgetKib = (int) Math.min(Integer.MAX_VALUE, config.getPdfCopyBudgetBytes() / KIB);
+        this.copyBudget = new Semaphore(copyBudgetKib);
+
+        int size = config.getPdfThreads() > 0 ? config.getPdfThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        // Bounded queue with caller-runs: when saturated, the scanning thread extracts its own pages
+        pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(size * 4), runnable -> {
+                    Thread thread = new Thread(runnable, "pdf-extract-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        log.info("PDF page extraction pool initialized with {} threads and a {} KiB copy budget",
+                size, copyBudgetKib);
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Check for the PDF header
+     */
+    public static boolean isPdf(byte[] content) {
+        if (content.length < PDF_MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < PDF_MAGIC.length; i++) {
+            if (content[i] != PDF_MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Extract every page and hand its text to the handler as soon as it is available
+     * The handler is called from pool threads and must be thread-safe; results are
+     * returned in page order.
+     */
+    public <T> List<T> extract(byte[] content, PageHandler<T> handler) throws IOException {
+        try (PDDocument document = load(content)) {
+            int pageCount = document.getNumberOfPages();
+            if (pageCount < parallelMinPages) {
+                return extractRange(document, 1, pageCount, handler);
+            }
+
+            int wanted = Math.max(1, Math.min(pool.getMaximumPoolSize(), pageCount / Math.max(1, pagesPerTask)));
+            int copyKib = copyKib(content.length);
+            int copies = reserveCopies(wanted - 1, copyKib);
+            if (copies == 0) {
+                if (wanted > 1) {
+                    log.debug("No PDF copy budget left, extracting {} pages sequentially", pageCount);
+                }
+                return extractRange(document, 1, pageCount, handler);
+            }
+            try {
+                return extractParallel(document, content, pageCount, copies + 1, handler);
+            } finally {
+                copyBudget.release(copies * copyKib);
+            }
+        }
+    }
+
+    /**
+     * KiB of copy budget left, for monitoring
+     */
+    public int getAvailableCopyBudgetKib() {
+        return copyBudget.availablePermits();
+    }
+
+    private <T> List<T> extractParallel(PDDocument document, byte[] content, int pageCount, int ranges,
+            PageHandler<T> handler) throws IOException {
+        int rangeSize = (pageCount + ranges - 1) / ranges;
+        log.debug("Extracting {} PDF pages in {} ranges of {}", pageCount, ranges, rangeSize);
+
+        List<Future<List<T>>> futures = new ArrayList<>(ranges - 1);
+        List<T> results = new ArrayList<>(pageCount);
+        try {
+            for (int start = 1 + rangeSize; start <= pageCount; start += rangeSize) {
+                int first = start;
+                int last = Math.min(pageCount, start + rangeSize - 1);
+                futures.add(pool.submit(() -> {
+                    try (PDDocument copy = load(content)) {
+                        return extractRange(copy, first, last, handler);
+                    }
+                }));
+            }
+            results.addAll(extractRange(document, 1, Math.min(pageCount, rangeSize), handler));
+            for (Future<List<T>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting PDF pages", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to extract PDF pages: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    /**
+     * Load a document, keeping at most the configured main memory of stream buffers on the heap
+     */
+    private PDDocument load(byte[] content) throws IOException {
+        return PDDocument.load(content, "", null, null, MemoryUsageSetting.setupMixed(mainMemoryBytes));
+    }
+
+    /**
+     * Budget one copy of a document takes: the parsed file plus its in-memory scratch buffers
+     * A copy larger than the whole budget is charged the whole budget, so it runs alone.
+     */
+    private int copyKib(long contentLength) {
+        return (int) Math.max(1, Math.min(copyBudgetKib, (contentLength + mainMemoryBytes + KIB - 1) / KIB));
+    }
+
+    /**
+     * Take budget for as many of the wanted copies as it covers, possibly none
+     */
+    private int reserveCopies(int wanted, int copyKib) {
+        for (int copies = wanted; copies > 0; copies--) {
+            if (copyBudget.tryAcquire(copies * copyKib)) {
+                return copies;
+            }
+        }
+        return 0;
+    }
+
+    private <T> List<T> extractRange(PDDocument document, int first, int last, PageHandler<T> handler)
+            throws IOException {
+        PDFTextStripper stripper = new PDFTextStripper();
+        List<T> results = new ArrayList<>(last - first + 1);
+        for (int page = first; page <= last; page++) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IOException("PDF extraction cancelled");
+            }
+            stripper.setStartPage(page);
+            stripper.setEndPage(page);
+            results.add(handler.handle(page, stripper.getText(document)));
+        }
+        return results;
+    }
+
+    /**
+     * Consumes the text of a single page
+     */
+    @FunctionalInterface
+    public interface PageHandler<T> {
+        T handle(int page, String text);
+    }
+}
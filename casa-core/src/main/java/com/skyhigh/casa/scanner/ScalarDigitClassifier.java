@@ -0,0 +1,51 @@
+package com.skyhigh.casa.scanner;
+
+/**
+ * Table-driven digit classifier, one char at a time without branches
+ */
+final class ScalarDigitClassifier implements DigitClassifier {
+
+    private static final int ALPHABET = 128;
+    private static final int DIGIT = 1;
+    private static final int NUMERIC = 2;
+
+    private static final byte[] CLASSES = new byte[ALPHABET];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT | NUMERIC;
+        }
+        // The separators of the numeric patterns: [ -], [-.], '.' and \s
+        for (char c : " -.\t\n\u000B\f\r".toCharArray()) {
+            CLASSES[c] = NUMERIC;
+        }
+    }
+
+    @Override
+    public void classify(char[] chars, int offset, int length, long[] masks) {
+        masks[0] = 0;
+        masks[1] = 0;
+        classify(chars, offset, 0, length, masks);
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    /**
+     * Classify chars[offset + from, offset + length) into the masks, leaving lower bits as they are
+     */
+    static void classify(char[] chars, int offset, int from, int length, long[] masks) {
+        long digits = masks[0];
+        long numeric = masks[1];
+        for (int i = from; i < length; i++) {
+            char c = chars[offset + i];
+            int charClass = c < ALPHABET ? CLASSES[c] : 0;
+            digits |= (long) (charClass & DIGIT) << i;
+            numeric |= (long) (charClass >>> 1) << i;
+        }
+        masks[0] = digits;
+        masks[1] = numeric;
+    }
+}
@@ -0,0 +1,92 @@
+package com.skyhigh.casa.scanner;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Scanner settings
+ * Defaults mirror the scanner.* entries in the application's properties
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScannerConfig {
+
+    @Builder.Default
+    private String emailPattern = "\\b[A-Za-z0-9._%+-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}\\b";
+
+    @Builder.Default
+    private String creditCardPattern = "\\b(?:\\d[ -]*?){13,16}\\b";
+
+    @Builder.Default
+    private String aadhaarPattern = "\\b\\d{4}\\s\\d{4}\\s\\d{4}\\b";
+
+    @Builder.Default
+    private String awsKeyPattern = "AKIA[0-9A-Z]{16}";
+
+    @Builder.Default
+    private String passwordPattern = "(?i)(password|pwd|pass)\\s*[:=]\\s*\\S+";
+
+    /** Patterns added, replaced or disabled on top of the built-in ones */
+    @Builder.Default
+    private List<PatternDefinition> patterns = List.of();
+
+    /** Run numeric patterns only over digit runs found by DigitRunPrefilter */
+    @Builder.Default
+    private boolean digitPrefilter = true;
+
+    /** Classify digits with the Vector API; needs a -Pvector build and --add-modules jdk.incubator.vector */
+    @Builder.Default
+    private boolean digitPrefilterSimd = false;
+
+    /** Check matches with checksums and value ranges (Luhn, Verhoeff, SSN area, IPv4 octets) */
+    @Builder.Default
+    private boolean matchValidation = true;
+
+    /** Extra or replacement validators by detection type, applied when matchValidation is on */
+    @Builder.Default
+    private Map<String, MatchValidator> validators = Map.of();
+
+    /** Off by default: a heuristic that can flag generated identifiers */
+    @Builder.Default
+    private boolean entropyEnabled = false;
+
+    /** Shortest token scored outside a secret-like key=value context */
+    @Builder.Default
+    private int entropyMinLength = 32;
+
+    /** Shortest value scored after a secret-like key */
+    @Builder.Default
+    private int entropyContextMinLength = 16;
+
+    @Builder.Default
+    private int entropyMaxLength = 512;
+
+    /** Fraction of the highest entropy a token of its length and alphabet can reach */
+    @Builder.Default
+    private double entropyThreshold = 0.85;
+
+    /** PDF extraction threads, 0 = number of cores */
+    @Builder.Default
+    private int pdfThreads = 0;
+
+    @Builder.Default
+    private int pdfParallelMinPages = 16;
+
+    @Builder.Default
+    private int pdfPagesPerTask = 8;
+
+    /** Heap each loaded PDF may use for stream buffers before spilling to a scratch file */
+    @Builder.Default
+    private long pdfMainMemoryBytes = 16L * 1024 * 1024;
+
+    /** Bytes shared by all extra per-range document copies */
+    @Builder.Default
+    private long pdfCopyBudgetBytes = 256L * 1024 * 1024;
+}
@@ -0,0 +1,583 @@
+package com.skyhigh.casa.scanner;
+
+import com.skyhigh.casa.model.ScanResult;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.Tika;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Sensitive Data Scanner Engine
+ * Scans files for sensitive information using regex patterns
+ * 
+ * @author Bishal Thakur
+ */
+@Slf4j
+public class SensitiveDataScanner implements AutoCloseable {
+
+    private static final String HIGH_ENTROPY_TYPE = "HIGH_ENTROPY_SECRET";
+    private static final int HIGH_ENTROPY_SEVERITY = 4;
+    /** Highest risk entropy findings alone can give a file: enough to quarantine it, never to block it */
+    private static final int HIGH_ENTROPY_MAX_RISK = 65;
+
+    private final Tika tika = new Tika();
+    private final ScannerConfig config;
+    private final PdfPageExtractor pdfPageExtractor;
+    private final boolean ownsExtractor;
+    private final EntropyDetector entropyDetector;
+    private final DigitRunPrefilter digitRunPrefilter;
+    /** Kept across pattern updates so validator counts survive them */
+    private final Map<String, ValidationStats> validationStats = new ConcurrentHashMap<>();
+    private volatile PatternSet patternSet;
+
+    public SensitiveDataScanner(ScannerConfig config) {
+        this(config, new PdfPageExtractor(config), true);
+    }
+
+    /**
+     * Scanner that extracts PDFs on another scanner's extractor
+     * The extractor is not closed with this scanner; its owner closes it.
+     */
+    public SensitiveDataScanner(ScannerConfig config, PdfPageExtractor pdfPageExtractor) {
+        this(config, pdfPageExtractor, false);
+    }
+
+    private SensitiveDataScanner(ScannerConfig config, PdfPageExtractor pdfPageExtractor, boolean ownsExtractor) {
+        this.config = config;
+        this.pdfPageExtractor = pdfPageExtractor;
+        this.ownsExtractor = ownsExtractor;
+        this.entropyDetector = new EntropyDetector(config);
+        this.digitRunPrefilter = config.isDigitPrefilter()
+                ? DigitRunPrefilter.create(config.isDigitPrefilterSimd()) : null;
+        this.patternSet = buildPatternSet(config.getPatterns());
+    }
+
+    /**
+     * Replace the configured pattern definitions and swap the result in
+     * Scans already running finish with the pattern set they started with.
+     *
+     * @return the new pattern set version
+     */
+    public String updatePatterns(List<PatternDefinition> definitions) {
+        PatternSet updated = buildPatternSet(definitions);
+        patternSet = updated;
+        return updated.version;
+    }
+
+    private PatternSet buildPatternSet(List<PatternDefinition> definitions) {
+        Map<String, ScanPattern> patterns = new HashMap<>();
+        initializePatterns(patterns);
+
+        Set<String> disabled = new HashSet<>();
+        for (PatternDefinition definition : definitions) {
+            String type = definition.getType();
+            if (!definition.isEnabled()) {
+                patterns.remove(type);
+                disabled.add(type);
+                continue;
+            }
+            ScanPattern builtIn = patterns.get(type);
+            // A replaced regex may match more than digits, so it is no longer prefiltered
+            ScanPattern pattern = new ScanPattern(definition.getRegex(), definition.getSeverity(),
+                    definition.getDescription() != null ? definition.getDescription() : type,
+                    builtIn != null && builtIn.getRegex().equals(definition.getRegex()) ? builtIn.getMinDigits() : 0);
+            if (builtIn != null && builtIn.getValidator() != null) {
+                pattern = withValidator(pattern, type, builtIn.getValidator());
+            }
+            patterns.put(type, pattern);
+        }
+
+        if (config.isMatchValidation()) {
+            config.getValidators().forEach((type, validator) -> {
+                ScanPattern pattern = patterns.get(type);
+                if (pattern == null && !disabled.contains(type)) {
+                    throw new IllegalArgumentException("No pattern for validator type " + type);
+                }
+                if (pattern != null) {
+                    patterns.put(type, withValidator(pattern, type, validator));
+                }
+            });
+        }
+        PatternSet built = new PatternSet(patterns, config);
+        log.info("Pattern set version {} ({} patterns)", built.version, patterns.size());
+        return built;
+    }
+
+    /**
+     * Initialize scanner patterns
+     */
+    private void initializePatterns(Map<String, ScanPattern> patterns) {
+        ScannerConfig defaults = ScannerConfig.builder().build();
+        patterns.put("EMAIL", new ScanPattern(config.getEmailPattern(), 5, "Email Address"));
+        // Configured patterns are only prefiltered in their default, digits-only shape
+        patterns.put("CREDIT_CARD", new ScanPattern(config.getCreditCardPattern(), 10, "Credit Card Number",
+                config.getCreditCardPattern().equals(defaults.getCreditCardPattern()) ? 13 : 0));
+        patterns.put("AADHAAR", new ScanPattern(config.getAadhaarPattern(), 9, "Aadhaar Number",
+                config.getAadhaarPattern().equals(defaults.getAadhaarPattern()) ? 12 : 0));
+        patterns.put("AWS_ACCESS_KEY", new ScanPattern(config.getAwsKeyPattern(), 10, "AWS Access Key"));
+        patterns.put("PASSWORD", new ScanPattern(config.getPasswordPattern(), 8, "Password"));
+
+        // Additional patterns
+        patterns.put("SSN", new ScanPattern("\\b\\d{3}-\\d{2}-\\d{4}\\b", 10, "Social Security Number", 9));
+        patterns.put("PHONE", new ScanPattern("\\b\\d{3}[-.]?\\d{3}[-.]?\\d{4}\\b", 3, "Phone Number", 10));
+        patterns.put("IP_ADDRESS", new ScanPattern("\\b(?:\\d{1,3}\\.){3}\\d{1,3}\\b", 4, "IP Address", 4));
+        patterns.put("API_KEY", new ScanPattern(
+                "(?i)(api[_-]?key|apikey)\\s*[:=]\\s*['\"]?([a-zA-Z0-9_\\-]{20,})['\"]?", 9, "API Key"));
+        patterns.put("PRIVATE_KEY", new ScanPattern("-----BEGIN (RSA |EC )?PRIVATE KEY-----", 10, "Private Key"));
+
+        // Checksums and value ranges weed out digit runs that only look like identifiers
+        if (config.isMatchValidation()) {
+            validate(patterns, "CREDIT_CARD", StandardValidator.LUHN);
+            validate(patterns, "AADHAAR", StandardValidator.VERHOEFF);
+            validate(patterns, "SSN", StandardValidator.SSN_AREA);
+            validate(patterns, "IP_ADDRESS", StandardValidator.IPV4_OCTETS);
+        }
+
+        log.info("Initialized {} sensitive data patterns", patterns.size());
+    }
+
+    private void validate(Map<String, ScanPattern> patterns, String type, MatchValidator validator) {
+        patterns.put(type, withValidator(patterns.get(type), type, validator));
+    }
+
+    private ScanPattern withValidator(ScanPattern pattern, String type, MatchValidator validator) {
+        return pattern.withValidator(validator, validationStats.computeIfAbsent(type + "|" + validator.getName(),
+                key -> new ValidationStats(type, validator.getName())));
+    }
+
+    /**
+     * Get a fingerprint per detection type; a type's fingerprint changes whenever its
+     * pattern, severity or detector settings change
+     */
+    public Map<String, String> getPatternFingerprints() {
+        return patternSet.fingerprints;
+    }
+
+    /**
+     * Get the version of the whole pattern set, derived from all fingerprints
+     */
+    public String getPatternSetVersion() {
+        return patternSet.version;
+    }
+
+    /**
+     * Get the patterns in use, built-in and configured, by detection type
+     */
+    public Map<String, PatternDefinition> getPatternDefinitions() {
+        Map<String, PatternDefinition> definitions = new TreeMap<>();
+        patternSet.patterns.forEach((type, pattern) -> definitions.put(type, PatternDefinition.builder()
+                .type(type)
+                .regex(pattern.getRegex())
+                .severity(pattern.getSeverity())
+                .description(pattern.getDescription())
+                .build()));
+        return definitions;
+    }
+
+    /**
+     * Get checked and rejected match counts of every validated pattern
+     */
+    public List<ValidationStats> getValidationStats() {
+        return patternSet.patterns.values().stream()
+                .map(ScanPattern::getValidationStats)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Scan file content for sensitive data
+     * PDFs are extracted page by page, everything else goes through Tika
+     */
+    public ScanResult scan(String fileName, String contentType, byte[] content) throws IOException {
+        return scan(fileName, contentType, content, null);
+    }
+
+    /**
+     * Scan file content with only the given detection types (null for all)
+     */
+    public ScanResult scan(String fileName, String contentType, byte[] content, Set<String> types)
+            throws IOException {
+        log.info("Scanning file: {} (size: {} bytes)", fileName, content.length);
+
+        PatternSet patternSet = this.patternSet;
+        ScanResult result = ScanResult.builder()
+                .fileName(fileName)
+                .fileSize(content.length)
+                .contentType(contentType)
+                .build();
+
+        try {
+            if (PdfPageExtractor.isPdf(content)) {
+                scanPdf(patternSet, content, types, result);
+            } else {
+                // Extract text content using Apache Tika
+                String text = tika.parseToString(new ByteArrayInputStream(content));
+                log.debug("Extracted {} characters from file", text.length());
+                findMatches(patternSet, text, null, types).forEach(result::addMatch);
+            }
+        } catch (Exception e) {
+            log.error("Error scanning file: {}", e.getMessage(), e);
+            throw new IOException("Failed to scan file: " + e.getMessage(), e);
+        }
+
+        return complete(result, patternSet);
+    }
+
+    /**
+     * Scan text that needs no extraction
+     * Accepts any CharSequence, so callers can scan a mapped file without copying it into a String
+     */
+    public ScanResult scanText(String fileName, long fileSize, CharSequence text) {
+        log.info("Scanning text: {} (size: {} bytes)", fileName, fileSize);
+
+        PatternSet patternSet = this.patternSet;
+        ScanResult result = ScanResult.builder()
+                .fileName(fileName)
+                .fileSize(fileSize)
+                .contentType("text/plain")
+                .build();
+        findMatches(patternSet, text, null, null).forEach(result::addMatch);
+        return complete(result, patternSet);
+    }
+
+    /**
+     * Start a scan that is fed as the file arrives
+     * Plain text is matched chunk by chunk; other formats are deferred to a full scan
+     */
+    public IncrementalScan startIncremental(String fileName, String contentType) {
+        return new IncrementalScan(this, patternSet, fileName, contentType, entropyDetector.getMaxLength());
+    }
+
+    /**
+     * PDF extractor, for scanners that share its pool
+     */
+    public PdfPageExtractor getPdfPageExtractor() {
+        return pdfPageExtractor;
+    }
+
+    @Override
+    public void close() {
+        if (ownsExtractor) {
+            pdfPageExtractor.close();
+        }
+    }
+
+    ScanResult complete(ScanResult result, PatternSet patternSet) {
+        // Calculate overall risk score
+        result.calculateRiskScore();
+        if (result.getSensitiveTypes().equals(List.of(HIGH_ENTROPY_TYPE))) {
+            result.setRiskScore(Math.min(result.getRiskScore(), HIGH_ENTROPY_MAX_RISK));
+        }
+        result.setPatternSetVersion(patternSet.version);
+
+        log.info("Scan complete: {} sensitive data types found, risk score: {}",
+                result.getSensitiveTypes().size(), result.getRiskScore());
+        return result;
+    }
+
+    /**
+     * Scan a PDF page by page, matching each page as soon as it is extracted
+     * Falls back to Tika for documents PDFBox cannot open directly (e.g. encrypted)
+     */
+    private void scanPdf(PatternSet patternSet, byte[] bytes, Set<String> types, ScanResult result)
+            throws Exception {
+        List<List<ScanResult.SensitiveDataMatch>> pages;
+        try {
+            pages = pdfPageExtractor.extract(bytes, (page, text) -> findMatches(patternSet, text, page, types));
+        } catch (IOException e) {
+            log.debug("Page-level PDF extraction failed, falling back to Tika: {}", e.getMessage());
+            findMatches(patternSet, tika.parseToString(new ByteArrayInputStream(bytes)), null, types)
+                    .forEach(result::addMatch);
+            return;
+        }
+        log.debug("Scanned {} PDF pages", pages.size());
+        pages.forEach(matches -> matches.forEach(result::addMatch));
+    }
+
+    /**
+     * Run all patterns over extracted text
+     * Positions are relative to the text; page is null for non-paged documents
+     */
+    private List<ScanResult.SensitiveDataMatch> findMatches(PatternSet patternSet, CharSequence content,
+            Integer page, Set<String> types) {
+        return findMatches(patternSet, content, 0, 0, page, types);
+    }
+
+    /**
+     * Run the current patterns over content
+     */
+    List<ScanResult.SensitiveDataMatch> findMatches(CharSequence content, Set<String> types) {
+        return findMatches(patternSet, content, null, types);
+    }
+
+    /**
+     * Run all patterns over content[from..], using the text before from only as context
+     * Positions are reported as basePosition + index into content
+     */
+    List<ScanResult.SensitiveDataMatch> findMatches(PatternSet patternSet, CharSequence content, int from,
+            int basePosition, Integer page, Set<String> types) {
+        return findMatches(patternSet, content, from, content.length(), new HashMap<>(), basePosition, page, types);
+    }
+
+    /**
+     * Run all patterns over content[from..], keeping only matches that start before until
+     * A pattern resumes where its last match ended, as a single pass over the whole text would:
+     * resumeAt holds that end per type as basePosition + index, and is advanced past every match
+     * found here, so consecutive windows of one text find the same matches as the whole text.
+     */
+    List<ScanResult.SensitiveDataMatch> findMatches(PatternSet patternSet, CharSequence content, int from,
+            int until, Map<String, Integer> resumeAt, int basePosition, Integer page, Set<String> types) {
+        List<ScanResult.SensitiveDataMatch> matches = new ArrayList<>();
+        DigitRunPrefilter.Runs runs = null;
+
+        // Scan for each pattern
+        for (Map.Entry<String, ScanPattern> entry : patternSet.patterns.entrySet()) {
+            String patternType = entry.getKey();
+            ScanPattern scanPattern = entry.getValue();
+            if (types != null && !types.contains(patternType)) {
+                continue;
+            }
+
+            Matcher matcher = scanPattern.getPattern().matcher(content);
+            int patternFrom = Math.max(from, resumeAt.getOrDefault(patternType, basePosition) - basePosition);
+            int matchCount = 0;
+            if (digitRunPrefilter != null && scanPattern.getMinDigits() > 0) {
+                if (runs == null) {
+                    runs = digitRunPrefilter.find(content, patternSet.prefilterMinDigits);
+                }
+                // Only the runs that can hold a match; transparent bounds keep \b looking past them
+                matcher.useTransparentBounds(true).useAnchoringBounds(false);
+                for (int i = 0; i < runs.size() && runs.start(i) < until; i++) {
+                    if (runs.end(i) <= patternFrom || runs.digits(i) < scanPattern.getMinDigits()) {
+                        continue;
+                    }
+                    matcher.region(Math.max(runs.start(i), patternFrom), runs.end(i));
+                    matchCount += findAll(matcher, content, until, matches, patternType, scanPattern, resumeAt,
+                            basePosition, page);
+                }
+            } else {
+                if (patternFrom > 0) {
+                    matcher.region(patternFrom, content.length()).useTransparentBounds(true).useAnchoringBounds(false);
+                }
+                matchCount += findAll(matcher, content, until, matches, patternType, scanPattern, resumeAt,
+                        basePosition, page);
+            }
+
+            if (matchCount > 0) {
+                log.info("Pattern {} matched {} times", patternType, matchCount);
+            }
+        }
+
+        // Generic secrets that no fixed pattern describes
+        if (types != null && !types.contains(HIGH_ENTROPY_TYPE)) {
+            return matches;
+        }
+        entropyDetector.scan(content, (start, end, entropy) -> {
+            if (start < from || start >= until) {
+                return;
+            }
+            String maskedValue = maskSensitiveData(content.subSequence(start, end).toString());
+            matches.add(ScanResult.SensitiveDataMatch.builder()
+                    .type(HIGH_ENTROPY_TYPE)
+                    .pattern("High-Entropy Secret")
+                    .matchedValue(maskedValue)
+                    .position(basePosition + start)
+                    .page(page)
+                    .severity(HIGH_ENTROPY_SEVERITY)
+                    .build());
+            log.warn("Found {} ({} bits/char) at position {}: {}",
+                    HIGH_ENTROPY_TYPE, String.format("%.2f", entropy), basePosition + start, maskedValue);
+        });
+
+        return matches;
+    }
+
+    /**
+     * Find the matches of one pattern in the matcher's region that start before until
+     */
+    private int findAll(Matcher matcher, CharSequence content, int until, List<ScanResult.SensitiveDataMatch> matches,
+            String patternType, ScanPattern scanPattern, Map<String, Integer> resumeAt, int basePosition,
+            Integer page) {
+        int matchCount = 0;
+        while (matcher.find() && matcher.start() < until) {
+            resumeAt.put(patternType, basePosition + matcher.end());
+            if (scanPattern.accept(content, matcher.start(), matcher.end())) {
+                matchCount++;
+                addMatch(matches, patternType, scanPattern, matcher, basePosition, page);
+            }
+        }
+        return matchCount;
+    }
+
+    private void addMatch(List<ScanResult.SensitiveDataMatch> matches, String patternType, ScanPattern scanPattern,
+            Matcher matcher, int basePosition, Integer page) {
+        String matchedValue = matcher.group();
+        int position = basePosition + matcher.start();
+
+        // Mask sensitive value for logging
+        String maskedValue = maskSensitiveData(matchedValue);
+
+        matches.add(ScanResult.SensitiveDataMatch.builder()
+                .type(patternType)
+                .pattern(scanPattern.getDescription())
+                .matchedValue(maskedValue)
+                .position(position)
+                .page(page)
+                .severity(scanPattern.getSeverity())
+                .build());
+
+        if (page != null) {
+            log.warn("Found {} on page {} at position {}: {}", patternType, page, position, maskedValue);
+        } else {
+            log.warn("Found {} at position {}: {}", patternType, position, maskedValue);
+        }
+    }
+
+    private static String fingerprint(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Mask sensitive data for logging
+     */
+    private String maskSensitiveData(String value) {
+        if (value == null || value.length() <= 4) {
+            return "****";
+        }
+
+        int visibleChars = Math.min(4, value.length() / 4);
+        String visible = value.substring(0, visibleChars);
+        return visible + "****" + value.substring(value.length() - visibleChars);
+    }
+
+    /**
+     * Compiled patterns with their fingerprints, replaced as a whole when patterns change
+     */
+    static final class PatternSet {
+        private final Map<String, ScanPattern> patterns;
+        private final int prefilterMinDigits;
+        private final Map<String, String> fingerprints;
+        private final String version;
+
+        private PatternSet(Map<String, ScanPattern> patterns, ScannerConfig config) {
+            this.patterns = Map.copyOf(patterns);
+            this.prefilterMinDigits = patterns.values().stream()
+                    .filter(pattern -> pattern.getMinDigits() > 0)
+                    .mapToInt(ScanPattern::getMinDigits)
+                    .min()
+                    .orElse(0);
+
+            Map<String, String> fingerprints = new TreeMap<>();
+            patterns.forEach((type, pattern) ->
+                    fingerprints.put(type, fingerprint(type + "|" + pattern.getRegex() + "|" + pattern.getSeverity()
+                            + (pattern.getValidator() != null ? "|" + pattern.getValidator().getName() : ""))));
+            if (config.isEntropyEnabled()) {
+                fingerprints.put(HIGH_ENTROPY_TYPE, fingerprint(HIGH_ENTROPY_TYPE + "|" + config.getEntropyMinLength()
+                        + "|" + config.getEntropyContextMinLength() + "|" + config.getEntropyMaxLength()
+                        + "|" + config.getEntropyThreshold()
+                        + "|" + HIGH_ENTROPY_SEVERITY));
+            }
+            this.fingerprints = Collections.unmodifiableMap(fingerprints);
+            this.version = fingerprint(fingerprints.toString());
+        }
+    }
+
+    /**
+     * Inner class to hold pattern information
+     */
+    private static class ScanPattern {
+        private final String regex;
+        private final Pattern pattern;
+        private final int severity;
+        private final String description;
+        /** Digits a match needs at least, for the digit-run prefilter; 0 scans the whole text */
+        private final int minDigits;
+        private final MatchValidator validator;
+        private final ValidationStats validationStats;
+
+        public ScanPattern(String regex, int severity, String description) {
+            this(regex, severity, description, 0);
+        }
+
+        public ScanPattern(String regex, int severity, String description, int minDigits) {
+            this(regex, Pattern.compile(regex), severity, description, minDigits, null, null);
+        }
+
+        private ScanPattern(String regex, Pattern pattern, int severity, String description, int minDigits,
+                MatchValidator validator, ValidationStats validationStats) {
+            this.regex = regex;
+            this.pattern = pattern;
+            this.severity = severity;
+            this.description = description;
+            this.minDigits = minDigits;
+            this.validator = validator;
+            this.validationStats = validationStats;
+        }
+
+        ScanPattern withValidator(MatchValidator validator, ValidationStats validationStats) {
+            return new ScanPattern(regex, pattern, severity, description, minDigits, validator, validationStats);
+        }
+
+        /**
+         * Run the validator, if any, over a match
+         */
+        boolean accept(CharSequence text, int start, int end) {
+            if (validator == null) {
+                return true;
+            }
+            boolean valid = validator.isValid(text, start, end);
+            validationStats.record(valid);
+            return valid;
+        }
+
+        public String getRegex() {
+            return regex;
+        }
+
+        public Pattern getPattern() {
+            return pattern;
+        }
+
+        public int getSeverity() {
+            return severity;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getMinDigits() {
+            return minDigits;
+        }
+
+        public MatchValidator getValidator() {
+            return validator;
+        }
+
+        public ValidationStats getValidationStats() {
+            return validationStats;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.skyhigh.casa.scanner;
+
+/**
+ * Checksum and range validators for the built-in patterns
+ * All of them read the digits straight from the text and skip separators.
+ */
+public enum StandardValidator implements MatchValidator {
+
+    /** Card numbers: 13 to 19 digits with a valid Luhn check digit */
+    LUHN("luhn") {
+        @Override
+        public boolean isValid(CharSequence text, int start, int end) {
+            int sum = 0;
+            int count = 0;
+            boolean alternate = false;
+            for (int i = end - 1; i >= start; i--) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    continue;
+                }
+                if (alternate) {
+                    digit *= 2;
+                    if (digit > 9) {
+                        digit -= 9;
+                    }
+                }
+                sum += digit;
+                alternate = !alternate;
+                count++;
+            }
+            return count >= 13 && count <= 19 && sum % 10 == 0;
+        }
+    },
+
+    /** Aadhaar numbers: 12 digits, not starting with 0 or 1, with a valid Verhoeff check digit */
+    VERHOEFF("verhoeff") {
+        @Override
+        public boolean isValid(CharSequence text, int start, int end) {
+            int check = 0;
+            int position = 0;
+            int first = -1;
+            for (int i = end - 1; i >= start; i--) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    continue;
+                }
+                check = VERHOEFF_MULTIPLY[check][VERHOEFF_PERMUTE[position % 8][digit]];
+                position++;
+                first = digit;
+            }
+            return position == 12 && first > 1 && check == 0;
+        }
+    },
+
+    /** IPv4 addresses: four octets of at most 255 */
+    IPV4_OCTETS("ipv4-octets") {
+        @Override
+        public boolean isValid(CharSequence text, int start, int end) {
+            int octets = 0;
+            int value = 0;
+            int digits = 0;
+            for (int i = start; i <= end; i++) {
+                char c = i < end ? text.charAt(i) : '.';
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    digits++;
+                } else if (c == '.') {
+                    if (digits == 0 || digits > 3 || value > 255) {
+                        return false;
+                    }
+                    octets++;
+                    value = 0;
+                    digits = 0;
+                } else {
+                    return false;
+                }
+            }
+            return octets == 4;
+        }
+    },
+
+    /** SSNs: area not 000, 666 or 900-999, group not 00, serial not 0000 */
+    SSN_AREA("ssn-area") {
+        @Override
+        public boolean isValid(CharSequence text, int start, int end) {
+            int area = 0;
+            int group = 0;
+            int serial = 0;
+            int count = 0;
+            for (int i = start; i < end; i++) {
+                int digit = text.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    continue;
+                }
+                if (count < 3) {
+                    area = area * 10 + digit;
+                } else if (count < 5) {
+                    group = group * 10 + digit;
+                } else {
+                    serial = serial * 10 + digit;
+                }
+                count++;
+            }
+            return count == 9 && area != 0 && area != 666 && area < 900 && group != 0 && serial != 0;
+        }
+    };
+
+    private static final int[][] VERHOEFF_MULTIPLY = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 8, 9},
+            {1, 2, 3, 4, 0, 6, 7, 8, 9, 5},
+            {2, 3, 4, 0, 1, 7, 8, 9, 5, 6},
+            {3, 4, 0, 1, 2, 8, 9, 5, 6, 7},
+            {4, 0, 1, 2, 3, 9, 5, 6, 7, 8},
+            {5, 9, 8, 7, 6, 0, 4, 3, 2, 1},
+            {6, 5, 9, 8, 7, 1, 0, 4, 3, 2},
+            {7, 6, 5, 9, 8, 2, 1, 0, 4, 3},
+            {8, 7, 6, 5, 9, 3, 2, 1, 0, 4},
+            {9, 8, 7, 6, 5, 4, 3, 2, 1, 0}
+    };
+
+    private static final int[][] VERHOEFF_PERMUTE = {
+            {0, 1, 2, 3, 4, 5, 6, 7, 8, 9},
+            {1, 5, 7, 6, 2, 8, 3, 0, 9, 4},
+            {5, 8, 0, 3, 7, 9, 6, 1, 4, 2},
+            {8, 9, 1, 6, 0, 4, 3, 5, 2, 7},
+            {9, 4, 5, 3, 1, 2, 6, 8, 7, 0},
+            {4, 2, 8, 6, 5, 7, 3, 9, 0, 1},
+            {2, 7, 9, 3, 8, 0, 6, 4, 1, 5},
+            {7, 0, 4, 6, 9, 1, 3, 2, 5, 8}
+    };
+
+    private final String name;
+
+    StandardValidator(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,50 @@
+package com.skyhigh.casa.scanner;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Match counts of one pattern's validator: matches checked and matches rejected
+ */
+public class ValidationStats {
+
+    private final String type;
+    private final String validator;
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    ValidationStats(String type, String validator) {
+        this.type = type;
+        this.validator = validator;
+    }
+
+    void record(boolean valid) {
+        checked.increment();
+        if (!valid) {
+            rejected.increment();
+        }
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getValidator() {
+        return validator;
+    }
+
+    public long getChecked() {
+        return checked.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Share of checked matches that were rejected, 0 before any check
+     */
+    public double getRejectionRate() {
+        long total = getChecked();
+        return total == 0 ? 0 : (double) getRejected() / total;
+    }
+}
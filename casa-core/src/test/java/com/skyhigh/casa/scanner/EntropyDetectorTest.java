@@ -0,0 +1,122 @@
+package com.skyhigh.casa.scanner;
+
+import com.skyhigh.casa.model.ScanResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for EntropyDetector
+ */
+class EntropyDetectorTest {
+
+    private static final String RANDOM_40 = "q7Xr2LpZ9vKm4TnB8wYc1HdF6sJg3AeU0oNiPbRt";
+    private static final String RANDOM_20 = "Zk8pQ2vX7mLr4TnB9wYc";
+
+    private final EntropyDetector detector = new EntropyDetector(ScannerConfig.builder()
+            .entropyEnabled(true)
+            .build());
+
+    @Test
+    void disabledByDefault() {
+        EntropyDetector defaults = new EntropyDetector(new ScannerConfig());
+
+        assertThat(flagged(defaults, "token=" + RANDOM_40)).isEmpty();
+    }
+
+    @Test
+    void ignoresGeneratedIdentifiers() {
+        assertThat(flagged("Attached MyCompanyInvoice2024Final for review")).isEmpty();
+        assertThat(flagged("User user = service.getUserProfileById2023(id);")).isEmpty();
+        assertThat(flagged("Installed WindowsUpdateKB5034441x last night")).isEmpty();
+        assertThat(flagged("MyCompanyInvoice2024Final getUserProfileById2023 WindowsUpdateKB5034441x")).isEmpty();
+    }
+
+    @Test
+    void ignoresLongIdentifiersAndPaths() {
+        assertThat(flagged("class SomeVeryLongJavaClassNameForTesting2024Impl extends Base")).isEmpty();
+        assertThat(flagged("new ProcessHTTPRequestHandlerV2Factory()")).isEmpty();
+        assertThat(flagged("see /usr/local/share/applications/Example2024Viewer/config")).isEmpty();
+    }
+
+    @Test
+    void ignoresStandaloneHexDigests() {
+        assertThat(flagged("sha256 9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")).isEmpty();
+    }
+
+    @Test
+    void flagsLongStandaloneBase64Token() {
+        assertThat(flagged("use " + RANDOM_40 + " to connect")).containsExactly(RANDOM_40);
+    }
+
+    @Test
+    void flagsShortValuesOfSecretKeys() {
+        assertThat(flagged("api_key=" + RANDOM_20)).containsExactly(RANDOM_20);
+        assertThat(flagged("{\"password\": \"" + RANDOM_20 + "\"}")).containsExactly(RANDOM_20);
+        assertThat(flagged("Authorization: Bearer " + RANDOM_20)).containsExactly(RANDOM_20);
+        assertThat(flagged("client_secret => '" + RANDOM_20 + "'")).containsExactly(RANDOM_20);
+    }
+
+    @Test
+    void matchesSecretKeysIgnoringCase() {
+        String[] values = {"API_KEY=v", "X-Auth-Token: v", "DB.PassWord = \"v", "bearer v", "BEARER v"};
+        for (String value : values) {
+            assertThat(EntropyDetector.inSecretContext(value, value.length() - 1)).as(value).isTrue();
+        }
+        String[] others = {"invoice_id=v", "Bearers v", "token v", "=v"};
+        for (String value : others) {
+            assertThat(EntropyDetector.inSecretContext(value, value.length() - 1)).as(value).isFalse();
+        }
+    }
+
+    @Test
+    void ignoresShortValuesOfOtherKeys() {
+        assertThat(flagged("invoice=" + RANDOM_20)).isEmpty();
+        assertThat(flagged("title: " + RANDOM_20)).isEmpty();
+    }
+
+    @Test
+    void ignoresIdentifiersAssignedToSecretKeys() {
+        assertThat(flagged("token=getUserProfileById2023")).isEmpty();
+        assertThat(flagged("api_key: MyCompanyInvoice2024Final")).isEmpty();
+    }
+
+    @Test
+    void keepsBase64PaddingWithTheToken() {
+        String padded = RANDOM_40 + "==";
+
+        assertThat(flagged(padded + " end")).containsExactly(padded);
+    }
+
+    @Test
+    void entropyFindingsAloneDoNotBlock() {
+        SensitiveDataScanner scanner = new SensitiveDataScanner(ScannerConfig.builder()
+                .entropyEnabled(true)
+                .build());
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            text.append("token=").append(RANDOM_40, i, RANDOM_40.length()).append(RANDOM_40, 0, i).append('\n');
+        }
+
+        try (scanner) {
+            ScanResult result = scanner.scanText("secrets.txt", text.length(), text);
+
+            assertThat(result.getSensitiveTypes()).containsExactly("HIGH_ENTROPY_SECRET");
+            assertThat(result.getMatches()).hasSize(10);
+            assertThat(result.getRiskScore()).isBetween(40, 69);
+        }
+    }
+
+    private List<String> flagged(String text) {
+        return flagged(detector, text);
+    }
+
+    private static List<String> flagged(EntropyDetector detector, String text) {
+        List<String> tokens = new ArrayList<>();
+        detector.scan(text, (start, end, entropy) -> tokens.add(text.substring(start, end)));
+        return tokens;
+    }
+}
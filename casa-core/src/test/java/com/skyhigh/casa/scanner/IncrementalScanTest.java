@@ -0,0 +1,79 @@
+package com.skyhigh.casa.scanner;
+
+import com.skyhigh.casa.model.ScanResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for IncrementalScan
+ */
+class IncrementalScanTest {
+
+    /** Far enough in that the first batch is scanned while the run is still in the window */
+    private static final int RUN_OFFSET = 70_000;
+    private static final String SPACED_RUN = "4111 1111 1111 1111 4111 1111 1111";
+
+    private final SensitiveDataScanner scanner = new SensitiveDataScanner(new ScannerConfig());
+
+    @AfterEach
+    void close() {
+        scanner.close();
+    }
+
+    @Test
+    void chunkedScanMatchesWholeFileAtEverySplitInsideARun() {
+        String text = filler(RUN_OFFSET) + SPACED_RUN + " and again " + SPACED_RUN + "\n" + filler(20_000);
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        List<String> whole = describe(scanner.scanText("whole.txt", bytes.length, text));
+        assertThat(whole).isNotEmpty();
+
+        // The first batch is cut where its overlap starts, so this walks the cut through the run
+        int overlap = Math.max(1024, 2 * new ScannerConfig().getEntropyMaxLength());
+        for (int split = RUN_OFFSET - 2; split <= RUN_OFFSET + SPACED_RUN.length() + 2; split++) {
+            IncrementalScan scan = scanner.startIncremental("chunked.txt", "text/plain");
+            int first = split + overlap;
+            scan.update(bytes, 0, first);
+            scan.update(bytes, first, bytes.length - first);
+
+            assertThat(describe(scan.finish())).as("split at %d", split).isEqualTo(whole);
+        }
+    }
+
+    @Test
+    void chunkedScanMatchesWholeFileForSmallChunks() {
+        String text = filler(RUN_OFFSET) + SPACED_RUN + " mail jane.doe@example.com " + filler(90_000)
+                + SPACED_RUN + "\n";
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        List<String> whole = describe(scanner.scanText("whole.txt", bytes.length, text));
+
+        for (int chunk : new int[] {1_000, 4_093, 65_537}) {
+            IncrementalScan scan = scanner.startIncremental("chunked.txt", "text/plain");
+            for (int offset = 0; offset < bytes.length; offset += chunk) {
+                scan.update(bytes, offset, Math.min(chunk, bytes.length - offset));
+            }
+
+            assertThat(describe(scan.finish())).as("chunks of %d", chunk).isEqualTo(whole);
+        }
+    }
+
+    private static List<String> describe(ScanResult result) {
+        return result.getMatches().stream()
+                .map(match -> match.getType() + "@" + match.getPosition())
+                .sorted()
+                .toList();
+    }
+
+    private static String filler(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("Quarterly report line ").append(text.length() % 97).append(" nothing to see.\n");
+        }
+        text.setLength(length);
+        return text.toString();
+    }
+}
@@ -0,0 +1,128 @@
+package com.skyhigh.casa.scanner;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for StandardValidator
+ */
+class StandardValidatorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "4111111111111111",
+            "4111 1111 1111 1111",
+            "5555-5555-5555-4444",
+            "378282246310005",
+            "6011000990139424",
+            "4222222222222",
+            "6221260000000000001"})
+    void luhnAcceptsValidCardNumbers(String number) {
+        assertThat(valid(StandardValidator.LUHN, number)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "4111111111111112",
+            "4111 1111 1111 1121",
+            "79927398713",
+            "000000000000",
+            "40000000000000000000"})
+    void luhnRejectsBadCheckDigitsAndLengths(String number) {
+        assertThat(valid(StandardValidator.LUHN, number)).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"499118665246", "2341 2341 2346", "9876-5432-1012"})
+    void verhoeffAcceptsValidAadhaarNumbers(String number) {
+        assertThat(valid(StandardValidator.VERHOEFF, number)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "499118665245",
+            "234123412364",
+            "2363",
+            "123412341234",
+            "0499118665246"})
+    void verhoeffRejectsBadCheckDigitsLengthsAndLeadingDigits(String number) {
+        assertThat(valid(StandardValidator.VERHOEFF, number)).isFalse();
+    }
+
+    @Test
+    void verhoeffCatchesEveryAdjacentTransposition() {
+        String valid = "499118665246";
+        for (int i = 0; i + 1 < valid.length(); i++) {
+            if (valid.charAt(i) == valid.charAt(i + 1)) {
+                continue;
+            }
+            char[] swapped = valid.toCharArray();
+            swapped[i] = valid.charAt(i + 1);
+            swapped[i + 1] = valid.charAt(i);
+            assertThat(valid(StandardValidator.VERHOEFF, new String(swapped))).as("swap at %d", i).isFalse();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"123-45-6789", "001-01-0001", "665-12-3456", "899-99-9999", "123456789"})
+    void ssnAreaAcceptsAssignableNumbers(String number) {
+        assertThat(valid(StandardValidator.SSN_AREA, number)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "000-12-3456",
+            "666-12-3456",
+            "900-12-3456",
+            "999-12-3456",
+            "123-00-4567",
+            "123-45-0000",
+            "123-45-678"})
+    void ssnAreaRejectsUnassignableNumbers(String number) {
+        assertThat(valid(StandardValidator.SSN_AREA, number)).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0.0.0.0", "10.0.0.1", "192.168.1.254", "255.255.255.255", "01.2.3.4"})
+    void ipv4AcceptsOctetsUpTo255(String address) {
+        assertThat(valid(StandardValidator.IPV4_OCTETS, address)).isTrue();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "256.1.1.1",
+            "1.2.3.999",
+            "1.2.3",
+            "1.2.3.4.5",
+            "1..3.4",
+            "1.2.3.",
+            "1234.1.1.1",
+            "1.2.3.4a"})
+    void ipv4RejectsBadOctets(String address) {
+        assertThat(valid(StandardValidator.IPV4_OCTETS, address)).isFalse();
+    }
+
+    @Test
+    void validatesOnlyTheGivenRange() {
+        String text = "card 4111 1111 1111 1111, ip 10.0.0.300";
+
+        assertThat(StandardValidator.LUHN.isValid(text, 5, 24)).isTrue();
+        assertThat(StandardValidator.IPV4_OCTETS.isValid(text, 29, 37)).isTrue();
+        assertThat(StandardValidator.IPV4_OCTETS.isValid(text, 29, text.length())).isFalse();
+    }
+
+    @Test
+    void namesAreStable() {
+        assertThat(StandardValidator.LUHN.getName()).isEqualTo("luhn");
+        assertThat(StandardValidator.VERHOEFF.getName()).isEqualTo("verhoeff");
+        assertThat(StandardValidator.SSN_AREA.getName()).isEqualTo("ssn-area");
+        assertThat(StandardValidator.IPV4_OCTETS.getName()).isEqualTo("ipv4-octets");
+    }
+
+    private static boolean valid(StandardValidator validator, String text) {
+        return validator.isValid(text, 0, text.length());
+    }
+}
@@ -0,0 +1,47 @@
+package com.skyhigh.casa.scanner;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD digit classifier on the JDK Vector API
+ * Compares a full vector of chars per step, so a 64-char block takes two to eight steps
+ * depending on the CPU's vector width. Only compiled in with the vector profile (-Pvector) and
+ * only loaded when the jdk.incubator.vector module is present (run with --add-modules
+ * jdk.incubator.vector); DigitRunPrefilter falls back to the scalar classifier otherwise.
+ */
+final class VectorDigitClassifier implements DigitClassifier {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    @Override
+    public void classify(char[] chars, int offset, int length, long[] masks) {
+        long digits = 0;
+        long numeric = 0;
+        int lanes = SPECIES.length();
+        int i = 0;
+        for (; i + lanes <= length; i += lanes) {
+            ShortVector v = ShortVector.fromCharArray(SPECIES, chars, offset + i);
+            // Unsigned range checks: c - lo < n
+            VectorMask<Short> digit = v.sub((short) '0').compare(VectorOperators.UNSIGNED_LT, (short) 10);
+            VectorMask<Short> separator = v.sub((short) '\t').compare(VectorOperators.UNSIGNED_LT, (short) 5)
+                    .or(v.compare(VectorOperators.EQ, (short) ' '))
+                    .or(v.compare(VectorOperators.EQ, (short) '-'))
+                    .or(v.compare(VectorOperators.EQ, (short) '.'));
+            digits |= digit.toLong() << i;
+            numeric |= digit.or(separator).toLong() << i;
+        }
+        masks[0] = digits;
+        masks[1] = numeric;
+        if (i < length) {
+            ScalarDigitClassifier.classify(chars, offset, i, length, masks);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.length() + "x16";
+    }
+}